@@ -0,0 +1,78 @@
+package org.sagebionetworks.ids;
+
+/**
+ * A contiguous range of IDs issued by a single call to the ID generator. Both
+ * the first and the last ID are included in the range.
+ *
+ */
+public class BatchOfIds {
+
+	private final long firstId;
+	private final long lastId;
+
+	public BatchOfIds(long firstId, long lastId) {
+		if (lastId < firstId) {
+			throw new IllegalArgumentException("The last ID cannot be less than the first ID");
+		}
+		this.firstId = firstId;
+		this.lastId = lastId;
+	}
+
+	/**
+	 * The first ID of the range (inclusive).
+	 * 
+	 * @return
+	 */
+	public long getFirstId() {
+		return firstId;
+	}
+
+	/**
+	 * The last ID of the range (inclusive).
+	 * 
+	 * @return
+	 */
+	public long getLastId() {
+		return lastId;
+	}
+
+	/**
+	 * The number of IDs in this range.
+	 * 
+	 * @return
+	 */
+	public int getCount() {
+		return (int) (lastId - firstId + 1);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (firstId ^ (firstId >>> 32));
+		result = prime * result + (int) (lastId ^ (lastId >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BatchOfIds other = (BatchOfIds) obj;
+		if (firstId != other.firstId)
+			return false;
+		if (lastId != other.lastId)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchOfIds [firstId=" + firstId + ", lastId=" + lastId + "]";
+	}
+
+}
@@ -13,6 +13,17 @@ public interface IdGenerator {
 	 */
 	public Long generateNewId(IdType type);
 	
+	/**
+	 * Generate a contiguous batch of new IDs with a single call to the ID
+	 * database.
+	 * 
+	 * @param type
+	 * @param count The number of IDs to generate. Must be between one and
+	 *              {@link IdGeneratorImpl#MAX_BATCH_SIZE}.
+	 * @return The range of IDs that were reserved for the caller.
+	 */
+	public BatchOfIds generateNewIds(IdType type, int count);
+	
 	/**
 	 * Ensure that the given ID is reserved.  If the ID is not already reserved then, 
 	 * this method will reserve it and all values below it.
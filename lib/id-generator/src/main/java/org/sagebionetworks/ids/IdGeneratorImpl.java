@@ -38,6 +38,12 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 	// Get the current max.
 	public static final String MAX_ID = "SELECT MAX(ID) FROM %1$S";
 	
+	/**
+	 * The maximum number of IDs that can be issued with a single call to
+	 * {@link #generateNewIds(IdType, int)}.
+	 */
+	public static final int MAX_BATCH_SIZE = 10_000;
+	
 	@Autowired
 	JdbcTemplate idGeneratorJdbcTemplate;
 
@@ -53,6 +59,22 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		return idGeneratorJdbcTemplate.queryForObject("CALL generateNewId(?)", Long.class, type.name());
 	}
 	
+	/**
+	 * Note: This is a call to a separate database and does not participate in the
+	 * caller's transaction. Do not add transaction annotations to this method.
+	 */
+	@Override
+	public BatchOfIds generateNewIds(IdType type, int count) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null");
+		}
+		if (count < 1 || count > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("Count must be between 1 and " + MAX_BATCH_SIZE);
+		}
+		Long firstId = idGeneratorJdbcTemplate.queryForObject("CALL generateNewIds(?,?)", Long.class, type.name(), count);
+		return new BatchOfIds(firstId, firstId + count - 1);
+	}
+	
 	/**
 	 * Note: This is a call to a separate database and does not participate in the
 	 * caller's transaction. Do not add transaction annotations to this method.
@@ -93,6 +115,7 @@ public class IdGeneratorImpl implements IdGenerator, InitializingBean{
 		if(!con.getAutoCommit()) throw new RuntimeException("The connections from this datasources should be set to auto-commit");
 		
 		createStoredProcedure("generateNewId.ddl.sql");
+		createStoredProcedure("generateNewIds.ddl.sql");
 		createStoredProcedure("reserveId.ddl.sql");
 		
 		// Make sure we have a table for each type
@@ -0,0 +1,26 @@
+CREATE PROCEDURE generateNewIds(IN typeName VARCHAR(256), IN idCount INT)
+    MODIFIES SQL DATA
+    SQL SECURITY INVOKER
+BEGIN
+	DECLARE i INT DEFAULT 1;
+	
+	SET SESSION TRANSACTION ISOLATION LEVEL READ COMMITTED;
+ 
+ 	/*
+ 	A single multi-row INSERT is a 'simple insert' (the number of rows is known in advance)
+ 	so InnoDB allocates the AUTO_INCREMENT values for all of its rows as one consecutive range.
+ 	LAST_INSERT_ID() returns the first value of that range. As with generateNewId, the
+ 	stored procedure guarantees both calls use the same connection WITHOUT using a transaction.
+ 	*/
+	SET @sql_text:=CONCAT('INSERT INTO ',typeName,' (CREATED_ON) VALUES (NOW())');
+	WHILE i < idCount DO
+		SET @sql_text:=CONCAT(@sql_text, ',(NOW())');
+		SET i = i + 1;
+	END WHILE;
+	PREPARE stmt from @sql_text;
+	EXECUTE stmt; 
+    DEALLOCATE PREPARE stmt;
+	
+	SELECT LAST_INSERT_ID() as FIRST_ID;
+	
+END
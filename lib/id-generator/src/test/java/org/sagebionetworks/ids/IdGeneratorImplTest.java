@@ -2,6 +2,7 @@ package org.sagebionetworks.ids;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashSet;
@@ -61,6 +62,48 @@ public class IdGeneratorImplTest {
 		assertEquals(next.longValue(), id.longValue()+1);
 	}
 	
+	@Test
+	public void testGenerateNewIds() {
+		Long before = idGenerator.generateNewId(IdType.ENTITY_ID);
+		// call under test
+		BatchOfIds batch = idGenerator.generateNewIds(IdType.ENTITY_ID, 100);
+		assertEquals(before + 1, batch.getFirstId());
+		assertEquals(before + 100, batch.getLastId());
+		assertEquals(100, batch.getCount());
+		// the next ID must follow the batch
+		Long after = idGenerator.generateNewId(IdType.ENTITY_ID);
+		assertEquals(batch.getLastId() + 1, after.longValue());
+	}
+	
+	@Test
+	public void testGenerateNewIdsSingle() {
+		Long before = idGenerator.generateNewId(IdType.ENTITY_ID);
+		// call under test
+		BatchOfIds batch = idGenerator.generateNewIds(IdType.ENTITY_ID, 1);
+		assertEquals(new BatchOfIds(before + 1, before + 1), batch);
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithCountTooSmall() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(IdType.ENTITY_ID, 0);
+		});
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithCountTooLarge() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(IdType.ENTITY_ID, IdGeneratorImpl.MAX_BATCH_SIZE + 1);
+		});
+	}
+	
+	@Test
+	public void testGenerateNewIdsWithNullType() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			idGenerator.generateNewIds(null, 10);
+		});
+	}
+	
 	@Test
 	public void testGetMaxValueForTypeWithValue() {
 		// activity will always have a value
@@ -223,6 +223,31 @@ public interface SubmissionDAO {
 	 */
 	Map<Long, Long> getSumOfSubmissionCRCsForEachEvaluation(List<Long> evaluationIds);
 
+	/**
+	 * For the submissions of the given evaluation, computes the sum of the CRC of
+	 * the submissions in each ID bucket. A submission is in bucket (ID DIV
+	 * bucketWidth).
+	 * 
+	 * @param evaluationId  The id of an evaluation
+	 * @param bucketWidth   The width of each ID bucket to sum
+	 * @param filterWidth   The width of the filter buckets, a multiple of the
+	 *                      bucketWidth
+	 * @param filterBuckets Only submissions within these filter buckets are
+	 *                      included
+	 * @return For each bucket, the sum of the CRC of the submissions in the bucket
+	 */
+	Map<Long, Long> getSumOfSubmissionCRCsForEachBucket(Long evaluationId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets);
+
+	/**
+	 * @param evaluationId The id of an evaluation
+	 * @param bucketWidth  The width of each ID bucket
+	 * @param buckets      The ID buckets to include
+	 * @return The list of {@link IdAndEtag} of the submissions associated with the
+	 *         evaluation with the given id, within the given ID buckets
+	 */
+	List<IdAndEtag> getSubmissionIdAndEtagInBuckets(Long evaluationId, long bucketWidth, List<Long> buckets);
+
 	/**
 	 * @param submissionIds
 	 * @param maxAnnotationChars
@@ -112,6 +112,10 @@ public class SubmissionDAOImpl implements SubmissionDAO {
 	private static final String EVAL_ID = DBOConstants.PARAM_SUBMISSION_EVAL_ID;
 	private static final String STATUS = DBOConstants.PARAM_SUBSTATUS_STATUS;
 	private static final String CRC = "CRC";
+	private static final String BUCKET = "BUCKET";
+	private static final String BUCKET_WIDTH = "bucketWidth";
+	private static final String FILTER_WIDTH = "filterWidth";
+	private static final String BUCKETS = "buckets";
 	private static final String PROJECT_ID = "PROJECT_ID";
 	private static final String CREATED_BY = "CREATED_BY";
 	private static final String MODIFIED_BY = "MODIFIED_BY";
@@ -292,6 +296,18 @@ public class SubmissionDAOImpl implements SubmissionDAO {
 			+ " WHERE s."+ COL_SUBMISSION_EVAL_ID + " IN (:"+ EVAL_ID +")"
 			+ " GROUP BY "+COL_SUBMISSION_EVAL_ID;
 	
+	private static final String SELECT_SUM_CRC_SUBMISSIONS_BY_BUCKET = "SELECT s." + COL_SUBMISSION_ID + " DIV :" + BUCKET_WIDTH + " AS " + BUCKET + ","
+			// The evaluation is the benefactor of the submission in the replica
+			+ " SUM(CRC32(CONCAT(s."+COL_SUBMISSION_ID + ",'-', r."+COL_SUBSTATUS_ETAG + ",'-', s." + COL_SUBMISSION_EVAL_ID + "))) AS " + CRC
+			+ " FROM "+ TABLE_SUBMISSION + " s INNER JOIN " + TABLE_SUBSTATUS + " r"
+			+ " ON (s." + COL_SUBMISSION_ID + " = r."+ COL_SUBSTATUS_SUBMISSION_ID +") "
+			+ " WHERE s."+ COL_SUBMISSION_EVAL_ID + " = :"+ EVAL_ID
+			+ " AND s." + COL_SUBMISSION_ID + " DIV :" + FILTER_WIDTH + " IN (:" + BUCKETS + ")"
+			+ " GROUP BY " + BUCKET;
+	
+	private static final String SELECT_SUBMISSION_ID_AND_ETAG_IN_BUCKETS = SELECT_SUBMISSION_ID_AND_ETAG
+			+ " AND s." + COL_SUBMISSION_ID + " DIV :" + BUCKET_WIDTH + " IN (:" + BUCKETS + ")";
+	
 	private static final String SELECT_SUBMISSION_DATA = "SELECT"
 			+ " s." + COL_SUBMISSION_ID
 			+ ", s." + COL_SUBMISSION_NAME
@@ -850,6 +866,58 @@ public class SubmissionDAOImpl implements SubmissionDAO {
 		return result;
 	}
 	
+	@Override
+	public Map<Long, Long> getSumOfSubmissionCRCsForEachBucket(Long evaluationId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets) {
+		ValidateArgument.required(evaluationId, "evaluationId");
+		ValidateArgument.required(filterBuckets, "filterBuckets");
+		ValidateArgument.requirement(bucketWidth > 0, "The bucketWidth must be greater than zero");
+		ValidateArgument.requirement(filterWidth % bucketWidth == 0, "The filterWidth must be a multiple of the bucketWidth");
+		
+		if (filterBuckets.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		MapSqlParameterSource param = new MapSqlParameterSource(EVAL_ID, evaluationId);
+		param.addValue(BUCKET_WIDTH, bucketWidth);
+		param.addValue(FILTER_WIDTH, filterWidth);
+		param.addValue(BUCKETS, filterBuckets);
+		
+		Map<Long, Long> result = new HashMap<>();
+		
+		namedJdbcTemplate.query(SELECT_SUM_CRC_SUBMISSIONS_BY_BUCKET, param, (ResultSet rs) -> {
+			result.put(rs.getLong(BUCKET), rs.getLong(CRC));
+		});
+		
+		return result;
+	}
+	
+	@Override
+	public List<IdAndEtag> getSubmissionIdAndEtagInBuckets(Long evaluationId, long bucketWidth, List<Long> buckets) {
+		ValidateArgument.required(evaluationId, "evaluationId");
+		ValidateArgument.required(buckets, "buckets");
+		ValidateArgument.requirement(bucketWidth > 0, "The bucketWidth must be greater than zero");
+		
+		if (buckets.isEmpty()) {
+			return Collections.emptyList();
+		}
+		
+		MapSqlParameterSource param = new MapSqlParameterSource(EVAL_ID, evaluationId);
+		param.addValue(BUCKET_WIDTH, bucketWidth);
+		param.addValue(BUCKETS, buckets);
+		
+		List<IdAndEtag> result = new ArrayList<>();
+		
+		namedJdbcTemplate.query(SELECT_SUBMISSION_ID_AND_ETAG_IN_BUCKETS, param, (ResultSet rs) -> {
+			Long id = rs.getLong(COL_SUBMISSION_ID);
+			String etag = rs.getString(COL_SUBSTATUS_ETAG);
+			
+			result.add(new IdAndEtag(id, etag, evaluationId));
+		});
+
+		return result;
+	}
+	
 	@Override
 	public List<ObjectDataDTO> getSubmissionData(List<Long> submissionIds, int maxAnnotationChars) {
 		ValidateArgument.required(submissionIds, "submissionsIds");
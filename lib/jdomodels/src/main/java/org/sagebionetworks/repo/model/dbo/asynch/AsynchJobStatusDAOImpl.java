@@ -16,6 +16,7 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_ASYNCH_J
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_ASYNCH_JOB_STARTED_ON;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_ASYNCH_JOB_STATE;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,6 +30,7 @@ import org.sagebionetworks.repo.model.asynch.AsynchJobState;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.asynch.AsynchronousRequestBody;
 import org.sagebionetworks.repo.model.asynch.AsynchronousResponseBody;
+import org.sagebionetworks.repo.model.dao.asynch.AsynchJobProgress;
 import org.sagebionetworks.repo.model.dao.asynch.AsynchronousJobStatusDAO;
 import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
 import org.sagebionetworks.repo.model.dbo.SinglePrimaryKeySqlParameterSource;
@@ -133,6 +135,23 @@ public class AsynchJobStatusDAOImpl implements AsynchronousJobStatusDAO {
 		jdbcTemplate.update(SQL_UPDATE_PROGRESS, progressCurrent, progressTotal, progressMessage, now, now, jobId);
 	}
 
+	@WriteTransaction
+	@Override
+	public void updateJobProgressBatch(List<AsynchJobProgress> progress) {
+		if(progress == null) throw new IllegalArgumentException("Progress cannot be null");
+		if(progress.isEmpty()) {
+			return;
+		}
+		List<Object[]> batchArgs = new ArrayList<>(progress.size());
+		for(AsynchJobProgress jobProgress: progress) {
+			if(jobProgress.getJobId() == null) throw new IllegalArgumentException("JobId cannot be null");
+			String progressMessage = AsynchJobStatusUtils.truncateMessageStringIfNeeded(jobProgress.getProgressMessage());
+			batchArgs.add(new Object[] { jobProgress.getProgressCurrent(), jobProgress.getProgressTotal(),
+					progressMessage, jobProgress.getChangedOn(), jobProgress.getChangedOn(), jobProgress.getJobId() });
+		}
+		jdbcTemplate.batchUpdate(SQL_UPDATE_PROGRESS, batchArgs);
+	}
+
 	@WriteTransaction
 	@Override
 	public String setJobFailed(String jobId, Throwable error) {
@@ -127,6 +127,10 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 									+ " AND A."+COL_ACL_OWNER_TYPE+" = '"+ObjectType.ENTITY.name()+"'"
 									+ " AND N."+COL_NODE_PARENT_ID+" IN (:"+BIND_PARENT_ID+") )";
 
+	private static final String SQL_SELECT_ENTITIES_WITH_ACLS = "SELECT " + COL_ACL_OWNER_ID + " FROM "
+			+ TABLE_ACCESS_CONTROL_LIST + " WHERE " + COL_ACL_OWNER_ID + " IN (:" + IDS_PARAM_NAME + ") AND "
+			+ COL_ACL_OWNER_TYPE + " = '" + ObjectType.ENTITY.name() + "'";
+
 	private static final String SELECT_DISTINCT_VISIBLE_PROJECT_IDS = "SELECT distinct acl."
 			+ COL_ACL_OWNER_ID
 			+ " FROM "
@@ -606,6 +610,18 @@ public class DBOAccessControlListDaoImpl implements AccessControlListDAO {
 		return namedParameterJdbcTemplate.queryForList(SQL_SELECT_CHILDREN_ENTITIES_WITH_ACLS, namedParameters, Long.class);
 	}
 
+	@Override
+	public Set<Long> getEntitiesWithAcls(List<Long> entityIds) {
+		ValidateArgument.required(entityIds, "entityIds");
+		if (entityIds.isEmpty()) {
+			return new HashSet<>();
+		}
+		Map<String, Object> namedParameters = new HashMap<String, Object>(1);
+		namedParameters.put(IDS_PARAM_NAME, entityIds);
+		return new HashSet<>(
+				namedParameterJdbcTemplate.queryForList(SQL_SELECT_ENTITIES_WITH_ACLS, namedParameters, Long.class));
+	}
+
 	@Override
 	public AuthorizationStatus canAccess(UserInfo user, String resourceId, ObjectType resourceType,
 			ACCESS_TYPE permission) {
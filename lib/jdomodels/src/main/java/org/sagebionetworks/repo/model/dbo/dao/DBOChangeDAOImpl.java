@@ -1,15 +1,19 @@
 package org.sagebionetworks.repo.model.dbo.dao;
 
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_CHANGE_NUM;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_CHANGE_TYPE;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_OBJECT_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_OBJECT_TYPE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_OBJECT_VERSION;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_TIME_STAMP;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_CHANGES_USER_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_PROCESSED_MESSAGES_CHANGE_NUM;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_PROCESSED_MESSAGES_QUEUE_NAME;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_PROCESSED_MESSAGES_TIME_STAMP;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_SENT_MESSAGES_CHANGE_NUM;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_SENT_MESSAGES_OBJECT_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_SENT_MESSAGES_OBJECT_TYPE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_SENT_MESSAGES_OBJECT_VERSION;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_SENT_MESSAGES_TIME_STAMP;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_CHANGES;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_PROCESSED_MESSAGES;
@@ -29,7 +33,9 @@ import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.ids.BatchOfIds;
 import org.sagebionetworks.ids.IdGenerator;
+import org.sagebionetworks.ids.IdGeneratorImpl;
 import org.sagebionetworks.ids.IdType;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
@@ -51,6 +57,7 @@ import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import com.google.common.collect.Lists;
 
 /**
  * The implementation of the change DBOChangeDAO
@@ -126,6 +133,24 @@ public class DBOChangeDAOImpl implements DBOChangeDAO {
 	private static final String SQL_SENT_CHANGE_NUMBER_FOR_UPDATE = "SELECT "+COL_SENT_MESSAGES_CHANGE_NUM+" FROM "+TABLE_SENT_MESSAGES+" WHERE "+COL_SENT_MESSAGES_OBJECT_ID+" = ? AND "+COL_SENT_MESSAGES_OBJECT_TYPE+" = ? FOR UPDATE";
 	private static final String SQL_CHANGE_NUMBER_FOR_UPDATE = "SELECT "+COL_CHANGES_CHANGE_NUM+" FROM "+TABLE_CHANGES+" WHERE "+COL_CHANGES_OBJECT_ID+" = ? AND "+COL_CHANGES_OBJECT_TYPE+" = ? FOR UPDATE";
 
+	/**
+	 * The maximum number of rows written by a single multi-row upsert. Keeps the
+	 * number of bind variables of each statement well under the MySQL limit.
+	 */
+	public static final int MAX_ROWS_PER_UPSERT = 1000;
+
+	private static final String SQL_UPSERT_CHANGES_PREFIX = "INSERT INTO "+TABLE_CHANGES+" ("+COL_CHANGES_CHANGE_NUM+", "+COL_CHANGES_TIME_STAMP+", "+COL_CHANGES_OBJECT_ID
+			+", "+COL_CHANGES_OBJECT_VERSION+", "+COL_CHANGES_OBJECT_TYPE+", "+COL_CHANGES_CHANGE_TYPE+", "+COL_CHANGES_USER_ID+") VALUES ";
+	private static final String SQL_UPSERT_CHANGES_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+	private static final String SQL_UPSERT_CHANGES_SUFFIX = " ON DUPLICATE KEY UPDATE "+COL_CHANGES_CHANGE_NUM+" = VALUES("+COL_CHANGES_CHANGE_NUM+"), "
+			+COL_CHANGES_TIME_STAMP+" = VALUES("+COL_CHANGES_TIME_STAMP+"), "+COL_CHANGES_CHANGE_TYPE+" = VALUES("+COL_CHANGES_CHANGE_TYPE+"), "
+			+COL_CHANGES_USER_ID+" = VALUES("+COL_CHANGES_USER_ID+")";
+
+	private static final String SQL_RESET_SENT_PREFIX = "INSERT INTO "+TABLE_SENT_MESSAGES+" ("+COL_SENT_MESSAGES_CHANGE_NUM+", "+COL_SENT_MESSAGES_TIME_STAMP+", "+COL_SENT_MESSAGES_OBJECT_ID
+			+", "+COL_SENT_MESSAGES_OBJECT_VERSION+", "+COL_SENT_MESSAGES_OBJECT_TYPE+") VALUES ";
+	private static final String SQL_RESET_SENT_ROW = "(NULL, NULL, ?, ?, ?)";
+	private static final String SQL_RESET_SENT_SUFFIX = " ON DUPLICATE KEY UPDATE "+COL_SENT_MESSAGES_CHANGE_NUM+" = NULL, "+COL_SENT_MESSAGES_TIME_STAMP+" = NULL";
+
 	@Autowired
 	private DBOBasicDao basicDao;
 
@@ -146,11 +171,15 @@ public class DBOChangeDAOImpl implements DBOChangeDAO {
 	@WriteTransaction
 	@Override
 	public ChangeMessage replaceChange(ChangeMessage change) {
+		validateChange(change);
+		return attemptReplaceChange(change);
+	}
+
+	private static void validateChange(ChangeMessage change) {
 		if(change == null) throw new IllegalArgumentException("DBOChange cannot be null");
 		if(change.getObjectId() == null) throw new IllegalArgumentException("change.getObjectId() cannot be null");
 		if(change.getChangeType() == null) throw new IllegalArgumentException("change.getChangeTypeEnum() cannot be null");
 		if(change.getObjectType() == null) throw new IllegalArgumentException("change.getObjectTypeEnum() cannot be null");
-		return attemptReplaceChange(change);
 	}
 
 	/**
@@ -182,16 +211,90 @@ public class DBOChangeDAOImpl implements DBOChangeDAO {
 	@Override
 	public List<ChangeMessage> replaceChange(List<ChangeMessage> batchDTO) throws TransientDataAccessException {
 		if(batchDTO == null) throw new IllegalArgumentException("Batch cannot be null");
+		for(ChangeMessage change: batchDTO){
+			validateChange(change);
+		}
 		// To prevent deadlock we sort by object id to guarantee a consistent update order.
 		batchDTO = ChangeMessageUtils.sortByObjectId(batchDTO);
-		// Send each replace them in order.
-		List<ChangeMessage> results = new ArrayList<>();
-		for(ChangeMessage change: batchDTO){
-			results.add(replaceChange(change));
+		// See attemptReplaceChange() for the second accuracy of the time stamp.
+		Timestamp now = new Timestamp((System.currentTimeMillis() / 1000) * 1000);
+		List<ChangeMessage> results = new ArrayList<>(batchDTO.size());
+		for(List<ChangeMessage> idBlock: Lists.partition(batchDTO, IdGeneratorImpl.MAX_BATCH_SIZE)){
+			// Issue the change numbers of the block in sort order with a single call.
+			BatchOfIds changeNumbers = idGenerator.generateNewIds(IdType.CHANGE_ID, idBlock.size());
+			long changeNumber = changeNumbers.getFirstId();
+			List<DBOChange> dbos = new ArrayList<>(idBlock.size());
+			for(ChangeMessage change: idBlock){
+				DBOChange changeDbo = ChangeMessageUtils.createDBO(change);
+				changeDbo.setChangeNumber(changeNumber++);
+				changeDbo.setTimeStamp(now);
+				dbos.add(changeDbo);
+			}
+			for(List<DBOChange> page: Lists.partition(dbos, MAX_ROWS_PER_UPSERT)){
+				upsertChanges(page);
+				resetSentMessages(page);
+			}
+			results.addAll(ChangeMessageUtils.createDTOList(dbos));
 		}
 		return results;
 	}
 
+	/**
+	 * Create or update all of the given changes with a single statement.
+	 * 
+	 * @param page
+	 */
+	private void upsertChanges(List<DBOChange> page) {
+		List<Object> args = new ArrayList<>(page.size() * 7);
+		for(DBOChange change: page){
+			args.add(change.getChangeNumber());
+			args.add(change.getTimeStamp());
+			args.add(change.getObjectId());
+			args.add(change.getObjectVersion());
+			args.add(change.getObjectType());
+			args.add(change.getChangeType());
+			args.add(change.getUserId());
+		}
+		jdbcTemplate.update(createMultiRowSql(SQL_UPSERT_CHANGES_PREFIX, SQL_UPSERT_CHANGES_ROW, SQL_UPSERT_CHANGES_SUFFIX, page.size()), args.toArray());
+	}
+
+	/**
+	 * Clear the sent messages of all of the given changes with a single statement.
+	 * 
+	 * @param page
+	 */
+	private void resetSentMessages(List<DBOChange> page) {
+		List<Object> args = new ArrayList<>(page.size() * 3);
+		for(DBOChange change: page){
+			args.add(change.getObjectId());
+			args.add(change.getObjectVersion());
+			args.add(change.getObjectType());
+		}
+		jdbcTemplate.update(createMultiRowSql(SQL_RESET_SENT_PREFIX, SQL_RESET_SENT_ROW, SQL_RESET_SENT_SUFFIX, page.size()), args.toArray());
+	}
+
+	/**
+	 * Create a multi-row INSERT statement with the given number of value rows.
+	 * 
+	 * @param prefix
+	 * @param row
+	 * @param suffix
+	 * @param rowCount
+	 * @return
+	 */
+	static String createMultiRowSql(String prefix, String row, String suffix, int rowCount) {
+		StringBuilder builder = new StringBuilder(prefix.length() + (row.length() + 2) * rowCount + suffix.length());
+		builder.append(prefix);
+		for(int i=0; i<rowCount; i++){
+			if(i > 0){
+				builder.append(", ");
+			}
+			builder.append(row);
+		}
+		builder.append(suffix);
+		return builder.toString();
+	}
+
 	@WriteTransaction
 	@Override
 	public void deleteChange(Long objectId, ObjectType type) {
@@ -79,6 +79,7 @@ import org.sagebionetworks.repo.model.NameConflictException;
 import org.sagebionetworks.repo.model.Node;
 import org.sagebionetworks.repo.model.NodeConstants;
 import org.sagebionetworks.repo.model.NodeDAO;
+import org.sagebionetworks.repo.model.NodeHierarchyEntry;
 import org.sagebionetworks.repo.model.NodeIdAndType;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.ProjectHeader;
@@ -177,6 +178,9 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	private static final String BIND_NODE_TYPES = "bNodeTypes";
 	private static final String BIND_LIMIT = "bLimit";
 	private static final String BIND_OFFSET = "bOffset";
+	private static final String BIND_BUCKET_WIDTH = "bBucketWidth";
+	private static final String BIND_FILTER_WIDTH = "bFilterWidth";
+	private static final String BIND_BUCKETS = "bBuckets";
 	
 	private static final String SQL_SELECT_CHILD_CRC32 = 
 			"SELECT "+COL_NODE_PARENT_ID+","
@@ -192,6 +196,23 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 			+", "+COL_NODE_ETAG
 			+", "+FUNCTION_GET_ENTITY_BENEFACTOR_ID+"("+COL_NODE_ID+")"
 			+" FROM "+TABLE_NODE+" WHERE "+COL_NODE_PARENT_ID+" = ?";
+	
+	private static final String SQL_SELECT_CHILD_CRC32_BY_BUCKET = 
+			"SELECT "+COL_NODE_ID+" DIV :"+BIND_BUCKET_WIDTH+" AS BUCKET,"
+					+ " SUM(CRC32(CONCAT("+COL_NODE_ID
+					+",'-',"+COL_NODE_ETAG
+					+",'-',"+FUNCTION_GET_ENTITY_BENEFACTOR_ID+"("+COL_NODE_ID+")"
+							+ "))) AS 'CRC'"
+							+ " FROM "+TABLE_NODE+" WHERE "+COL_NODE_PARENT_ID+" = :"+BIND_PARENT_ID
+							+ " AND "+COL_NODE_ID+" DIV :"+BIND_FILTER_WIDTH+" IN (:"+BIND_BUCKETS+")"
+									+ " GROUP BY BUCKET";
+	
+	private static final String SQL_SELECT_CHILDREN_ID_AND_ETAG_IN_BUCKETS = 
+			"SELECT "+COL_NODE_ID
+			+", "+COL_NODE_ETAG
+			+", "+FUNCTION_GET_ENTITY_BENEFACTOR_ID+"("+COL_NODE_ID+")"
+			+" FROM "+TABLE_NODE+" WHERE "+COL_NODE_PARENT_ID+" = :"+BIND_PARENT_ID
+			+" AND "+COL_NODE_ID+" DIV :"+BIND_BUCKET_WIDTH+" IN (:"+BIND_BUCKETS+")";
 
 	private static final String SQL_SELECT_CHILD = "SELECT "+COL_NODE_ID
 			+ " FROM "+TABLE_NODE
@@ -417,6 +438,17 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 			+ TABLE_NODE + " AS N JOIN PATH ON (N." + COL_NODE_ID + " = PATH." + COL_NODE_PARENT_ID + ")" + " WHERE N."
 			+ COL_NODE_ID + " IS NOT NULL AND DISTANCE < "+NodeConstants.MAX_PATH_DEPTH_PLUS_ONE+" )" + " SELECT %1s FROM PATH ORDER BY DISTANCE DESC";
 	
+	private static final String PATH_HIERARCHY_COLUMNS = "PATH." + COL_NODE_ID + ", PATH." + COL_NODE_PARENT_ID
+			+ ", PATH." + COL_NODE_TYPE;
+	
+	private static final RowMapper<NodeHierarchyEntry> NODE_HIERARCHY_ENTRY_ROW_MAPPER = (ResultSet rs, int rowNum) -> {
+		Long parentId = rs.getLong(COL_NODE_PARENT_ID);
+		if (rs.wasNull()) {
+			parentId = null;
+		}
+		return new NodeHierarchyEntry(rs.getLong(COL_NODE_ID), parentId, EntityType.valueOf(rs.getString(COL_NODE_TYPE)));
+	};
+	
 	private static final String SQL_STRING_CONTAINERS_TYPES = String.join(",", "'" + EntityType.project.name() + "'", "'" + EntityType.folder.name() + "'");
 
 	private static final String UPDATE_REVISION_FILE_HANDLE = "UPDATE " + TABLE_REVISION + " SET " + COL_REVISION_FILE_HANDLE_ID
@@ -1236,6 +1268,15 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 		return path;
 	}
 	
+	@Override
+	public List<NodeHierarchyEntry> getEntityPathHierarchy(String nodeId) {
+		ValidateArgument.required(nodeId, "nodeId");
+		String sql = String.format(PATH_QUERY_TEMPLATE, PATH_HIERARCHY_COLUMNS);
+		List<NodeHierarchyEntry> path = jdbcTemplate.query(sql, NODE_HIERARCHY_ENTRY_ROW_MAPPER, KeyFactory.stringToKey(nodeId));
+		validatePath(nodeId, path);
+		return path;
+	}
+	
 	@Override
 	public List<NameIdType> getEntityPath(String nodeId) throws DatastoreException, NotFoundException {
 		String selectColumns = COL_NODE_ID+","+COL_NODE_NAME+","+COL_NODE_TYPE;
@@ -1960,19 +2001,53 @@ public class NodeDAOImpl implements NodeDAO, InitializingBean {
 	@Override
 	public List<IdAndEtag> getChildren(long parentId) {
 		ValidateArgument.required(parentId, "parentId");
-		return jdbcTemplate.query(SQL_SELECT_CHILDREN_ID_AND_ETAG, new RowMapper<IdAndEtag>(){
-			@Override
-			public IdAndEtag mapRow(ResultSet rs, int rowNum)
-					throws SQLException {
-				Long id = rs.getLong(COL_NODE_ID);
-				String etag = rs.getString(COL_NODE_ETAG);
-				Long benefactorId = rs.getLong(3);
-				if(rs.wasNull()) {
-					benefactorId = null;
-				}
-				return new IdAndEtag(id, etag, benefactorId);
-			}}, parentId);
+		return jdbcTemplate.query(SQL_SELECT_CHILDREN_ID_AND_ETAG, CHILD_ID_AND_ETAG_ROW_MAPPER, parentId);
 	}
+	
+	@Override
+	public Map<Long, Long> getSumOfChildCRCsForEachBucket(long parentId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets) {
+		ValidateArgument.required(filterBuckets, "filterBuckets");
+		ValidateArgument.requirement(bucketWidth > 0, "The bucketWidth must be greater than zero");
+		ValidateArgument.requirement(filterWidth % bucketWidth == 0, "The filterWidth must be a multiple of the bucketWidth");
+		final Map<Long, Long> results = new HashMap<Long, Long>();
+		if(filterBuckets.isEmpty()){
+			return results;
+		}
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue(BIND_PARENT_ID, parentId);
+		parameters.addValue(BIND_BUCKET_WIDTH, bucketWidth);
+		parameters.addValue(BIND_FILTER_WIDTH, filterWidth);
+		parameters.addValue(BIND_BUCKETS, filterBuckets);
+		namedParameterJdbcTemplate.query(SQL_SELECT_CHILD_CRC32_BY_BUCKET, parameters, (ResultSet rs) -> {
+			results.put(rs.getLong("BUCKET"), rs.getLong("CRC"));
+		});
+		return results;
+	}
+	
+	@Override
+	public List<IdAndEtag> getChildrenInBuckets(long parentId, long bucketWidth, List<Long> buckets) {
+		ValidateArgument.required(buckets, "buckets");
+		ValidateArgument.requirement(bucketWidth > 0, "The bucketWidth must be greater than zero");
+		if(buckets.isEmpty()){
+			return Collections.emptyList();
+		}
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+		parameters.addValue(BIND_PARENT_ID, parentId);
+		parameters.addValue(BIND_BUCKET_WIDTH, bucketWidth);
+		parameters.addValue(BIND_BUCKETS, buckets);
+		return namedParameterJdbcTemplate.query(SQL_SELECT_CHILDREN_ID_AND_ETAG_IN_BUCKETS, parameters, CHILD_ID_AND_ETAG_ROW_MAPPER);
+	}
+	
+	private static final RowMapper<IdAndEtag> CHILD_ID_AND_ETAG_ROW_MAPPER = (ResultSet rs, int rowNum) -> {
+		Long id = rs.getLong(COL_NODE_ID);
+		String etag = rs.getString(COL_NODE_ETAG);
+		Long benefactorId = rs.getLong(3);
+		if(rs.wasNull()) {
+			benefactorId = null;
+		}
+		return new IdAndEtag(id, etag, benefactorId);
+	};
 
 	@Override
 	public Set<Long> getAvailableNodes(List<Long> nodeIds) {
@@ -0,0 +1,170 @@
+package org.sagebionetworks.repo.model.dbo.dao.table;
+
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_BUCKET;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_CHANGE_ETAG;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_CHANGE_NUMBER;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_CREATED_ON;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_KEY;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_ROW_COUNT;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.DDL_TABLE_ROW_COMPACTION;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_COMPACTION;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.dbo.DatabaseObject;
+import org.sagebionetworks.repo.model.dbo.FieldColumn;
+import org.sagebionetworks.repo.model.dbo.TableMapping;
+
+/**
+ * DBO to track the latest compaction of a table's rows.
+ *
+ * This is not a migrate-able table as a compaction is built from each stack's
+ * own table index.
+ *
+ */
+public class DBOTableRowCompaction implements DatabaseObject<DBOTableRowCompaction> {
+
+	private static final FieldColumn[] FIELDS = new FieldColumn[] {
+			new FieldColumn("tableId", COL_TABLE_COMPACTION_TABLE_ID, true),
+			new FieldColumn("changeNumber", COL_TABLE_COMPACTION_CHANGE_NUMBER),
+			new FieldColumn("changeEtag", COL_TABLE_COMPACTION_CHANGE_ETAG),
+			new FieldColumn("rowCount", COL_TABLE_COMPACTION_ROW_COUNT),
+			new FieldColumn("createdOn", COL_TABLE_COMPACTION_CREATED_ON),
+			new FieldColumn("bucket", COL_TABLE_COMPACTION_BUCKET),
+			new FieldColumn("key", COL_TABLE_COMPACTION_KEY), };
+
+	Long tableId;
+	Long changeNumber;
+	String changeEtag;
+	Long rowCount;
+	Timestamp createdOn;
+	String bucket;
+	String key;
+
+	@Override
+	public TableMapping<DBOTableRowCompaction> getTableMapping() {
+		return new TableMapping<DBOTableRowCompaction>() {
+
+			@Override
+			public DBOTableRowCompaction mapRow(ResultSet rs, int rowNum) throws SQLException {
+				DBOTableRowCompaction dbo = new DBOTableRowCompaction();
+				dbo.setTableId(rs.getLong(COL_TABLE_COMPACTION_TABLE_ID));
+				dbo.setChangeNumber(rs.getLong(COL_TABLE_COMPACTION_CHANGE_NUMBER));
+				dbo.setChangeEtag(rs.getString(COL_TABLE_COMPACTION_CHANGE_ETAG));
+				dbo.setRowCount(rs.getLong(COL_TABLE_COMPACTION_ROW_COUNT));
+				dbo.setCreatedOn(rs.getTimestamp(COL_TABLE_COMPACTION_CREATED_ON));
+				dbo.setBucket(rs.getString(COL_TABLE_COMPACTION_BUCKET));
+				dbo.setKey(rs.getString(COL_TABLE_COMPACTION_KEY));
+				return dbo;
+			}
+
+			@Override
+			public String getTableName() {
+				return TABLE_ROW_COMPACTION;
+			}
+
+			@Override
+			public FieldColumn[] getFieldColumns() {
+				return FIELDS;
+			}
+
+			@Override
+			public String getDDLFileName() {
+				return DDL_TABLE_ROW_COMPACTION;
+			}
+
+			@Override
+			public Class<? extends DBOTableRowCompaction> getDBOClass() {
+				return DBOTableRowCompaction.class;
+			}
+		};
+	}
+
+	public Long getTableId() {
+		return tableId;
+	}
+
+	public void setTableId(Long tableId) {
+		this.tableId = tableId;
+	}
+
+	public Long getChangeNumber() {
+		return changeNumber;
+	}
+
+	public void setChangeNumber(Long changeNumber) {
+		this.changeNumber = changeNumber;
+	}
+
+	public String getChangeEtag() {
+		return changeEtag;
+	}
+
+	public void setChangeEtag(String changeEtag) {
+		this.changeEtag = changeEtag;
+	}
+
+	public Long getRowCount() {
+		return rowCount;
+	}
+
+	public void setRowCount(Long rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	public Timestamp getCreatedOn() {
+		return createdOn;
+	}
+
+	public void setCreatedOn(Timestamp createdOn) {
+		this.createdOn = createdOn;
+	}
+
+	public String getBucket() {
+		return bucket;
+	}
+
+	public void setBucket(String bucket) {
+		this.bucket = bucket;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(bucket, changeEtag, changeNumber, createdOn, key, rowCount, tableId);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DBOTableRowCompaction other = (DBOTableRowCompaction) obj;
+		return Objects.equals(bucket, other.bucket) && Objects.equals(changeEtag, other.changeEtag)
+				&& Objects.equals(changeNumber, other.changeNumber) && Objects.equals(createdOn, other.createdOn)
+				&& Objects.equals(key, other.key) && Objects.equals(rowCount, other.rowCount)
+				&& Objects.equals(tableId, other.tableId);
+	}
+
+	@Override
+	public String toString() {
+		return "DBOTableRowCompaction [tableId=" + tableId + ", changeNumber=" + changeNumber + ", changeEtag="
+				+ changeEtag + ", rowCount=" + rowCount + ", createdOn=" + createdOn + ", bucket=" + bucket + ", key="
+				+ key + "]";
+	}
+
+}
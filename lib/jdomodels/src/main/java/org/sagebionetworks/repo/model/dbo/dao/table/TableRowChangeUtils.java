@@ -1,16 +1,31 @@
 package org.sagebionetworks.repo.model.dbo.dao.table;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 
 import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableRowChange;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
 import org.sagebionetworks.repo.model.table.TableChangeType;
 import org.sagebionetworks.repo.model.table.TableRowChange;
 import org.sagebionetworks.util.ValidateArgument;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
 public class TableRowChangeUtils {
+
+	/**
+	 * The false positive probability of the row ID filter of a change set.
+	 */
+	public static final double ROW_ID_FILTER_FPP = 0.01;
+
 	/**
 	 * Convert from the DBO to the DTO
 	 * 
@@ -73,4 +88,58 @@ public class TableRowChangeUtils {
 		return dtos;
 	}
 
+	/**
+	 * Create a serialized bloom filter of the row IDs in the given change set.
+	 * 
+	 * @param changeSet
+	 * @return
+	 */
+	public static byte[] createRowIdFilter(SparseChangeSetDto changeSet) {
+		ValidateArgument.required(changeSet, "changeSet");
+		ValidateArgument.required(changeSet.getRows(), "changeSet.rows");
+		BloomFilter<Long> filter = BloomFilter.create(Funnels.longFunnel(), Math.max(1, changeSet.getRows().size()),
+				ROW_ID_FILTER_FPP);
+		for (SparseRowDto row : changeSet.getRows()) {
+			if (row.getRowId() != null) {
+				filter.put(row.getRowId());
+			}
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			filter.writeTo(out);
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Might the change set of the given serialized row ID filter include any of
+	 * the given row IDs? A change without a filter might include any row.
+	 * 
+	 * @param rowIdFilter Serialized filter from
+	 *                    {@link #createRowIdFilter(SparseChangeSetDto)}. Can be
+	 *                    null.
+	 * @param rowIds
+	 * @return False only if the change set includes none of the given rows.
+	 */
+	public static boolean mightContainAnyRow(byte[] rowIdFilter, Collection<Long> rowIds) {
+		ValidateArgument.required(rowIds, "rowIds");
+		if (rowIdFilter == null) {
+			return true;
+		}
+		BloomFilter<Long> filter;
+		try {
+			filter = BloomFilter.readFrom(new ByteArrayInputStream(rowIdFilter), Funnels.longFunnel());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		for (Long rowId : rowIds) {
+			if (filter.mightContain(rowId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
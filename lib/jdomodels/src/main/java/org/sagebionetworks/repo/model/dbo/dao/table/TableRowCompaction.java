@@ -0,0 +1,105 @@
+package org.sagebionetworks.repo.model.dbo.dao.table;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Data transfer object for a compaction of a table's rows. A compaction is a
+ * copy of every row of a table, as of a single change number, stored in S3.
+ *
+ */
+public class TableRowCompaction {
+
+	Long tableId;
+	Long changeNumber;
+	String changeEtag;
+	Long rowCount;
+	Date createdOn;
+	String bucket;
+	String key;
+
+	public Long getTableId() {
+		return tableId;
+	}
+	public TableRowCompaction withTableId(Long tableId) {
+		this.tableId = tableId;
+		return this;
+	}
+	/**
+	 * The number of the last change included in the compaction.
+	 *
+	 * @return
+	 */
+	public Long getChangeNumber() {
+		return changeNumber;
+	}
+	public TableRowCompaction withChangeNumber(Long changeNumber) {
+		this.changeNumber = changeNumber;
+		return this;
+	}
+	/**
+	 * The etag of the last change included in the compaction.
+	 *
+	 * @return
+	 */
+	public String getChangeEtag() {
+		return changeEtag;
+	}
+	public TableRowCompaction withChangeEtag(String changeEtag) {
+		this.changeEtag = changeEtag;
+		return this;
+	}
+	public Long getRowCount() {
+		return rowCount;
+	}
+	public TableRowCompaction withRowCount(Long rowCount) {
+		this.rowCount = rowCount;
+		return this;
+	}
+	public Date getCreatedOn() {
+		return createdOn;
+	}
+	public TableRowCompaction withCreatedOn(Date createdOn) {
+		this.createdOn = createdOn;
+		return this;
+	}
+	public String getBucket() {
+		return bucket;
+	}
+	public TableRowCompaction withBucket(String bucket) {
+		this.bucket = bucket;
+		return this;
+	}
+	public String getKey() {
+		return key;
+	}
+	public TableRowCompaction withKey(String key) {
+		this.key = key;
+		return this;
+	}
+	@Override
+	public int hashCode() {
+		return Objects.hash(bucket, changeEtag, changeNumber, createdOn, key, rowCount, tableId);
+	}
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TableRowCompaction other = (TableRowCompaction) obj;
+		return Objects.equals(bucket, other.bucket) && Objects.equals(changeEtag, other.changeEtag)
+				&& Objects.equals(changeNumber, other.changeNumber) && Objects.equals(createdOn, other.createdOn)
+				&& Objects.equals(key, other.key) && Objects.equals(rowCount, other.rowCount)
+				&& Objects.equals(tableId, other.tableId);
+	}
+	@Override
+	public String toString() {
+		return "TableRowCompaction [tableId=" + tableId + ", changeNumber=" + changeNumber + ", changeEtag="
+				+ changeEtag + ", rowCount=" + rowCount + ", createdOn=" + createdOn + ", bucket=" + bucket + ", key="
+				+ key + "]";
+	}
+
+}
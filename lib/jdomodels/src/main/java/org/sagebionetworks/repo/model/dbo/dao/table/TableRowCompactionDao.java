@@ -0,0 +1,35 @@
+package org.sagebionetworks.repo.model.dbo.dao.table;
+
+import java.util.Optional;
+
+public interface TableRowCompactionDao {
+
+	/**
+	 * Save the record of a compaction stored in S3. Each table has at most one
+	 * compaction so this replaces any existing compaction for the table.
+	 * 
+	 * @param compaction
+	 */
+	void saveCompaction(TableRowCompaction compaction);
+
+	/**
+	 * Get the compaction for the given table.
+	 * 
+	 * @param tableId
+	 * @return {@link Optional#empty()} if the table does not have a compaction.
+	 */
+	Optional<TableRowCompaction> getCompaction(long tableId);
+
+	/**
+	 * Delete the compaction record for the given table.
+	 * 
+	 * @param tableId
+	 */
+	void deleteCompaction(long tableId);
+
+	/**
+	 * Truncate all compactions.
+	 */
+	void truncateAll();
+
+}
@@ -0,0 +1,85 @@
+package org.sagebionetworks.repo.model.dbo.dao.table;
+
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_COMPACTION;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Optional;
+
+import org.sagebionetworks.repo.model.dbo.DBOBasicDao;
+import org.sagebionetworks.repo.transactions.WriteTransaction;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class TableRowCompactionDaoImpl implements TableRowCompactionDao {
+
+	@Autowired
+	DBOBasicDao basicDao;
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	private static RowMapper<DBOTableRowCompaction> MAPPER = new DBOTableRowCompaction().getTableMapping();
+
+	@WriteTransaction
+	@Override
+	public void saveCompaction(TableRowCompaction compaction) {
+		ValidateArgument.required(compaction, "compaction");
+		ValidateArgument.required(compaction.getTableId(), "compaction.tableId");
+		ValidateArgument.required(compaction.getChangeNumber(), "compaction.changeNumber");
+		ValidateArgument.required(compaction.getChangeEtag(), "compaction.changeEtag");
+		ValidateArgument.required(compaction.getRowCount(), "compaction.rowCount");
+		ValidateArgument.required(compaction.getCreatedOn(), "compaction.createdOn");
+		ValidateArgument.required(compaction.getBucket(), "compaction.bucket");
+		ValidateArgument.required(compaction.getKey(), "compaction.key");
+		basicDao.createOrUpdate(translate(compaction));
+	}
+
+	@Override
+	public Optional<TableRowCompaction> getCompaction(long tableId) {
+		try {
+			return Optional.of(translate(jdbcTemplate.queryForObject(
+					"SELECT * FROM " + TABLE_ROW_COMPACTION + " WHERE " + COL_TABLE_COMPACTION_TABLE_ID + " = ?",
+					MAPPER, tableId)));
+		} catch (EmptyResultDataAccessException e) {
+			return Optional.empty();
+		}
+	}
+
+	@WriteTransaction
+	@Override
+	public void deleteCompaction(long tableId) {
+		jdbcTemplate.update("DELETE FROM " + TABLE_ROW_COMPACTION + " WHERE " + COL_TABLE_COMPACTION_TABLE_ID + " = ?",
+				tableId);
+	}
+
+	@WriteTransaction
+	@Override
+	public void truncateAll() {
+		jdbcTemplate.update("DELETE FROM " + TABLE_ROW_COMPACTION + " WHERE " + COL_TABLE_COMPACTION_TABLE_ID + " > 0");
+	}
+
+	static DBOTableRowCompaction translate(TableRowCompaction dto) {
+		DBOTableRowCompaction dbo = new DBOTableRowCompaction();
+		dbo.setTableId(dto.getTableId());
+		dbo.setChangeNumber(dto.getChangeNumber());
+		dbo.setChangeEtag(dto.getChangeEtag());
+		dbo.setRowCount(dto.getRowCount());
+		dbo.setCreatedOn(new Timestamp(dto.getCreatedOn().getTime()));
+		dbo.setBucket(dto.getBucket());
+		dbo.setKey(dto.getKey());
+		return dbo;
+	}
+
+	static TableRowCompaction translate(DBOTableRowCompaction in) {
+		return new TableRowCompaction().withTableId(in.getTableId()).withChangeNumber(in.getChangeNumber())
+				.withChangeEtag(in.getChangeEtag()).withRowCount(in.getRowCount())
+				.withCreatedOn(new Date(in.getCreatedOn().getTime())).withBucket(in.getBucket()).withKey(in.getKey());
+	}
+
+}
@@ -2,6 +2,8 @@ package org.sagebionetworks.repo.model.dbo.dao.table;
 
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_ID_SEQUENCE;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_ID_SEQUENCE_TABLE_ID;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_KEY;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_COMPACTION_TABLE_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_KEY_NEW;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_TABLE_ETAG;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_ROW_TABLE_ID;
@@ -11,6 +13,7 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_RO
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_TRX_TO_VER_TRX_ID;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.COL_TABLE_TRX_TO_VER_VER_NUM;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_CHANGE;
+import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_ROW_COMPACTION;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_TABLE_ID_SEQUENCE;
 import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_TABLE_TRX_TO_VERSION;
 
@@ -21,7 +24,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.repo.model.dao.table.TableRowTruthDAO;
@@ -91,11 +96,13 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 
 	private static final String SQL_LIST_ALL_KEYS = "SELECT " + COL_TABLE_ROW_KEY_NEW + " FROM " + TABLE_ROW_CHANGE
 			+ " WHERE " + COL_TABLE_ROW_KEY_NEW + " IS NOT NULL" + " UNION SELECT " + COL_TABLE_ROW_KEY_NEW + " FROM "
-			+ TABLE_ROW_CHANGE + " WHERE " + COL_TABLE_ROW_KEY_NEW + " IS NOT NULL";
+			+ TABLE_ROW_CHANGE + " WHERE " + COL_TABLE_ROW_KEY_NEW + " IS NOT NULL" + " UNION SELECT "
+			+ COL_TABLE_COMPACTION_KEY + " FROM " + TABLE_ROW_COMPACTION;
 
 	private static final String SQL_LIST_ALL_KEYS_FOR_TABLE = "SELECT " + COL_TABLE_ROW_KEY_NEW + " FROM "
 			+ TABLE_ROW_CHANGE + " WHERE " + COL_TABLE_ROW_KEY_NEW + " IS NOT NULL AND " + COL_TABLE_ROW_TABLE_ID
-			+ " = ?";
+			+ " = ?" + " UNION SELECT " + COL_TABLE_COMPACTION_KEY + " FROM " + TABLE_ROW_COMPACTION + " WHERE "
+			+ COL_TABLE_COMPACTION_TABLE_ID + " = ?";
 
 	private static final String SQL_SELECT_ALL_ROW_CHANGES_FOR_TABLE = "SELECT * FROM " + TABLE_ROW_CHANGE + " WHERE "
 			+ COL_TABLE_ROW_TABLE_ID + " = ? ORDER BY " + COL_TABLE_ROW_VERSION + " ASC LIMIT ? OFFSET ?";
@@ -197,6 +204,7 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 		changeDBO.setRowCount(new Long(delta.getRows().size()));
 		changeDBO.setChangeType(TableChangeType.ROW.name());
 		changeDBO.setTransactionId(transactionId);
+		changeDBO.setRowIdFilter(TableRowChangeUtils.createRowIdFilter(delta));
 		basicDao.createNew(changeDBO);
 		return key;
 	}
@@ -350,6 +358,20 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 		return TableRowChangeUtils.ceateDTOFromDBO(dboList);
 	}
 
+	@Override
+	public List<TableRowChange> listRowSetsKeysForTableGreaterThanVersionWithRows(String tableIdString,
+			long versionNumber, Set<Long> rowIds) {
+		ValidateArgument.required(tableIdString, "tableId");
+		ValidateArgument.required(rowIds, "rowIds");
+		long tableId = KeyFactory.stringToKey(tableIdString);
+		List<DBOTableRowChange> dboList = jdbcTemplate.query(SQL_SELECT_ALL_ROW_CHANGES_FOR_TABLE_GREATER_VERSION,
+				rowChangeMapper, tableId, versionNumber);
+		List<DBOTableRowChange> matches = dboList.stream()
+				.filter(dbo -> TableRowChangeUtils.mightContainAnyRow(dbo.getRowIdFilter(), rowIds))
+				.collect(Collectors.toList());
+		return TableRowChangeUtils.ceateDTOFromDBO(matches);
+	}
+
 	@Override
 	public TableRowChange getTableRowChange(String tableIdString, long rowVersion) throws NotFoundException {
 		if (tableIdString == null)
@@ -432,7 +454,7 @@ public class TableRowTruthDAOImpl implements TableRowTruthDAO {
 			public String mapRow(ResultSet rs, int rowNum) throws SQLException {
 				return rs.getString(COL_TABLE_ROW_KEY_NEW);
 			}
-		}, tableIdLong);
+		}, tableIdLong, tableIdLong);
 	}
 
 	public String getS3Bucket() {
@@ -14,6 +14,7 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.*;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.sagebionetworks.repo.model.dbo.FieldColumn;
@@ -41,7 +42,8 @@ public class DBOTableRowChange implements MigratableDatabaseObject<DBOTableRowCh
 			new FieldColumn("keyNew", COL_TABLE_ROW_KEY_NEW),
 			new FieldColumn("rowCount", COL_TABLE_ROW_COUNT),
 			new FieldColumn("changeType", COL_TABLE_ROW_TYPE),
-			new FieldColumn("transactionId", COL_TABLE_ROW_TRX_ID),};
+			new FieldColumn("transactionId", COL_TABLE_ROW_TRX_ID),
+			new FieldColumn("rowIdFilter", COL_TABLE_ROW_ID_FILTER),};
 
 	private Long tableId;
 	private String etag;
@@ -55,6 +57,7 @@ public class DBOTableRowChange implements MigratableDatabaseObject<DBOTableRowCh
 	private Long rowCount;
 	private String changeType;
 	private Long transactionId;
+	private byte[] rowIdFilter;
 
 	@Override
 	public TableMapping<DBOTableRowChange> getTableMapping() {
@@ -76,6 +79,7 @@ public class DBOTableRowChange implements MigratableDatabaseObject<DBOTableRowCh
 				if(!rs.wasNull()) {
 					change.setTransactionId(transactionId);
 				}
+				change.setRowIdFilter(rs.getBytes(COL_TABLE_ROW_ID_FILTER));
 				return change;
 			}
 
@@ -109,6 +113,20 @@ public class DBOTableRowChange implements MigratableDatabaseObject<DBOTableRowCh
 		this.transactionId = transactionId;
 	}
 
+	/**
+	 * Serialized filter of the row IDs in a row change. Null for column changes
+	 * and for row changes created before the filter was added.
+	 * 
+	 * @return
+	 */
+	public byte[] getRowIdFilter() {
+		return rowIdFilter;
+	}
+
+	public void setRowIdFilter(byte[] rowIdFilter) {
+		this.rowIdFilter = rowIdFilter;
+	}
+
 	public Long getRowCount() {
 		return rowCount;
 	}
@@ -265,6 +283,7 @@ public class DBOTableRowChange implements MigratableDatabaseObject<DBOTableRowCh
 		result = prime * result + ((key == null) ? 0 : key.hashCode());
 		result = prime * result + ((keyNew == null) ? 0 : keyNew.hashCode());
 		result = prime * result + ((rowCount == null) ? 0 : rowCount.hashCode());
+		result = prime * result + Arrays.hashCode(rowIdFilter);
 		result = prime * result + ((rowVersion == null) ? 0 : rowVersion.hashCode());
 		result = prime * result + ((tableId == null) ? 0 : tableId.hashCode());
 		result = prime * result + ((transactionId == null) ? 0 : transactionId.hashCode());
@@ -325,6 +344,8 @@ public class DBOTableRowChange implements MigratableDatabaseObject<DBOTableRowCh
 				return false;
 		} else if (!rowCount.equals(other.rowCount))
 			return false;
+		if (!Arrays.equals(rowIdFilter, other.rowIdFilter))
+			return false;
 		if (rowVersion == null) {
 			if (other.rowVersion != null)
 				return false;
@@ -1,5 +1,7 @@
 package org.sagebionetworks.repo.model.dbo.schema;
 
+import java.util.List;
+
 import org.sagebionetworks.repo.model.schema.ObjectType;
 import org.sagebionetworks.repo.model.schema.ValidationResults;
 
@@ -20,6 +22,23 @@ public interface SchemaValidationResultDao {
 	 */
 	void createOrUpdateResults(ValidationResults results);
 
+	/**
+	 * Clear the validation results for each of the given objects with a single
+	 * batch update.
+	 * 
+	 * @param objectIds
+	 * @param objectType
+	 */
+	void clearResultsBatch(List<String> objectIds, ObjectType objectType);
+
+	/**
+	 * Create or update each of the given validation results with a single batch
+	 * upsert.
+	 * 
+	 * @param results
+	 */
+	void createOrUpdateResultsBatch(List<ValidationResults> results);
+
 	ValidationResults getValidationResults(String objectid, ObjectType objectType);
 
 	/**
@@ -13,6 +13,8 @@ import static org.sagebionetworks.repo.model.query.jdo.SqlConstants.TABLE_SCHEMA
 
 import java.sql.ResultSet;
 import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -37,6 +39,8 @@ public class SchemaValidationResultDaoImpl implements SchemaValidationResultDao
 
 	public static final String VALIDATION_EXCEPTION = "validationException";
 	public static final String ALL_VALIDATION_MESSAGES = "allValidationMessages";
+	private static final String SQL_CLEAR_RESULTS = "DELETE FROM " + TABLE_SCHEMA_VALIDATION_RESULTS + " WHERE "
+			+ COL_JSON_SCHEMA_VALIDATION_OBJECT_ID + " = ? AND " + COL_JSON_SCHEMA_VALIDATION_OBJECT_TYPE + " = ?";
 	private JdbcTemplate jdbcTemplate;
 	private DBOBasicDao basicDao;
 
@@ -83,10 +87,21 @@ public class SchemaValidationResultDaoImpl implements SchemaValidationResultDao
 	public void clearResults(String objectid, ObjectType objectType) {
 		ValidateArgument.required(objectid, "objectId");
 		ValidateArgument.required(objectType, "objectType");
-		jdbcTemplate.update(
-				"DELETE FROM " + TABLE_SCHEMA_VALIDATION_RESULTS + " WHERE " + COL_JSON_SCHEMA_VALIDATION_OBJECT_ID
-						+ " = ? AND " + COL_JSON_SCHEMA_VALIDATION_OBJECT_TYPE + " = ?",
-				KeyFactory.stringToKey(objectid), objectType.name());
+		jdbcTemplate.update(SQL_CLEAR_RESULTS, KeyFactory.stringToKey(objectid), objectType.name());
+	}
+
+	@WriteTransaction
+	@Override
+	public void clearResultsBatch(List<String> objectIds, ObjectType objectType) {
+		ValidateArgument.required(objectIds, "objectIds");
+		ValidateArgument.required(objectType, "objectType");
+		if (objectIds.isEmpty()) {
+			return;
+		}
+		List<Object[]> batchArgs = objectIds.stream()
+				.map(objectId -> new Object[] { KeyFactory.stringToKey(objectId), objectType.name() })
+				.collect(Collectors.toList());
+		jdbcTemplate.batchUpdate(SQL_CLEAR_RESULTS, batchArgs);
 	}
 
 	@WriteTransaction
@@ -96,6 +111,18 @@ public class SchemaValidationResultDaoImpl implements SchemaValidationResultDao
 		basicDao.createOrUpdate(dbo);
 	}
 
+	@WriteTransaction
+	@Override
+	public void createOrUpdateResultsBatch(List<ValidationResults> results) {
+		ValidateArgument.required(results, "results");
+		if (results.isEmpty()) {
+			return;
+		}
+		List<DBOSchemaValidationResults> batch = results.stream()
+				.map(SchemaValidationResultDaoImpl::translateDTOtoDBO).collect(Collectors.toList());
+		basicDao.createOrUpdateBatch(batch);
+	}
+
 	/**
 	 * Translate from the given DTO to a DBO.
 	 * 
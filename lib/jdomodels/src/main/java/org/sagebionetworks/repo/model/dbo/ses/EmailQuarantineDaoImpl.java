@@ -16,7 +16,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.sagebionetworks.ids.IdGenerator;
 import org.sagebionetworks.ids.IdType;
@@ -30,8 +39,12 @@ import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import com.google.common.collect.Iterables;
+
 @Repository
 public class EmailQuarantineDaoImpl implements EmailQuarantineDao {
 
@@ -73,8 +86,18 @@ public class EmailQuarantineDaoImpl implements EmailQuarantineDao {
 			+ COL_QUARANTINED_EMAILS_REASON_DETAILS + " = ?, "
 			+ COL_QUARANTINED_EMAILS_SES_MESSAGE_ID + " = ?";
 	 
+	private static String SQL_SELECT_QUARANTINED = "SELECT " + COL_QUARANTINED_EMAILS_EMAIL 
+			+ " FROM " + TABLE_QUARANTINED_EMAILS 
+			+ " WHERE " + COL_QUARANTINED_EMAILS_EMAIL + " IN (:emails)"
+			+ " AND (" + COL_QUARANTINED_EMAILS_EXPIRES_ON + " IS NULL OR " + COL_QUARANTINED_EMAILS_EXPIRES_ON + " > :now)";
+	 
 	// @formatter:on
 
+	/**
+	 * The maximum number of addresses in a single IN clause
+	 */
+	public static final int MAX_EMAILS_PER_QUERY = 1000;
+
 	private JdbcTemplate jdbcTemplate;
 
 	private IdGenerator idGenerator;
@@ -176,6 +199,43 @@ public class EmailQuarantineDaoImpl implements EmailQuarantineDao {
 		return jdbcTemplate.queryForObject(sql, Long.class, email, Timestamp.from(Instant.now())) > 0;
 	}
 
+	@Override
+	public Set<String> getQuarantinedEmails(Collection<String> emails) {
+		ValidateArgument.required(emails, "The emails");
+		
+		// The addresses are stored trimmed and in lower case
+		Map<String, List<String>> emailsByKey = new HashMap<>(emails.size());
+		
+		for (String email : emails) {
+			validateInputEmail(email);
+			emailsByKey.computeIfAbsent(email.trim().toLowerCase(), key -> new ArrayList<>()).add(email);
+		}
+		
+		Set<String> result = new HashSet<>();
+		
+		if (emailsByKey.isEmpty()) {
+			return result;
+		}
+		
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+		Timestamp now = Timestamp.from(Instant.now());
+		
+		for (List<String> keys : Iterables.partition(emailsByKey.keySet(), MAX_EMAILS_PER_QUERY)) {
+			MapSqlParameterSource params = new MapSqlParameterSource()
+					.addValue("emails", keys)
+					.addValue("now", now);
+			
+			List<String> quarantined = namedTemplate.queryForList(SQL_SELECT_QUARANTINED, params, String.class);
+			
+			result.addAll(quarantined.stream()
+					.map(email -> emailsByKey.getOrDefault(email.trim().toLowerCase(), Collections.<String>emptyList()))
+					.flatMap(List::stream)
+					.collect(Collectors.toSet()));
+		}
+		
+		return result;
+	}
+
 	@Override
 	public void clearAll() {
 		String sql = "DELETE FROM " + TABLE_QUARANTINED_EMAILS;
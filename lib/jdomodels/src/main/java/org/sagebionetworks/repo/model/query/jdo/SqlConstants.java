@@ -538,8 +538,20 @@ public class SqlConstants {
 	public static final String COL_TABLE_ROW_COUNT			= "ROW_COUNT";
 	public static final String COL_TABLE_ROW_TYPE			= "CHANGE_TYPE";
 	public static final String COL_TABLE_ROW_TRX_ID			= "TRX_ID";
+	public static final String COL_TABLE_ROW_ID_FILTER		= "ROW_ID_FILTER";
 	public static final String DDL_TABLE_ROW_CHANGE = "schema/TableRowChange-ddl.sql";
 	
+	// The latest compaction of each table's rows.
+	public static final String TABLE_ROW_COMPACTION				= "TABLE_ROW_COMPACTION";
+	public static final String COL_TABLE_COMPACTION_TABLE_ID		= "TABLE_ID";
+	public static final String COL_TABLE_COMPACTION_CHANGE_NUMBER	= "CHANGE_NUMBER";
+	public static final String COL_TABLE_COMPACTION_CHANGE_ETAG		= "CHANGE_ETAG";
+	public static final String COL_TABLE_COMPACTION_ROW_COUNT		= "ROW_COUNT";
+	public static final String COL_TABLE_COMPACTION_CREATED_ON		= "CREATED_ON";
+	public static final String COL_TABLE_COMPACTION_BUCKET			= "S3_BUCKET";
+	public static final String COL_TABLE_COMPACTION_KEY				= "S3_KEY";
+	public static final String DDL_TABLE_ROW_COMPACTION = "schema/TableRowCompaction-ddl.sql";
+	
 	// Tracks view scope.
 	public static final String TABLE_VIEW_TYPE					= "VIEW_TYPE";
 	public static final String COL_VIEW_TYPE_VIEW_ID			= "VIEW_ID";
@@ -9,6 +9,7 @@ CREATE TABLE IF NOT EXISTS `TABLE_ROW_CHANGE` (
   `ROW_COUNT` BIGINT NOT NULL,
   `CHANGE_TYPE` ENUM('ROW','COLUMN') DEFAULT 'ROW',
   `TRX_ID` BIGINT DEFAULT NULL,
+  `ROW_ID_FILTER` mediumblob,
   PRIMARY KEY (`TABLE_ID`,`ROW_VERSION`),
   KEY `TRC_ETAG_INDEX` (`ETAG`),
   CONSTRAINT `TABLE_TRX_ID_FK` FOREIGN KEY (`TRX_ID`) REFERENCES `TABLE_TRANSACTION` (`TRX_ID`) ON DELETE RESTRICT,
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS `TABLE_ROW_COMPACTION` (
+  `TABLE_ID` BIGINT NOT NULL,
+  `CHANGE_NUMBER` BIGINT NOT NULL,
+  `CHANGE_ETAG` char(36) NOT NULL,
+  `ROW_COUNT` BIGINT NOT NULL,
+  `CREATED_ON` timestamp(3) NOT NULL,
+  `S3_BUCKET` varchar(256) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `S3_KEY` varchar(256) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  PRIMARY KEY (`TABLE_ID`),
+  CONSTRAINT `TABLE_ROW_COMPACTION_TABLE_ID_FK` FOREIGN KEY (`TABLE_ID`) REFERENCES `TABLE_ID_SEQUENCE` (`TABLE_ID`) ON DELETE CASCADE
+)
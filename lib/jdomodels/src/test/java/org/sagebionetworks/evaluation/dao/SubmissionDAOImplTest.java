@@ -1045,6 +1045,60 @@ public class SubmissionDAOImplTest {
 		assertNotNull(result.get(evaluationId1));
 	}
 	
+	@Test
+	public void testGetSumOfSubmissionCRCsForEachBucket() {
+		Long evaluationId = Long.valueOf(evalId);
+		
+		// Creates 3 submissions for evalId
+		submissionDAO.create(submission);
+		createSubmissionStatus(SUBMISSION_ID, SubmissionStatusEnum.SCORED);
+		submissionDAO.create(submission2);
+		createSubmissionStatus(SUBMISSION_2_ID, SubmissionStatusEnum.SCORED);
+		submissionDAO.create(submission3);
+		createSubmissionStatus(SUBMISSION_3_ID, SubmissionStatusEnum.SCORED);
+		
+		Long subOneId = Long.valueOf(SUBMISSION_ID);
+		Long subTwoId = Long.valueOf(SUBMISSION_2_ID);
+		
+		// Call under test
+		Map<Long, Long> result = submissionDAO.getSumOfSubmissionCRCsForEachBucket(evaluationId, 1L, 1L, ImmutableList.of(subOneId, subTwoId));
+		
+		assertEquals(2L, result.size());
+		assertNotNull(result.get(subOneId));
+		assertNotNull(result.get(subTwoId));
+	}
+	
+	@Test
+	public void testGetSumOfSubmissionCRCsForEachBucketWithEmptyInput() {
+		
+		Map<Long, Long> result = submissionDAO.getSumOfSubmissionCRCsForEachBucket(Long.valueOf(evalId), 1L, 1L, Collections.emptyList());
+		
+		assertTrue(result.isEmpty());
+		
+	}
+	
+	@Test
+	public void testGetSubmissionIdAndEtagInBuckets() {
+
+		String subId1 = submissionDAO.create(submission);
+		createSubmissionStatus(subId1, SubmissionStatusEnum.SCORED);
+		String etag1 = submissionStatusDAO.get(subId1).getEtag();
+		String subId2 = submissionDAO.create(submission2);
+		createSubmissionStatus(subId2, SubmissionStatusEnum.SCORED);
+		
+		Long evaluationId = Long.valueOf(evalId);
+		
+		List<IdAndEtag> expected = ImmutableList.of(
+			new IdAndEtag(Long.valueOf(subId1), etag1, evaluationId)
+		);
+		
+		// Call under test
+		List<IdAndEtag> result = submissionDAO.getSubmissionIdAndEtagInBuckets(evaluationId, 1L, ImmutableList.of(Long.valueOf(subId1)));
+		
+		assertEquals(expected, result);
+		
+	}
+	
 	@Test
 	public void testGetSumOfSubmissionCRCsForEachEvaluationWithNullInput() {
 		
@@ -24,6 +24,7 @@ import org.sagebionetworks.repo.model.DatastoreException;
 import org.sagebionetworks.repo.model.TermsOfUseException;
 import org.sagebionetworks.repo.model.asynch.AsynchJobState;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.dao.asynch.AsynchJobProgress;
 import org.sagebionetworks.repo.model.dao.asynch.AsynchronousJobStatusDAO;
 import org.sagebionetworks.repo.model.table.TableUpdateTransactionRequest;
 import org.sagebionetworks.repo.model.table.TableUpdateTransactionResponse;
@@ -143,6 +144,39 @@ public class AsynchJobStatusDaoImplTest {
 		clone = asynchJobStatusDao.getJobStatus(status.getJobId());
 		assertEquals("Complete", clone.getProgressMessage());
 	}
+	
+	@Test
+	public void testUpdateJobProgressBatch() throws DatastoreException, NotFoundException {
+		AsynchronousJobStatus one = asynchJobStatusDao.startJob(creatorUserGroupId, body);
+		AsynchronousJobStatus two = asynchJobStatusDao.startJob(creatorUserGroupId, body);
+		AsynchronousJobStatus complete = asynchJobStatusDao.startJob(creatorUserGroupId, body);
+		asynchJobStatusDao.setComplete(complete.getJobId(), response, null);
+		long changedOn = one.getStartedOn().getTime() + 1000L;
+		List<AsynchJobProgress> progress = Arrays.asList(
+				new AsynchJobProgress(one.getJobId(), 1L, 10L, "one", changedOn),
+				new AsynchJobProgress(two.getJobId(), 2L, 20L, "two", changedOn),
+				new AsynchJobProgress(complete.getJobId(), 3L, 30L, "three", changedOn));
+		// call under test
+		asynchJobStatusDao.updateJobProgressBatch(progress);
+		AsynchronousJobStatus clone = asynchJobStatusDao.getJobStatus(one.getJobId());
+		assertEquals(new Long(1), clone.getProgressCurrent());
+		assertEquals(new Long(10), clone.getProgressTotal());
+		assertEquals("one", clone.getProgressMessage());
+		assertEquals(changedOn, clone.getChangedOn().getTime());
+		clone = asynchJobStatusDao.getJobStatus(two.getJobId());
+		assertEquals(new Long(2), clone.getProgressCurrent());
+		assertEquals("two", clone.getProgressMessage());
+		// a job that is no longer processing must not change.
+		clone = asynchJobStatusDao.getJobStatus(complete.getJobId());
+		assertEquals("Complete", clone.getProgressMessage());
+		assertEquals(AsynchJobState.COMPLETE, clone.getJobState());
+	}
+	
+	@Test
+	public void testUpdateJobProgressBatchEmpty() {
+		// call under test
+		asynchJobStatusDao.updateJobProgressBatch(Collections.emptyList());
+	}
 
 	@Test
 	public void testUpdateProgressDuringTransaction() throws Exception {
@@ -683,4 +683,28 @@ public class DBOAccessControlListDAOImplTest {
 		assertNotNull(results);
 		assertTrue(results.isEmpty());
 	}
+
+	@Test
+	public void testGetEntitiesWithAcls(){
+		Node withAcl = nodeDAO.createNewNode(NodeTestUtils.createNewFolder("withAcl", createdById, modifiedById, node.getId()));
+		Node withoutAcl = nodeDAO.createNewNode(NodeTestUtils.createNewFolder("withoutAcl", createdById, modifiedById, withAcl.getId()));
+		UserInfo userOne = new UserInfo(false, group.getId());
+		AccessControlList acl = AccessControlListUtil.createACLToGrantEntityAdminAccess(withAcl.getId(), userOne, new Date());
+		createAcl(acl, ObjectType.ENTITY);
+
+		Long nodeIdLong = KeyFactory.stringToKey(node.getId());
+		Long withAclIdLong = KeyFactory.stringToKey(withAcl.getId());
+		Long withoutAclIdLong = KeyFactory.stringToKey(withoutAcl.getId());
+		// call under test
+		Set<Long> results = aclDAO.getEntitiesWithAcls(Lists.newArrayList(nodeIdLong, withAclIdLong, withoutAclIdLong));
+		assertEquals(Sets.newHashSet(nodeIdLong, withAclIdLong), results);
+	}
+
+	@Test
+	public void testGetEntitiesWithAclsEmpty(){
+		// call under test
+		Set<Long> results = aclDAO.getEntitiesWithAcls(new LinkedList<Long>());
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
 }
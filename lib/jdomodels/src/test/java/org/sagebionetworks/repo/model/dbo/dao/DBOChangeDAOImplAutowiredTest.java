@@ -9,6 +9,7 @@ import static org.junit.Assert.fail;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -38,6 +39,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.Sets;
 
@@ -50,6 +52,9 @@ public class DBOChangeDAOImplAutowiredTest {
 	
 	@Autowired
 	ProcessedMessageDAO processedMessageDAO;
+
+	@Autowired
+	TransactionTemplate readCommitedTransactionTemplate;
 	
 	@Before
 	public void before(){
@@ -99,7 +104,6 @@ public class DBOChangeDAOImplAutowiredTest {
 		change.setObjectType(ObjectType.ENTITY);
 		ChangeMessage clone = changeDAO.replaceChange(change);
 		assertNotNull(clone);
-		System.out.println(clone);
 		assertNotNull(clone.getChangeNumber());
 		assertNotNull(clone.getTimestamp());
 		// The change number should exist
@@ -112,7 +116,6 @@ public class DBOChangeDAOImplAutowiredTest {
 		clone = changeDAO.replaceChange(change);
 		assertNotNull(clone);
 		long secondChangeNumber = clone.getChangeNumber();
-		System.out.println(clone);
 		assertTrue(secondChangeNumber > firstChangeNumber);
 	}
 	
@@ -258,7 +261,6 @@ public class DBOChangeDAOImplAutowiredTest {
 		// because the batch replace must sort the list by object id
 		// to ensure a consistent update order to prevent deadlock.
 		Collections.shuffle(batch);
-		System.out.println(batch);
 		// Pass the batch.
 		batch  = changeDAO.replaceChange(batch);
 		// The resulting list 
@@ -365,6 +367,92 @@ public class DBOChangeDAOImplAutowiredTest {
 		// This will fail if we did not delete the sent message.
 		changeDAO.registerMessageSent(batch.get(0));
 	}
+
+	@Test
+	public void testReplaceBatchResetsSentForAll(){
+		List<ChangeMessage> batch = createList(3, ObjectType.ENTITY);
+		batch = changeDAO.replaceChange(batch);
+		changeDAO.registerMessageSent(ObjectType.ENTITY, batch);
+		assertEquals(0, changeDAO.listUnsentMessages(10).size());
+		// call under test
+		batch = changeDAO.replaceChange(batch);
+		// all of the replaced changes are unsent again.
+		assertEquals(new HashSet<>(batch), new HashSet<>(changeDAO.listUnsentMessages(10)));
+	}
+
+	@Test
+	public void testReplaceBatchMultiplePages(){
+		int numChangesInBatch = DBOChangeDAOImpl.MAX_ROWS_PER_UPSERT * 2 + 1;
+		long startChangeNumber = startChangeNumber();
+		List<ChangeMessage> batch = createList(numChangesInBatch, ObjectType.PRINCIPAL);
+		Collections.shuffle(batch);
+		// call under test
+		List<ChangeMessage> results = changeDAO.replaceChange(batch);
+		assertEquals(numChangesInBatch, results.size());
+		// the change numbers are contiguous and in object id order.
+		for(int i=0; i<results.size(); i++){
+			assertEquals(""+i, results.get(i).getObjectId());
+			assertEquals(new Long(startChangeNumber + 1 + i), results.get(i).getChangeNumber());
+		}
+		assertEquals(numChangesInBatch, changeDAO.getCount());
+		assertEquals(results, changeDAO.listChanges(0, ObjectType.PRINCIPAL, numChangesInBatch + 1));
+		assertEquals(numChangesInBatch, changeDAO.listUnsentMessages(numChangesInBatch + 1).size());
+	}
+
+	@Test
+	public void testReplaceBatchDuplicateInBatch(){
+		ChangeMessage first = createChange(ObjectType.TABLE, 1);
+		first.setChangeType(ChangeType.CREATE);
+		ChangeMessage second = createChange(ObjectType.TABLE, 1);
+		second.setChangeType(ChangeType.DELETE);
+		// call under test
+		List<ChangeMessage> results = changeDAO.replaceChange(Arrays.asList(first, second));
+		assertEquals(2, results.size());
+		// the last change wins.
+		List<ChangeMessage> changes = changeDAO.listChanges(0, ObjectType.TABLE, 10);
+		assertEquals(1, changes.size());
+		assertEquals(ChangeType.DELETE, changes.get(0).getChangeType());
+		assertEquals(results.get(1).getChangeNumber(), changes.get(0).getChangeNumber());
+	}
+
+	@Test
+	public void testReplaceBatchEmpty(){
+		// call under test
+		List<ChangeMessage> results = changeDAO.replaceChange(new LinkedList<ChangeMessage>());
+		assertNotNull(results);
+		assertTrue(results.isEmpty());
+	}
+
+	@Test
+	public void testCreateMultiRowSql(){
+		assertEquals("INSERT INTO T (A, B) VALUES (?, ?), (?, ?), (?, ?) ON DUPLICATE KEY UPDATE B = VALUES(B)",
+				DBOChangeDAOImpl.createMultiRowSql("INSERT INTO T (A, B) VALUES ", "(?, ?)", " ON DUPLICATE KEY UPDATE B = VALUES(B)", 3));
+	}
+
+	/**
+	 * Replacing a large batch of existing changes with the set based batch must
+	 * give every change a new, larger change number without adding rows.
+	 */
+	@Test
+	public void testReplaceLargeBatch(){
+		int batchSize = 10000;
+		List<ChangeMessage> batch = createList(batchSize, ObjectType.ENTITY);
+		readCommitedTransactionTemplate.execute(status -> {
+			for(ChangeMessage change: ChangeMessageUtils.sortByObjectId(batch)){
+				changeDAO.replaceChange(change);
+			}
+			return null;
+		});
+		long maxChangeNumber = changeDAO.getCurrentChangeNumber();
+		// call under test
+		List<ChangeMessage> results = changeDAO.replaceChange(batch);
+		assertEquals(batchSize, results.size());
+		for(ChangeMessage result: results){
+			assertTrue(result.getChangeNumber() > maxChangeNumber);
+		}
+		assertEquals(batchSize, changeDAO.getCount());
+		assertEquals(batchSize, changeDAO.listUnsentMessages(batchSize + 1).size());
+	}
 	
 	@Test (expected=IllegalArgumentException.class)
 	public void testRegisterMessageSentMixedBatch(){
@@ -28,6 +28,7 @@ import org.sagebionetworks.repo.model.LimitExceededException;
 import org.sagebionetworks.repo.model.Node;
 import org.sagebionetworks.repo.model.NodeConstants;
 import org.sagebionetworks.repo.model.NodeDAO;
+import org.sagebionetworks.repo.model.NodeHierarchyEntry;
 import org.sagebionetworks.repo.model.NodeIdAndType;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.ProjectHeader;
@@ -1668,6 +1669,45 @@ public class NodeDAOImplTest {
 		});
 	}
 	
+	@Test
+	public void testGetEntityPathHierarchy() throws Exception {
+		Node node = privateCreateNew("parent");
+		node.setNodeType(EntityType.project);
+		String parentId = nodeDao.createNew(node);
+		toDelete.add(parentId);
+		// Add a child
+		node = privateCreateNew("child");
+		node.setNodeType(EntityType.folder);
+		node.setParentId(parentId);
+		String childId = nodeDao.createNew(node);
+		toDelete.add(childId);
+		// Add a GrandChild
+		node = privateCreateNew("grandChild");
+		node.setNodeType(EntityType.file);
+		node.setParentId(childId);
+		String grandId = nodeDao.createNew(node);
+		toDelete.add(grandId);
+		
+		Long parentIdLong = KeyFactory.stringToKey(parentId);
+		Long childIdLong = KeyFactory.stringToKey(childId);
+		Long grandIdLong = KeyFactory.stringToKey(grandId);
+		List<NodeHierarchyEntry> expected = Arrays.asList(
+				new NodeHierarchyEntry(parentIdLong, null, EntityType.project),
+				new NodeHierarchyEntry(childIdLong, parentIdLong, EntityType.folder),
+				new NodeHierarchyEntry(grandIdLong, childIdLong, EntityType.file));
+		// call under test
+		List<NodeHierarchyEntry> path = nodeDao.getEntityPathHierarchy(grandId);
+		assertEquals(expected, path);
+	}
+	
+	@Test
+	public void testGetEntityPathHierarchyNotFound() throws Exception {
+		assertThrows(NotFoundException.class, ()->{
+			// call under test
+			nodeDao.getEntityPathHierarchy("syn99999999");
+		});
+	}
+	
 	/**
 	 * Maybe we should prevent users from creating such a loop.
 	 * 
@@ -3926,6 +3966,79 @@ public class NodeDAOImplTest {
 		assertEquals(0, results.size());
 	}
 	
+	@Test
+	public void testGetSumOfChildCRCsForEachBucket(){
+		// parent
+		Node parent = NodeTestUtils.createNew("parent", creatorUserGroupId);
+		parent = nodeDao.createNewNode(parent);
+		Long parentId = KeyFactory.stringToKey(parent.getId());
+		toDelete.add(parent.getId());
+		// two children
+		Node childOne = NodeTestUtils.createNew("childOne", creatorUserGroupId);
+		childOne.setParentId(parent.getId());
+		childOne = nodeDao.createNewNode(childOne);
+		Long childOneId = KeyFactory.stringToKey(childOne.getId());
+		toDelete.add(childOne.getId());
+		Node childTwo = NodeTestUtils.createNew("childTwo", creatorUserGroupId);
+		childTwo.setParentId(parent.getId());
+		childTwo = nodeDao.createNewNode(childTwo);
+		Long childTwoId = KeyFactory.stringToKey(childTwo.getId());
+		toDelete.add(childTwo.getId());
+		
+		long bucketWidth = 1L;
+		// call under test
+		Map<Long, Long> results = nodeDao.getSumOfChildCRCsForEachBucket(parentId, bucketWidth, bucketWidth,
+				Lists.newArrayList(childOneId, childTwoId));
+		assertEquals(2, results.size());
+		// the buckets must add up to the sum of the parent.
+		Long parentCRC = nodeDao.getSumOfChildCRCsForEachParent(Lists.newArrayList(parentId)).get(parentId);
+		assertEquals(parentCRC, Long.valueOf(results.get(childOneId) + results.get(childTwoId)));
+		// call under test
+		results = nodeDao.getSumOfChildCRCsForEachBucket(parentId, bucketWidth, bucketWidth,
+				Lists.newArrayList(childTwoId));
+		assertEquals(1, results.size());
+		assertNotNull(results.get(childTwoId));
+		// call under test
+		results = nodeDao.getSumOfChildCRCsForEachBucket(parentId, bucketWidth, bucketWidth, Collections.emptyList());
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test
+	public void testGetSumOfChildCRCsForEachBucketWithFilterWidthNotMultiple(){
+		assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			nodeDao.getSumOfChildCRCsForEachBucket(1L, 100L, 150L, Lists.newArrayList(0L));
+		});
+	}
+	
+	@Test
+	public void testGetChildrenInBuckets(){
+		// parent
+		Node parent = NodeTestUtils.createNew("parent", creatorUserGroupId);
+		parent = nodeDao.createNewNode(parent);
+		Long parentId = KeyFactory.stringToKey(parent.getId());
+		toDelete.add(parent.getId());
+		// two children
+		Node childOne = NodeTestUtils.createNew("childOne", creatorUserGroupId);
+		childOne.setParentId(parent.getId());
+		childOne = nodeDao.createNewNode(childOne);
+		Long childOneId = KeyFactory.stringToKey(childOne.getId());
+		toDelete.add(childOne.getId());
+		Node childTwo = NodeTestUtils.createNew("childTwo", creatorUserGroupId);
+		childTwo.setParentId(parent.getId());
+		childTwo = nodeDao.createNewNode(childTwo);
+		toDelete.add(childTwo.getId());
+		
+		// call under test
+		List<IdAndEtag> results = nodeDao.getChildrenInBuckets(parentId, 1L, Lists.newArrayList(childOneId));
+		assertEquals(1, results.size());
+		assertEquals(childOneId, results.get(0).getId());
+		assertEquals(childOne.getETag(), results.get(0).getEtag());
+		// call under test
+		results = nodeDao.getChildrenInBuckets(parentId, 1L, Collections.emptyList());
+		assertTrue(results.isEmpty());
+	}
+	
 	@Test
 	public void testGetChildrenIdAndEtagDoesNotExist(){
 		Long doesNotExist = -1L;
@@ -1,15 +1,24 @@
 package org.sagebionetworks.repo.model.dbo.dao.table;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.junit.Test;
 import org.sagebionetworks.repo.model.dbo.persistence.table.DBOTableRowChange;
+import org.sagebionetworks.repo.model.table.SparseChangeSetDto;
+import org.sagebionetworks.repo.model.table.SparseRowDto;
 import org.sagebionetworks.repo.model.table.TableChangeType;
 import org.sagebionetworks.repo.model.table.TableRowChange;
 
+import com.google.common.collect.Sets;
+
 /**
  * 
  * @author jmhill
@@ -62,4 +71,40 @@ public class TableRowChangeUtilsTest {
 		assertNotNull(clone);
 		assertEquals(dto, clone);
 	}
+	
+	@Test
+	public void testRowIdFilter(){
+		SparseChangeSetDto changeSet = new SparseChangeSetDto();
+		List<SparseRowDto> rows = new LinkedList<>();
+		for(long rowId=0; rowId<5; rowId++){
+			SparseRowDto row = new SparseRowDto();
+			row.setRowId(rowId);
+			rows.add(row);
+		}
+		// a row without an ID is ignored.
+		rows.add(new SparseRowDto());
+		changeSet.setRows(rows);
+		// call under test
+		byte[] filter = TableRowChangeUtils.createRowIdFilter(changeSet);
+		assertNotNull(filter);
+		assertTrue(TableRowChangeUtils.mightContainAnyRow(filter, Sets.newHashSet(3L)));
+		assertTrue(TableRowChangeUtils.mightContainAnyRow(filter, Sets.newHashSet(7L, 0L)));
+		assertFalse(TableRowChangeUtils.mightContainAnyRow(filter, Sets.newHashSet(5L, 6L, 7L)));
+		assertFalse(TableRowChangeUtils.mightContainAnyRow(filter, Collections.emptySet()));
+	}
+	
+	@Test
+	public void testRowIdFilterEmptyChangeSet(){
+		SparseChangeSetDto changeSet = new SparseChangeSetDto();
+		changeSet.setRows(Collections.emptyList());
+		// call under test
+		byte[] filter = TableRowChangeUtils.createRowIdFilter(changeSet);
+		assertFalse(TableRowChangeUtils.mightContainAnyRow(filter, Sets.newHashSet(0L)));
+	}
+	
+	@Test
+	public void testMightContainAnyRowNullFilter(){
+		// a change without a filter might contain any row.
+		assertTrue(TableRowChangeUtils.mightContainAnyRow(null, Sets.newHashSet(0L)));
+	}
 }
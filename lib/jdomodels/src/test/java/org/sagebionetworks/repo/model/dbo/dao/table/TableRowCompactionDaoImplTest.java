@@ -0,0 +1,139 @@
+package org.sagebionetworks.repo.model.dbo.dao.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.sagebionetworks.repo.model.dao.table.TableRowTruthDAO;
+import org.sagebionetworks.repo.model.jdo.KeyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(locations = { "classpath:jdomodels-test-context.xml" })
+public class TableRowCompactionDaoImplTest {
+
+	@Autowired
+	private TableRowCompactionDao tableRowCompactionDao;
+	@Autowired
+	private TableRowTruthDAO tableRowTruthDao;
+
+	String tableIdString;
+	long tableId;
+	TableRowCompaction compaction;
+
+	@BeforeEach
+	public void beforeEach() {
+		tableRowCompactionDao.truncateAll();
+		tableRowTruthDao.truncateAllRowData();
+		tableIdString = "syn123";
+		tableId = KeyFactory.stringToKey(tableIdString);
+		// a compaction can only exist for a table with row data.
+		tableRowTruthDao.reserveIdsInRange(tableIdString, 1);
+		compaction = new TableRowCompaction().withTableId(tableId).withChangeNumber(12L)
+				.withChangeEtag("8fd2d3c6-0a3c-4b5b-9e1f-5b0a8c1e2d3f").withRowCount(1000L).withCreatedOn(new Date())
+				.withBucket("some bucket").withKey("some key");
+	}
+
+	@AfterEach
+	public void afterEach() {
+		tableRowCompactionDao.truncateAll();
+		tableRowTruthDao.truncateAllRowData();
+	}
+
+	@Test
+	public void testTranslate() {
+		// call under test
+		DBOTableRowCompaction dbo = TableRowCompactionDaoImpl.translate(compaction);
+		assertNotNull(dbo);
+		// call under test
+		TableRowCompaction clone = TableRowCompactionDaoImpl.translate(dbo);
+		assertEquals(compaction, clone);
+	}
+
+	@Test
+	public void testSaveAndGetCompaction() {
+		// call under test
+		tableRowCompactionDao.saveCompaction(compaction);
+		Optional<TableRowCompaction> result = tableRowCompactionDao.getCompaction(tableId);
+		assertEquals(Optional.of(compaction), result);
+	}
+
+	@Test
+	public void testSaveCompactionReplacesExisting() {
+		tableRowCompactionDao.saveCompaction(compaction);
+		TableRowCompaction newer = new TableRowCompaction().withTableId(tableId).withChangeNumber(99L)
+				.withChangeEtag("2b9b1c0e-6f5d-4a57-8d2a-0f1e2d3c4b5a").withRowCount(2000L).withCreatedOn(new Date())
+				.withBucket("some bucket").withKey("another key");
+		// call under test
+		tableRowCompactionDao.saveCompaction(newer);
+		assertEquals(Optional.of(newer), tableRowCompactionDao.getCompaction(tableId));
+	}
+
+	@Test
+	public void testGetCompactionDoesNotExist() {
+		// call under test
+		assertEquals(Optional.empty(), tableRowCompactionDao.getCompaction(tableId));
+	}
+
+	@Test
+	public void testDeleteCompaction() {
+		tableRowCompactionDao.saveCompaction(compaction);
+		// call under test
+		tableRowCompactionDao.deleteCompaction(tableId);
+		assertFalse(tableRowCompactionDao.getCompaction(tableId).isPresent());
+	}
+
+	@Test
+	public void testDeleteRowDataDeletesCompaction() {
+		tableRowCompactionDao.saveCompaction(compaction);
+		// call under test
+		tableRowTruthDao.truncateAllRowData();
+		assertFalse(tableRowCompactionDao.getCompaction(tableId).isPresent());
+	}
+
+	@Test
+	public void testSaveCompactionNullTableId() {
+		compaction.withTableId(null);
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			tableRowCompactionDao.saveCompaction(compaction);
+		});
+	}
+
+	@Test
+	public void testSaveCompactionNullChangeNumber() {
+		compaction.withChangeNumber(null);
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			tableRowCompactionDao.saveCompaction(compaction);
+		});
+	}
+
+	@Test
+	public void testSaveCompactionNullChangeEtag() {
+		compaction.withChangeEtag(null);
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			tableRowCompactionDao.saveCompaction(compaction);
+		});
+	}
+
+	@Test
+	public void testSaveCompactionNullKey() {
+		compaction.withKey(null);
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			tableRowCompactionDao.saveCompaction(compaction);
+		});
+	}
+}
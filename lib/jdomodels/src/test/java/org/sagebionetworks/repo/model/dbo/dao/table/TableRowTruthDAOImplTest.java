@@ -40,6 +40,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(locations = { "classpath:jdomodels-test-context.xml" })
@@ -289,6 +290,28 @@ public class TableRowTruthDAOImplTest {
 		TableRowChange change = rowChanges.get(0);
 		assertEquals(TableChangeType.ROW, change.getChangeType());
 	}
+	
+	@Test
+	public void testListRowSetsKeysForTableGreaterThanVersionWithRows() throws IOException{
+		List<ColumnModel> columns = TableModelTestUtils.createOneOfEachType();
+		// rows 0-4 are added by version zero and rows 5-9 by version one.
+		List<Row> rows = TableModelTestUtils.createRows(columns, 5);
+		RawRowSet set = new RawRowSet(TableModelUtils.getIds(columns), null, tableId, rows);
+		appendRowSetToTable(creatorUserGroupId, tableId, columns, set);
+		rows = TableModelTestUtils.createRows(columns, 5);
+		set = new RawRowSet(TableModelUtils.getIds(columns), null, tableId, rows);
+		appendRowSetToTable(creatorUserGroupId, tableId, columns, set);
+		// Call under test
+		List<TableRowChange> results = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, -1L, Sets.newHashSet(7L));
+		assertEquals(1, results.size());
+		assertEquals(new Long(1), results.get(0).getRowVersion());
+		results = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, -1L, Sets.newHashSet(3L, 8L));
+		assertEquals(2, results.size());
+		results = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, 0L, Sets.newHashSet(3L));
+		assertEquals(0, results.size());
+		results = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, -1L, Sets.newHashSet(123L));
+		assertEquals(0, results.size());
+	}
 
 	
 	@Test
@@ -3,6 +3,7 @@ package org.sagebionetworks.repo.model.dbo.schema;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.Collections;
 import java.util.Date;
 
 import org.junit.jupiter.api.AfterEach;
@@ -222,4 +223,99 @@ public class SchemaValidationResultDaoImplTest {
 			dao.clearResults(results.getObjectId(), results.getObjectType());
 		});
 	}
+
+	@Test
+	public void testCreateOrUpdateResultsBatch() {
+		ValidationResults other = createResults("syn456");
+		// call under test
+		dao.createOrUpdateResultsBatch(Lists.newArrayList(results, other));
+		assertEquals(results, dao.getValidationResults(results.getObjectId(), results.getObjectType()));
+		assertEquals(other, dao.getValidationResults(other.getObjectId(), other.getObjectType()));
+	}
+
+	@Test
+	public void testCreateOrUpdateResultsBatchWithUpdate() {
+		dao.createOrUpdateResults(results);
+		ValidationResults other = createResults("syn456");
+		results.setObjectEtag("a new etag");
+		results.setIsValid(false);
+		// call under test
+		dao.createOrUpdateResultsBatch(Lists.newArrayList(results, other));
+		assertEquals(results, dao.getValidationResults(results.getObjectId(), results.getObjectType()));
+		assertEquals(other, dao.getValidationResults(other.getObjectId(), other.getObjectType()));
+	}
+
+	@Test
+	public void testCreateOrUpdateResultsBatchWithEmpty() {
+		// call under test
+		dao.createOrUpdateResultsBatch(Collections.emptyList());
+	}
+
+	@Test
+	public void testCreateOrUpdateResultsBatchWithNullObjectId() {
+		results.setObjectId(null);
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			dao.createOrUpdateResultsBatch(Lists.newArrayList(results));
+		});
+	}
+
+	@Test
+	public void testCreateOrUpdateResultsBatchWithNullResults() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			dao.createOrUpdateResultsBatch(null);
+		});
+	}
+
+	@Test
+	public void testClearResultsBatch() {
+		ValidationResults other = createResults("syn456");
+		ValidationResults notCleared = createResults("syn789");
+		dao.createOrUpdateResultsBatch(Lists.newArrayList(results, other, notCleared));
+		// call under test
+		dao.clearResultsBatch(Lists.newArrayList(results.getObjectId(), other.getObjectId()), ObjectType.entity);
+		assertThrows(NotFoundException.class, () -> {
+			dao.getValidationResults(results.getObjectId(), results.getObjectType());
+		});
+		assertThrows(NotFoundException.class, () -> {
+			dao.getValidationResults(other.getObjectId(), other.getObjectType());
+		});
+		assertEquals(notCleared, dao.getValidationResults(notCleared.getObjectId(), notCleared.getObjectType()));
+	}
+
+	@Test
+	public void testClearResultsBatchWithEmpty() {
+		dao.createOrUpdateResults(results);
+		// call under test
+		dao.clearResultsBatch(Collections.emptyList(), ObjectType.entity);
+		assertEquals(results, dao.getValidationResults(results.getObjectId(), results.getObjectType()));
+	}
+
+	@Test
+	public void testClearResultsBatchWithNullObjectIds() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			dao.clearResultsBatch(null, ObjectType.entity);
+		});
+	}
+
+	@Test
+	public void testClearResultsBatchWithNullObjectType() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			dao.clearResultsBatch(Lists.newArrayList("syn123"), null);
+		});
+	}
+
+	ValidationResults createResults(String objectId) {
+		ValidationResults other = new ValidationResults();
+		other.setObjectId(objectId);
+		other.setObjectType(ObjectType.entity);
+		other.setObjectEtag("etag-" + objectId);
+		other.setIsValid(true);
+		other.setSchema$id("my.org-foo.bar-1.0.1");
+		other.setValidatedOn(new Date());
+		return other;
+	}
 }
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -20,6 +21,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(locations = { "classpath:jdomodels-test-context.xml" })
 public class EmailQuarantineDaoImplTest {
@@ -385,6 +389,54 @@ public class EmailQuarantineDaoImplTest {
 		assertFalse(dao.isQuarantined(testEmail));
 	}
 
+	@Test
+	public void testGetQuarantinedEmails() {
+		String otherEmail = "otheremail@test.com";
+		
+		QuarantinedEmailBatch batch = new QuarantinedEmailBatch()
+				.add(getTestQuarantinedEmail());
+		
+		dao.addToQuarantine(batch);
+		
+		String mixedCase = "TestEmail@Test.com";
+		
+		// Call under test
+		
+		assertEquals(ImmutableSet.of(testEmail, mixedCase), dao.getQuarantinedEmails(ImmutableList.of(testEmail, mixedCase, otherEmail)));
+	}
+	
+	@Test
+	public void testGetQuarantinedEmailsWithExpirationExpired() throws Exception {
+		Long timeout = 50L;
+		
+		QuarantinedEmailBatch batch = new QuarantinedEmailBatch()
+				.withExpirationTimeout(timeout)
+				.add(getTestQuarantinedEmail());
+		
+		dao.addToQuarantine(batch);
+		
+		Thread.sleep(timeout * 2);
+		
+		// Call under test
+		
+		assertEquals(Collections.emptySet(), dao.getQuarantinedEmails(ImmutableList.of(testEmail)));
+	}
+	
+	@Test
+	public void testGetQuarantinedEmailsWithEmptyInput() {
+		// Call under test
+		
+		assertEquals(Collections.emptySet(), dao.getQuarantinedEmails(Collections.emptyList()));
+	}
+	
+	@Test
+	public void testGetQuarantinedEmailsWithNullInput() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			// Call under test
+			dao.getQuarantinedEmails(null);
+		});
+	}
+
 	private QuarantinedEmail getTestQuarantinedEmail() {
 		return getTestQuarantinedEmail(testEmail, EmailQuarantineReason.PERMANENT_BOUNCE);
 	}
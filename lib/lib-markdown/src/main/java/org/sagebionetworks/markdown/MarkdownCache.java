@@ -0,0 +1,60 @@
+package org.sagebionetworks.markdown;
+
+import java.io.IOException;
+
+import org.apache.http.client.ClientProtocolException;
+import org.json.JSONException;
+
+/**
+ * A node-local cache of converted markdown keyed by a hash of the raw markdown
+ * and the output type, so the same input is only sent to the markdown server
+ * once.
+ */
+public interface MarkdownCache {
+
+	/**
+	 * Get the converted markdown from the cache. On a miss the given converter is
+	 * called and its result is added to the cache.
+	 * 
+	 * @param rawMarkdown
+	 * @param outputType
+	 * @param converter
+	 * @return
+	 * @throws ClientProtocolException
+	 * @throws IOException
+	 * @throws JSONException
+	 * @throws MarkdownClientException
+	 */
+	String getOrConvert(String rawMarkdown, String outputType, MarkdownConverter converter)
+			throws ClientProtocolException, IOException, JSONException, MarkdownClientException;
+
+	/**
+	 * @return The number of cache hits since the last call.
+	 */
+	long getAndResetHitCount();
+
+	/**
+	 * @return The number of cache misses since the last call.
+	 */
+	long getAndResetMissCount();
+
+	/**
+	 * @return The number of conversions since the last call.
+	 */
+	long getAndResetConversionCount();
+
+	/**
+	 * @return The total milliseconds spent in conversions since the last call.
+	 */
+	long getAndResetConversionTimeMS();
+
+	/**
+	 * @return The number of entries currently held in memory.
+	 */
+	int getEntryCount();
+
+	/**
+	 * @return The number of entries currently spilled to local disk.
+	 */
+	int getSpilledEntryCount();
+}
@@ -0,0 +1,409 @@
+package org.sagebionetworks.markdown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.ClientProtocolException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+
+/**
+ * Implementation of the {@link MarkdownCache} that holds the most recently used
+ * entries in memory. When spilling is enabled, the entries evicted from memory
+ * are written to files in a temporary directory created for each instance,
+ * which is also bounded by its number of entries. The files are written and
+ * deleted by a single background thread so no file is written while holding
+ * the lock on the entries.
+ */
+public class MarkdownCacheImpl implements MarkdownCache {
+
+	private static final Logger log = LogManager.getLogger(MarkdownCacheImpl.class);
+
+	/**
+	 * The default maximum number of entries in memory.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 500;
+	/**
+	 * The default maximum number of entries spilled to disk.
+	 */
+	public static final int DEFAULT_MAX_SPILLED_ENTRIES = 10000;
+	/**
+	 * Converted markdown longer than this is not cached.
+	 */
+	public static final int MAX_ENTRY_CHARACTERS = 50 * 1000;
+	public static final String SPILL_DIRECTORY_PREFIX = "markdown-cache";
+	public static final String SPILL_FILE_SUFFIX = ".html";
+	/**
+	 * The maximum time to wait for the spill writer to finish when destroyed.
+	 */
+	public static final long DESTROY_TIMEOUT_SECONDS = 10;
+
+	private final File spillDirectory;
+	private final int maxSpilledEntries;
+	private final ExecutorService spillWriter;
+
+	/*
+	 * All access to the entries is synchronized on this object. An entry evicted
+	 * from memory is pending until the spill writer has written its file.
+	 */
+	private final Map<String, String> entries;
+	private final Map<String, String> pendingSpills;
+	private final Map<String, Boolean> spilledKeys;
+
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong conversionCount = new AtomicLong(0);
+	private final AtomicLong conversionTimeMS = new AtomicLong(0);
+
+	/**
+	 *
+	 * @param maxEntries   The maximum number of entries in memory.
+	 * @param spillEnabled When true, the entries evicted from memory are spilled
+	 *                     to a new directory in the temporary directory.
+	 */
+	public MarkdownCacheImpl(int maxEntries, boolean spillEnabled) {
+		this(maxEntries, spillEnabled ? createSpillDirectory() : null, DEFAULT_MAX_SPILLED_ENTRIES);
+	}
+
+	/**
+	 *
+	 * @param maxEntries        The maximum number of entries in memory.
+	 * @param spillDirectory    The directory for the spilled entries, which must
+	 *                          not be shared with any other instance. Null to
+	 *                          disable spilling.
+	 * @param maxSpilledEntries The maximum number of entries spilled to disk.
+	 */
+	MarkdownCacheImpl(int maxEntries, File spillDirectory, int maxSpilledEntries) {
+		this(maxEntries, spillDirectory, maxSpilledEntries,
+				spillDirectory == null ? null : Executors.newSingleThreadExecutor());
+	}
+
+	/**
+	 *
+	 * @param maxEntries        The maximum number of entries in memory.
+	 * @param spillDirectory    The directory for the spilled entries, which must
+	 *                          not be shared with any other instance. Null to
+	 *                          disable spilling.
+	 * @param maxSpilledEntries The maximum number of entries spilled to disk.
+	 * @param spillWriter       Writes and deletes the spilled files. Must run a
+	 *                          single task at a time in the order submitted. Null
+	 *                          when spilling is disabled.
+	 */
+	MarkdownCacheImpl(int maxEntries, File spillDirectory, int maxSpilledEntries, ExecutorService spillWriter) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be at least one");
+		}
+		this.spillDirectory = spillDirectory;
+		this.maxSpilledEntries = maxSpilledEntries;
+		this.spillWriter = spillWriter;
+		this.pendingSpills = new LinkedHashMap<>();
+		this.entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<String, String> eldest) {
+				if (size() > maxEntries) {
+					spill(eldest.getKey(), eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.spilledKeys = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<String, Boolean> eldest) {
+				if (size() > maxSpilledEntries) {
+					deleteSpillFile(eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public String getOrConvert(String rawMarkdown, String outputType, MarkdownConverter converter)
+			throws ClientProtocolException, IOException, JSONException, MarkdownClientException {
+		if (rawMarkdown == null) {
+			throw new IllegalArgumentException("rawMarkdown cannot be null");
+		}
+		if (converter == null) {
+			throw new IllegalArgumentException("converter cannot be null");
+		}
+		String key = createKey(rawMarkdown, outputType);
+		String result = get(key);
+		if (result != null) {
+			hitCount.incrementAndGet();
+			return result;
+		}
+		missCount.incrementAndGet();
+		long start = System.currentTimeMillis();
+		result = converter.convert(rawMarkdown, outputType);
+		conversionTimeMS.addAndGet(System.currentTimeMillis() - start);
+		conversionCount.incrementAndGet();
+		if (result != null && result.length() <= MAX_ENTRY_CHARACTERS) {
+			put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the entry for the given key from memory or, when spilled, from disk.
+	 *
+	 * @param key
+	 * @return Null if the key is not cached.
+	 */
+	synchronized String get(String key) {
+		String result = entries.get(key);
+		if (result != null) {
+			return result;
+		}
+		result = pendingSpills.remove(key);
+		if (result != null) {
+			// the spill writer skips or deletes the file of an entry that is no longer pending.
+			entries.put(key, result);
+			return result;
+		}
+		if (spilledKeys.remove(key) == null) {
+			return null;
+		}
+		try {
+			result = new String(Files.readAllBytes(getSpillFile(key).toPath()), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			log.warn("Failed to read spilled markdown: " + e.getMessage());
+			return null;
+		} finally {
+			deleteSpillFile(key);
+		}
+		// move the entry back to memory.
+		entries.put(key, result);
+		return result;
+	}
+
+	synchronized void put(String key, String value) {
+		entries.put(key, value);
+	}
+
+	/**
+	 * Called while holding the lock when an entry is evicted from memory. The
+	 * entry is pending until the spill writer has written its file. When the spill
+	 * writer falls behind by more than the maximum number of spilled entries, the
+	 * entry is dropped.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	private void spill(String key, String value) {
+		if (spillWriter == null || pendingSpills.size() >= maxSpilledEntries) {
+			return;
+		}
+		pendingSpills.put(key, value);
+		try {
+			spillWriter.execute(() -> writeSpill(key));
+		} catch (RejectedExecutionException e) {
+			// the cache is destroyed.
+			pendingSpills.remove(key);
+		}
+	}
+
+	/**
+	 * Called by the spill writer to write the file of a pending entry without
+	 * holding the lock.
+	 *
+	 * @param key
+	 */
+	void writeSpill(String key) {
+		String value;
+		synchronized (this) {
+			value = pendingSpills.get(key);
+		}
+		if (value == null) {
+			// the entry was moved back to memory.
+			return;
+		}
+		File file = getSpillFile(key);
+		try {
+			Files.write(file.toPath(), value.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			log.warn("Failed to spill markdown to disk: " + e.getMessage());
+			synchronized (this) {
+				pendingSpills.remove(key, value);
+			}
+			file.delete();
+			return;
+		}
+		boolean spilled;
+		synchronized (this) {
+			spilled = pendingSpills.remove(key, value);
+			if (spilled) {
+				spilledKeys.put(key, Boolean.TRUE);
+			}
+		}
+		if (!spilled) {
+			// the entry was moved back to memory while the file was written.
+			file.delete();
+		}
+	}
+
+	/**
+	 * Delete the file of a spilled entry on the spill writer, after any write of
+	 * the file that is already submitted.
+	 *
+	 * @param key
+	 */
+	private void deleteSpillFile(String key) {
+		try {
+			spillWriter.execute(() -> getSpillFile(key).delete());
+		} catch (RejectedExecutionException e) {
+			// the cache is destroyed.
+			getSpillFile(key).delete();
+		}
+	}
+
+	/**
+	 * Wait for all of the files submitted to the spill writer to be written or
+	 * deleted.
+	 *
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	void awaitSpillWriter() throws InterruptedException, ExecutionException {
+		if (spillWriter != null) {
+			spillWriter.submit(() -> {
+			}).get();
+		}
+	}
+
+	private File getSpillFile(String key) {
+		return new File(spillDirectory, key + SPILL_FILE_SUFFIX);
+	}
+
+	/**
+	 * Create a new directory for the spilled entries of a single instance.
+	 *
+	 * @return Null if the directory could not be created, which disables
+	 *         spilling.
+	 */
+	static File createSpillDirectory() {
+		try {
+			return Files.createTempDirectory(SPILL_DIRECTORY_PREFIX).toFile();
+		} catch (IOException e) {
+			log.warn("Failed to create a directory for spilled markdown, spilling is disabled: " + e.getMessage());
+			return null;
+		}
+	}
+
+	File getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	/**
+	 * Stop the spill writer, remove all entries and delete the spill directory.
+	 * Called by Spring when the cache is destroyed.
+	 */
+	public void destroy() {
+		if (spillWriter != null) {
+			// the spill writer needs the lock to finish.
+			spillWriter.shutdown();
+			try {
+				if (!spillWriter.awaitTermination(DESTROY_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					log.warn("Timed out waiting for the markdown spill writer to finish");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			entries.clear();
+			for (String key : spilledKeys.keySet()) {
+				getSpillFile(key).delete();
+			}
+			spilledKeys.clear();
+			// a pending file may be partially written if the spill writer timed out.
+			for (String key : pendingSpills.keySet()) {
+				getSpillFile(key).delete();
+			}
+			pendingSpills.clear();
+			if (spillDirectory != null) {
+				spillDirectory.delete();
+			}
+		}
+	}
+
+	/**
+	 * Create the content address of the given input.
+	 *
+	 * @param rawMarkdown
+	 * @param outputType
+	 * @return The hex SHA-256 of the output type and the raw markdown.
+	 */
+	static String createKey(String rawMarkdown, String outputType) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			// a null output type is distinct from an empty output type.
+			if (outputType != null) {
+				digest.update((byte) 1);
+				digest.update(outputType.getBytes(StandardCharsets.UTF_8));
+			}
+			// separates the output type from the markdown.
+			digest.update((byte) 0);
+			byte[] hash = digest.digest(rawMarkdown.getBytes(StandardCharsets.UTF_8));
+			StringBuilder builder = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				builder.append(String.format("%02x", b));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public long getAndResetHitCount() {
+		return hitCount.getAndSet(0);
+	}
+
+	@Override
+	public long getAndResetMissCount() {
+		return missCount.getAndSet(0);
+	}
+
+	@Override
+	public long getAndResetConversionCount() {
+		return conversionCount.getAndSet(0);
+	}
+
+	@Override
+	public long getAndResetConversionTimeMS() {
+		return conversionTimeMS.getAndSet(0);
+	}
+
+	@Override
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	@Override
+	public synchronized int getSpilledEntryCount() {
+		return spilledKeys.size();
+	}
+
+}
@@ -0,0 +1,26 @@
+package org.sagebionetworks.markdown;
+
+import java.io.IOException;
+
+import org.apache.http.client.ClientProtocolException;
+import org.json.JSONException;
+
+/**
+ * Converts raw markdown when it is not found in the {@link MarkdownCache}.
+ */
+@FunctionalInterface
+public interface MarkdownConverter {
+
+	/**
+	 * Convert the given raw markdown to the given output type.
+	 * 
+	 * @param rawMarkdown
+	 * @param outputType
+	 * @return
+	 * @throws ClientProtocolException
+	 * @throws IOException
+	 * @throws JSONException
+	 * @throws MarkdownClientException
+	 */
+	String convert(String rawMarkdown, String outputType) throws ClientProtocolException, IOException, JSONException, MarkdownClientException;
+}
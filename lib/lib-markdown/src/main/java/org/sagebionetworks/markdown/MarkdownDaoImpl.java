@@ -17,6 +17,7 @@ public class MarkdownDaoImpl implements MarkdownDao{
 	@Autowired
 	MarkdownClient markdownClient;
 	String synapseBaseUrl;
+	MarkdownCache markdownCache;
 
 	public String getSynapseBaseUrl() {
 		return synapseBaseUrl;
@@ -26,11 +27,31 @@ public class MarkdownDaoImpl implements MarkdownDao{
 		this.synapseBaseUrl = synapseBaseUrl;
 	}
 
+	/**
+	 * Optional cache of converted markdown. When not set every call is sent to
+	 * the markdown server.
+	 * 
+	 * @param markdownCache
+	 */
+	public void setMarkdownCache(MarkdownCache markdownCache) {
+		this.markdownCache = markdownCache;
+	}
+
 	@Override
 	public String convertMarkdown(String rawMarkdown, String outputType) throws ClientProtocolException, IOException, JSONException, MarkdownClientException {
 		if (rawMarkdown == null) {
 			throw new IllegalArgumentException("rawMarkdown cannot be null");
 		}
+		if (markdownCache == null) {
+			return requestConversion(rawMarkdown, outputType);
+		}
+		return markdownCache.getOrConvert(rawMarkdown, outputType, this::requestConversion);
+	}
+
+	/**
+	 * Send the conversion request to the markdown server.
+	 */
+	String requestConversion(String rawMarkdown, String outputType) throws ClientProtocolException, IOException, JSONException, MarkdownClientException {
 		JSONObject request = new JSONObject();
 		request.put(MARKDOWN, rawMarkdown);
 		request.put(BASE_URL, synapseBaseUrl);
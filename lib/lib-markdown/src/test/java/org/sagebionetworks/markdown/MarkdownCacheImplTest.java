@@ -0,0 +1,253 @@
+package org.sagebionetworks.markdown;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class MarkdownCacheImplTest {
+
+	@Mock
+	private MarkdownConverter mockConverter;
+
+	@TempDir
+	File spillDirectory;
+
+	private MarkdownCacheImpl cache;
+
+	@BeforeEach
+	public void before() {
+		cache = new MarkdownCacheImpl(2, false);
+	}
+
+	@AfterEach
+	public void after() {
+		cache.destroy();
+	}
+
+	@Test
+	public void testGetOrConvertWithHit() throws Exception {
+		when(mockConverter.convert("one", "html")).thenReturn("<p>one</p>");
+		assertEquals("<p>one</p>", cache.getOrConvert("one", "html", mockConverter));
+		// call under test
+		assertEquals("<p>one</p>", cache.getOrConvert("one", "html", mockConverter));
+		verify(mockConverter, times(1)).convert("one", "html");
+		assertEquals(1L, cache.getAndResetHitCount());
+		assertEquals(1L, cache.getAndResetMissCount());
+		assertEquals(1L, cache.getAndResetConversionCount());
+		assertTrue(cache.getAndResetConversionTimeMS() >= 0L);
+		// the counts are reset.
+		assertEquals(0L, cache.getAndResetHitCount());
+		assertEquals(0L, cache.getAndResetMissCount());
+		assertEquals(0L, cache.getAndResetConversionCount());
+	}
+
+	@Test
+	public void testGetOrConvertWithDifferentOutputType() throws Exception {
+		when(mockConverter.convert("one", "html")).thenReturn("<p>one</p>");
+		when(mockConverter.convert("one", null)).thenReturn("<p class=\"synapse\">one</p>");
+		assertEquals("<p>one</p>", cache.getOrConvert("one", "html", mockConverter));
+		// call under test
+		assertEquals("<p class=\"synapse\">one</p>", cache.getOrConvert("one", null, mockConverter));
+		assertEquals(2, cache.getEntryCount());
+	}
+
+	@Test
+	public void testGetOrConvertWithConverterFailure() throws Exception {
+		when(mockConverter.convert("one", null)).thenThrow(new MarkdownClientException(500, "failed"));
+		assertThrows(MarkdownClientException.class, () -> {
+			// call under test
+			cache.getOrConvert("one", null, mockConverter);
+		});
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void testGetOrConvertWithLargeResult() throws Exception {
+		String large = new String(new char[MarkdownCacheImpl.MAX_ENTRY_CHARACTERS + 1]);
+		when(mockConverter.convert("one", null)).thenReturn(large);
+		// call under test
+		assertEquals(large, cache.getOrConvert("one", null, mockConverter));
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void testGetOrConvertWithNullMarkdown() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.getOrConvert(null, null, mockConverter);
+		});
+		verify(mockConverter, never()).convert(any(), any());
+	}
+
+	@Test
+	public void testEntriesBounded() throws Exception {
+		cache.put("a", "1");
+		cache.put("b", "2");
+		// touch a so b is the least recently used.
+		assertEquals("1", cache.get("a"));
+		// call under test
+		cache.put("c", "3");
+		assertEquals(2, cache.getEntryCount());
+		assertEquals("1", cache.get("a"));
+		assertEquals(null, cache.get("b"));
+		assertEquals(0, cache.getSpilledEntryCount());
+	}
+
+	@Test
+	public void testSpillAndPromote() throws Exception {
+		cache = new MarkdownCacheImpl(1, spillDirectory, 10);
+		cache.put("a", "1");
+		// call under test
+		cache.put("b", "2");
+		cache.awaitSpillWriter();
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(1, cache.getSpilledEntryCount());
+		assertTrue(new File(spillDirectory, "a" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		// a is read from disk and moved back to memory, which spills b.
+		assertEquals("1", cache.get("a"));
+		cache.awaitSpillWriter();
+		assertEquals(1, cache.getSpilledEntryCount());
+		assertFalse(new File(spillDirectory, "a" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		assertTrue(new File(spillDirectory, "b" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		assertEquals("2", cache.get("b"));
+	}
+
+	@Test
+	public void testSpillWrittenWithoutLock() throws Exception {
+		// block the spill writer until the entries are checked.
+		ExecutorService spillWriter = Executors.newSingleThreadExecutor();
+		CountDownLatch latch = new CountDownLatch(1);
+		spillWriter.submit(() -> {
+			latch.await();
+			return null;
+		});
+		cache = new MarkdownCacheImpl(1, spillDirectory, 10, spillWriter);
+		cache.put("a", "1");
+		// call under test
+		cache.put("b", "2");
+		// the put does not wait for the file of a to be written.
+		assertFalse(new File(spillDirectory, "a" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		assertEquals(0, cache.getSpilledEntryCount());
+		// a pending entry is moved back to memory, which spills b.
+		assertEquals("1", cache.get("a"));
+		latch.countDown();
+		cache.awaitSpillWriter();
+		// the file of a is not written once it is back in memory.
+		assertFalse(new File(spillDirectory, "a" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		assertTrue(new File(spillDirectory, "b" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		assertEquals(1, cache.getSpilledEntryCount());
+		assertEquals("2", cache.get("b"));
+	}
+
+	@Test
+	public void testWriteSpillNotPending() throws Exception {
+		cache = new MarkdownCacheImpl(1, spillDirectory, 10);
+		// call under test
+		cache.writeSpill("a");
+		assertFalse(new File(spillDirectory, "a" + MarkdownCacheImpl.SPILL_FILE_SUFFIX).exists());
+		assertEquals(0, cache.getSpilledEntryCount());
+	}
+
+	@Test
+	public void testSpilledEntriesBounded() throws Exception {
+		cache = new MarkdownCacheImpl(1, spillDirectory, 1);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.awaitSpillWriter();
+		// call under test
+		cache.put("c", "3");
+		cache.awaitSpillWriter();
+		assertEquals(1, cache.getSpilledEntryCount());
+		assertEquals(null, cache.get("a"));
+		assertEquals(1, spillDirectory.listFiles().length);
+	}
+
+	@Test
+	public void testConstructorKeepsOtherFiles() throws IOException {
+		File other = new File(spillDirectory, "other" + MarkdownCacheImpl.SPILL_FILE_SUFFIX);
+		assertTrue(other.createNewFile());
+		// call under test
+		cache = new MarkdownCacheImpl(1, spillDirectory, 1);
+		assertTrue(other.exists());
+	}
+
+	@Test
+	public void testSpillDirectoryPerInstance() {
+		// call under test
+		MarkdownCacheImpl first = new MarkdownCacheImpl(1, true);
+		MarkdownCacheImpl second = new MarkdownCacheImpl(1, true);
+		try {
+			assertTrue(first.getSpillDirectory().isDirectory());
+			assertTrue(second.getSpillDirectory().isDirectory());
+			assertNotEquals(first.getSpillDirectory(), second.getSpillDirectory());
+		} finally {
+			first.destroy();
+			second.destroy();
+		}
+	}
+
+	@Test
+	public void testSpillDisabled() {
+		// call under test
+		cache = new MarkdownCacheImpl(1, false);
+		assertNull(cache.getSpillDirectory());
+		cache.destroy();
+	}
+
+	@Test
+	public void testDestroy() throws Exception {
+		cache = new MarkdownCacheImpl(1, true);
+		File directory = cache.getSpillDirectory();
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.awaitSpillWriter();
+		assertEquals(1, directory.listFiles().length);
+		// call under test
+		cache.destroy();
+		assertFalse(directory.exists());
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0, cache.getSpilledEntryCount());
+	}
+
+	@Test
+	public void testConstructorWithZeroEntries() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new MarkdownCacheImpl(0, false);
+		});
+	}
+
+	@Test
+	public void testCreateKey() {
+		String key = MarkdownCacheImpl.createKey("one", "html");
+		assertEquals(64, key.length());
+		assertEquals(key, MarkdownCacheImpl.createKey("one", "html"));
+		assertNotEquals(key, MarkdownCacheImpl.createKey("one", null));
+		assertNotEquals(MarkdownCacheImpl.createKey("one", ""), MarkdownCacheImpl.createKey("one", null));
+		// the output type is separated from the markdown.
+		assertNotEquals(MarkdownCacheImpl.createKey("htmlone", null), MarkdownCacheImpl.createKey("one", "html"));
+	}
+}
@@ -1,6 +1,8 @@
 package org.sagebionetworks.markdown;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.markdown.MarkdownDaoImpl.MARKDOWN;
 import static org.sagebionetworks.markdown.MarkdownDaoImpl.OUTPUT;
@@ -51,4 +53,18 @@ public class MarkdownDaoImplTest {
 		when(mockMarkdownClient.requestMarkdownConversion(request.toString())).thenReturn(response);
 		assertEquals(result, dao.convertMarkdown(rawMarkdown, outputType));
 	}
+
+	@Test
+	public void testConvertMarkdownWithCache() throws Exception {
+		dao.setMarkdownCache(new MarkdownCacheImpl(10, false));
+		String rawMarkdown = "## a heading";
+		JSONObject request = new JSONObject();
+		request.put(MARKDOWN, rawMarkdown);
+		String response = "{\"result\":\"<h2>a heading</h2>\"}";
+		when(mockMarkdownClient.requestMarkdownConversion(request.toString())).thenReturn(response);
+		assertEquals("<h2>a heading</h2>", dao.convertMarkdown(rawMarkdown, null));
+		assertEquals("<h2>a heading</h2>", dao.convertMarkdown(rawMarkdown, null));
+		// the second call is served from the cache.
+		verify(mockMarkdownClient, times(1)).requestMarkdownConversion(request.toString());
+	}
 }
@@ -0,0 +1,109 @@
+package org.sagebionetworks.table.cluster;
+
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * A reusable, column-oriented batch of query result rows. The row IDs and
+ * versions are held in primitive arrays and the cell values in one array per
+ * select column, so reading a row does not allocate a Row or a list of values.
+ * The arrays are allocated once and reused after each {@link #clear()}.
+ *
+ */
+public class RowBatch {
+
+	private final int capacity;
+	private final long[] rowIds;
+	private final long[] rowVersions;
+	private final String[] etags;
+	private final String[][] columns;
+	private int size;
+
+	/**
+	 * 
+	 * @param capacity    The maximum number of rows in the batch.
+	 * @param columnCount The number of select columns of each row.
+	 */
+	public RowBatch(int capacity, int columnCount) {
+		ValidateArgument.requirement(capacity > 0, "Capacity must be greater than zero");
+		ValidateArgument.requirement(columnCount >= 0, "Column count cannot be negative");
+		this.capacity = capacity;
+		this.rowIds = new long[capacity];
+		this.rowVersions = new long[capacity];
+		this.etags = new String[capacity];
+		this.columns = new String[columnCount][capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * Add a row to the end of the batch.
+	 * 
+	 * @return The index of the new row.
+	 * @throws IllegalStateException If the batch is full.
+	 */
+	public int addRow() {
+		if (isFull()) {
+			throw new IllegalStateException("The batch is full");
+		}
+		int index = size++;
+		etags[index] = null;
+		return index;
+	}
+
+	public void setRowIdAndVersion(int row, long rowId, long rowVersion) {
+		rowIds[row] = rowId;
+		rowVersions[row] = rowVersion;
+	}
+
+	public void setEtag(int row, String etag) {
+		etags[row] = etag;
+	}
+
+	public void setValue(int row, int column, String value) {
+		columns[column][row] = value;
+	}
+
+	public long getRowId(int row) {
+		return rowIds[row];
+	}
+
+	public long getRowVersion(int row) {
+		return rowVersions[row];
+	}
+
+	public String getEtag(int row) {
+		return etags[row];
+	}
+
+	public String getValue(int row, int column) {
+		return columns[column][row];
+	}
+
+	/**
+	 * The number of rows in the batch.
+	 * 
+	 * @return
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * Remove all rows so the batch can be refilled.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+}
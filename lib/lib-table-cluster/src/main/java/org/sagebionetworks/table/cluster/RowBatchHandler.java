@@ -0,0 +1,16 @@
+package org.sagebionetworks.table.cluster;
+
+/**
+ * Used to stream over query results in batches of rows.
+ *
+ */
+public interface RowBatchHandler {
+
+	/**
+	 * Called for each batch of rows. The batch is reused for the next batch once
+	 * this method returns, so a handler must not keep a reference to it.
+	 * 
+	 * @param batch
+	 */
+	void nextBatch(RowBatch batch);
+}
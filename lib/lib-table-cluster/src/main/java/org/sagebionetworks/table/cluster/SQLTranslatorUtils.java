@@ -43,6 +43,7 @@ import org.sagebionetworks.table.query.model.JoinCondition;
 import org.sagebionetworks.table.query.model.JoinType;
 import org.sagebionetworks.table.query.model.NumericValueFunction;
 import org.sagebionetworks.table.query.model.OrderByClause;
+import org.sagebionetworks.table.query.model.OrderingSpecification;
 import org.sagebionetworks.table.query.model.OuterJoinType;
 import org.sagebionetworks.table.query.model.Pagination;
 import org.sagebionetworks.table.query.model.Predicate;
@@ -50,6 +51,8 @@ import org.sagebionetworks.table.query.model.QualifiedJoin;
 import org.sagebionetworks.table.query.model.QuerySpecification;
 import org.sagebionetworks.table.query.model.RegularIdentifier;
 import org.sagebionetworks.table.query.model.SelectList;
+import org.sagebionetworks.table.query.model.SortSpecification;
+import org.sagebionetworks.table.query.model.SortSpecificationList;
 import org.sagebionetworks.table.query.model.StringOverride;
 import org.sagebionetworks.table.query.model.TableExpression;
 import org.sagebionetworks.table.query.model.TableName;
@@ -65,8 +68,9 @@ import org.sagebionetworks.util.ValidateArgument;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -271,7 +275,7 @@ public class SQLTranslatorUtils {
 	 */
 	public static Row readRow(ResultSet rs, boolean includesRowIdAndVersion, boolean includeEtag, ColumnTypeInfo[] colunTypes) throws SQLException{
 		Row row = new Row();
-		List<String> values = new LinkedList<String>();
+		List<String> values = new ArrayList<String>(colunTypes.length);
 		row.setValues(values);
 		if(includesRowIdAndVersion){
 			row.setRowId(rs.getLong(ROW_ID));
@@ -290,6 +294,31 @@ public class SQLTranslatorUtils {
 		return row;
 	}
 	
+	/**
+	 * Read the current row of a ResultSet that was produced with the given query
+	 * into the next row of the given batch.
+	 * 
+	 * @param rs
+	 * @param batch
+	 * @param includesRowIdAndVersion Is ROW_ID and ROW_VERSION included in the result set?
+	 * @param includeEtag Is the read row an EntityRow?
+	 * @param colunTypes
+	 * @throws SQLException
+	 */
+	public static void readRowIntoBatch(ResultSet rs, RowBatch batch, boolean includesRowIdAndVersion, boolean includeEtag, ColumnTypeInfo[] colunTypes) throws SQLException{
+		int index = batch.addRow();
+		if(includesRowIdAndVersion){
+			batch.setRowIdAndVersion(index, rs.getLong(ROW_ID), rs.getLong(ROW_VERSION));
+			if(includeEtag){
+				batch.setEtag(index, rs.getString(ROW_ETAG));
+			}
+		}
+		for(int i=0; i < colunTypes.length; i++){
+			String value = TableModelUtils.translateRowValueFromQuery(rs.getString(i+1), colunTypes[i]);
+			batch.setValue(index, i, value);
+		}
+	}
+	
 	
 
 	/**
@@ -840,4 +869,188 @@ public class SQLTranslatorUtils {
 		builder.append(value.replaceAll("'", "''"));
 		builder.append("'");
 	}
+
+	/**
+	 * The types of columns that can be used as a sort key with keyset pagination.
+	 * The values of these types read from a query result can be bound back into a
+	 * comparison without any loss.
+	 */
+	public static final Set<ColumnType> KEYSET_SORT_COLUMN_TYPES = Collections.unmodifiableSet(EnumSet.of(ColumnType.STRING,
+			ColumnType.LINK, ColumnType.INTEGER, ColumnType.DATE, ColumnType.BOOLEAN, ColumnType.ENTITYID,
+			ColumnType.FILEHANDLEID, ColumnType.USERID, ColumnType.SUBMISSIONID, ColumnType.EVALUATIONID));
+
+	/**
+	 * Get the sort specifications of the given model.
+	 * 
+	 * @param model
+	 * @return An empty list if the model is not sorted.
+	 */
+	public static List<SortSpecification> getSortSpecifications(QuerySpecification model) {
+		OrderByClause orderByClause = model.getTableExpression().getOrderByClause();
+		if (orderByClause == null) {
+			return Collections.emptyList();
+		}
+		return orderByClause.getSortSpecificationList().getSortSpecifications();
+	}
+
+	/**
+	 * A query can be paginated with a keyset (seek) rather than an offset when
+	 * each row has a ROW_ID and each sort key is a column from the select list
+	 * with a type from {@link #KEYSET_SORT_COLUMN_TYPES}. The values of the sort
+	 * keys of the last row of a page can then be read from the page.
+	 * 
+	 * @param model                The model after sorting and the expansion of
+	 *                             'SELECT *'.
+	 * @param columnNameToModelMap
+	 * @return For each sort key, the index of the sort key in the select list.
+	 *         Null if the query cannot use keyset pagination.
+	 */
+	public static List<Integer> getKeysetSortValueIndices(QuerySpecification model,
+			Map<String, ColumnModel> columnNameToModelMap) {
+		ValidateArgument.required(model, "model");
+		ValidateArgument.required(columnNameToModelMap, "columnNameToModelMap");
+		if (model.hasAnyAggregateElements() || model.getTableExpression().getPagination() != null) {
+			// Aggregate rows do not have a ROW_ID and the query's own pagination must be applied with an offset.
+			return null;
+		}
+		List<DerivedColumn> selectColumns = model.getSelectList().getColumns();
+		List<SortSpecification> sortSpecifications = getSortSpecifications(model);
+		List<Integer> indices = new ArrayList<>(sortSpecifications.size());
+		for (SortSpecification sortSpecification : sortSpecifications) {
+			String sortColumnName = sortSpecification.getSortKey().toSqlWithoutQuotes();
+			ColumnModel sortColumn = columnNameToModelMap.get(sortColumnName);
+			if (sortColumn == null || !KEYSET_SORT_COLUMN_TYPES.contains(sortColumn.getColumnType())) {
+				return null;
+			}
+			int index = -1;
+			for (int i = 0; i < selectColumns.size(); i++) {
+				if (sortColumnName.equals(selectColumns.get(i).toSqlWithoutQuotes())) {
+					index = i;
+					break;
+				}
+			}
+			if (index < 0) {
+				return null;
+			}
+			indices.add(index);
+		}
+		return indices;
+	}
+
+	/**
+	 * Create a copy of the given model that is ordered by its sort keys followed
+	 * by ROW_ID, so the order of the rows is unique. When a seek position is
+	 * provided, the copy will only include the rows that sort after that
+	 * position.
+	 * 
+	 * @param model                The model must be eligible for keyset
+	 *                             pagination (see
+	 *                             {@link #getKeysetSortValueIndices(QuerySpecification, Map)})
+	 * @param seekAfterRowId       The ROW_ID of the last row of the previous page.
+	 *                             Null for the first page.
+	 * @param seekAfterSortValues  The value of each sort key of the last row of
+	 *                             the previous page.
+	 * @return
+	 */
+	public static QuerySpecification createKeysetModel(QuerySpecification model, Long seekAfterRowId,
+			List<String> seekAfterSortValues) {
+		ValidateArgument.required(model, "model");
+		TableExpression tableExpression = model.getTableExpression();
+		List<SortSpecification> sortSpecifications = getSortSpecifications(model);
+		try {
+			List<SortSpecification> keysetSortSpecifications = new ArrayList<>(sortSpecifications);
+			keysetSortSpecifications.add(new SortSpecification(new TableQueryParser(ROW_ID).sortKey(), OrderingSpecification.ASC));
+			OrderByClause orderByClause = new OrderByClause(new SortSpecificationList(keysetSortSpecifications));
+
+			WhereClause whereClause = tableExpression.getWhereClause();
+			if (seekAfterRowId != null) {
+				String seekSearchCondition = createSeekSearchCondition(sortSpecifications, seekAfterRowId, seekAfterSortValues);
+				StringBuilder whereClauseBuilder = new StringBuilder();
+				SqlElementUntils.appendCombinedWhereClauseToStringBuilder(whereClauseBuilder, seekSearchCondition, whereClause);
+				whereClause = new TableQueryParser(whereClauseBuilder.toString()).whereClause();
+			}
+			TableExpression keysetTableExpression = new TableExpression(tableExpression.getFromClause(), whereClause,
+					tableExpression.getGroupByClause(), orderByClause, tableExpression.getPagination());
+			return new QuerySpecification(model.getSetQuantifier(), model.getSelectList(), keysetTableExpression);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Create a search condition that matches the rows that sort after the given
+	 * position when ordered by the given sort keys followed by ROW_ID. For keys
+	 * (a ASC, b DESC) the condition is:
+	 * 
+	 * <pre>
+	 * (a > :a) OR (a = :a AND (b < :b OR b IS NULL)) OR (a = :a AND b = :b AND ROW_ID > :rowId)
+	 * </pre>
+	 * 
+	 * MySQL sorts NULL before all other values, so each comparison is adjusted
+	 * for a NULL value.
+	 * 
+	 * @param sortSpecifications
+	 * @param seekAfterRowId
+	 * @param seekAfterSortValues
+	 * @return
+	 */
+	static String createSeekSearchCondition(List<SortSpecification> sortSpecifications, Long seekAfterRowId,
+			List<String> seekAfterSortValues) {
+		ValidateArgument.required(sortSpecifications, "sortSpecifications");
+		ValidateArgument.required(seekAfterRowId, "seekAfterRowId");
+		ValidateArgument.required(seekAfterSortValues, "seekAfterSortValues");
+		ValidateArgument.requirement(sortSpecifications.size() == seekAfterSortValues.size(),
+				"Expected one seek value for each sort key");
+		List<String> terms = new ArrayList<>(sortSpecifications.size() + 1);
+		StringBuilder equalPrefix = new StringBuilder();
+		for (int i = 0; i < sortSpecifications.size(); i++) {
+			SortSpecification sortSpecification = sortSpecifications.get(i);
+			String columnName = sortSpecification.getSortKey().toSqlWithoutQuotes();
+			String value = seekAfterSortValues.get(i);
+			boolean descending = OrderingSpecification.DESC.equals(sortSpecification.getOrderingSpecification());
+			StringBuilder after = new StringBuilder();
+			if (!descending) {
+				appendQuotedColumnName(after, columnName);
+				if (value == null) {
+					after.append(" IS NOT NULL");
+				} else {
+					after.append(" > ");
+					appendSingleQuotedValueToStringBuilder(after, value);
+				}
+			} else if (value != null) {
+				after.append("(");
+				appendQuotedColumnName(after, columnName);
+				after.append(" < ");
+				appendSingleQuotedValueToStringBuilder(after, value);
+				after.append(" OR ");
+				appendQuotedColumnName(after, columnName);
+				after.append(" IS NULL)");
+			}
+			// Nothing sorts after NULL in descending order.
+			if (after.length() > 0) {
+				terms.add(equalPrefix.toString() + after.toString());
+			}
+			appendQuotedColumnName(equalPrefix, columnName);
+			if (value == null) {
+				equalPrefix.append(" IS NULL");
+			} else {
+				equalPrefix.append(" = ");
+				appendSingleQuotedValueToStringBuilder(equalPrefix, value);
+			}
+			equalPrefix.append(" AND ");
+		}
+		terms.add(equalPrefix.toString() + ROW_ID + " > " + seekAfterRowId);
+		StringBuilder builder = new StringBuilder();
+		for (String term : terms) {
+			if (builder.length() > 0) {
+				builder.append(" OR ");
+			}
+			builder.append("(").append(term).append(")");
+		}
+		return builder.toString();
+	}
+
+	static void appendQuotedColumnName(StringBuilder builder, String columnName) {
+		builder.append("\"").append(columnName).append("\"");
+	}
 }
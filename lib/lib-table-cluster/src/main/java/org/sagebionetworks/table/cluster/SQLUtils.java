@@ -1916,6 +1916,25 @@ public class SQLUtils {
 		return builder.toString();
 	}
 	
+	/**
+	 * Create the SQL to select the given columns of every row of a table's index,
+	 * in row ID order.
+	 * 
+	 * @param idAndVersion
+	 * @param headers      The names of the columns to select.
+	 * @return
+	 */
+	public static String createSelectAllRowsFromIndex(IdAndVersion idAndVersion, String[] headers) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("SELECT ");
+		builder.append(String.join(",", headers));
+		builder.append(" FROM ");
+		builder.append(getTableNameForId(idAndVersion, TableType.INDEX));
+		builder.append(" ORDER BY ");
+		builder.append(ROW_ID);
+		return builder.toString();
+	}
+	
 	static void buildHeaders(StringBuilder builder, String[] headers, boolean useBindVariables) {
 		builder.append(" (");
 		boolean isFirst = true;
@@ -6,6 +6,7 @@ import org.sagebionetworks.repo.model.EntityTypeUtils;
 import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.FacetColumnRequest;
 import org.sagebionetworks.repo.model.table.QueryFilter;
+import org.sagebionetworks.repo.model.table.Row;
 import org.sagebionetworks.repo.model.table.SelectColumn;
 import org.sagebionetworks.repo.model.table.SortItem;
 import org.sagebionetworks.table.cluster.columntranslation.ColumnTranslationReferenceLookup;
@@ -17,6 +18,7 @@ import org.sagebionetworks.table.query.model.SelectList;
 import org.sagebionetworks.table.query.util.SqlElementUntils;
 import org.sagebionetworks.util.ValidateArgument;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -108,6 +110,22 @@ public class SqlQuery {
 
 	EntityType tableType;
 
+	/**
+	 * Was keyset (seek) pagination requested for this query?
+	 */
+	Boolean keysetPagination;
+	/**
+	 * The ROW_ID and sort key values of the last row of the previous page when
+	 * seeking.
+	 */
+	Long seekAfterRowId;
+	List<String> seekAfterSortValues;
+	/**
+	 * For a query that uses keyset pagination, the index of each sort key in the
+	 * select list. Null if the query uses offset pagination.
+	 */
+	List<Integer> keysetSortValueIndices;
+
 	/**
 	 * @param tableId
 	 * @param sql
@@ -125,7 +143,10 @@ public class SqlQuery {
 			EntityType tableType,
 			List<FacetColumnRequest> selectedFacets,
 			List<QueryFilter> additionalFilters,
-			Long userId
+			Long userId,
+			Boolean keysetPagination,
+			Long seekAfterRowId,
+			List<String> seekAfterSortValues
 			) {
 		ValidateArgument.required(tableSchema, "TableSchema");
 		if(tableSchema.isEmpty()){
@@ -139,6 +160,9 @@ public class SqlQuery {
 		this.overrideLimit = overrideLimit;
 		this.overrideOffset = overrideOffset;
 		this.userId = userId;
+		this.keysetPagination = keysetPagination;
+		this.seekAfterRowId = seekAfterRowId;
+		this.seekAfterSortValues = seekAfterSortValues;
 
 		if(tableType == null){
 			// default to table
@@ -197,8 +221,29 @@ public class SqlQuery {
 		if(maxBytesPerPage != null){
 			this.maxRowsPerPage =  Math.max(1, maxBytesPerPage / this.maxRowSizeBytes);
 		}
+		/*
+		 * With keyset pagination the rows are ordered by the sort keys and ROW_ID, and
+		 * each page after the first seeks past the last row of the previous page
+		 * rather than skipping an offset. A seek position that no longer matches the
+		 * sort keys falls back to the offset.
+		 */
+		QuerySpecification modelToPaginate = model;
+		Long offsetToApply = overrideOffset;
+		if (BooleanUtils.isTrue(keysetPagination)) {
+			this.keysetSortValueIndices = SQLTranslatorUtils.getKeysetSortValueIndices(model, columnNameToModelMap);
+		}
+		if (this.keysetSortValueIndices != null) {
+			boolean seek = seekAfterRowId != null && seekAfterSortValues != null
+					&& seekAfterSortValues.size() == keysetSortValueIndices.size();
+			if (seek) {
+				modelToPaginate = SQLTranslatorUtils.createKeysetModel(model, seekAfterRowId, seekAfterSortValues);
+				offsetToApply = null;
+			} else {
+				modelToPaginate = SQLTranslatorUtils.createKeysetModel(model, null, null);
+			}
+		}
 		// paginated model includes all overrides and max rows per page.
-		QuerySpecification paginatedModel = SqlElementUntils.overridePagination(model, overrideOffset, overrideLimit, maxRowsPerPage);
+		QuerySpecification paginatedModel = SqlElementUntils.overridePagination(modelToPaginate, offsetToApply, overrideLimit, maxRowsPerPage);
 
 		// Create a copy of the paginated model.
 		try {
@@ -369,4 +414,42 @@ public class SqlQuery {
 	public Long getUserId() {
 		return userId;
 	}
+
+	public Boolean getKeysetPagination() {
+		return keysetPagination;
+	}
+
+	public Long getSeekAfterRowId() {
+		return seekAfterRowId;
+	}
+
+	public List<String> getSeekAfterSortValues() {
+		return seekAfterSortValues;
+	}
+
+	/**
+	 * Is this query paginated with a keyset (seek) rather than an offset?
+	 * 
+	 * @return
+	 */
+	public boolean isKeysetPaginated() {
+		return keysetSortValueIndices != null;
+	}
+
+	/**
+	 * Get the value of each sort key from a row of this query's results. The
+	 * values of the last row of a page are used to seek to the next page.
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public List<String> getKeysetSortValues(Row row) {
+		ValidateArgument.required(row, "row");
+		ValidateArgument.requirement(isKeysetPaginated(), "This query does not use keyset pagination");
+		List<String> sortValues = new ArrayList<>(keysetSortValueIndices.size());
+		for (Integer index : keysetSortValueIndices) {
+			sortValues.add(row.getValues().get(index));
+		}
+		return sortValues;
+	}
 }
@@ -25,6 +25,9 @@ public class SqlQueryBuilder {
 	List<FacetColumnRequest> selectedFacets;
 	List<QueryFilter> additionalFilters;
 	Long userId;
+	Boolean keysetPagination;
+	Long seekAfterRowId;
+	List<String> seekAfterSortValues;
 	
 	/**
 	 * Start with the SQL.
@@ -108,9 +111,37 @@ public class SqlQueryBuilder {
 		return this;
 	}
 
+	/**
+	 * When true, eligible queries are ordered by ROW_ID after any sort keys so
+	 * that pages can be fetched with a seek rather than an offset.
+	 * 
+	 * @param keysetPagination
+	 * @return
+	 */
+	public SqlQueryBuilder keysetPagination(Boolean keysetPagination) {
+		this.keysetPagination = keysetPagination;
+		return this;
+	}
+
+	/**
+	 * Seek past the last row of the previous page. Only applied with keyset
+	 * pagination, in which case the offset is ignored.
+	 * 
+	 * @param rowId      The ROW_ID of the last row of the previous page.
+	 * @param sortValues The value of each sort key of the last row of the
+	 *                   previous page.
+	 * @return
+	 */
+	public SqlQueryBuilder seekAfter(Long rowId, List<String> sortValues) {
+		this.seekAfterRowId = rowId;
+		this.seekAfterSortValues = sortValues;
+		return this;
+	}
+
 	public SqlQuery build(){
 		return new SqlQuery(model, tableSchema, overrideOffset, overrideLimit, maxBytesPerPage, sortList,
-				includeEntityEtag, tableType, selectedFacets, additionalFilters, userId);
+				includeEntityEtag, tableType, selectedFacets, additionalFilters, userId, keysetPagination,
+				seekAfterRowId, seekAfterSortValues);
 	}
 
 
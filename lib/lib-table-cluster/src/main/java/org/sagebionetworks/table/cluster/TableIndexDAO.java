@@ -13,6 +13,7 @@ import org.sagebionetworks.repo.model.dao.table.RowHandler;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.report.SynapseStorageProjectStats;
 import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ObjectAnnotationDTO;
 import org.sagebionetworks.repo.model.table.ObjectDataDTO;
 import org.sagebionetworks.repo.model.table.RowSet;
 import org.sagebionetworks.repo.model.table.ViewObjectType;
@@ -91,6 +92,18 @@ public interface TableIndexDAO {
 	 */
 	boolean queryAsStream(ProgressCallback callback, SqlQuery query, RowHandler handler);
 	
+	/**
+	 * Stream over query results in batches of rows. Each batch is reused for the
+	 * next batch, so no Row object is allocated for each result row.
+	 * 
+	 * @param callback
+	 * @param query
+	 * @param batchSize The maximum number of rows passed to the handler at a time.
+	 * @param handler
+	 * @return
+	 */
+	boolean queryAsBatchStream(ProgressCallback callback, SqlQuery query, int batchSize, RowBatchHandler handler);
+	
 	/**
 	 * Get the row count for this table.
 	 * 
@@ -143,6 +156,16 @@ public interface TableIndexDAO {
 	 */
 	JdbcTemplate getConnection();
 
+	/**
+	 * Get a dao that uses the same database as this dao but that applies the given
+	 * timeout to each statement it runs. The database stops any statement that
+	 * runs longer than the timeout.
+	 * 
+	 * @param queryTimeoutSeconds
+	 * @return
+	 */
+	TableIndexDAO withQueryTimeout(int queryTimeoutSeconds);
+
 	/**
 	 * run calls within a read transaction
 	 * 
@@ -361,6 +384,44 @@ public interface TableIndexDAO {
 	 */
 	void addObjectData(ViewObjectType objectType, List<ObjectDataDTO> objectDtos);
 
+	/**
+	 * Get the replicated data, including the annotations, of each of the given
+	 * objects that exists in the index. The rows are locked until the end of the
+	 * current transaction.
+	 * 
+	 * @param objectType
+	 * @param objectIds
+	 * @return
+	 */
+	List<ObjectDataDTO> getObjectDataForUpdate(ViewObjectType objectType, List<Long> objectIds);
+
+	/**
+	 * Create or update the object replication row of each of the given objects.
+	 * The annotations of the objects are not changed.
+	 * 
+	 * @param objectType
+	 * @param objectDtos
+	 */
+	void upsertObjectRows(ViewObjectType objectType, List<ObjectDataDTO> objectDtos);
+
+	/**
+	 * Create or update each of the given annotations. The object of each
+	 * annotation must already be replicated.
+	 * 
+	 * @param objectType
+	 * @param annotations
+	 */
+	void upsertObjectAnnotations(ViewObjectType objectType, List<ObjectAnnotationDTO> annotations);
+
+	/**
+	 * Delete each of the given annotations, matched on the object ID, key and
+	 * type of each.
+	 * 
+	 * @param objectType
+	 * @param annotations
+	 */
+	void deleteObjectAnnotations(ViewObjectType objectType, List<ObjectAnnotationDTO> annotations);
+
 	/**
 	 * Queries for max length of list values in a column in the temporary copy of the table
 	 * (created using {@link #createTemporaryTable(IdAndVersion)})
@@ -471,6 +532,36 @@ public interface TableIndexDAO {
 	 */
 	List<IdAndEtag> getObjectChildren(ViewObjectType objectType, Long parentId);
 
+	/**
+	 * For the children of the given parent, get the sum of the CRCs of the
+	 * children in each ID bucket. A child is in bucket (ID DIV bucketWidth).
+	 * 
+	 * @param objectType
+	 * @param parentId
+	 * @param bucketWidth   The width of each ID bucket to sum.
+	 * @param filterWidth   The width of the filter buckets. Must be a multiple of
+	 *                      the bucketWidth.
+	 * @param filterBuckets Only the children within these filter buckets are
+	 *                      included.
+	 * @return Map.key = bucket and map.value = sum of the CRCs of the children in
+	 *         the bucket.
+	 */
+	Map<Long, Long> getSumOfChildCRCsForEachBucket(ViewObjectType objectType, Long parentId, long bucketWidth,
+			long filterWidth, List<Long> filterBuckets);
+
+	/**
+	 * Get the Id and Etag for each child of the given parentId within the given
+	 * ID buckets. A child is in bucket (ID DIV bucketWidth).
+	 * 
+	 * @param objectType
+	 * @param parentId
+	 * @param bucketWidth
+	 * @param buckets
+	 * @return
+	 */
+	List<IdAndEtag> getObjectChildrenInBuckets(ViewObjectType objectType, Long parentId, long bucketWidth,
+			List<Long> buckets);
+
 	/**
 	 * Get the rowIds for the given query.
 	 * 
@@ -507,6 +598,31 @@ public interface TableIndexDAO {
 	 */
 	void populateViewFromSnapshot(IdAndVersion idAndVersion, Iterator<String[]> input, long maxBytesPerBatch);
 
+	/**
+	 * Stream every row of the given table's index to the given stream. The first
+	 * row written is the header containing the name of each column of the index.
+	 * Each value is written as it is stored in the index, including nulls, so the
+	 * rows can be pushed back to an index with
+	 * {@link #populateTableFromRows(IdAndVersion, Iterator, long)}.
+	 * 
+	 * @param tableId
+	 * @param outputStream
+	 * @return The number of rows written, excluding the header.
+	 */
+	long streamTableIndexRows(IdAndVersion tableId, CSVWriterStream outputStream);
+
+	/**
+	 * Populate a table's index from rows written by
+	 * {@link #streamTableIndexRows(IdAndVersion, CSVWriterStream)}. The first row
+	 * of the input must be the header.
+	 * 
+	 * @param tableId
+	 * @param input
+	 * @param maxBytesPerBatch Used to limit the size of each batch of data pushed
+	 *                         to the database.
+	 */
+	void populateTableFromRows(IdAndVersion tableId, Iterator<String[]> input, long maxBytesPerBatch);
+
 	/**
 	 * Initialize this dao by setting its database connection.
 	 * 
@@ -6,9 +6,13 @@ import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REP
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_STRING_LIST_VALUE;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_TYPE;
 import static org.sagebionetworks.repo.model.table.TableConstants.BATCH_INSERT_REPLICATION_SYNC_EXP;
+import static org.sagebionetworks.repo.model.table.TableConstants.BUCKETS_PARAM_NAME;
+import static org.sagebionetworks.repo.model.table.TableConstants.BUCKET_ALIAS;
+import static org.sagebionetworks.repo.model.table.TableConstants.BUCKET_WIDTH_PARAM_NAME;
 import static org.sagebionetworks.repo.model.table.TableConstants.CRC_ALIAS;
 import static org.sagebionetworks.repo.model.table.TableConstants.EXCLUSION_LIST_PARAM_NAME;
 import static org.sagebionetworks.repo.model.table.TableConstants.EXPIRES_PARAM_NAME;
+import static org.sagebionetworks.repo.model.table.TableConstants.FILTER_WIDTH_PARAM_NAME;
 import static org.sagebionetworks.repo.model.table.TableConstants.ID_PARAM_NAME;
 import static org.sagebionetworks.repo.model.table.TableConstants.OBEJCT_REPLICATION_COL_ETAG;
 import static org.sagebionetworks.repo.model.table.TableConstants.OBJECT_REPLICATION_COL_BENEFACTOR_ID;
@@ -34,7 +38,9 @@ import static org.sagebionetworks.repo.model.table.TableConstants.P_LIMIT;
 import static org.sagebionetworks.repo.model.table.TableConstants.P_OFFSET;
 import static org.sagebionetworks.repo.model.table.TableConstants.SELECT_NON_EXPIRED_IDS;
 import static org.sagebionetworks.repo.model.table.TableConstants.SELECT_OBJECT_CHILD_CRC;
+import static org.sagebionetworks.repo.model.table.TableConstants.SELECT_OBJECT_CHILD_CRC_BY_BUCKET;
 import static org.sagebionetworks.repo.model.table.TableConstants.SELECT_OBJECT_CHILD_ID_ETAG;
+import static org.sagebionetworks.repo.model.table.TableConstants.SELECT_OBJECT_CHILD_ID_ETAG_IN_BUCKETS;
 import static org.sagebionetworks.repo.model.table.TableConstants.SUBTYPE_PARAM_NAME;
 import static org.sagebionetworks.repo.model.table.TableConstants.TRUNCATE_ANNOTATION_REPLICATION_TABLE;
 import static org.sagebionetworks.repo.model.table.TableConstants.TRUNCATE_OBJECT_REPLICATION_TABLE;
@@ -57,6 +63,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -319,11 +326,21 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		return template;
 	}
 
+	@Override
+	public TableIndexDAO withQueryTimeout(int queryTimeoutSeconds) {
+		ValidateArgument.requirement(queryTimeoutSeconds > 0, "queryTimeoutSeconds must be greater than zero");
+		TableIndexDAOImpl dao = new TableIndexDAOImpl(objectFieldModelResolverFactory);
+		dao.setDataSource(template.getDataSource());
+		// The driver kills a statement on the server when it exceeds this timeout.
+		dao.template.setQueryTimeout(queryTimeoutSeconds);
+		return dao;
+	}
+
 	@Override
 	public RowSet query(ProgressCallback callback, final SqlQuery query) {
 		if (query == null)
 			throw new IllegalArgumentException("SqlQuery cannot be null");
-		final List<Row> rows = new LinkedList<Row>();
+		final List<Row> rows = new ArrayList<Row>();
 		final RowSet rowSet = new RowSet();
 		rowSet.setRows(rows);
 		rowSet.setHeaders(query.getSelectColumns());
@@ -360,6 +377,29 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		});
 		return true;
 	}
+	
+	@Override
+	public boolean queryAsBatchStream(final ProgressCallback callback, final SqlQuery query, int batchSize,
+			final RowBatchHandler handler) {
+		ValidateArgument.required(query, "Query");
+		ValidateArgument.required(handler, "handler");
+		final ColumnTypeInfo[] infoArray = SQLTranslatorUtils.getColumnTypeInfoArray(query.getSelectColumns());
+		final RowBatch batch = new RowBatch(batchSize, infoArray.length);
+		namedTemplate.query(query.getOutputSQL(), new MapSqlParameterSource(query.getParameters()), new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				SQLTranslatorUtils.readRowIntoBatch(rs, batch, query.includesRowIdAndVersion(), query.includeEntityEtag(), infoArray);
+				if (batch.isFull()) {
+					handler.nextBatch(batch);
+					batch.clear();
+				}
+			}
+		});
+		if (batch.getSize() > 0) {
+			handler.nextBatch(batch);
+		}
+		return true;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -743,6 +783,29 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		
 		Collections.sort(sorted);
 		
+		upsertObjectRows(objectType, sorted);
+		// map the entities with annotations
+		final List<ObjectAnnotationDTO> annotations = new ArrayList<ObjectAnnotationDTO>();
+		for(int i=0; i<sorted.size(); i++){
+			ObjectDataDTO dto = sorted.get(i);
+			if(dto.getAnnotations() != null && !dto.getAnnotations().isEmpty()){
+				// this index has annotations.
+				annotations.addAll(dto.getAnnotations());
+			}
+		}
+		upsertObjectAnnotations(objectType, annotations);
+	}
+
+	@Override
+	public void upsertObjectRows(ViewObjectType objectType, List<ObjectDataDTO> objectDtos) {
+		ValidateArgument.required(objectType, "objectType");
+		ValidateArgument.required(objectDtos, "objectDtos");
+		if (objectDtos.isEmpty()) {
+			return;
+		}
+		final List<ObjectDataDTO> sorted = new ArrayList<ObjectDataDTO>(objectDtos);
+		// sort to prevent deadlock.
+		Collections.sort(sorted);
 		// batch update the object replication table
 		template.batchUpdate(TableConstants.OBJECT_REPLICATION_INSERT_OR_UPDATE, new BatchPreparedStatementSetter(){
 
@@ -836,16 +899,16 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 			public int getBatchSize() {
 				return sorted.size();
 			}});
-		// map the entities with annotations
-		final List<ObjectAnnotationDTO> annotations = new ArrayList<ObjectAnnotationDTO>();
-		for(int i=0; i<sorted.size(); i++){
-			ObjectDataDTO dto = sorted.get(i);
-			if(dto.getAnnotations() != null && !dto.getAnnotations().isEmpty()){
-				// this index has annotations.
-				annotations.addAll(dto.getAnnotations());
-			}
+	}
+
+	@Override
+	public void upsertObjectAnnotations(ViewObjectType objectType, List<ObjectAnnotationDTO> annotations) {
+		ValidateArgument.required(objectType, "objectType");
+		ValidateArgument.required(annotations, "annotations");
+		if (annotations.isEmpty()) {
+			return;
 		}
-		// update the annotations
+		// The connection rewrites the batch into multi-row inserts.
 		template.batchUpdate(TableConstants.ANNOTATION_REPLICATION_INSERT_OR_UPDATE, new BatchPreparedStatementSetter(){
 
 			@Override
@@ -862,64 +925,119 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		
 	}
 
+	@Override
+	public void deleteObjectAnnotations(ViewObjectType objectType, List<ObjectAnnotationDTO> annotations) {
+		ValidateArgument.required(objectType, "objectType");
+		ValidateArgument.required(annotations, "annotations");
+		if (annotations.isEmpty()) {
+			return;
+		}
+		template.batchUpdate(TableConstants.ANNOTATION_REPLICATION_DELETE, new BatchPreparedStatementSetter(){
+
+			@Override
+			public void setValues(PreparedStatement ps, int i)
+					throws SQLException {
+				ObjectAnnotationDTO dto = annotations.get(i);
+				int parameterIndex = 1;
+				ps.setString(parameterIndex++, objectType.name());
+				ps.setLong(parameterIndex++, dto.getObjectId());
+				ps.setString(parameterIndex++, dto.getKey());
+				ps.setString(parameterIndex++, dto.getType().name());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return annotations.size();
+			}});
+	}
+
+	@Override
+	public List<ObjectDataDTO> getObjectDataForUpdate(ViewObjectType objectType, List<Long> objectIds) {
+		ValidateArgument.required(objectType, "objectType");
+		ValidateArgument.required(objectIds, "objectIds");
+		if (objectIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		params.addValue(OBJECT_TYPE_PARAM_NAME, objectType.name());
+		params.addValue(ID_PARAM_NAME, objectIds);
+		List<ObjectDataDTO> objects = namedTemplate.query(TableConstants.OBJECT_REPLICATION_GET_FOR_UPDATE, params,
+				OBJECT_DATA_ROW_MAPPER);
+		if (objects.isEmpty()) {
+			return objects;
+		}
+		Map<Long, List<ObjectAnnotationDTO>> annotations = new HashMap<>(objects.size());
+		namedTemplate.query(TableConstants.ANNOTATION_REPLICATION_GET_FOR_UPDATE, params, OBJECT_ANNOTATION_ROW_MAPPER)
+				.forEach(annotation -> annotations.computeIfAbsent(annotation.getObjectId(), k -> new ArrayList<>())
+						.add(annotation));
+		for (ObjectDataDTO dto : objects) {
+			dto.setAnnotations(annotations.get(dto.getId()));
+		}
+		return objects;
+	}
+
+	private static final RowMapper<ObjectDataDTO> OBJECT_DATA_ROW_MAPPER = (ResultSet rs, int rowNum) -> {
+		ObjectDataDTO dto = new ObjectDataDTO();
+		dto.setId(rs.getLong(OBJECT_REPLICATION_COL_OBJECT_ID));
+		dto.setCurrentVersion(rs.getLong(OBJECT_REPLICATION_COL_VERSION));
+		dto.setCreatedBy(rs.getLong(OBJECT_REPLICATION_COL_CREATED_BY));
+		dto.setCreatedOn(new Date(rs.getLong(OBJECT_REPLICATION_COL_CREATED_ON)));
+		dto.setEtag(rs.getString(OBEJCT_REPLICATION_COL_ETAG));
+		dto.setName(rs.getString(OBJECT_REPLICATION_COL_NAME));
+		dto.setSubType(rs.getString(OBJECT_REPLICATION_COL_SUBTYPE));
+		dto.setParentId(rs.getLong(OBJECT_REPLICATION_COL_PARENT_ID));
+		if (rs.wasNull()) {
+			dto.setParentId(null);
+		}
+		dto.setBenefactorId(rs.getLong(OBJECT_REPLICATION_COL_BENEFACTOR_ID));
+		if (rs.wasNull()) {
+			dto.setBenefactorId(null);
+		}
+		dto.setProjectId(rs.getLong(OBJECT_REPLICATION_COL_PROJECT_ID));
+		if (rs.wasNull()) {
+			dto.setProjectId(null);
+		}
+		dto.setModifiedBy(rs.getLong(OBJECT_REPLICATION_COL_MODIFIED_BY));
+		dto.setModifiedOn(new Date(rs.getLong(OBJECT_REPLICATION_COL_MODIFIED_ON)));
+		dto.setFileHandleId(rs.getLong(OBJECT_REPLICATION_COL_FILE_ID));
+		if (rs.wasNull()) {
+			dto.setFileHandleId(null);
+		}
+		dto.setFileSizeBytes(rs.getLong(OBJECT_REPLICATION_COL_FILE_SIZE_BYTES));
+		if (rs.wasNull()) {
+			dto.setFileSizeBytes(null);
+		}
+		dto.setIsInSynapseStorage(rs.getBoolean(OBJECT_REPLICATION_COL_IN_SYNAPSE_STORAGE));
+		if (rs.wasNull()) {
+			dto.setIsInSynapseStorage(null);
+		}
+		dto.setFileMD5(rs.getString(OBJECT_REPLICATION_COL_FILE_MD5));
+
+		return dto;
+	};
+
+	@SuppressWarnings("unchecked")
+	private static final RowMapper<ObjectAnnotationDTO> OBJECT_ANNOTATION_ROW_MAPPER = (ResultSet rs, int rowNum) -> {
+		ObjectAnnotationDTO dto = new ObjectAnnotationDTO();
+		dto.setObjectId(rs.getLong(ANNOTATION_REPLICATION_COL_OBJECT_ID));
+		dto.setKey(rs.getString(ANNOTATION_REPLICATION_COL_KEY));
+		dto.setType(AnnotationType.valueOf(rs.getString(ANNOTATION_REPLICATION_COL_TYPE)));
+		dto.setValue((List<String>) (List<?>) new JSONArray(rs.getString(ANNOTATION_REPLICATION_COL_STRING_LIST_VALUE))
+				.toList());
+		return dto;
+	};
+
 	@Override
 	public ObjectDataDTO getObjectData(ViewObjectType objectType, Long objectId) {
 		// query for the template.
 		ObjectDataDTO dto;
 		try {
-			dto = template.queryForObject(TableConstants.OBJECT_REPLICATION_GET, (ResultSet rs, int rowNum) -> {
-				ObjectDataDTO dto1 = new ObjectDataDTO();
-				dto1.setId(rs.getLong(OBJECT_REPLICATION_COL_OBJECT_ID));
-				dto1.setCurrentVersion(rs.getLong(OBJECT_REPLICATION_COL_VERSION));
-				dto1.setCreatedBy(rs.getLong(OBJECT_REPLICATION_COL_CREATED_BY));
-				dto1.setCreatedOn(new Date(rs.getLong(OBJECT_REPLICATION_COL_CREATED_ON)));
-				dto1.setEtag(rs.getString(OBEJCT_REPLICATION_COL_ETAG));
-				dto1.setName(rs.getString(OBJECT_REPLICATION_COL_NAME));
-				dto1.setSubType(rs.getString(OBJECT_REPLICATION_COL_SUBTYPE));
-				dto1.setParentId(rs.getLong(OBJECT_REPLICATION_COL_PARENT_ID));
-				if (rs.wasNull()) {
-					dto1.setParentId(null);
-				}
-				dto1.setBenefactorId(rs.getLong(OBJECT_REPLICATION_COL_BENEFACTOR_ID));
-				if (rs.wasNull()) {
-					dto1.setBenefactorId(null);
-				}
-				dto1.setProjectId(rs.getLong(OBJECT_REPLICATION_COL_PROJECT_ID));
-				if (rs.wasNull()) {
-					dto1.setProjectId(null);
-				}
-				dto1.setModifiedBy(rs.getLong(OBJECT_REPLICATION_COL_MODIFIED_BY));
-				dto1.setModifiedOn(new Date(rs.getLong(OBJECT_REPLICATION_COL_MODIFIED_ON)));
-				dto1.setFileHandleId(rs.getLong(OBJECT_REPLICATION_COL_FILE_ID));
-				if (rs.wasNull()) {
-					dto1.setFileHandleId(null);
-				}
-				dto1.setFileSizeBytes(rs.getLong(OBJECT_REPLICATION_COL_FILE_SIZE_BYTES));
-				if (rs.wasNull()) {
-					dto1.setFileSizeBytes(null);
-				}
-				dto1.setIsInSynapseStorage(rs.getBoolean(OBJECT_REPLICATION_COL_IN_SYNAPSE_STORAGE));
-				if (rs.wasNull()) {
-					dto1.setIsInSynapseStorage(null);
-				}
-				dto1.setFileMD5(rs.getString(OBJECT_REPLICATION_COL_FILE_MD5));
-
-				return dto1;
-			}, objectType.name(), objectId);
+			dto = template.queryForObject(TableConstants.OBJECT_REPLICATION_GET, OBJECT_DATA_ROW_MAPPER, objectType.name(), objectId);
 		} catch (DataAccessException e) {
 			return null;
 		}
 		// get the annotations.
-		@SuppressWarnings("unchecked")
-		List<ObjectAnnotationDTO> annotations = template.query(TableConstants.ANNOTATION_REPLICATION_GET, (ResultSet rs, int rowNum) -> {
-			ObjectAnnotationDTO dto1 = new ObjectAnnotationDTO();
-			dto1.setObjectId(rs.getLong(ANNOTATION_REPLICATION_COL_OBJECT_ID));
-			dto1.setKey(rs.getString(ANNOTATION_REPLICATION_COL_KEY));
-			dto1.setType(AnnotationType.valueOf(rs.getString(ANNOTATION_REPLICATION_COL_TYPE)));
-			dto1.setValue((List<String>) (List<?>) new JSONArray(rs.getString(ANNOTATION_REPLICATION_COL_STRING_LIST_VALUE))
-							.toList());
-			return dto1;
-		}, objectType.name(), objectId);
+		List<ObjectAnnotationDTO> annotations = template.query(TableConstants.ANNOTATION_REPLICATION_GET, OBJECT_ANNOTATION_ROW_MAPPER, objectType.name(), objectId);
 		
 		if (!annotations.isEmpty()) {
 			dto.setAnnotations(annotations);
@@ -1215,17 +1333,61 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 	public List<IdAndEtag> getObjectChildren(ViewObjectType objectType, Long parentId) {
 		ValidateArgument.required(objectType, "objectType");
 		ValidateArgument.required(parentId, "parentId");
-		return this.template.query(SELECT_OBJECT_CHILD_ID_ETAG, (ResultSet rs, int rowNum) -> {
-			Long id = rs.getLong(TableConstants.OBJECT_REPLICATION_COL_OBJECT_ID);
-			String etag = rs.getString(OBEJCT_REPLICATION_COL_ETAG);
-			Long benefactorId = rs.getLong(OBJECT_REPLICATION_COL_BENEFACTOR_ID);
-			if (rs.wasNull()) {
-				benefactorId = null;
-			}
-			return new IdAndEtag(id, etag, benefactorId);
-		}, objectType.name(), parentId);
+		return this.template.query(SELECT_OBJECT_CHILD_ID_ETAG, ID_AND_ETAG_ROW_MAPPER, objectType.name(), parentId);
+	}
+
+	@Override
+	public Map<Long, Long> getSumOfChildCRCsForEachBucket(ViewObjectType objectType, Long parentId, long bucketWidth,
+			long filterWidth, List<Long> filterBuckets) {
+		ValidateArgument.required(objectType, "objectType");
+		ValidateArgument.required(parentId, "parentId");
+		ValidateArgument.required(filterBuckets, "filterBuckets");
+		ValidateArgument.requirement(bucketWidth > 0, "The bucketWidth must be greater than zero");
+		ValidateArgument.requirement(filterWidth % bucketWidth == 0, "The filterWidth must be a multiple of the bucketWidth");
+		final Map<Long, Long> results = new HashMap<>();
+		if(filterBuckets.isEmpty()){
+			return results;
+		}
+		MapSqlParameterSource param = new MapSqlParameterSource();
+		param.addValue(OBJECT_TYPE_PARAM_NAME, objectType.name());
+		param.addValue(PARENT_ID_PARAM_NAME, parentId);
+		param.addValue(BUCKET_WIDTH_PARAM_NAME, bucketWidth);
+		param.addValue(FILTER_WIDTH_PARAM_NAME, filterWidth);
+		param.addValue(BUCKETS_PARAM_NAME, filterBuckets);
+		namedTemplate.query(SELECT_OBJECT_CHILD_CRC_BY_BUCKET, param, (ResultSet rs) -> {
+			results.put(rs.getLong(BUCKET_ALIAS), rs.getLong(CRC_ALIAS));
+		});
+		return results;
 	}
 
+	@Override
+	public List<IdAndEtag> getObjectChildrenInBuckets(ViewObjectType objectType, Long parentId, long bucketWidth,
+			List<Long> buckets) {
+		ValidateArgument.required(objectType, "objectType");
+		ValidateArgument.required(parentId, "parentId");
+		ValidateArgument.required(buckets, "buckets");
+		ValidateArgument.requirement(bucketWidth > 0, "The bucketWidth must be greater than zero");
+		if(buckets.isEmpty()){
+			return Collections.emptyList();
+		}
+		MapSqlParameterSource param = new MapSqlParameterSource();
+		param.addValue(OBJECT_TYPE_PARAM_NAME, objectType.name());
+		param.addValue(PARENT_ID_PARAM_NAME, parentId);
+		param.addValue(BUCKET_WIDTH_PARAM_NAME, bucketWidth);
+		param.addValue(BUCKETS_PARAM_NAME, buckets);
+		return namedTemplate.query(SELECT_OBJECT_CHILD_ID_ETAG_IN_BUCKETS, param, ID_AND_ETAG_ROW_MAPPER);
+	}
+
+	private static final RowMapper<IdAndEtag> ID_AND_ETAG_ROW_MAPPER = (ResultSet rs, int rowNum) -> {
+		Long id = rs.getLong(OBJECT_REPLICATION_COL_OBJECT_ID);
+		String etag = rs.getString(OBEJCT_REPLICATION_COL_ETAG);
+		Long benefactorId = rs.getLong(OBJECT_REPLICATION_COL_BENEFACTOR_ID);
+		if (rs.wasNull()) {
+			benefactorId = null;
+		}
+		return new IdAndEtag(id, etag, benefactorId);
+	};
+
 	@Override
 	public List<Long> getExpiredContainerIds(ViewObjectType objectType, List<Long> containerIds) {
 		ValidateArgument.required(containerIds, "entityContainerIds");
@@ -1325,19 +1487,62 @@ public class TableIndexDAOImpl implements TableIndexDAO {
 		ValidateArgument.required(idAndVersion.getVersion().isPresent(), "idAndVersion.version");
 		ValidateArgument.required(input, "input");
 		ValidateArgument.required(input.hasNext(), "input is empty");
+		insertRowsInBatches(idAndVersion, input, maxBytesPerBatch);
+	}
+
+	@Override
+	public long streamTableIndexRows(IdAndVersion tableId, CSVWriterStream outputStream) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(outputStream, "outputStream");
+		List<DatabaseColumnInfo> columns = getDatabaseInfo(tableId);
+		ValidateArgument.requirement(!columns.isEmpty(), "The index does not exist for: " + tableId);
+		String[] headers = columns.stream().map(DatabaseColumnInfo::getColumnName).toArray(String[]::new);
+		// push the headers to the stream
+		outputStream.writeNext(headers);
+		String sql = SQLUtils.createSelectAllRowsFromIndex(tableId, headers);
+		AtomicLong rowCount = new AtomicLong(0);
+		template.query(sql, (ResultSet rs) -> {
+			String[] row = new String[headers.length];
+			for (int i = 0; i < headers.length; i++) {
+				row[i] = rs.getString(i + 1);
+			}
+			outputStream.writeNext(row);
+			rowCount.incrementAndGet();
+		});
+		return rowCount.get();
+	}
+
+	@Override
+	public void populateTableFromRows(IdAndVersion tableId, Iterator<String[]> input, long maxBytesPerBatch) {
+		ValidateArgument.required(tableId, "tableId");
+		ValidateArgument.required(input, "input");
+		ValidateArgument.required(input.hasNext(), "input is empty");
+		insertRowsInBatches(tableId, input, maxBytesPerBatch);
+	}
+
+	/**
+	 * Insert the rows of the given input into the index of the given table. The
+	 * first row of the input is the header.
+	 * 
+	 * @param idAndVersion
+	 * @param input
+	 * @param maxBytesPerBatch
+	 */
+	void insertRowsInBatches(IdAndVersion idAndVersion, Iterator<String[]> input, long maxBytesPerBatch) {
 		// The first row is the header
 		String[] headers = input.next();
 		String sql = SQLUtils.createInsertViewFromSnapshot(idAndVersion, headers);
 
 		// push the data in batches
 		List<Object[]> batch = new LinkedList<>();
-		int batchSize = 0;
+		long batchSize = 0;
 		while (input.hasNext()) {
 			String[] row = input.next();
 			long rowSize = SQLUtils.calculateBytes(row);
-			if (batchSize + rowSize > maxBytesPerBatch) {
+			if (!batch.isEmpty() && batchSize + rowSize > maxBytesPerBatch) {
 				template.batchUpdate(sql, batch);
 				batch.clear();
+				batchSize = 0;
 			}
 			batch.add(row);
 			batchSize += rowSize;
@@ -0,0 +1,57 @@
+package org.sagebionetworks.table.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class RowBatchTest {
+
+	@Test
+	public void testAddRowAndClear() {
+		RowBatch batch = new RowBatch(2, 3);
+		assertEquals(2, batch.getCapacity());
+		assertEquals(3, batch.getColumnCount());
+		assertEquals(0, batch.getSize());
+		// call under test
+		int index = batch.addRow();
+		batch.setRowIdAndVersion(index, 11L, 2L);
+		batch.setEtag(index, "etag");
+		batch.setValue(index, 2, "c");
+		assertEquals(0, index);
+		assertEquals(11L, batch.getRowId(0));
+		assertEquals(2L, batch.getRowVersion(0));
+		assertEquals("etag", batch.getEtag(0));
+		assertEquals("c", batch.getValue(0, 2));
+		assertFalse(batch.isFull());
+		assertEquals(1, batch.addRow());
+		assertTrue(batch.isFull());
+		// call under test
+		batch.clear();
+		assertEquals(0, batch.getSize());
+		assertEquals(0, batch.addRow());
+		// the etag of a reused row is reset.
+		assertNull(batch.getEtag(0));
+	}
+
+	@Test
+	public void testAddRowWhenFull() {
+		RowBatch batch = new RowBatch(1, 1);
+		batch.addRow();
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			batch.addRow();
+		});
+	}
+
+	@Test
+	public void testZeroCapacity() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new RowBatch(0, 1);
+		});
+	}
+}
@@ -10,6 +10,7 @@ import org.sagebionetworks.repo.model.table.ColumnModel;
 import org.sagebionetworks.repo.model.table.ColumnSingleValueFilterOperator;
 import org.sagebionetworks.repo.model.table.ColumnSingleValueQueryFilter;
 import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.Row;
 import org.sagebionetworks.repo.model.table.SelectColumn;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.table.query.ParseException;
@@ -885,4 +886,80 @@ public class SQLQueryTest {
 		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 WHERE ( _C333_ = :b0 ) AND ( ( _C111_ LIKE :b1 ) )", query.getOutputSQL());
 	}
 
+	@Test
+	public void testKeysetPaginationFirstPage() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select foo from syn123 order by foo", tableSchema, userId)
+				.keysetPagination(true)
+				.overrideLimit(5L)
+				.build();
+		assertTrue(query.isKeysetPaginated());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 ORDER BY _C111_, ROW_ID ASC LIMIT :b0",
+				query.getOutputSQL());
+		// the model is not changed.
+		assertEquals("SELECT foo FROM syn123 ORDER BY foo", query.getModel().toSql());
+	}
+
+	@Test
+	public void testKeysetPaginationSeek() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select foo from syn123 order by foo", tableSchema, userId)
+				.keysetPagination(true)
+				.overrideLimit(5L)
+				.overrideOffset(10L)
+				.seekAfter(123L, Arrays.asList("x"))
+				.build();
+		assertTrue(query.isKeysetPaginated());
+		// the offset is replaced with the seek.
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 WHERE ( _C111_ > :b0 ) OR ( _C111_ = :b1 AND ROW_ID > :b2 ) ORDER BY _C111_, ROW_ID ASC LIMIT :b3",
+				query.getOutputSQL());
+		assertEquals("x", query.getParameters().get("b0"));
+		assertEquals("x", query.getParameters().get("b1"));
+		assertEquals(5L, query.getParameters().get("b3"));
+	}
+
+	@Test
+	public void testKeysetPaginationSeekValuesDoNotMatchSort() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select foo, bar from syn123 order by foo, bar", tableSchema, userId)
+				.keysetPagination(true)
+				.overrideLimit(5L)
+				.overrideOffset(10L)
+				.seekAfter(123L, Arrays.asList("x"))
+				.build();
+		// falls back to the offset
+		assertEquals("SELECT _C111_, _C333_, ROW_ID, ROW_VERSION FROM T123 ORDER BY _C111_, _C333_, ROW_ID ASC LIMIT :b0 OFFSET :b1",
+				query.getOutputSQL());
+	}
+
+	@Test
+	public void testKeysetPaginationNotEligible() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select foo, doubletype from syn123 order by doubletype", tableSchema, userId)
+				.keysetPagination(true)
+				.overrideLimit(5L)
+				.overrideOffset(10L)
+				.seekAfter(123L, Arrays.asList("1.2"))
+				.build();
+		assertFalse(query.isKeysetPaginated());
+		assertEquals("SELECT _C111_, _C777_, ROW_ID, ROW_VERSION FROM T123 ORDER BY _C777_ LIMIT :b0 OFFSET :b1",
+				query.getOutputSQL());
+	}
+
+	@Test
+	public void testKeysetPaginationNotRequested() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select foo from syn123 order by foo", tableSchema, userId)
+				.overrideLimit(5L)
+				.build();
+		assertFalse(query.isKeysetPaginated());
+		assertEquals("SELECT _C111_, ROW_ID, ROW_VERSION FROM T123 ORDER BY _C111_ LIMIT :b0", query.getOutputSQL());
+	}
+
+	@Test
+	public void testGetKeysetSortValues() throws ParseException {
+		SqlQuery query = new SqlQueryBuilder("select foo, bar from syn123 order by bar desc", tableSchema, userId)
+				.keysetPagination(true)
+				.build();
+		Row row = new Row();
+		row.setRowId(123L);
+		row.setValues(Arrays.asList("a", "b"));
+		// call under test
+		assertEquals(Arrays.asList("b"), query.getKeysetSortValues(row));
+	}
 }
@@ -636,6 +636,43 @@ public class SQLTranslatorUtilsTest {
 		assertEquals(Boolean.TRUE.toString(), result.getValues().get(1));
 	}	
 	
+	@Test
+	public void testReadRowIntoBatchWithHeadersWithEtag() throws SQLException{
+		when(mockResultSet.getLong(ROW_ID)).thenReturn(rowId);
+		when(mockResultSet.getLong(ROW_VERSION)).thenReturn(rowVersion);
+		when(mockResultSet.getString(ROW_ETAG)).thenReturn(etag);
+		when(mockResultSet.getString(1)).thenReturn("aString");
+		when(mockResultSet.getString(2)).thenReturn("true");
+		RowBatch batch = new RowBatch(2, infoArray.length);
+		boolean withHeaders = true;
+		boolean withEtag = true;
+		// call under test.
+		SQLTranslatorUtils.readRowIntoBatch(mockResultSet, batch, withHeaders, withEtag, infoArray);
+		assertEquals(1, batch.getSize());
+		assertEquals(rowId.longValue(), batch.getRowId(0));
+		assertEquals(rowVersion.longValue(), batch.getRowVersion(0));
+		assertEquals(etag, batch.getEtag(0));
+		assertEquals("aString", batch.getValue(0, 0));
+		assertEquals(Boolean.TRUE.toString(), batch.getValue(0, 1));
+	}
+	
+	@Test
+	public void testReadRowIntoBatchWithoutHeaders() throws SQLException{
+		when(mockResultSet.getString(1)).thenReturn(null);
+		when(mockResultSet.getString(2)).thenReturn("false");
+		RowBatch batch = new RowBatch(2, infoArray.length);
+		boolean withHeaders = false;
+		boolean withEtag = false;
+		// call under test.
+		SQLTranslatorUtils.readRowIntoBatch(mockResultSet, batch, withHeaders, withEtag, infoArray);
+		verify(mockResultSet, never()).getLong(ROW_ID);
+		verify(mockResultSet, never()).getLong(ROW_VERSION);
+		verify(mockResultSet, never()).getString(ROW_ETAG);
+		assertEquals(1, batch.getSize());
+		assertNull(batch.getValue(0, 0));
+		assertEquals(Boolean.FALSE.toString(), batch.getValue(0, 1));
+	}
+	
 	@Test
 	public void testTranslateFromClause() throws ParseException{
 		FromClause element = new TableQueryParser("FROM syn123").fromClause();
@@ -2025,4 +2062,121 @@ public class SQLTranslatorUtilsTest {
 				SQLTranslatorUtils.translateQueryFilters(new StringBuilder(), filter)
 		);
 	}
+	@Test
+	public void testCreateSeekSearchConditionAscending() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select a, b from syn123 order by a asc, b asc");
+		// call under test
+		String condition = SQLTranslatorUtils.createSeekSearchCondition(SQLTranslatorUtils.getSortSpecifications(model),
+				5L, Arrays.asList("x", "y"));
+		assertEquals("(\"a\" > 'x') OR (\"a\" = 'x' AND \"b\" > 'y') OR (\"a\" = 'x' AND \"b\" = 'y' AND ROW_ID > 5)",
+				condition);
+	}
+
+	@Test
+	public void testCreateSeekSearchConditionDescending() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select a from syn123 order by a desc");
+		// call under test
+		String condition = SQLTranslatorUtils.createSeekSearchCondition(SQLTranslatorUtils.getSortSpecifications(model),
+				5L, Arrays.asList("x"));
+		assertEquals("((\"a\" < 'x' OR \"a\" IS NULL)) OR (\"a\" = 'x' AND ROW_ID > 5)", condition);
+	}
+
+	@Test
+	public void testCreateSeekSearchConditionNullValue() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select a, b from syn123 order by a asc, b desc");
+		// call under test
+		String condition = SQLTranslatorUtils.createSeekSearchCondition(SQLTranslatorUtils.getSortSpecifications(model),
+				5L, Arrays.asList(null, null));
+		// nothing sorts after a NULL in descending order.
+		assertEquals("(\"a\" IS NOT NULL) OR (\"a\" IS NULL AND \"b\" IS NULL AND ROW_ID > 5)", condition);
+	}
+
+	@Test
+	public void testCreateSeekSearchConditionNoSort() throws ParseException {
+		// call under test
+		String condition = SQLTranslatorUtils.createSeekSearchCondition(Collections.emptyList(), 5L,
+				Collections.emptyList());
+		assertEquals("(ROW_ID > 5)", condition);
+	}
+
+	@Test
+	public void testCreateSeekSearchConditionValueCountMismatch() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select a from syn123 order by a");
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			SQLTranslatorUtils.createSeekSearchCondition(SQLTranslatorUtils.getSortSpecifications(model), 5L,
+					Collections.emptyList());
+		});
+	}
+
+	@Test
+	public void testGetKeysetSortValueIndices() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo, bar from syn123 order by bar desc, foo");
+		// call under test
+		List<Integer> indices = SQLTranslatorUtils.getKeysetSortValueIndices(model, createColumnNameMap());
+		assertEquals(Arrays.asList(1, 0), indices);
+	}
+
+	@Test
+	public void testGetKeysetSortValueIndicesNoSort() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo, bar from syn123");
+		// call under test
+		List<Integer> indices = SQLTranslatorUtils.getKeysetSortValueIndices(model, createColumnNameMap());
+		assertEquals(Collections.emptyList(), indices);
+	}
+
+	@Test
+	public void testGetKeysetSortValueIndicesAggregate() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo, count(*) from syn123 group by foo order by foo");
+		// call under test
+		assertNull(SQLTranslatorUtils.getKeysetSortValueIndices(model, createColumnNameMap()));
+	}
+
+	@Test
+	public void testGetKeysetSortValueIndicesWithPagination() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo from syn123 order by foo limit 10 offset 5");
+		// call under test
+		assertNull(SQLTranslatorUtils.getKeysetSortValueIndices(model, createColumnNameMap()));
+	}
+
+	@Test
+	public void testGetKeysetSortValueIndicesSortKeyNotSelected() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo from syn123 order by bar");
+		// call under test
+		assertNull(SQLTranslatorUtils.getKeysetSortValueIndices(model, createColumnNameMap()));
+	}
+
+	@Test
+	public void testGetKeysetSortValueIndicesDoubleSortKey() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo, aDouble from syn123 order by aDouble");
+		// call under test
+		assertNull(SQLTranslatorUtils.getKeysetSortValueIndices(model, createColumnNameMap()));
+	}
+
+	@Test
+	public void testCreateKeysetModel() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo from syn123 where bar = 'a' order by foo desc");
+		// call under test
+		QuerySpecification keysetModel = SQLTranslatorUtils.createKeysetModel(model, 5L, Arrays.asList("x"));
+		assertEquals("SELECT foo FROM syn123 WHERE ( bar = 'a' ) AND ( ( ( \"foo\" < 'x' OR \"foo\" IS NULL ) ) OR ( \"foo\" = 'x' AND ROW_ID > 5 ) ) ORDER BY foo DESC, ROW_ID ASC",
+				keysetModel.toSql());
+		// the original model is unchanged.
+		assertEquals("SELECT foo FROM syn123 WHERE bar = 'a' ORDER BY foo DESC", model.toSql());
+	}
+
+	@Test
+	public void testCreateKeysetModelFirstPage() throws ParseException {
+		QuerySpecification model = TableQueryParser.parserQuery("select foo from syn123 order by foo");
+		// call under test
+		QuerySpecification keysetModel = SQLTranslatorUtils.createKeysetModel(model, null, null);
+		assertEquals("SELECT foo FROM syn123 ORDER BY foo, ROW_ID ASC", keysetModel.toSql());
+	}
+
+	Map<String, ColumnModel> createColumnNameMap() {
+		Map<String, ColumnModel> map = new HashMap<>();
+		map.put("foo", TableModelTestUtils.createColumn(111L, "foo", ColumnType.STRING));
+		map.put("bar", TableModelTestUtils.createColumn(333L, "bar", ColumnType.INTEGER));
+		map.put("aDouble", TableModelTestUtils.createColumn(777L, "aDouble", ColumnType.DOUBLE));
+		return map;
+	}
 }
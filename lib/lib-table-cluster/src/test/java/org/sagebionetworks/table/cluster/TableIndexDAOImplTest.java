@@ -3,6 +3,7 @@ package org.sagebionetworks.table.cluster;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.sun.management.ThreadMXBean;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.junit.jupiter.api.AfterEach;
@@ -47,8 +48,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.TransactionStatus;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -70,6 +73,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_MAX_STRING_LENGTH;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_OBJECT_ID;
 import static org.sagebionetworks.repo.model.table.TableConstants.ANNOTATION_REPLICATION_COL_OBJECT_TYPE;
@@ -217,6 +221,26 @@ public class TableIndexDAOImplTest {
 		assertTrue(entityView instanceof Table);
 	}
 
+	@Test
+	public void testWithQueryTimeout() {
+		// call under test
+		TableIndexDAO timeoutDao = tableIndexDAO.withQueryTimeout(5);
+		assertEquals(5, timeoutDao.getConnection().getQueryTimeout());
+		assertEquals(tableIndexDAO.getConnection().getDataSource(), timeoutDao.getConnection().getDataSource());
+		// the original dao is unchanged.
+		assertEquals(-1, tableIndexDAO.getConnection().getQueryTimeout());
+		long one = timeoutDao.getConnection().queryForObject("SELECT 1", Long.class);
+		assertEquals(1L, one);
+	}
+
+	@Test
+	public void testWithQueryTimeoutZero() {
+		assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			tableIndexDAO.withQueryTimeout(0);
+		});
+	}
+
 	@Test
 	public void testCRUD() {
 		// Create a Simple table with only a few columns
@@ -464,6 +488,190 @@ public class TableIndexDAOImplTest {
 		// must also be able to run the query with a null callback
 		mockProgressCallback = null;
 	}
+	
+	/**
+	 * Rows streamed from an index and pushed back to an empty index must produce
+	 * the same query results, including null values.
+	 */
+	@Test
+	public void testStreamTableIndexRowsRoundTrip() throws ParseException {
+		List<ColumnModel> allTypes = TableModelTestUtils.createOneOfEachType();
+		createOrUpdateTable(allTypes, tableId, isView);
+		List<Row> rows = TableModelTestUtils.createRows(allTypes, 2);
+		Row nullRow = new Row();
+		nullRow.setValues(new ArrayList<>(Collections.nCopies(allTypes.size(), (String) null)));
+		rows.add(nullRow);
+		RowSet set = new RowSet();
+		set.setRows(rows);
+		set.setHeaders(TableModelUtils.getSelectColumns(allTypes));
+		set.setTableId(tableId.toString());
+		IdRange range = new IdRange();
+		range.setMinimumId(100L);
+		range.setMaximumId(200L);
+		range.setVersionNumber(3L);
+		TableModelTestUtils.assignRowIdsAndVersionNumbers(set, range);
+		createOrUpdateOrDeleteRows(tableId, set, allTypes);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, allTypes, userId).build();
+		RowSet expected = tableIndexDAO.query(mockProgressCallback, query);
+
+		InMemoryCSVWriterStream stream = new InMemoryCSVWriterStream();
+		// call under test
+		long rowCount = tableIndexDAO.streamTableIndexRows(tableId, stream);
+		assertEquals(3L, rowCount);
+		List<String[]> streamed = stream.getRows();
+		// header plus each row
+		assertEquals(4, streamed.size());
+
+		tableIndexDAO.deleteTable(tableId);
+		createOrUpdateTable(allTypes, tableId, isView);
+		// small batch size to force multiple batches.
+		long maxBytesPerBatch = 10;
+		// call under test
+		tableIndexDAO.populateTableFromRows(tableId, streamed.iterator(), maxBytesPerBatch);
+
+		assertEquals(new Long(3), tableIndexDAO.getRowCountForTable(tableId));
+		RowSet results = tableIndexDAO.query(mockProgressCallback, query);
+		assertEquals(expected, results);
+	}
+	
+	@Test
+	public void testQueryAsBatchStream() throws ParseException {
+		List<ColumnModel> allTypes = TableModelTestUtils.createOneOfEachType();
+		createOrUpdateTable(allTypes, tableId, isView);
+		RowSet set = new RowSet();
+		set.setRows(TableModelTestUtils.createRows(allTypes, 5));
+		set.setHeaders(TableModelUtils.getSelectColumns(allTypes));
+		set.setTableId(tableId.toString());
+		IdRange range = new IdRange();
+		range.setMinimumId(100L);
+		range.setMaximumId(200L);
+		range.setVersionNumber(3L);
+		TableModelTestUtils.assignRowIdsAndVersionNumbers(set, range);
+		createOrUpdateOrDeleteRows(tableId, set, allTypes);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, allTypes, userId).build();
+		RowSet expected = tableIndexDAO.query(mockProgressCallback, query);
+
+		List<Integer> batchSizes = new ArrayList<>();
+		List<Row> streamed = new ArrayList<>();
+		int batchSize = 2;
+		// call under test
+		tableIndexDAO.queryAsBatchStream(mockProgressCallback, query, batchSize, (RowBatch batch) -> {
+			batchSizes.add(batch.getSize());
+			for (int i = 0; i < batch.getSize(); i++) {
+				Row row = new Row();
+				row.setRowId(batch.getRowId(i));
+				row.setVersionNumber(batch.getRowVersion(i));
+				if (query.includeEntityEtag()) {
+					row.setEtag(batch.getEtag(i));
+				}
+				List<String> values = new ArrayList<>();
+				for (int column = 0; column < batch.getColumnCount(); column++) {
+					values.add(batch.getValue(i, column));
+				}
+				row.setValues(values);
+				streamed.add(row);
+			}
+		});
+		assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+		assertEquals(expected.getRows(), streamed);
+	}
+	
+	/**
+	 * Reading the same rows into a batch must allocate less than reading each row
+	 * into a Row. The driver allocations are the same for both paths, so the
+	 * difference is the per-row objects that the batch avoids.
+	 */
+	@Test
+	public void testQueryAsBatchStreamAllocatesLessThanQueryAsStream() throws ParseException {
+		ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+		List<ColumnModel> allTypes = TableModelTestUtils.createOneOfEachType();
+		createOrUpdateTable(allTypes, tableId, isView);
+		int rowCount = 1000;
+		RowSet set = new RowSet();
+		set.setRows(TableModelTestUtils.createRows(allTypes, rowCount));
+		set.setHeaders(TableModelUtils.getSelectColumns(allTypes));
+		set.setTableId(tableId.toString());
+		IdRange range = new IdRange();
+		range.setMinimumId(100L);
+		range.setMaximumId(100L + rowCount);
+		range.setVersionNumber(3L);
+		TableModelTestUtils.assignRowIdsAndVersionNumbers(set, range);
+		createOrUpdateOrDeleteRows(tableId, set, allTypes);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, allTypes, userId).build();
+		
+		// call under test
+		long streamBytes = getMinAllocatedBytes(threadBean, () -> {
+			tableIndexDAO.queryAsStream(mockProgressCallback, query, (Row row) -> {});
+		});
+		long batchBytes = getMinAllocatedBytes(threadBean, () -> {
+			tableIndexDAO.queryAsBatchStream(mockProgressCallback, query, 100, (RowBatch batch) -> {});
+		});
+		assertTrue(batchBytes < streamBytes, "batch: " + batchBytes + " bytes, stream: " + streamBytes + " bytes");
+	}
+	
+	/**
+	 * The fewest bytes allocated by the current thread over several runs of the
+	 * given query. The first runs also warm up the code path.
+	 */
+	static long getMinAllocatedBytes(ThreadMXBean threadBean, Runnable query) {
+		long threadId = Thread.currentThread().getId();
+		long minBytes = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			long start = threadBean.getThreadAllocatedBytes(threadId);
+			query.run();
+			minBytes = Math.min(minBytes, threadBean.getThreadAllocatedBytes(threadId) - start);
+		}
+		return minBytes;
+	}
+	
+	/**
+	 * Paging through a sorted query with many ties using keyset pagination must
+	 * return each row exactly once, in the same order as a single query.
+	 */
+	@Test
+	public void testQueryKeysetPagination() throws ParseException {
+		List<ColumnModel> allTypes = TableModelTestUtils.createOneOfEachType();
+		createOrUpdateTable(allTypes, tableId, isView);
+		int rowCount = 100;
+		List<Row> rows = TableModelTestUtils.createRows(allTypes, rowCount);
+		RowSet set = new RowSet();
+		set.setRows(rows);
+		set.setHeaders(TableModelUtils.getSelectColumns(allTypes));
+		set.setTableId(tableId.toString());
+		IdRange range = new IdRange();
+		range.setMinimumId(100L);
+		range.setMaximumId(100L + rowCount);
+		range.setVersionNumber(3L);
+		TableModelTestUtils.assignRowIdsAndVersionNumbers(set, range);
+		createOrUpdateOrDeleteRows(tableId, set, allTypes);
+		// i3 is a boolean so most rows share a sort value.
+		String sql = "select * from " + tableId + " order by i3 desc";
+
+		SqlQuery allQuery = new SqlQueryBuilder(sql, allTypes, userId).keysetPagination(true).build();
+		assertTrue(allQuery.isKeysetPaginated());
+		List<Long> expectedRowIds = tableIndexDAO.query(mockProgressCallback, allQuery).getRows().stream()
+				.map(Row::getRowId).collect(Collectors.toList());
+		assertEquals(rowCount, expectedRowIds.size());
+
+		long pageSize = 7;
+		List<Long> pagedRowIds = new ArrayList<>();
+		Long seekAfterRowId = null;
+		List<String> seekAfterSortValues = null;
+		while (true) {
+			SqlQuery pageQuery = new SqlQueryBuilder(sql, allTypes, userId).keysetPagination(true)
+					.overrideLimit(pageSize).seekAfter(seekAfterRowId, seekAfterSortValues).build();
+			List<Row> page = tableIndexDAO.query(mockProgressCallback, pageQuery).getRows();
+			page.forEach(row -> pagedRowIds.add(row.getRowId()));
+			if (page.size() < pageSize) {
+				break;
+			}
+			Row lastRow = page.get(page.size() - 1);
+			seekAfterRowId = lastRow.getRowId();
+			seekAfterSortValues = pageQuery.getKeysetSortValues(lastRow);
+		}
+		assertEquals(expectedRowIds, pagedRowIds);
+	}
 
 	@Test
 	public void testDoubleQuery() throws ParseException {
@@ -1496,6 +1704,82 @@ public class TableIndexDAOImplTest {
 		assertEquals(file, fetched);
 	}
 	
+	@Test
+	public void testGetObjectDataForUpdate(){
+		// delete all data
+		tableIndexDAO.deleteObjectData(objectType, Lists.newArrayList(1L, 2L, 3L));
+		
+		ObjectDataDTO project = createObjectDataDTO(1L, EntityType.project, 0);
+		ObjectDataDTO file = createObjectDataDTO(3L, EntityType.file, 3);
+		tableIndexDAO.addObjectData(objectType, Lists.newArrayList(file, project));
+		
+		List<ObjectDataDTO> results = tableIndexDAO.executeInWriteTransaction((TransactionStatus status) -> {
+			// call under test
+			return tableIndexDAO.getObjectDataForUpdate(objectType, Lists.newArrayList(3L, 2L, 1L));
+		});
+		assertEquals(Lists.newArrayList(project, file), results);
+	}
+	
+	@Test
+	public void testGetObjectDataForUpdateWithEmpty(){
+		// call under test
+		List<ObjectDataDTO> results = tableIndexDAO.getObjectDataForUpdate(objectType, Collections.emptyList());
+		assertEquals(Collections.emptyList(), results);
+	}
+	
+	@Test
+	public void testUpsertObjectRows(){
+		// delete all data
+		tableIndexDAO.deleteObjectData(objectType, Lists.newArrayList(1L));
+		
+		ObjectDataDTO file = createObjectDataDTO(1L, EntityType.file, 2);
+		tableIndexDAO.addObjectData(objectType, Lists.newArrayList(file));
+		
+		ObjectDataDTO updated = createObjectDataDTO(1L, EntityType.file, 0);
+		updated.setEtag("updatedEtag");
+		// call under test
+		tableIndexDAO.upsertObjectRows(objectType, Lists.newArrayList(updated));
+		
+		ObjectDataDTO fetched = tableIndexDAO.getObjectData(objectType, 1L);
+		// the annotations are unchanged.
+		updated.setAnnotations(file.getAnnotations());
+		assertEquals(updated, fetched);
+	}
+	
+	@Test
+	public void testUpsertAndDeleteObjectAnnotations(){
+		// delete all data
+		tableIndexDAO.deleteObjectData(objectType, Lists.newArrayList(1L));
+		
+		ObjectDataDTO file = createObjectDataDTO(1L, EntityType.file, 3);
+		tableIndexDAO.addObjectData(objectType, Lists.newArrayList(file));
+		
+		ObjectAnnotationDTO toDelete = file.getAnnotations().get(0);
+		ObjectAnnotationDTO toUpdate = file.getAnnotations().get(1);
+		toUpdate.setValue("updated");
+		ObjectAnnotationDTO toAdd = new ObjectAnnotationDTO();
+		toAdd.setObjectId(1L);
+		toAdd.setKey("added");
+		toAdd.setType(AnnotationType.STRING);
+		toAdd.setValue("new");
+		
+		// call under test
+		tableIndexDAO.deleteObjectAnnotations(objectType, Lists.newArrayList(toDelete));
+		tableIndexDAO.upsertObjectAnnotations(objectType, Lists.newArrayList(toUpdate, toAdd));
+		
+		ObjectDataDTO fetched = tableIndexDAO.getObjectData(objectType, 1L);
+		Set<ObjectAnnotationDTO> expected = Sets.newHashSet(toUpdate, file.getAnnotations().get(2), toAdd);
+		assertEquals(expected, new HashSet<>(fetched.getAnnotations()));
+	}
+	
+	@Test
+	public void testUpsertAndDeleteObjectAnnotationsWithEmpty(){
+		// call under test
+		tableIndexDAO.deleteObjectAnnotations(objectType, Collections.emptyList());
+		tableIndexDAO.upsertObjectAnnotations(objectType, Collections.emptyList());
+		tableIndexDAO.upsertObjectRows(objectType, Collections.emptyList());
+	}
+	
 	private ViewScopeFilter getScopeFilter(ViewObjectType objectType, List<String> subTypes, boolean filterByObjectId, Set<Long> containerIds) {
 		return new ViewScopeFilter(objectType, subTypes, filterByObjectId, containerIds);
 	}
@@ -2507,6 +2791,61 @@ public class TableIndexDAOImplTest {
 		assertTrue(results.isEmpty());
 	}
 	
+	@Test
+	public void testGetSumOfChildCRCsForEachBucket(){
+		// delete all data
+		tableIndexDAO.deleteObjectData(objectType, Lists.newArrayList(2L,3L,302L));
+		
+		Long parentId = 333L;
+		// two children in one bucket and one in another.
+		ObjectDataDTO file1 = createObjectDataDTO(2L, EntityType.file, 2);
+		file1.setParentId(parentId);
+		ObjectDataDTO file2 = createObjectDataDTO(3L, EntityType.file, 3);
+		file2.setParentId(parentId);
+		ObjectDataDTO file3 = createObjectDataDTO(302L, EntityType.file, 3);
+		file3.setParentId(parentId);
+		
+		tableIndexDAO.addObjectData(objectType, Lists.newArrayList(file1, file2, file3));
+		
+		// call under test
+		Map<Long, Long> results = tableIndexDAO.getSumOfChildCRCsForEachBucket(objectType, parentId, 100L, 1000L, Lists.newArrayList(0L));
+		assertEquals(2, results.size());
+		// the buckets must add up to the sum of the parent.
+		Long parentCRC = tableIndexDAO.getSumOfChildCRCsForEachParent(objectType, Lists.newArrayList(parentId)).get(parentId);
+		assertEquals(parentCRC, Long.valueOf(results.get(0L) + results.get(3L)));
+		
+		// call under test
+		results = tableIndexDAO.getSumOfChildCRCsForEachBucket(objectType, parentId, 1L, 100L, Lists.newArrayList(3L));
+		assertEquals(1, results.size());
+		assertNotNull(results.get(302L));
+		
+		// call under test
+		results = tableIndexDAO.getSumOfChildCRCsForEachBucket(objectType, parentId, 1L, 100L, Collections.emptyList());
+		assertTrue(results.isEmpty());
+	}
+	
+	@Test
+	public void testGetObjectChildrenInBuckets(){
+		// delete all data
+		tableIndexDAO.deleteObjectData(objectType, Lists.newArrayList(2L,3L,302L));
+		
+		Long parentId = 333L;
+		ObjectDataDTO file1 = createObjectDataDTO(2L, EntityType.file, 2);
+		file1.setParentId(parentId);
+		ObjectDataDTO file3 = createObjectDataDTO(302L, EntityType.file, 3);
+		file3.setParentId(parentId);
+		
+		tableIndexDAO.addObjectData(objectType, Lists.newArrayList(file1, file3));
+		
+		// call under test
+		List<IdAndEtag> results = tableIndexDAO.getObjectChildrenInBuckets(objectType, parentId, 100L, Lists.newArrayList(3L));
+		assertEquals(Lists.newArrayList(new IdAndEtag(file3.getId(), file3.getEtag(), 2L)), results);
+		
+		// call under test
+		results = tableIndexDAO.getObjectChildrenInBuckets(objectType, parentId, 100L, Collections.emptyList());
+		assertTrue(results.isEmpty());
+	}
+	
 	@Test
 	public void testGetEntityChildren(){
 		// delete all data
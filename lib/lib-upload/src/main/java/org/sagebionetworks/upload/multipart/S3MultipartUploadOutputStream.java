@@ -0,0 +1,242 @@
+package org.sagebionetworks.upload.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+/**
+ * An OutputStream that writes directly to an S3 object, so the data does not
+ * need to be written to a local file before it is uploaded.
+ * <p>
+ * The data is buffered in memory one part at a time. Each full part is uploaded
+ * with the given executor while the next part is written, with at most
+ * maxPendingParts uploads in progress. Data that never fills a single part is
+ * uploaded with a single put when the stream is closed.
+ * <p>
+ * The object is only created when the stream is closed. If the data should not
+ * be kept, call {@link #abort()} instead of {@link #close()}. This class is not
+ * thread safe.
+ *
+ */
+public class S3MultipartUploadOutputStream extends OutputStream {
+
+	/**
+	 * S3 requires every part but the last to be at least 5 MB.
+	 */
+	public static final int MIN_PART_SIZE_BYTES = 5 * 1024 * 1024;
+
+	private final SynapseS3Client s3Client;
+	private final String bucket;
+	private final String key;
+	private final ExecutorService executor;
+	private final int partSizeBytes;
+	private final int maxPendingParts;
+	private final ObjectMetadata metadata;
+
+	private byte[] buffer;
+	private int bufferCount;
+	private String uploadId;
+	private final List<Future<PartETag>> parts;
+	private boolean closed;
+
+	/**
+	 *
+	 * @param s3Client
+	 * @param bucket
+	 * @param key
+	 * @param executor        Used to upload each part.
+	 * @param partSizeBytes   The size of each part, at least
+	 *                        {@link #MIN_PART_SIZE_BYTES}.
+	 * @param maxPendingParts The maximum number of parts that can be uploading at
+	 *                        one time. Writes block while this number is exceeded.
+	 */
+	public S3MultipartUploadOutputStream(SynapseS3Client s3Client, String bucket, String key,
+			ExecutorService executor, int partSizeBytes, int maxPendingParts) {
+		this(s3Client, bucket, key, new ObjectMetadata(), executor, partSizeBytes, maxPendingParts);
+	}
+
+	/**
+	 *
+	 * @param s3Client
+	 * @param bucket
+	 * @param key
+	 * @param metadata        The metadata of the created object, such as its
+	 *                        content type. The content length is set by this
+	 *                        stream.
+	 * @param executor        Used to upload each part.
+	 * @param partSizeBytes   The size of each part, at least
+	 *                        {@link #MIN_PART_SIZE_BYTES}.
+	 * @param maxPendingParts The maximum number of parts that can be uploading at
+	 *                        one time. Writes block while this number is exceeded.
+	 */
+	public S3MultipartUploadOutputStream(SynapseS3Client s3Client, String bucket, String key, ObjectMetadata metadata,
+			ExecutorService executor, int partSizeBytes, int maxPendingParts) {
+		ValidateArgument.required(s3Client, "s3Client");
+		ValidateArgument.required(bucket, "bucket");
+		ValidateArgument.required(key, "key");
+		ValidateArgument.required(metadata, "metadata");
+		ValidateArgument.required(executor, "executor");
+		ValidateArgument.requirement(partSizeBytes >= MIN_PART_SIZE_BYTES,
+				"partSizeBytes must be at least " + MIN_PART_SIZE_BYTES);
+		ValidateArgument.requirement(maxPendingParts > 0, "maxPendingParts must be greater than zero");
+		this.s3Client = s3Client;
+		this.bucket = bucket;
+		this.key = key;
+		this.metadata = metadata;
+		this.executor = executor;
+		this.partSizeBytes = partSizeBytes;
+		this.maxPendingParts = maxPendingParts;
+		this.buffer = new byte[partSizeBytes];
+		this.bufferCount = 0;
+		this.parts = new ArrayList<>();
+		this.closed = false;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		validateOpen();
+		if (bufferCount == buffer.length) {
+			uploadBuffer();
+		}
+		buffer[bufferCount++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		validateOpen();
+		while (len > 0) {
+			if (bufferCount == buffer.length) {
+				uploadBuffer();
+			}
+			int toCopy = Math.min(len, buffer.length - bufferCount);
+			System.arraycopy(b, off, buffer, bufferCount, toCopy);
+			bufferCount += toCopy;
+			off += toCopy;
+			len -= toCopy;
+		}
+	}
+
+	/**
+	 * Upload the remaining data and create the object. If the upload fails it is
+	 * aborted.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			if (uploadId == null) {
+				// All of the data fit in a single part.
+				ObjectMetadata putMetadata = metadata.clone();
+				putMetadata.setContentLength(bufferCount);
+				s3Client.putObject(bucket, key, new ByteArrayInputStream(buffer, 0, bufferCount), putMetadata);
+			} else {
+				if (bufferCount > 0) {
+					uploadBuffer();
+				}
+				List<PartETag> partETags = new ArrayList<>(parts.size());
+				for (Future<PartETag> part : parts) {
+					partETags.add(waitForPart(part));
+				}
+				s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+			}
+			closed = true;
+			buffer = null;
+		} catch (IOException | RuntimeException e) {
+			abort();
+			throw e;
+		}
+	}
+
+	/**
+	 * Abandon the upload. No object is created and any parts that have been
+	 * uploaded are deleted.
+	 */
+	public void abort() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		buffer = null;
+		for (Future<PartETag> part : parts) {
+			part.cancel(true);
+		}
+		if (uploadId != null) {
+			s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+		}
+	}
+
+	/**
+	 * Start the upload of the current buffer as the next part.
+	 *
+	 * @throws IOException
+	 */
+	void uploadBuffer() throws IOException {
+		if (uploadId == null) {
+			uploadId = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key, metadata))
+					.getUploadId();
+		}
+		UploadPartRequest request = new UploadPartRequest().withBucketName(bucket).withKey(key).withUploadId(uploadId)
+				.withPartNumber(parts.size() + 1).withPartSize(bufferCount)
+				.withInputStream(new ByteArrayInputStream(buffer, 0, bufferCount));
+		parts.add(executor.submit(() -> s3Client.uploadPart(request).getPartETag()));
+		// the buffer now belongs to the upload.
+		buffer = new byte[partSizeBytes];
+		bufferCount = 0;
+		// block until the number of pending uploads is under the limit.
+		int pending = 0;
+		for (int i = parts.size() - 1; i >= 0; i--) {
+			if (!parts.get(i).isDone()) {
+				pending++;
+				if (pending > maxPendingParts) {
+					waitForPart(parts.get(i));
+				}
+			}
+		}
+	}
+
+	private static PartETag waitForPart(Future<PartETag> part) throws IOException {
+		try {
+			return part.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private void validateOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	/**
+	 * The number of parts that have been started.
+	 *
+	 * @return
+	 */
+	int getPartCount() {
+		return parts.size();
+	}
+}
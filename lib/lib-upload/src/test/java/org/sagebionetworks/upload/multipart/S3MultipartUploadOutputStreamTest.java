@@ -0,0 +1,307 @@
+package org.sagebionetworks.upload.multipart;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.aws.SynapseS3Client;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+@ExtendWith(MockitoExtension.class)
+public class S3MultipartUploadOutputStreamTest {
+
+	@Mock
+	private SynapseS3Client mockS3Client;
+
+	private ExecutorService executor;
+	private String bucket;
+	private String key;
+	private String uploadId;
+	private int partSize;
+	// in memory stand-in for S3.
+	private Map<Integer, byte[]> uploadedParts;
+	private Map<String, byte[]> objects;
+
+	@BeforeEach
+	public void before() {
+		executor = Executors.newFixedThreadPool(2);
+		bucket = "some-bucket";
+		key = "some/key.zip";
+		uploadId = "upload-id";
+		partSize = S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES;
+		uploadedParts = new ConcurrentHashMap<>();
+		objects = new ConcurrentHashMap<>();
+	}
+
+	@AfterEach
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	void setupMultipartStandIn() {
+		InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+		initiateResult.setUploadId(uploadId);
+		when(mockS3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiateResult);
+		when(mockS3Client.uploadPart(any(UploadPartRequest.class))).then((invocation) -> {
+			UploadPartRequest request = invocation.getArgument(0);
+			byte[] bytes = IOUtils.toByteArray(request.getInputStream());
+			assertEquals(request.getPartSize(), bytes.length);
+			uploadedParts.put(request.getPartNumber(), bytes);
+			UploadPartResult result = new UploadPartResult();
+			result.setPartNumber(request.getPartNumber());
+			result.setETag("etag-" + request.getPartNumber());
+			return result;
+		});
+	}
+
+	void setupCompleteStandIn() {
+		when(mockS3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).then((invocation) -> {
+			CompleteMultipartUploadRequest request = invocation.getArgument(0);
+			ByteArrayOutputStream object = new ByteArrayOutputStream();
+			for (PartETag part : request.getPartETags()) {
+				assertEquals("etag-" + part.getPartNumber(), part.getETag());
+				object.write(uploadedParts.get(part.getPartNumber()));
+			}
+			objects.put(request.getKey(), object.toByteArray());
+			return new CompleteMultipartUploadResult();
+		});
+	}
+
+	static byte[] createData(int size) {
+		byte[] data = new byte[size];
+		new Random(123L).nextBytes(data);
+		return data;
+	}
+
+	@Test
+	public void testMultipleParts() throws IOException {
+		setupMultipartStandIn();
+		setupCompleteStandIn();
+		byte[] data = createData(partSize * 2 + 1001);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		// call under test
+		out.write(data[0]);
+		out.write(data, 1, 1000);
+		out.write(data, 1001, data.length - 1001);
+		out.close();
+		assertEquals(3, out.getPartCount());
+		assertEquals(3, uploadedParts.size());
+		assertEquals(partSize, uploadedParts.get(1).length);
+		assertEquals(1001, uploadedParts.get(3).length);
+		assertArrayEquals(data, objects.get(key));
+		verify(mockS3Client, never()).putObject(anyString(), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+	}
+
+	@Test
+	public void testExactlyOnePart() throws IOException {
+		when(mockS3Client.putObject(eq(bucket), eq(key), any(InputStream.class), any(ObjectMetadata.class)))
+				.then((invocation) -> {
+					ObjectMetadata metadata = invocation.getArgument(3);
+					byte[] bytes = IOUtils.toByteArray((InputStream) invocation.getArgument(2));
+					assertEquals(metadata.getContentLength(), bytes.length);
+					objects.put(key, bytes);
+					return new PutObjectResult();
+				});
+		byte[] data = createData(partSize);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		// call under test
+		out.write(data);
+		out.close();
+		// a single part is uploaded with a put.
+		assertEquals(0, out.getPartCount());
+		assertArrayEquals(data, objects.get(key));
+		verify(mockS3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+	}
+
+	@Test
+	public void testMetadata() throws IOException {
+		setupMultipartStandIn();
+		setupCompleteStandIn();
+		ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentType("application/zip");
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, metadata,
+				executor, partSize, 1);
+		// call under test
+		out.write(createData(partSize + 1));
+		out.close();
+		ArgumentCaptor<InitiateMultipartUploadRequest> captor = ArgumentCaptor
+				.forClass(InitiateMultipartUploadRequest.class);
+		verify(mockS3Client).initiateMultipartUpload(captor.capture());
+		assertEquals("application/zip", captor.getValue().getObjectMetadata().getContentType());
+	}
+
+	@Test
+	public void testMetadataSinglePut() throws IOException {
+		ObjectMetadata metadata = new ObjectMetadata();
+		metadata.setContentType("application/zip");
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, metadata,
+				executor, partSize, 1);
+		// call under test
+		out.write(createData(100));
+		out.close();
+		ArgumentCaptor<ObjectMetadata> captor = ArgumentCaptor.forClass(ObjectMetadata.class);
+		verify(mockS3Client).putObject(eq(bucket), eq(key), any(InputStream.class), captor.capture());
+		assertEquals("application/zip", captor.getValue().getContentType());
+		assertEquals(100L, captor.getValue().getContentLength());
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		// call under test
+		out.close();
+		verify(mockS3Client).putObject(eq(bucket), eq(key), any(InputStream.class), any(ObjectMetadata.class));
+	}
+
+	@Test
+	public void testCloseTwice() throws IOException {
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		out.close();
+		// call under test
+		out.close();
+		verify(mockS3Client).putObject(eq(bucket), eq(key), any(InputStream.class), any(ObjectMetadata.class));
+	}
+
+	@Test
+	public void testWriteAfterClose() throws IOException {
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		out.close();
+		assertThrows(IOException.class, () -> {
+			// call under test
+			out.write(1);
+		});
+	}
+
+	@Test
+	public void testAbort() throws IOException {
+		setupMultipartStandIn();
+		byte[] data = createData(partSize + 1);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		out.write(data);
+		// call under test
+		out.abort();
+		// close after an abort does nothing.
+		out.close();
+		verify(mockS3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(mockS3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+		assertTrue(objects.isEmpty());
+	}
+
+	@Test
+	public void testAbortBeforeAnyPart() throws IOException {
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		out.write(1);
+		// call under test
+		out.abort();
+		verify(mockS3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(mockS3Client, never()).putObject(anyString(), anyString(), any(InputStream.class),
+				any(ObjectMetadata.class));
+	}
+
+	@Test
+	public void testPartFailureAbortsOnClose() throws IOException {
+		InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+		initiateResult.setUploadId(uploadId);
+		when(mockS3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiateResult);
+		IllegalStateException exception = new IllegalStateException("upload failed");
+		when(mockS3Client.uploadPart(any(UploadPartRequest.class))).thenThrow(exception);
+		byte[] data = createData(partSize + 1);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1);
+		out.write(data);
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			out.close();
+		});
+		assertSame(exception, thrown);
+		verify(mockS3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+		verify(mockS3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+	}
+
+	@Test
+	public void testPendingPartsAreBounded() throws IOException {
+		setupMultipartStandIn();
+		setupCompleteStandIn();
+		List<Integer> pendingCounts = new ArrayList<>();
+		byte[] data = createData(partSize * 4);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor,
+				partSize, 1) {
+			@Override
+			void uploadBuffer() throws IOException {
+				super.uploadBuffer();
+				// at most one part may be uploading after each part is started.
+				pendingCounts.add(getPartCount() - uploadedParts.size());
+			}
+		};
+		// call under test
+		out.write(data);
+		out.close();
+		assertFalse(pendingCounts.isEmpty());
+		for (Integer pending : pendingCounts) {
+			assertTrue(pending <= 1);
+		}
+		assertArrayEquals(data, objects.get(key));
+		assertEquals(4, new TreeMap<>(uploadedParts).lastKey().intValue());
+	}
+
+	@Test
+	public void testSmallPartSize() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new S3MultipartUploadOutputStream(mockS3Client, bucket, key, executor, partSize - 1, 1);
+		});
+	}
+
+	@Test
+	public void testNullExecutor() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new S3MultipartUploadOutputStream(mockS3Client, bucket, key, null, partSize, 1);
+		});
+	}
+}
@@ -160,6 +160,14 @@ public interface AccessControlListDAO  {
 	 * @param parentIds
 	 */
 	public List<Long> getChildrenEntitiesWithAcls(List<Long> parentIds);
+
+	/**
+	 * Get the entities that have their own ACL from the given entity IDs.
+	 * 
+	 * @param entityIds
+	 * @return The subset of the given entity IDs that have an ACL.
+	 */
+	public Set<Long> getEntitiesWithAcls(List<Long> entityIds);
 	
 	/**
 	 * Truncate all data except bootstrap data.
@@ -284,6 +284,16 @@ public interface NodeDAO {
 	 */
 	public List<Long> getEntityPathIds(String nodeId);
 	
+	/**
+	 * Get the hierarchy information (parent and type) of each entity in the
+	 * provided entityId's path.
+	 * 
+	 * @param nodeId
+	 * @return Result order will be from root to leaf. The results will include
+	 *         the requested entity (as the last item).
+	 */
+	public List<NodeHierarchyEntry> getEntityPathHierarchy(String nodeId);
+	
 	/**
 	 * @deprecated Use: {@link #getEntityPathIds(String)}.
 	 * <p>
@@ -598,6 +608,34 @@ public interface NodeDAO {
 	 */
 	public List<IdAndEtag> getChildren(long parentId);
 	
+	/**
+	 * For the children of the given parent, get the sum of the CRCs of the
+	 * children in each ID bucket. A child is in bucket (ID DIV bucketWidth).
+	 * Only the children within the given buckets of the coarser filterWidth are
+	 * included.
+	 * 
+	 * @param parentId
+	 * @param bucketWidth   The width of each ID bucket to sum.
+	 * @param filterWidth   The width of the filter buckets. Must be a multiple
+	 *                      of the bucketWidth.
+	 * @param filterBuckets Only children within these buckets are included.
+	 * @return Map.key = bucket and map.value = sum of the CRCs of the children in
+	 *         the bucket.
+	 */
+	public Map<Long, Long> getSumOfChildCRCsForEachBucket(long parentId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets);
+	
+	/**
+	 * Get the Id and Etag of the children of the given parent within the given ID
+	 * buckets. A child is in bucket (ID DIV bucketWidth).
+	 * 
+	 * @param parentId
+	 * @param bucketWidth
+	 * @param buckets
+	 * @return
+	 */
+	public List<IdAndEtag> getChildrenInBuckets(long parentId, long bucketWidth, List<Long> buckets);
+	
 	/**
 	 * Touch the node and change the etag, modified on, and modified by.
 	 * 
@@ -0,0 +1,88 @@
+package org.sagebionetworks.repo.model;
+
+/**
+ * The hierarchy information of a single node: its parent and its type.
+ * Together, the entries of a node's path are enough to determine the node's
+ * project and the candidates for its benefactor.
+ *
+ */
+public class NodeHierarchyEntry {
+
+	private Long nodeId;
+	private Long parentId;
+	private EntityType type;
+
+	public NodeHierarchyEntry(Long nodeId, Long parentId, EntityType type) {
+		super();
+		this.nodeId = nodeId;
+		this.parentId = parentId;
+		this.type = type;
+	}
+
+	/**
+	 * The ID of the node.
+	 * 
+	 * @return
+	 */
+	public Long getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * The ID of the node's parent. Null for the root.
+	 * 
+	 * @return
+	 */
+	public Long getParentId() {
+		return parentId;
+	}
+
+	/**
+	 * The type of the node.
+	 * 
+	 * @return
+	 */
+	public EntityType getType() {
+		return type;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((nodeId == null) ? 0 : nodeId.hashCode());
+		result = prime * result + ((parentId == null) ? 0 : parentId.hashCode());
+		result = prime * result + ((type == null) ? 0 : type.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		NodeHierarchyEntry other = (NodeHierarchyEntry) obj;
+		if (nodeId == null) {
+			if (other.nodeId != null)
+				return false;
+		} else if (!nodeId.equals(other.nodeId))
+			return false;
+		if (parentId == null) {
+			if (other.parentId != null)
+				return false;
+		} else if (!parentId.equals(other.parentId))
+			return false;
+		if (type != other.type)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "NodeHierarchyEntry [nodeId=" + nodeId + ", parentId=" + parentId + ", type=" + type + "]";
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.sagebionetworks.repo.model.dao.asynch;
+
+import java.util.Objects;
+
+/**
+ * The progress of a single job as reported by the worker processing the job.
+ *
+ */
+public class AsynchJobProgress {
+
+	private final String jobId;
+	private final Long progressCurrent;
+	private final Long progressTotal;
+	private final String progressMessage;
+	private final long changedOn;
+
+	/**
+	 * 
+	 * @param jobId
+	 * @param progressCurrent
+	 * @param progressTotal
+	 * @param progressMessage
+	 * @param changedOn       The time in MS when the progress was reported.
+	 */
+	public AsynchJobProgress(String jobId, Long progressCurrent, Long progressTotal, String progressMessage,
+			long changedOn) {
+		this.jobId = jobId;
+		this.progressCurrent = progressCurrent;
+		this.progressTotal = progressTotal;
+		this.progressMessage = progressMessage;
+		this.changedOn = changedOn;
+	}
+
+	public String getJobId() {
+		return jobId;
+	}
+
+	public Long getProgressCurrent() {
+		return progressCurrent;
+	}
+
+	public Long getProgressTotal() {
+		return progressTotal;
+	}
+
+	public String getProgressMessage() {
+		return progressMessage;
+	}
+
+	public long getChangedOn() {
+		return changedOn;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(changedOn, jobId, progressCurrent, progressMessage, progressTotal);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof AsynchJobProgress)) {
+			return false;
+		}
+		AsynchJobProgress other = (AsynchJobProgress) obj;
+		return changedOn == other.changedOn && Objects.equals(jobId, other.jobId)
+				&& Objects.equals(progressCurrent, other.progressCurrent)
+				&& Objects.equals(progressMessage, other.progressMessage)
+				&& Objects.equals(progressTotal, other.progressTotal);
+	}
+
+	@Override
+	public String toString() {
+		return "AsynchJobProgress [jobId=" + jobId + ", progressCurrent=" + progressCurrent + ", progressTotal="
+				+ progressTotal + ", progressMessage=" + progressMessage + ", changedOn=" + changedOn + "]";
+	}
+
+}
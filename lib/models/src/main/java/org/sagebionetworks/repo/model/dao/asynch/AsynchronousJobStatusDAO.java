@@ -44,6 +44,15 @@ public interface AsynchronousJobStatusDAO {
 	 */
 	public void updateJobProgress(String jobId, Long progressCurrent, Long progressTotal, String progressMessage);
 	
+	/**
+	 * Update the progress of a batch of jobs with a single batch update. As with
+	 * {@link #updateJobProgress(String, Long, Long, String)} only jobs that are
+	 * still processing are updated.
+	 * 
+	 * @param progress
+	 */
+	public void updateJobProgressBatch(List<AsynchJobProgress> progress);
+	
 	/**
 	 * Set a job to failed.
 	 * 
@@ -3,6 +3,7 @@ package org.sagebionetworks.repo.model.dao.table;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.sagebionetworks.repo.model.table.ColumnChange;
 import org.sagebionetworks.repo.model.table.ColumnModel;
@@ -137,6 +138,20 @@ public interface TableRowTruthDAO {
 	 * @return
 	 */
 	List<TableRowChange> listRowSetsKeysForTableGreaterThanVersion(String tableId, long version);
+	
+	/**
+	 * List the row changes for a table with a version number greater than the
+	 * given value (exclusive) that might include any of the given rows. Each change
+	 * is matched against the row ID filter recorded with the change, so the result
+	 * can include changes that do not include any of the rows, but never excludes a
+	 * change that does.
+	 * 
+	 * @param tableId
+	 * @param version
+	 * @param rowIds
+	 * @return
+	 */
+	List<TableRowChange> listRowSetsKeysForTableGreaterThanVersionWithRows(String tableId, long version, Set<Long> rowIds);
 
 	/**
 	 * Get the TableRowChange for a given tableId and row version number.
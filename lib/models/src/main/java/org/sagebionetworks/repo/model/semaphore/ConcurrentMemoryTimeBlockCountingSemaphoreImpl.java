@@ -0,0 +1,225 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.sagebionetworks.common.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * A concurrent implementation of {@link MemoryTimeBlockCountingSemaphore}. Each
+ * key is mapped to an immutable time block with an atomic counter, so threads
+ * acquiring locks for different keys never contend, and threads acquiring locks
+ * for the same key only race on a compare-and-set.
+ * <p>
+ * The number of keys is bounded by a counter that is reserved with a
+ * compare-and-set before a new key is added, so the maximum is never exceeded.
+ * Expired blocks are removed by a sweep every {@link #SWEEP_INTERVAL}
+ * acquisitions. When the map is full a request for a new key waits for any
+ * sweep in progress and sweeps at most once per
+ * {@link #MIN_FULL_SWEEP_INTERVAL_MS}. If the map is still full the request is
+ * denied, so memory stays bounded without letting untracked requests through.
+ * Only requests for a new key while the map is full can block.
+ *
+ */
+public class ConcurrentMemoryTimeBlockCountingSemaphoreImpl implements MemoryTimeBlockCountingSemaphore {
+
+	public static final int SWEEP_INTERVAL = 10_000;
+	public static final int DEFAULT_MAX_KEYS = 1_000_000;
+	/**
+	 * The minimum time between two sweeps triggered by a full map.
+	 */
+	public static final long MIN_FULL_SWEEP_INTERVAL_MS = 1000;
+
+	private final ConcurrentMap<String, TimeBlock> keyBlockMap = new ConcurrentHashMap<>();
+	// The number of keys in the map plus the keys that are about to be added.
+	private final AtomicInteger keyCount = new AtomicInteger(0);
+	private final AtomicInteger acquireCount = new AtomicInteger(0);
+	private final ReentrantLock sweepLock = new ReentrantLock();
+	// guarded by the sweep lock.
+	private long lastSweepMS = -MIN_FULL_SWEEP_INTERVAL_MS;
+	private final Clock clock;
+	private final int maxKeys;
+
+	/**
+	 * 
+	 * @param clock
+	 * @param maxKeys The maximum number of keys tracked at one time.
+	 */
+	public ConcurrentMemoryTimeBlockCountingSemaphoreImpl(Clock clock, int maxKeys) {
+		ValidateArgument.required(clock, "clock");
+		ValidateArgument.requirement(maxKeys > 0, "maxKeys must be a positive value");
+		this.clock = clock;
+		this.maxKeys = maxKeys;
+	}
+
+	public ConcurrentMemoryTimeBlockCountingSemaphoreImpl(Clock clock) {
+		this(clock, DEFAULT_MAX_KEYS);
+	}
+
+	@Override
+	public boolean attemptToAcquireLock(String key, long timeoutSec, long maxLockCount) {
+		ValidateArgument.required(key, "key");
+		ValidateArgument.requirement(timeoutSec >= 0, "timeoutSec must be a positive value");
+		ValidateArgument.requirement(maxLockCount >= 0, "maxLockCount must be a positive value");
+
+		if (maxLockCount == 0) {
+			// no need to track nor do anything if the max number of acquirable locks is 0
+			return false;
+		}
+
+		long now = clock.currentTimeMillis();
+		if (acquireCount.incrementAndGet() % SWEEP_INTERVAL == 0) {
+			trySweepExpired(now);
+		}
+
+		while (true) {
+			TimeBlock block = keyBlockMap.get(key);
+			if (block == null) {
+				if (!reserveKey(now)) {
+					// too many keys to track, so the lock cannot be counted.
+					return false;
+				}
+				if (keyBlockMap.putIfAbsent(key, new TimeBlock(now, timeoutSec)) == null) {
+					return true;
+				}
+				// another thread created the block first.
+				keyCount.decrementAndGet();
+				continue;
+			}
+			if (block.isExpired(now)) {
+				if (keyBlockMap.replace(key, block, new TimeBlock(now, timeoutSec))) {
+					return true;
+				}
+				// another thread replaced the expired block first.
+				continue;
+			}
+			return block.tryIncrement(maxLockCount);
+		}
+	}
+
+	/**
+	 * Reserve room for one new key. When the map is full this waits for any sweep
+	 * in progress, and sweeps unless the last sweep was too recent.
+	 * 
+	 * @param now
+	 * @return false if the map is still full.
+	 */
+	boolean reserveKey(long now) {
+		if (tryReserveKey()) {
+			return true;
+		}
+		sweepLock.lock();
+		try {
+			if (now - lastSweepMS >= MIN_FULL_SWEEP_INTERVAL_MS) {
+				sweepExpired(now);
+			}
+		} finally {
+			sweepLock.unlock();
+		}
+		return tryReserveKey();
+	}
+
+	private boolean tryReserveKey() {
+		while (true) {
+			int current = keyCount.get();
+			if (current >= maxKeys) {
+				return false;
+			}
+			if (keyCount.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Remove all expired blocks unless another thread is already sweeping.
+	 * 
+	 * @param now
+	 */
+	void trySweepExpired(long now) {
+		if (!sweepLock.tryLock()) {
+			return;
+		}
+		try {
+			sweepExpired(now);
+		} finally {
+			sweepLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove all expired blocks. Must be called with the sweep lock held.
+	 * 
+	 * @param now
+	 */
+	private void sweepExpired(long now) {
+		for (Map.Entry<String, TimeBlock> entry : keyBlockMap.entrySet()) {
+			if (entry.getValue().isExpired(now) && keyBlockMap.remove(entry.getKey(), entry.getValue())) {
+				keyCount.decrementAndGet();
+			}
+		}
+		lastSweepMS = now;
+	}
+
+	/**
+	 * The number of keys currently tracked.
+	 * 
+	 * @return
+	 */
+	int getKeyCount() {
+		return keyBlockMap.size();
+	}
+
+	@Override
+	public void releaseAllLocks() {
+		for (Map.Entry<String, TimeBlock> entry : keyBlockMap.entrySet()) {
+			if (keyBlockMap.remove(entry.getKey(), entry.getValue())) {
+				keyCount.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * The lock count for a single key for a single block of time. The expiration
+	 * is fixed when the block is created and the block is replaced (not reset)
+	 * once it expires.
+	 *
+	 */
+	private static class TimeBlock {
+
+		private final long expirationTimeMillis;
+		// The first lock is issued when the block is created.
+		private final AtomicLong count = new AtomicLong(1);
+
+		TimeBlock(long now, long timeoutSec) {
+			this.expirationTimeMillis = now + timeoutSec * 1000;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expirationTimeMillis;
+		}
+
+		/**
+		 * Increment the count if the count is below the given maximum.
+		 * 
+		 * @param maxLockCount
+		 * @return true if the count was incremented.
+		 */
+		boolean tryIncrement(long maxLockCount) {
+			while (true) {
+				long current = count.get();
+				if (current >= maxLockCount) {
+					return false;
+				}
+				if (count.compareAndSet(current, current + 1)) {
+					return true;
+				}
+			}
+		}
+	}
+}
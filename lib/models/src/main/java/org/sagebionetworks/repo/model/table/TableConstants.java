@@ -131,6 +131,9 @@ public class TableConstants {
 	public static final String ID_PARAM_NAME = "ids";
 	public static final String EXPIRES_PARAM_NAME = "bExpires";
 	public static final String EXCLUSION_LIST_PARAM_NAME = "exclusionList";
+	public static final String BUCKET_WIDTH_PARAM_NAME = "bucketWidth";
+	public static final String FILTER_WIDTH_PARAM_NAME = "filterWidth";
+	public static final String BUCKETS_PARAM_NAME = "buckets";
 	
 	// Dynamic string of all the object types, used to build the enum type in the replication table
 	private static final String OBJECT_TYPES_ENUM_STRING = joinEnumForSQL(ViewObjectType.values());
@@ -340,6 +343,22 @@ public class TableConstants {
 			+ANNOTATION_REPLICATION_COL_OBJECT_TYPE+" = ? AND "
 			+ANNOTATION_REPLICATION_COL_OBJECT_ID+" = ?";
 	
+	public final static String OBJECT_REPLICATION_GET_FOR_UPDATE = "SELECT * FROM "+ OBJECT_REPLICATION_TABLE + " WHERE "
+			+ OBJECT_REPLICATION_COL_OBJECT_TYPE + " = :" + OBJECT_TYPE_PARAM_NAME + " AND "
+			+ OBJECT_REPLICATION_COL_OBJECT_ID + " IN (:" + ID_PARAM_NAME + ")"
+			+ " ORDER BY " + OBJECT_REPLICATION_COL_OBJECT_ID + " FOR UPDATE";
+	
+	public final static String ANNOTATION_REPLICATION_GET_FOR_UPDATE = "SELECT * FROM "+ANNOTATION_REPLICATION_TABLE+" WHERE "
+			+ ANNOTATION_REPLICATION_COL_OBJECT_TYPE + " = :" + OBJECT_TYPE_PARAM_NAME + " AND "
+			+ ANNOTATION_REPLICATION_COL_OBJECT_ID + " IN (:" + ID_PARAM_NAME + ")"
+			+ " ORDER BY " + ANNOTATION_REPLICATION_COL_OBJECT_ID + ", " + ANNOTATION_REPLICATION_COL_KEY + " FOR UPDATE";
+	
+	public final static String ANNOTATION_REPLICATION_DELETE = "DELETE FROM "+ANNOTATION_REPLICATION_TABLE+" WHERE "
+			+ ANNOTATION_REPLICATION_COL_OBJECT_TYPE + " = ? AND "
+			+ ANNOTATION_REPLICATION_COL_OBJECT_ID + " = ? AND "
+			+ ANNOTATION_REPLICATION_COL_KEY + " = ? AND "
+			+ ANNOTATION_REPLICATION_COL_TYPE + " = ?";
+	
 	public static final String TRUNCATE_ANNOTATION_REPLICATION_TABLE = 
 			"TRUNCATE TABLE "+ANNOTATION_REPLICATION_TABLE;	
 
@@ -418,6 +437,32 @@ public class TableConstants {
 			+ " FROM " + OBJECT_REPLICATION_TABLE
 			+ " WHERE " + OBJECT_REPLICATION_COL_OBJECT_TYPE + " = ?"
 			+ " AND " + OBJECT_REPLICATION_COL_PARENT_ID + " = ?";
+	
+	public static final String BUCKET_ALIAS = "BUCKET";
+	
+	public static final String SELECT_OBJECT_CHILD_CRC_BY_BUCKET =
+			"SELECT "
+					+OBJECT_REPLICATION_COL_OBJECT_ID+" DIV :"+BUCKET_WIDTH_PARAM_NAME+" AS "+BUCKET_ALIAS
+					+", SUM(CRC32(CONCAT("
+					+OBJECT_REPLICATION_COL_OBJECT_ID
+					+",'-',"+OBEJCT_REPLICATION_COL_ETAG
+					+",'-',"+OBJECT_REPLICATION_COL_BENEFACTOR_ID
+					+ "))) AS "+CRC_ALIAS
+					+" FROM "+OBJECT_REPLICATION_TABLE
+					+" WHERE "+ OBJECT_REPLICATION_COL_OBJECT_TYPE + "=:" + OBJECT_TYPE_PARAM_NAME
+					+" AND " + OBJECT_REPLICATION_COL_PARENT_ID+" = :"+PARENT_ID_PARAM_NAME
+					+" AND " + OBJECT_REPLICATION_COL_OBJECT_ID+" DIV :"+FILTER_WIDTH_PARAM_NAME+" IN (:"+BUCKETS_PARAM_NAME+")"
+					+" GROUP BY "+BUCKET_ALIAS;
+	
+	public static final String SELECT_OBJECT_CHILD_ID_ETAG_IN_BUCKETS = 
+			"SELECT "
+			+ OBJECT_REPLICATION_COL_OBJECT_ID
+			+", " + OBEJCT_REPLICATION_COL_ETAG
+			+", " + OBJECT_REPLICATION_COL_BENEFACTOR_ID
+			+ " FROM " + OBJECT_REPLICATION_TABLE
+			+ " WHERE " + OBJECT_REPLICATION_COL_OBJECT_TYPE + " = :" + OBJECT_TYPE_PARAM_NAME
+			+ " AND " + OBJECT_REPLICATION_COL_PARENT_ID + " = :" + PARENT_ID_PARAM_NAME
+			+ " AND " + OBJECT_REPLICATION_COL_OBJECT_ID + " DIV :" + BUCKET_WIDTH_PARAM_NAME + " IN (:" + BUCKETS_PARAM_NAME + ")";
 			
 	/**
 	 * Marker for a table's label indicating the version is 'in progress'.
@@ -0,0 +1,234 @@
+package org.sagebionetworks.repo.model.semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.common.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class ConcurrentMemoryTimeBlockCountingSemaphoreImplTest {
+
+	@Mock
+	private Clock mockClock;
+
+	private ConcurrentMemoryTimeBlockCountingSemaphoreImpl semaphore;
+
+	private String key = "some key";
+	private long timeoutSec = 2;
+	private long maxLockCount = 2;
+
+	@BeforeEach
+	public void before() {
+		semaphore = new ConcurrentMemoryTimeBlockCountingSemaphoreImpl(mockClock, 2);
+	}
+
+	@Test
+	public void testAcquireLockNullKey() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			semaphore.attemptToAcquireLock(null, timeoutSec, maxLockCount);
+		});
+	}
+
+	@Test
+	public void testAcquireLockNegativeTimeoutSec() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			semaphore.attemptToAcquireLock(key, -1, maxLockCount);
+		});
+	}
+
+	@Test
+	public void testAcquireLockNegativeMaxLock() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			semaphore.attemptToAcquireLock(key, timeoutSec, -1);
+		});
+	}
+
+	@Test
+	public void testAcquireLockZeroMaxLocks() {
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, 0));
+		assertEquals(0, semaphore.getKeyCount());
+	}
+
+	@Test
+	public void testAcquireLockOverCountLimit() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+		// call under test
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+	}
+
+	@Test
+	public void testAcquireLockExpired() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 1000L, 3000L);
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+		// call under test
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, maxLockCount));
+	}
+
+	@Test
+	public void testAcquireLockKeysAreIndependent() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+		// call under test
+		assertTrue(semaphore.attemptToAcquireLock("other key", timeoutSec, 1));
+	}
+
+	@Test
+	public void testAcquireLockAtMaxKeysWithExpired() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 5000L);
+		assertTrue(semaphore.attemptToAcquireLock("one", timeoutSec, 1));
+		assertTrue(semaphore.attemptToAcquireLock("two", timeoutSec, 1));
+		assertEquals(2, semaphore.getKeyCount());
+		// call under test
+		assertTrue(semaphore.attemptToAcquireLock("three", timeoutSec, 1));
+		// the expired keys were swept.
+		assertEquals(1, semaphore.getKeyCount());
+	}
+
+	@Test
+	public void testAcquireLockAtMaxKeysWithNoneExpired() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		assertTrue(semaphore.attemptToAcquireLock("one", timeoutSec, 1));
+		assertTrue(semaphore.attemptToAcquireLock("two", timeoutSec, 1));
+		// call under test
+		assertFalse(semaphore.attemptToAcquireLock("three", timeoutSec, 1));
+		// the new key is not tracked.
+		assertEquals(2, semaphore.getKeyCount());
+		// the tracked keys are unaffected.
+		assertFalse(semaphore.attemptToAcquireLock("one", timeoutSec, 1));
+	}
+
+	/**
+	 * A full map is swept at most once per interval, so each request for a new
+	 * key does not scan the entire map.
+	 */
+	@Test
+	public void testAcquireLockAtMaxKeysSweepsOncePerInterval() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1900L, 1900L, 2500L, 2900L);
+		long oneSecond = 1;
+		assertTrue(semaphore.attemptToAcquireLock("one", oneSecond, 1));
+		assertTrue(semaphore.attemptToAcquireLock("two", oneSecond, 1));
+		// swept but none are expired yet.
+		assertFalse(semaphore.attemptToAcquireLock("three", oneSecond, 1));
+		// "one" is expired but the last sweep was too recent.
+		assertFalse(semaphore.attemptToAcquireLock("three", oneSecond, 1));
+		assertEquals(2, semaphore.getKeyCount());
+		// call under test
+		assertTrue(semaphore.attemptToAcquireLock("three", oneSecond, 1));
+		assertEquals(1, semaphore.getKeyCount());
+	}
+
+	/**
+	 * Threads racing to add new keys must never exceed the maximum number of
+	 * keys.
+	 */
+	@Test
+	public void testAcquireLockConcurrentNewKeys() throws Exception {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		int maxKeys = 100;
+		semaphore = new ConcurrentMemoryTimeBlockCountingSemaphoreImpl(mockClock, maxKeys);
+		int threadCount = 8;
+		int keysPerThread = 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> futures = new ArrayList<>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				String keyPrefix = "thread-" + t + "-";
+				futures.add(executor.submit((Callable<Integer>) () -> {
+					start.await();
+					int acquired = 0;
+					for (int i = 0; i < keysPerThread; i++) {
+						if (semaphore.attemptToAcquireLock(keyPrefix + i, timeoutSec, 1)) {
+							acquired++;
+						}
+					}
+					return acquired;
+				}));
+			}
+			// call under test
+			start.countDown();
+			int totalAcquired = 0;
+			for (Future<Integer> future : futures) {
+				totalAcquired += future.get(1, TimeUnit.MINUTES);
+			}
+			assertEquals(maxKeys, totalAcquired);
+			assertEquals(maxKeys, semaphore.getKeyCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testReleaseAllLocks() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+		assertFalse(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+		// call under test
+		semaphore.releaseAllLocks();
+		assertTrue(semaphore.attemptToAcquireLock(key, timeoutSec, 1));
+	}
+
+	/**
+	 * Threads racing for the same key must never be issued more locks than the
+	 * limit, while each thread's own key is unaffected by the race.
+	 */
+	@Test
+	public void testAcquireLockConcurrent() throws Exception {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		semaphore = new ConcurrentMemoryTimeBlockCountingSemaphoreImpl(mockClock, 100);
+		int threadCount = 8;
+		int callsPerThread = 1000;
+		long sharedLimit = 100;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> futures = new ArrayList<>(threadCount);
+			for (int t = 0; t < threadCount; t++) {
+				String threadKey = "thread-" + t;
+				futures.add(executor.submit((Callable<Integer>) () -> {
+					start.await();
+					int sharedAcquired = 0;
+					for (int i = 0; i < callsPerThread; i++) {
+						assertTrue(semaphore.attemptToAcquireLock(threadKey, timeoutSec, callsPerThread));
+						if (semaphore.attemptToAcquireLock("shared", timeoutSec, sharedLimit)) {
+							sharedAcquired++;
+						}
+					}
+					return sharedAcquired;
+				}));
+			}
+			// call under test
+			start.countDown();
+			int totalShared = 0;
+			for (Future<Integer> future : futures) {
+				totalShared += future.get(1, TimeUnit.MINUTES);
+			}
+			assertEquals(sharedLimit, totalShared);
+			assertEquals(threadCount + 1, semaphore.getKeyCount());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -384,6 +384,28 @@ public interface StackConfiguration {
 	 */
 	public Long getMigrationBackupBatchMax();
 
+	/**
+	 * Should migration backup files be streamed directly to and from S3?
+	 * 
+	 * @return
+	 */
+	public Boolean getMigrationStreamingEnabled();
+
+	/**
+	 * Should bulk download zip files be streamed directly to S3?
+	 * 
+	 * @return
+	 */
+	public Boolean getBulkFileDownloadStreamingEnabled();
+
+	/**
+	 * The maximum number of broadcast emails that will be sent to SES per second
+	 * by this instance.
+	 * 
+	 * @return
+	 */
+	public Double getBroadcastEmailMaxSendsPerSecond();
+
 	/**
 	 * This should match the Database max_allowed_packet value. See PLFM-1900
 	 * 
@@ -540,6 +562,14 @@ public interface StackConfiguration {
 	 */
 	public long getTableReadTimeoutMS();
 
+	/**
+	 * The maximum amount of time in MS that a table query waits for its count,
+	 * facet and sum-file-size queries.
+	 * 
+	 * @return
+	 */
+	public long getTableSubQueryTimeoutMS();
+
 	public Integer getMaxConcurrentRepoConnections();
 
 	/**
@@ -696,6 +726,16 @@ public interface StackConfiguration {
 	 */
 	public String getMarkdownServiceEndpoint();
 
+	/**
+	 * @return the maximum number of converted markdown entries cached in memory
+	 */
+	public Integer getMarkdownCacheMaxEntries();
+
+	/**
+	 * @return true if converted markdown evicted from memory is spilled to local disk
+	 */
+	public boolean getMarkdownCacheSpillEnabled();
+
 	/**
 	 * @return the Synapse base URL
 	 */
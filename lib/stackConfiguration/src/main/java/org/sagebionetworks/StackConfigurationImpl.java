@@ -628,6 +628,40 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Long.parseLong(configuration.getProperty("org.sagebionetworks.repo.manager.migration.backup.batch.max"));
 	}
 
+	/**
+	 * Should migration backup files be streamed directly to and from S3?
+	 * 
+	 * @return
+	 */
+	public Boolean getMigrationStreamingEnabled() {
+		return Boolean.parseBoolean(configuration.getProperty("org.sagebionetworks.repo.manager.migration.streaming.enabled"));
+	}
+
+	/**
+	 * Should bulk download zip files be streamed directly to S3?
+	 * 
+	 * @return
+	 */
+	public Boolean getBulkFileDownloadStreamingEnabled() {
+		return Boolean.parseBoolean(configuration.getProperty("org.sagebionetworks.file.worker.bulk.download.streaming.enabled"));
+	}
+
+	/**
+	 * The maximum number of broadcast emails that will be sent to SES per second
+	 * by this instance. The stack wide rate is divided evenly between the
+	 * instances that send broadcast emails.
+	 * 
+	 * @return
+	 */
+	public Double getBroadcastEmailMaxSendsPerSecond() {
+		double stackMaxSendsPerSecond = Double.parseDouble(configuration.getProperty("org.sagebionetworks.broadcast.email.stack.max.sends.per.second"));
+		int senderInstanceCount = Integer.parseInt(configuration.getProperty("org.sagebionetworks.broadcast.email.sender.instance.count"));
+		if (senderInstanceCount < 1) {
+			throw new IllegalArgumentException("org.sagebionetworks.broadcast.email.sender.instance.count must be at least one");
+		}
+		return stackMaxSendsPerSecond / senderInstanceCount;
+	}
+
 	/**
 	 * This should match the Database max_allowed_packet value. See PLFM-1900
 	 * 
@@ -836,6 +870,16 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return Long.parseLong(configuration.getProperty("org.sagebionetworks.table.read.timeout.ms"));
 	}
 
+	/**
+	 * The maximum amount of time in MS that a table query waits for its count,
+	 * facet and sum-file-size queries.
+	 * 
+	 * @return
+	 */
+	public long getTableSubQueryTimeoutMS() {
+		return Long.parseLong(configuration.getProperty("org.sagebionetworks.table.sub.query.timeout.ms"));
+	}
+
 	public Integer getMaxConcurrentRepoConnections() {
 		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.max.concurrent.repo.connections"));
 	}
@@ -1054,6 +1098,20 @@ public class StackConfigurationImpl implements StackConfiguration {
 		return configuration.getProperty("org.sagebionetworks.markdown.service.endpoint");
 	}
 
+	/**
+	 * @return the maximum number of converted markdown entries cached in memory
+	 */
+	public Integer getMarkdownCacheMaxEntries() {
+		return Integer.parseInt(configuration.getProperty("org.sagebionetworks.markdown.cache.max.entries"));
+	}
+
+	/**
+	 * @return true if converted markdown evicted from memory is spilled to local disk
+	 */
+	public boolean getMarkdownCacheSpillEnabled() {
+		return Boolean.parseBoolean(configuration.getProperty("org.sagebionetworks.markdown.cache.spill.enabled"));
+	}
+
 	/**
 	 * @return the Synapse base URL
 	 */
@@ -36,6 +36,8 @@ import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.Region;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 import com.amazonaws.util.StringUtils;
 
 /*
@@ -186,6 +188,11 @@ public class SynapseS3ClientImpl implements SynapseS3Client {
 		return getS3ClientForBucket(copyPartRequest.getDestinationBucketName()).copyPart(copyPartRequest);
 	}
 
+	@Override
+	public UploadPartResult uploadPart(UploadPartRequest uploadPartRequest) throws SdkClientException, AmazonServiceException {
+		return getS3ClientForBucket(uploadPartRequest.getBucketName()).uploadPart(uploadPartRequest);
+	}
+
 	@Override
 	public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request)
 			throws SdkClientException, AmazonServiceException {
@@ -2,6 +2,7 @@ package org.sagebionetworks;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -161,6 +162,36 @@ public class StackConfigurationImplUnitTest {
 		verify(stackEncrypter).getDecryptedProperty("org.sagebionetworks." + StackConfiguration.SERVICE_DOCKER_REGISTRY + ".auth.secret");
 	}
 	
+	@Test
+	public void testGetBroadcastEmailMaxSendsPerSecond() {
+		when(mockProperties.getProperty("org.sagebionetworks.broadcast.email.stack.max.sends.per.second")).thenReturn("80");
+		when(mockProperties.getProperty("org.sagebionetworks.broadcast.email.sender.instance.count")).thenReturn("4");
+		
+		// Call under test
+		Double maxSendsPerSecond = config.getBroadcastEmailMaxSendsPerSecond();
+		
+		assertEquals(20.0, maxSendsPerSecond, 0.0);
+	}
+	
+	@Test
+	public void testGetBroadcastEmailMaxSendsPerSecondWithNoInstances() {
+		when(mockProperties.getProperty("org.sagebionetworks.broadcast.email.stack.max.sends.per.second")).thenReturn("80");
+		when(mockProperties.getProperty("org.sagebionetworks.broadcast.email.sender.instance.count")).thenReturn("0");
+		
+		assertThrows(IllegalArgumentException.class, () -> {
+			// Call under test
+			config.getBroadcastEmailMaxSendsPerSecond();
+		});
+	}
+	
+	@Test
+	public void testGetTableSubQueryTimeoutMS() {
+		when(mockProperties.getProperty("org.sagebionetworks.table.sub.query.timeout.ms")).thenReturn("60000");
+		
+		// Call under test
+		assertEquals(60000L, config.getTableSubQueryTimeoutMS());
+	}
+	
 	@Test
 	public void testGetRepositoryServiceProdEndpoint() {
 		
@@ -44,6 +44,8 @@ import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.Region;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SynapseS3ClientImplUnitTest {
@@ -301,6 +303,19 @@ public class SynapseS3ClientImplUnitTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testUploadPart() {
+		UploadPartResult expected = new UploadPartResult();
+		UploadPartRequest request = new UploadPartRequest().withBucketName(BUCKET_NAME);
+		when(mockAmazonClient.uploadPart(request)).thenReturn(expected);
+
+		// method under test
+		UploadPartResult actual = client.uploadPart(request);
+		
+		verify(mockAmazonClient).uploadPart(request);
+		assertEquals(expected, actual);
+	}
+
 	@Test
 	public void testCompleteMultipartUpload() {
 		CompleteMultipartUploadResult expected = new CompleteMultipartUploadResult();
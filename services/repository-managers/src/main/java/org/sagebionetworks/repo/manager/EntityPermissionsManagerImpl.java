@@ -24,6 +24,7 @@ import java.util.Set;
 
 import org.sagebionetworks.collections.Transform;
 import org.sagebionetworks.repo.manager.dataaccess.RestrictionInformationManager;
+import org.sagebionetworks.repo.manager.entity.EntityHierarchyCache;
 import org.sagebionetworks.repo.manager.trash.EntityInTrashCanException;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.ACLInheritanceException;
@@ -67,6 +68,8 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	@Autowired
 	private NodeDAO nodeDao;
 	@Autowired
+	private EntityHierarchyCache entityHierarchyCache;
+	@Autowired
 	private AccessControlListDAO aclDAO;
 	@Autowired
 	private ProjectSettingsManager projectSettingsManager;
@@ -82,7 +85,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	@Override
 	public AccessControlList getACL(String nodeId, UserInfo userInfo) throws NotFoundException, DatastoreException, ACLInheritanceException {
 		// Get the id that this node inherits its permissions from
-		String benefactor = nodeDao.getBenefactor(nodeId);		
+		String benefactor = entityHierarchyCache.getBenefactor(nodeId);		
 		//
 		// PLFM-2399:  There is a case in which a node ID is passed in without the 'syn' prefix.  
 		// In this case 'nodeId' might be '12345' while benefactor might be 'syn12345'.
@@ -107,7 +110,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	@Override
 	public AccessControlList updateACL(AccessControlList acl, UserInfo userInfo) throws NotFoundException, DatastoreException, InvalidModelException, UnauthorizedException, ConflictingUpdateException {
 		String rId = acl.getId();
-		String benefactor = nodeDao.getBenefactor(rId);
+		String benefactor = entityHierarchyCache.getBenefactor(rId);
 		if (!benefactor.equals(rId)) throw new UnauthorizedException("Cannot update ACL for a resource which inherits its permissions.");
 		// check permissions of user to change permissions for the resource
 		hasAccess(rId, CHANGE_PERMISSIONS, userInfo).checkAuthorizationOrElseThrow();
@@ -148,7 +151,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	public AccessControlList overrideInheritance(AccessControlList acl, UserInfo userInfo) throws NotFoundException, DatastoreException, InvalidModelException, UnauthorizedException, ConflictingUpdateException {
 		String entityId = acl.getId();
 		Node node = nodeDao.getNode(entityId);
-		String benefactorId = nodeDao.getBenefactor(entityId);
+		String benefactorId = entityHierarchyCache.getBenefactor(entityId);
 		if(KeyFactory.equals(benefactorId, entityId)){
 			throw new UnauthorizedException("Resource already has an ACL.");
 		}
@@ -187,7 +190,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	@WriteTransaction
 	@Override
 	public AccessControlList restoreInheritance(String entityId, UserInfo userInfo) throws NotFoundException, DatastoreException, UnauthorizedException, ConflictingUpdateException {
-		String benefactorId = nodeDao.getBenefactor(entityId);
+		String benefactorId = entityHierarchyCache.getBenefactor(entityId);
 		// check permissions of user to change permissions for the resource
 		hasAccess(entityId, CHANGE_PERMISSIONS, userInfo).checkAuthorizationOrElseThrow();
 		if(!KeyFactory.equals(entityId, benefactorId)){
@@ -203,7 +206,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 		aclDAO.delete(entityId, ObjectType.ENTITY);
 		
 		// now find the newly governing ACL
-		String benefactor = nodeDao.getBenefactor(entityId);
+		String benefactor = entityHierarchyCache.getBenefactor(entityId);
 		
 		EntityType entityType = nodeDao.getNodeTypeById(entityId);
 		
@@ -295,7 +298,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 		// In the case of the trash can, throw the EntityInTrashCanException
 		// The only operations allowed over the trash can is CREATE (i.e. moving
 		// items into the trash can) and DELETE (i.e. purging the trash).
-		final String benefactor = nodeDao.getBenefactor(entityId);
+		final String benefactor = entityHierarchyCache.getBenefactor(entityId);
 		if (NodeConstants.BOOTSTRAP_NODES.TRASH.getId().equals(KeyFactory.stringToKey(benefactor))
 				&& !CREATE.equals(accessType)
 				&& !DELETE.equals(accessType)) {
@@ -334,7 +337,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	 */
 	@Override
 	public String getPermissionBenefactor(String nodeId, UserInfo userInfo) throws NotFoundException, DatastoreException {
-		return nodeDao.getBenefactor(nodeId);
+		return entityHierarchyCache.getBenefactor(nodeId);
 	}
 
 	@Override
@@ -343,7 +346,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 
 		Node node = nodeDao.getNode(entityId);
 		
-		String benefactor = nodeDao.getBenefactor(entityId);
+		String benefactor = entityHierarchyCache.getBenefactor(entityId);
 
 		UserEntityPermissions permissions = new UserEntityPermissions();
 		permissions.setCanAddChild(hasAccess(entityId, CREATE, userInfo).isAuthorized());
@@ -380,7 +383,7 @@ public class EntityPermissionsManagerImpl implements EntityPermissionsManager {
 	@Override
 	public boolean hasLocalACL(String resourceId) {
 		try {
-			return nodeDao.getBenefactor(resourceId).equals(resourceId);
+			return entityHierarchyCache.getBenefactor(resourceId).equals(resourceId);
 		} catch (Exception e) {
 			return false;
 		}
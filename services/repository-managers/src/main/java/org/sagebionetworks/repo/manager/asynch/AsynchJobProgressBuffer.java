@@ -0,0 +1,36 @@
+package org.sagebionetworks.repo.manager.asynch;
+
+/**
+ * Write-behind buffer for the progress of asynchronous jobs. Only the latest
+ * progress of each job is held in memory until the next flush, so a job that
+ * reports progress many times between flushes results in a single update.
+ *
+ */
+public interface AsynchJobProgressBuffer {
+
+	/**
+	 * Buffer the progress of the given job, replacing any progress of the job
+	 * that has not been flushed.
+	 * 
+	 * @param jobId
+	 * @param progressCurrent
+	 * @param progressTotal
+	 * @param progressMessage
+	 */
+	void add(String jobId, Long progressCurrent, Long progressTotal, String progressMessage);
+
+	/**
+	 * Discard any progress of the given job that has not been flushed. Called
+	 * when the job reaches a terminal state.
+	 * 
+	 * @param jobId
+	 */
+	void remove(String jobId);
+
+	/**
+	 * Write the buffered progress of all jobs with a single batch update. Called
+	 * from a timer.
+	 */
+	void flush();
+
+}
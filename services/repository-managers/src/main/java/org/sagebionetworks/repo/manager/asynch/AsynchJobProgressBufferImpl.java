@@ -0,0 +1,76 @@
+package org.sagebionetworks.repo.manager.asynch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.repo.model.dao.asynch.AsynchJobProgress;
+import org.sagebionetworks.repo.model.dao.asynch.AsynchronousJobStatusDAO;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AsynchJobProgressBufferImpl implements AsynchJobProgressBuffer {
+
+	private static final Logger LOG = LogManager.getLogger(AsynchJobProgressBufferImpl.class);
+
+	private AsynchronousJobStatusDAO asynchJobStatusDao;
+
+	private Clock clock;
+
+	private ConcurrentHashMap<String, AsynchJobProgress> buffer = new ConcurrentHashMap<>();
+
+	@Autowired
+	public AsynchJobProgressBufferImpl(AsynchronousJobStatusDAO asynchJobStatusDao, Clock clock) {
+		this.asynchJobStatusDao = asynchJobStatusDao;
+		this.clock = clock;
+	}
+
+	@Override
+	public void add(String jobId, Long progressCurrent, Long progressTotal, String progressMessage) {
+		ValidateArgument.required(jobId, "jobId");
+		buffer.put(jobId,
+				new AsynchJobProgress(jobId, progressCurrent, progressTotal, progressMessage, clock.currentTimeMillis()));
+	}
+
+	@Override
+	public void remove(String jobId) {
+		ValidateArgument.required(jobId, "jobId");
+		buffer.remove(jobId);
+	}
+
+	@Override
+	public void flush() {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		List<AsynchJobProgress> batch = new ArrayList<>(buffer.size());
+		for (String jobId : buffer.keySet()) {
+			AsynchJobProgress progress = buffer.remove(jobId);
+			if (progress != null) {
+				batch.add(progress);
+			}
+		}
+		try {
+			asynchJobStatusDao.updateJobProgressBatch(batch);
+		} catch (RuntimeException e) {
+			LOG.warn("Failed to write the progress of " + batch.size() + " jobs", e);
+			// Put back the progress unless newer progress was added since the removal.
+			batch.forEach(progress -> buffer.putIfAbsent(progress.getJobId(), progress));
+		}
+	}
+
+	/**
+	 * The number of jobs with progress that has not been flushed.
+	 * 
+	 * @return
+	 */
+	public int getBufferedCount() {
+		return buffer.size();
+	}
+
+}
@@ -64,6 +64,8 @@ public interface AsynchJobStatusManager {
 	/**
 	 * Update the progress of a job.
 	 * This method should only be called by a worker.
+	 * The progress is buffered and written in a batch with the progress of other jobs
+	 * shortly after the call, so only the latest progress of a job is written.
 	 * 
 	 * @param jobId
 	 * @param progressCurrent
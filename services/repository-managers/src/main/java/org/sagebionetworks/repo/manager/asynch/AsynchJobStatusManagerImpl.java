@@ -29,7 +29,6 @@ import org.sagebionetworks.repo.model.audit.ObjectRecord;
 import org.sagebionetworks.repo.model.dao.asynch.AsynchronousJobStatusDAO;
 import org.sagebionetworks.repo.model.dbo.asynch.AsynchJobType;
 import org.sagebionetworks.repo.model.status.StatusEnum;
-import org.sagebionetworks.repo.transactions.NewWriteTransaction;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -67,6 +66,8 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 	StackConfiguration stackConfig;
 	@Autowired
 	Consumer cloudeWatch;
+	@Autowired
+	AsynchJobProgressBuffer asynchJobProgressBuffer;
 	String metricNamespace;
 	/*
 	 * (non-Javadoc)
@@ -171,12 +172,16 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 	}
 
 
-	@NewWriteTransaction
 	@Override
 	public void updateJobProgress(String jobId, Long progressCurrent, Long progressTotal, String progressMessage) {
 		// Progress can only be updated if the stack is in read-write mode.
 		checkStackReadWrite();
-		asynchJobStatusDao.updateJobProgress(jobId, progressCurrent, progressTotal, progressMessage);
+		/*
+		 * Progress is written behind in batches, so only the latest progress of a job
+		 * is written. Since only jobs that are still processing are updated, progress
+		 * flushed after the job completes or fails is ignored.
+		 */
+		asynchJobProgressBuffer.add(jobId, progressCurrent, progressTotal, progressMessage);
 	}
 
 	/**
@@ -193,6 +198,7 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 	@Override
 	public String setJobFailed(String jobId, Throwable error) {
 		// We allow a job to fail even if the stack is not in read-write mode.
+		asynchJobProgressBuffer.remove(jobId);
 		return asynchJobStatusDao.setJobFailed(jobId, error);
 	}
 
@@ -222,6 +228,7 @@ public class AsynchJobStatusManagerImpl implements AsynchJobStatusManager {
 			ObjectRecord record = ObjectRecordBuilderUtils.buildObjectRecord(body, System.currentTimeMillis());
 			objectRecordDAO.saveBatch(Arrays.asList(record), record.getJsonClassName());
 		}
+		asynchJobProgressBuffer.remove(jobId);
 		long runtimeMS = asynchJobStatusDao.setComplete(jobId, body, requestHash);
 		// Record the runtime for this job.
 		AsynchJobType type = AsynchJobType.findTypeFromRequestClass(status.getRequestBody().getClass());
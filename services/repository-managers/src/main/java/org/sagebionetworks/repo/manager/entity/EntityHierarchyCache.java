@@ -0,0 +1,52 @@
+package org.sagebionetworks.repo.manager.entity;
+
+import java.util.List;
+
+import org.sagebionetworks.repo.model.NodeDAO;
+
+/**
+ * A node-local cache of the entity hierarchy (parent and type of each node)
+ * that answers benefactor, project and path look-ups without walking the
+ * hierarchy in the database. The cache is invalidated by the entity change
+ * messages. ACLs are never cached; a benefactor look-up reads the ACLs of the
+ * cached path in a single query.
+ * <p>
+ * Calls made within a transaction, and calls made while the cache is not being
+ * kept in sync with the change messages, are always delegated to the
+ * {@link NodeDAO} so the results are consistent with the caller's view of the
+ * database.
+ *
+ */
+public interface EntityHierarchyCache {
+
+	/**
+	 * Cached version of {@link NodeDAO#getBenefactor(String)}.
+	 * 
+	 * @param entityId
+	 * @return
+	 */
+	String getBenefactor(String entityId);
+
+	/**
+	 * Cached version of {@link NodeDAO#getProjectId(String)}.
+	 * 
+	 * @param entityId
+	 * @return
+	 */
+	String getProjectId(String entityId);
+
+	/**
+	 * Cached version of {@link NodeDAO#getEntityPathIds(String)}.
+	 * 
+	 * @param entityId
+	 * @return
+	 */
+	List<Long> getEntityPathIds(String entityId);
+
+	/**
+	 * Called from a timer to apply the entity changes made on other nodes and to
+	 * publish the cache metrics.
+	 */
+	void timerFired();
+
+}
@@ -0,0 +1,430 @@
+package org.sagebionetworks.repo.manager.entity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.AccessControlListDAO;
+import org.sagebionetworks.repo.model.EntityType;
+import org.sagebionetworks.repo.model.NodeConstants;
+import org.sagebionetworks.repo.model.NodeDAO;
+import org.sagebionetworks.repo.model.NodeHierarchyEntry;
+import org.sagebionetworks.repo.model.ObjectType;
+import org.sagebionetworks.repo.model.dbo.dao.DBOChangeDAO;
+import org.sagebionetworks.repo.model.jdo.KeyFactory;
+import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.repo.model.message.TransactionalMessenger;
+import org.sagebionetworks.repo.model.message.TransactionalMessengerObserver;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Implementation of the {@link EntityHierarchyCache} that keeps one
+ * {@link NodeHierarchyEntry} per node. A node's project and path are derived
+ * from the entries of the node's ancestors, so a change to any node only
+ * requires the entry of that node to be removed.
+ * <p>
+ * ACLs are not cached. ACLs can be deleted without a change message for the
+ * entity (for example, when a hierarchy is moved to the trash), so the
+ * benefactor is always resolved by looking up which nodes of the cached path
+ * currently have an ACL.
+ * <p>
+ * Changes committed on this machine are applied as soon as they are committed
+ * (via the {@link TransactionalMessenger}). Changes committed on other machines
+ * are applied by {@link #timerFired()} which polls the entity changes from the
+ * change table. If the timer stops firing the cache is bypassed.
+ * <p>
+ * Change numbers are issued before the change is committed, so a change can
+ * become visible long after changes with a higher number. Each poll records the
+ * current change number; every change at or below that number was issued
+ * before the poll, so it is committed (or rolled back) within
+ * {@link #MAX_TRANSACTION_MS} of the poll. Each poll therefore re-reads all
+ * changes from the last change number recorded at least that long before the
+ * previous poll, which does not depend on the order in which changes commit.
+ *
+ */
+public class EntityHierarchyCacheImpl implements EntityHierarchyCache, TransactionalMessengerObserver {
+
+	static private Logger log = LogManager.getLogger(EntityHierarchyCacheImpl.class);
+
+	/**
+	 * The maximum number of nodes held in the cache.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 500_000;
+	/**
+	 * The cache is bypassed when the changes have not been polled for this
+	 * amount of time.
+	 */
+	public static final long MAX_TIME_SINCE_LAST_POLL_MS = 10 * 1000;
+	/**
+	 * The longest a transaction that changes an entity is expected to run. A
+	 * change is re-read by each poll until its change number was issued this long
+	 * before the previous poll. The cache is bypassed for this long after startup.
+	 */
+	public static final long MAX_TRANSACTION_MS = 5 * 60 * 1000;
+	/**
+	 * The maximum number of changes read per poll. If more changes are found the
+	 * entire cache is cleared.
+	 */
+	public static final long MAX_CHANGES_PER_POLL = 10_000;
+	/**
+	 * Metrics are pushed to CloudWatch once per minute.
+	 */
+	public static final long METRIC_PUSH_FREQUENCY_MS = 60 * 1000;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Entity-Hierarchy-Cache-";
+	public static final String METRIC_HIT_COUNT = "Hit Count";
+	public static final String METRIC_MISS_COUNT = "Miss Count";
+	public static final String METRIC_BYPASS_COUNT = "Bypass Count";
+	public static final String METRIC_ENTRY_COUNT = "Entry Count";
+
+	@Autowired
+	private NodeDAO nodeDao;
+	@Autowired
+	private AccessControlListDAO aclDao;
+	@Autowired
+	private DBOChangeDAO changeDao;
+	@Autowired
+	private TransactionalMessenger transactionalMessenger;
+	@Autowired
+	private Consumer consumer;
+	@Autowired
+	private StackConfiguration stackConfig;
+	@Autowired
+	private Clock clock;
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private final ConcurrentMap<Long, NodeHierarchyEntry> entries = new ConcurrentHashMap<>();
+	// Incremented each time an entry is removed, used to detect a removal while loading from the database.
+	private final AtomicLong invalidationCount = new AtomicLong(0);
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong bypassCount = new AtomicLong(0);
+	// The time of the last poll that read every change committed since the poll before it.
+	private volatile long lastPollMS = 0L;
+
+	/*
+	 * Only accessed from the timer thread.
+	 */
+	private Long previousPollMS = null;
+	// The current change number recorded by each poll, oldest first.
+	private final Deque<PollMark> pollMarks = new ArrayDeque<>();
+	// Changes that have been applied and are still being re-read.
+	private final NavigableSet<Long> appliedChangeNumbers = new TreeSet<>();
+	private Long lastMetricPushMS = null;
+
+	/**
+	 * Called by Spring when this bean is created to register this class as an
+	 * observer of the TransactionalMessenger.
+	 */
+	public void initialize() {
+		transactionalMessenger.removeObserver(this);
+		transactionalMessenger.registerObserver(this);
+	}
+
+	/**
+	 * The maximum number of nodes held in the cache.
+	 * 
+	 * @param maxEntries
+	 */
+	public void setMaxEntries(int maxEntries) {
+		ValidateArgument.requirement(maxEntries > 0, "maxEntries must be greater than zero");
+		this.maxEntries = maxEntries;
+	}
+
+	@Override
+	public String getBenefactor(String entityId) {
+		ValidateArgument.required(entityId, "entityId");
+		List<NodeHierarchyEntry> path = getPath(entityId);
+		if (path != null) {
+			List<Long> pathIds = new ArrayList<>(path.size());
+			for (NodeHierarchyEntry entry : path) {
+				pathIds.add(entry.getNodeId());
+			}
+			Set<Long> withAcls = aclDao.getEntitiesWithAcls(pathIds);
+			for (int i = pathIds.size() - 1; i >= 0; i--) {
+				if (withAcls.contains(pathIds.get(i))) {
+					return KeyFactory.keyToString(pathIds.get(i));
+				}
+			}
+		}
+		return nodeDao.getBenefactor(entityId);
+	}
+
+	@Override
+	public String getProjectId(String entityId) {
+		ValidateArgument.required(entityId, "entityId");
+		List<NodeHierarchyEntry> path = getPath(entityId);
+		if (path != null) {
+			for (int i = path.size() - 1; i >= 0; i--) {
+				if (EntityType.project.equals(path.get(i).getType())) {
+					return KeyFactory.keyToString(path.get(i).getNodeId());
+				}
+			}
+		}
+		return nodeDao.getProjectId(entityId);
+	}
+
+	@Override
+	public List<Long> getEntityPathIds(String entityId) {
+		ValidateArgument.required(entityId, "entityId");
+		List<NodeHierarchyEntry> path = getPath(entityId);
+		if (path == null) {
+			return nodeDao.getEntityPathIds(entityId);
+		}
+		List<Long> pathIds = new ArrayList<>(path.size());
+		for (NodeHierarchyEntry entry : path) {
+			pathIds.add(entry.getNodeId());
+		}
+		return pathIds;
+	}
+
+	/**
+	 * Get the hierarchy path of the given entity, from root to leaf, from the
+	 * cache or from the database on a miss.
+	 * 
+	 * @param entityId
+	 * @return null if the cache must be bypassed.
+	 */
+	List<NodeHierarchyEntry> getPath(String entityId) {
+		if (!isCacheUsable()) {
+			bypassCount.incrementAndGet();
+			return null;
+		}
+		Long nodeId = KeyFactory.stringToKey(entityId);
+		List<NodeHierarchyEntry> path = getCachedPath(nodeId);
+		if (path != null) {
+			hitCount.incrementAndGet();
+			return path;
+		}
+		missCount.incrementAndGet();
+		long invalidationsBefore = invalidationCount.get();
+		path = nodeDao.getEntityPathHierarchy(entityId);
+		// Anything read while an entry was removed could be stale.
+		if (invalidationsBefore == invalidationCount.get()) {
+			putAll(path);
+		}
+		return path;
+	}
+
+	/**
+	 * The cache can only be used outside of a transaction and while the changes
+	 * are being polled.
+	 * 
+	 * @return
+	 */
+	boolean isCacheUsable() {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return false;
+		}
+		return clock.currentTimeMillis() - lastPollMS < MAX_TIME_SINCE_LAST_POLL_MS;
+	}
+
+	/**
+	 * Build the path of the given node from the cached entries.
+	 * 
+	 * @param nodeId
+	 * @return null if any node of the path is not in the cache.
+	 */
+	List<NodeHierarchyEntry> getCachedPath(Long nodeId) {
+		List<NodeHierarchyEntry> path = new ArrayList<>();
+		Long currentId = nodeId;
+		while (currentId != null) {
+			NodeHierarchyEntry entry = entries.get(currentId);
+			if (entry == null || path.size() >= NodeConstants.MAX_PATH_DEPTH) {
+				return null;
+			}
+			path.add(entry);
+			currentId = entry.getParentId();
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Add the given entries to the cache. When the cache is full it is cleared.
+	 * 
+	 * @param path
+	 */
+	void putAll(List<NodeHierarchyEntry> path) {
+		if (entries.size() + path.size() > maxEntries) {
+			clear();
+		}
+		for (NodeHierarchyEntry entry : path) {
+			entries.put(entry.getNodeId(), entry);
+		}
+	}
+
+	/**
+	 * Remove a single node from the cache.
+	 * 
+	 * @param nodeId
+	 */
+	void invalidate(Long nodeId) {
+		invalidationCount.incrementAndGet();
+		entries.remove(nodeId);
+	}
+
+	/**
+	 * Remove all nodes from the cache.
+	 */
+	void clear() {
+		invalidationCount.incrementAndGet();
+		entries.clear();
+	}
+
+	@Override
+	public void fireChangeMessage(ChangeMessage message) {
+		if (ObjectType.ENTITY.equals(message.getObjectType()) || ObjectType.ENTITY_CONTAINER.equals(message.getObjectType())) {
+			invalidate(KeyFactory.stringToKey(message.getObjectId()));
+		}
+	}
+
+	@Override
+	public void timerFired() {
+		long now = clock.currentTimeMillis();
+		try {
+			if (pollChanges(now)) {
+				lastPollMS = now;
+			}
+			previousPollMS = now;
+		} catch (Exception e) {
+			log.error("Failed to poll entity changes", e);
+		}
+		if (lastMetricPushMS == null) {
+			lastMetricPushMS = now;
+		}
+		if (now - lastMetricPushMS > METRIC_PUSH_FREQUENCY_MS) {
+			pushMetrics(now);
+			lastMetricPushMS = now;
+		}
+	}
+
+	/**
+	 * Remove each node with a change committed since the previous poll.
+	 * 
+	 * @param now The time this poll started.
+	 * @return false if changes committed since the previous poll could not be
+	 *         read, in which case the cache is cleared and must not be used.
+	 */
+	boolean pollChanges(long now) {
+		PollMark startMark = getStartMark();
+		// Read the time after the change number so every change at or below it was issued before the mark.
+		long currentChangeNumber = changeDao.getCurrentChangeNumber();
+		pollMarks.addLast(new PollMark(clock.currentTimeMillis(), currentChangeNumber));
+		if (startMark == null) {
+			// A change committed since the previous poll could have any change number.
+			clear();
+			appliedChangeNumbers.clear();
+			return false;
+		}
+		appliedChangeNumbers.headSet(startMark.changeNumber).clear();
+		List<ChangeMessage> changes = changeDao.listChanges(startMark.changeNumber, ObjectType.ENTITY, MAX_CHANGES_PER_POLL);
+		if (changes.size() >= MAX_CHANGES_PER_POLL) {
+			// Too many changes to apply one at a time.
+			clear();
+			appliedChangeNumbers.clear();
+			return true;
+		}
+		for (ChangeMessage change : changes) {
+			// Each change is re-read until it is settled but only needs to be applied once.
+			if (appliedChangeNumbers.add(change.getChangeNumber())) {
+				invalidate(KeyFactory.stringToKey(change.getObjectId()));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the latest mark recorded at least {@link #MAX_TRANSACTION_MS} before
+	 * the previous poll. Every change at or below the mark's change number was
+	 * committed before the previous poll, so it has already been read. Older
+	 * marks are discarded.
+	 * 
+	 * @return null if there is no such mark.
+	 */
+	PollMark getStartMark() {
+		if (previousPollMS == null) {
+			return null;
+		}
+		long settledBeforeMS = previousPollMS - MAX_TRANSACTION_MS;
+		PollMark start = null;
+		while (!pollMarks.isEmpty() && pollMarks.peekFirst().timeMS <= settledBeforeMS) {
+			start = pollMarks.removeFirst();
+		}
+		if (start != null) {
+			pollMarks.addFirst(start);
+		}
+		return start;
+	}
+
+	/**
+	 * Push the hit, miss and bypass counts since the last push along with the
+	 * current number of entries.
+	 * 
+	 * @param now
+	 */
+	void pushMetrics(long now) {
+		Date timestamp = new Date(now);
+		consumer.addProfileData(createMetric(METRIC_HIT_COUNT, hitCount.getAndSet(0), timestamp));
+		consumer.addProfileData(createMetric(METRIC_MISS_COUNT, missCount.getAndSet(0), timestamp));
+		consumer.addProfileData(createMetric(METRIC_BYPASS_COUNT, bypassCount.getAndSet(0), timestamp));
+		consumer.addProfileData(createMetric(METRIC_ENTRY_COUNT, entries.size(), timestamp));
+	}
+
+	ProfileData createMetric(String name, long value, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfig.getStackInstance());
+		profileData.setName(name);
+		profileData.setValue((double) value);
+		profileData.setUnit(StandardUnit.Count.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
+	}
+
+	long getHitCount() {
+		return hitCount.get();
+	}
+
+	long getMissCount() {
+		return missCount.get();
+	}
+
+	int getEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * The current change number as recorded by a poll.
+	 */
+	static class PollMark {
+
+		private final long timeMS;
+		private final long changeNumber;
+
+		PollMark(long timeMS, long changeNumber) {
+			this.timeMS = timeMS;
+			this.changeNumber = changeNumber;
+		}
+	}
+
+}
@@ -172,6 +172,18 @@ public interface FileHandleManager {
 	 */
 	S3FileHandle uploadLocalFile(LocalFileUploadRequest request);
 
+	/**
+	 * Start an upload of data streamed to the standard Synapse S3 bucket. The data
+	 * is uploaded in parts as it is written, so it is never written to a local
+	 * file. The file handle is created by {@link StreamingFileUpload#complete()}.
+	 * This is used by workers.
+	 * 
+	 * @param request The request must include a file name. The file to upload is
+	 *                ignored.
+	 * @return
+	 */
+	StreamingFileUpload startStreamingUpload(LocalFileUploadRequest request);
+
 	/**
 	 * Get the list of upload destinations for this parent
 	 * 
@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.BooleanUtils;
@@ -99,6 +100,7 @@ import org.sagebionetworks.repo.model.project.StsStorageLocationSetting;
 import org.sagebionetworks.repo.model.project.UploadDestinationListSetting;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.upload.multipart.S3MultipartUploadOutputStream;
 import org.sagebionetworks.util.ContentDispositionUtils;
 import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.utils.ContentTypeUtil;
@@ -153,6 +155,17 @@ public class FileHandleManagerImpl implements FileHandleManager {
 	
 	private static final String GZIP_CONTENT_ENCODING = "gzip";
 
+	/**
+	 * The size of each part of a streaming upload.
+	 */
+	public static final int STREAMING_UPLOAD_PART_SIZE_BYTES = S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES * 2;
+
+	/**
+	 * The number of parts of a streaming upload that can be uploading while the
+	 * next part is written.
+	 */
+	public static final int STREAMING_UPLOAD_MAX_PENDING_PARTS = 2;
+
 	@Autowired
 	FileHandleDao fileHandleDao;
 
@@ -189,6 +202,9 @@ public class FileHandleManagerImpl implements FileHandleManager {
 	@Autowired
 	private TransferManager transferManager;
 
+	@Autowired
+	private ExecutorService streamingUploadExecutorService;
+
 	/**
 	 * Used by spring
 	 */
@@ -640,6 +656,35 @@ public class FileHandleManagerImpl implements FileHandleManager {
 		} 
 	}
 	
+	@Override
+	public StreamingFileUpload startStreamingUpload(LocalFileUploadRequest request) {
+		ValidateArgument.required(request, "request");
+		ValidateArgument.required(request.getUserId(), "request.userId");
+		ValidateArgument.required(request.getFileName(), "request.fileName");
+		StorageLocationSetting storageLocationSetting = null;
+		if (request.getStorageLocationId() != null) {
+			storageLocationSetting = storageLocationDAO.get(request.getStorageLocationId());
+		}
+		String bucket = MultipartUtils.getBucket(storageLocationSetting);
+		String key = MultipartUtils.createNewKey(request.getUserId(), request.getFileName(), storageLocationSetting);
+		S3FileHandle handle = new S3FileHandle();
+		handle.setBucketName(bucket);
+		handle.setKey(key);
+		handle.setContentType(request.getContentType());
+		handle.setCreatedBy(request.getUserId());
+		handle.setCreatedOn(new Date(System.currentTimeMillis()));
+		handle.setEtag(UUID.randomUUID().toString());
+		handle.setFileName(request.getFileName());
+		handle.setStorageLocationId(request.getStorageLocationId());
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(s3Client, bucket, key,
+				TransferUtils.prepareObjectMetadata(handle), streamingUploadExecutorService,
+				STREAMING_UPLOAD_PART_SIZE_BYTES, STREAMING_UPLOAD_MAX_PENDING_PARTS);
+		return new StreamingFileUpload(out, handle, (S3FileHandle completed) -> {
+			completed.setId(idGenerator.generateNewId(IdType.FILE_IDS).toString());
+			return (S3FileHandle) fileHandleDao.createFile(completed);
+		});
+	}
+	
 	@Override
 	@Deprecated
 	public List<UploadDestination> getUploadDestinations(UserInfo userInfo, String parentId) throws DatastoreException,
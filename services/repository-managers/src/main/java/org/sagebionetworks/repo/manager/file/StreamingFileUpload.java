@@ -0,0 +1,121 @@
+package org.sagebionetworks.repo.manager.file;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.function.UnaryOperator;
+
+import org.sagebionetworks.repo.manager.file.transfer.TransferUtils;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.upload.multipart.S3MultipartUploadOutputStream;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.util.BinaryUtils;
+
+/**
+ * An upload of data written directly to S3 as it is generated, so the data
+ * does not need to be written to a local file first. The data is uploaded in
+ * parts while it is written.
+ * <p>
+ * Closing this stream does not create the file. Call {@link #complete()} to
+ * finish the upload and create its S3FileHandle, or {@link #abort()} to
+ * discard it. This allows the stream to be wrapped by streams that close the
+ * wrapped stream, such as a ZipOutputStream. This class is not thread safe.
+ *
+ */
+public class StreamingFileUpload extends OutputStream {
+
+	private final S3MultipartUploadOutputStream out;
+	private final S3FileHandle fileHandle;
+	private final UnaryOperator<S3FileHandle> fileHandleCreator;
+	private final MessageDigest digest;
+	private long bytesWritten;
+	private boolean done;
+
+	/**
+	 *
+	 * @param out               The upload of the data.
+	 * @param fileHandle        The FileHandle of the upload without its size or
+	 *                          MD5.
+	 * @param fileHandleCreator Creates the FileHandle once the upload is
+	 *                          complete.
+	 */
+	public StreamingFileUpload(S3MultipartUploadOutputStream out, S3FileHandle fileHandle,
+			UnaryOperator<S3FileHandle> fileHandleCreator) {
+		ValidateArgument.required(out, "out");
+		ValidateArgument.required(fileHandle, "fileHandle");
+		ValidateArgument.required(fileHandleCreator, "fileHandleCreator");
+		this.out = out;
+		this.fileHandle = fileHandle;
+		this.fileHandleCreator = fileHandleCreator;
+		this.digest = TransferUtils.createMD5Digest();
+		this.bytesWritten = 0L;
+		this.done = false;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		validateNotDone();
+		out.write(b);
+		digest.update((byte) b);
+		bytesWritten++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		validateNotDone();
+		out.write(b, off, len);
+		digest.update(b, off, len);
+		bytesWritten += len;
+	}
+
+	/**
+	 * Does not complete the upload.
+	 */
+	@Override
+	public void close() throws IOException {
+		// the upload is only completed with complete().
+	}
+
+	/**
+	 * Finish the upload and create the S3FileHandle for the uploaded data.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public S3FileHandle complete() throws IOException {
+		validateNotDone();
+		done = true;
+		// this will abort the upload if it fails.
+		out.close();
+		fileHandle.setContentSize(bytesWritten);
+		fileHandle.setContentMd5(BinaryUtils.toHex(digest.digest()));
+		return fileHandleCreator.apply(fileHandle);
+	}
+
+	/**
+	 * Discard the upload. Does nothing if the upload is already complete.
+	 */
+	public void abort() {
+		if (done) {
+			return;
+		}
+		done = true;
+		out.abort();
+	}
+
+	/**
+	 * The number of bytes written to this upload.
+	 *
+	 * @return
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	private void validateNotDone() throws IOException {
+		if (done) {
+			throw new IOException("The upload is already complete or aborted");
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package org.sagebionetworks.repo.manager.message;
+
+import java.util.List;
+
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+
+/**
+ * Sends the emails of a broadcast concurrently, while limiting the rate at
+ * which emails are sent to SES.
+ *
+ */
+public interface BroadcastEmailSender {
+
+	/**
+	 * Send all of the given emails. This method blocks until every email has
+	 * been sent or has failed. A failure to send one email does not stop the
+	 * others from being sent.
+	 * 
+	 * @param requests
+	 * @throws RuntimeException The first failure after all emails have been
+	 *                          attempted.
+	 */
+	void sendEmails(List<SendRawEmailRequest> requests);
+}
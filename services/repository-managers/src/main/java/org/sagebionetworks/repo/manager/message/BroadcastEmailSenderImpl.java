@@ -0,0 +1,89 @@
+package org.sagebionetworks.repo.manager.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
+import org.sagebionetworks.util.ValidateArgument;
+
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Sends each email on a fixed size pool of threads. Every send must first
+ * acquire a permit from a rate limiter that is shared by all broadcasts on this
+ * machine, so the configured SES send rate is never exceeded.
+ *
+ */
+public class BroadcastEmailSenderImpl implements BroadcastEmailSender {
+
+	static private Logger log = LogManager.getLogger(BroadcastEmailSenderImpl.class);
+
+	private SynapseEmailService sesClient;
+	private ExecutorService executorService;
+	private RateLimiter rateLimiter;
+
+	/**
+	 * 
+	 * @param sesClient
+	 * @param executorService    The emails are sent on this pool.
+	 * @param maxSendsPerSecond The maximum number of emails sent per second.
+	 */
+	public BroadcastEmailSenderImpl(SynapseEmailService sesClient, ExecutorService executorService,
+			Double maxSendsPerSecond) {
+		ValidateArgument.required(sesClient, "sesClient");
+		ValidateArgument.required(executorService, "executorService");
+		ValidateArgument.required(maxSendsPerSecond, "maxSendsPerSecond");
+		ValidateArgument.requirement(maxSendsPerSecond > 0, "maxSendsPerSecond must be greater than zero");
+		this.sesClient = sesClient;
+		this.executorService = executorService;
+		this.rateLimiter = RateLimiter.create(maxSendsPerSecond);
+	}
+
+	@Override
+	public void sendEmails(List<SendRawEmailRequest> requests) {
+		ValidateArgument.required(requests, "requests");
+		List<Future<?>> futures = new ArrayList<>(requests.size());
+		for (SendRawEmailRequest request : requests) {
+			futures.add(executorService.submit(() -> {
+				rateLimiter.acquire();
+				sesClient.sendRawEmail(request);
+			}));
+		}
+		RuntimeException firstFailure = null;
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+			} catch (InterruptedException e) {
+				// stop sending the remaining emails.
+				futures.subList(i, futures.size()).forEach(future -> future.cancel(true));
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				log.warn("Failed to send a broadcast email: " + e.getCause().getMessage(), e.getCause());
+				if (firstFailure == null) {
+					firstFailure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+							: new IllegalStateException(e.getCause());
+				}
+			}
+		}
+		if (firstFailure != null) {
+			throw firstFailure;
+		}
+	}
+
+	/**
+	 * The maximum number of emails sent per second.
+	 * 
+	 * @return
+	 */
+	public double getMaxSendsPerSecond() {
+		return rateLimiter.getRate();
+	}
+
+}
@@ -2,9 +2,13 @@ package org.sagebionetworks.repo.manager.message;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.http.client.ClientProtocolException;
 import org.apache.logging.log4j.LogManager;
@@ -14,7 +18,6 @@ import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.markdown.MarkdownClientException;
 import org.sagebionetworks.repo.manager.AuthorizationManager;
 import org.sagebionetworks.repo.manager.UserManager;
-import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
@@ -60,9 +63,6 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 	@Autowired
 	private BroadcastMessageDao broadcastMessageDao;
 	
-	@Autowired
-	private SynapseEmailService sesClient;
-	
 	@Autowired
 	private DBOChangeDAO changeDao;
 	
@@ -81,6 +81,9 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 	@Autowired
 	private EmailQuarantineDao emailQuarantineDao;
 	
+	@Autowired
+	private BroadcastEmailSender emailSender;
+	
 	@Override
 	public void broadcastMessage(UserInfo user,	ProgressCallback progressCallback, ChangeMessage changeMessage) throws ClientProtocolException, JSONException, IOException, MarkdownClientException {
 		ValidateArgument.required(user, "user");
@@ -124,6 +127,9 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 		// Get all of the email subscribers for this topic.
 		List<Subscriber> subscribers = subscriptionDAO.getAllEmailSubscribers(topic.getObjectId(), topic.getObjectType());
 		List<String> subscriberIds = new ArrayList<String>();
+		// Lookup the quarantined addresses of all subscribers at once
+		Set<String> quarantined = getQuarantinedEmails(subscribers.stream().map(Subscriber::getNotificationEmail));
+		List<SendRawEmailRequest> emailRequests = new ArrayList<>(subscribers.size());
 		// The builder will prepare an email for each subscriber
 		for(Subscriber subscriber: subscribers){
 			subscriberIds.add(subscriber.getSubscriberId());
@@ -131,14 +137,14 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 			if (subscriber.getSubscriberId().equals(changeMessage.getUserId().toString())) {
 				continue;
 			}
-			if (emailQuarantineDao.isQuarantined(subscriber.getNotificationEmail())) {
+			if (quarantined.contains(subscriber.getNotificationEmail())) {
 				log.warn("Cannot send message to quarantined address: {}", subscriber.getNotificationEmail());
 				continue;
 			}
-			SendRawEmailRequest emailRequest = builder.buildEmailForSubscriber(subscriber);
-			log.debug("sending email to "+subscriber.getNotificationEmail());
-			sesClient.sendRawEmail(emailRequest);
+			emailRequests.add(builder.buildEmailForSubscriber(subscriber));
 		}
+		log.debug("sending email to "+emailRequests.size()+" subscribers");
+		emailSender.sendEmails(emailRequests);
 
 		sendMessageToNonSubscribers(progressCallback, changeMessage, builder, subscriberIds, topic);
 	}
@@ -161,23 +167,39 @@ public class BroadcastMessageManagerImpl implements BroadcastMessageManager {
 		mentionedUserIds.removeAll(subscriberIds);
 		// create list of MentionedUser from their ids
 		List<UserNotificationInfo> mentionedUsers = userProfileDao.getUserNotificationInfo(mentionedUserIds);
-		// build and send email to each mentioned user
+		Set<String> quarantined = getQuarantinedEmails(mentionedUsers.stream().map(UserNotificationInfo::getNotificationEmail));
+		List<SendRawEmailRequest> emailRequests = new ArrayList<>(mentionedUsers.size());
+		// build an email for each mentioned user
 		for(UserNotificationInfo userNotificationInfo: mentionedUsers){
 			// do not send an email to the user who created this change
 			if (userNotificationInfo.getUserId().equals(changeMessage.getUserId().toString())) {
 				continue;
 			}
-			if (emailQuarantineDao.isQuarantined(userNotificationInfo.getNotificationEmail())) {
+			if (quarantined.contains(userNotificationInfo.getNotificationEmail())) {
 				log.warn("Cannot send message to quarantined address: {}", userNotificationInfo.getNotificationEmail());
 				continue;
 			}
 			UserInfo userInfo = userManager.getUserInfo(Long.parseLong(userNotificationInfo.getUserId()));
 			if (authManager.canSubscribe(userInfo, topic.getObjectId(), topic.getObjectType()).isAuthorized()) {
-				SendRawEmailRequest emailRequest = builder.buildEmailForNonSubscriber(userNotificationInfo);
-				log.debug("sending email to "+userNotificationInfo.getNotificationEmail());
-				sesClient.sendRawEmail(emailRequest);
+				emailRequests.add(builder.buildEmailForNonSubscriber(userNotificationInfo));
 			}
 		}
+		log.debug("sending email to "+emailRequests.size()+" mentioned users");
+		emailSender.sendEmails(emailRequests);
+	}
+
+	/**
+	 * Lookup which of the given addresses are quarantined with a single query.
+	 * 
+	 * @param emails
+	 * @return
+	 */
+	Set<String> getQuarantinedEmails(Stream<String> emails) {
+		List<String> toCheck = emails.filter(Objects::nonNull).distinct().collect(Collectors.toList());
+		if (toCheck.isEmpty()) {
+			return Collections.emptySet();
+		}
+		return emailQuarantineDao.getQuarantinedEmails(toCheck);
 	}
 	
 	/**
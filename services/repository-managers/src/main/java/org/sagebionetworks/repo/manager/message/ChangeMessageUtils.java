@@ -1,12 +1,17 @@
 package org.sagebionetworks.repo.manager.message;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
 
 import com.google.common.collect.Lists;
 
@@ -31,6 +36,12 @@ public class ChangeMessageUtils {
 	 */
 	public static final int MAX_NUMBER_OF_ID_MESSAGES_PER_SQS_MESSAGE = 1000;
 
+	/**
+	 * An upper bound on the number of bytes of the ChangeMessages JSON that wraps
+	 * the list of change messages.
+	 */
+	public static final int CHANGE_MESSAGES_ENVELOPE_BYTES = 100;
+
 	/**
 	 * Given an unbounded list of ChangeMessages, first group all change
 	 * messages by ObjectType. Then partition each group such that each sub-list
@@ -65,4 +76,76 @@ public class ChangeMessageUtils {
 		return results;
 	}
 
+	/**
+	 * Given an unbounded list of ChangeMessages, first group all change
+	 * messages by ObjectType. Then split each group, in order, into batches
+	 * such that each batch has no more than maxMessagesPerBatch messages and
+	 * the published JSON of each batch is no more than maxBytesPerBatch bytes.
+	 * A single message larger than maxBytesPerBatch is placed in a batch of its
+	 * own.
+	 * 
+	 * @param batch
+	 * @param maxMessagesPerBatch
+	 * @param maxBytesPerBatch
+	 * @return
+	 */
+	public static Map<ObjectType, List<List<ChangeMessage>>> groupByObjectTypeAndPartitionBySize(
+			List<ChangeMessage> batch, int maxMessagesPerBatch, int maxBytesPerBatch) {
+		if (maxMessagesPerBatch < 1) {
+			throw new IllegalArgumentException("Max messages per batch must be at least one");
+		}
+		Map<ObjectType, List<List<ChangeMessage>>> results = new LinkedHashMap<ObjectType, List<List<ChangeMessage>>>();
+		// The size of the last batch of each type.
+		Map<ObjectType, Integer> lastBatchBytes = new HashMap<ObjectType, Integer>();
+		for (ChangeMessage change : batch) {
+			ObjectType type = change.getObjectType();
+			if (type == null) {
+				throw new IllegalArgumentException("Type cannot be null");
+			}
+			List<List<ChangeMessage>> partitions = results.get(type);
+			if (partitions == null) {
+				partitions = new ArrayList<List<ChangeMessage>>();
+				results.put(type, partitions);
+			}
+			int changeBytes = getPublishedSizeBytes(change);
+			List<ChangeMessage> last = partitions.isEmpty() ? null : partitions.get(partitions.size() - 1);
+			Integer bytes = lastBatchBytes.get(type);
+			if (last == null || last.size() >= maxMessagesPerBatch || bytes + changeBytes > maxBytesPerBatch) {
+				// start a new batch
+				last = new ArrayList<ChangeMessage>();
+				partitions.add(last);
+				bytes = CHANGE_MESSAGES_ENVELOPE_BYTES;
+			}
+			last.add(change);
+			lastBatchBytes.put(type, bytes + changeBytes);
+		}
+		return results;
+	}
+
+	/**
+	 * The number of bytes a single ChangeMessage adds to a published batch. This
+	 * is the UTF-8 size of its JSON plus a separator, plus one escape character
+	 * for each quote or backslash since SNS delivers the batch to SQS as a string
+	 * within the notification JSON.
+	 * 
+	 * @param change
+	 * @return
+	 */
+	public static int getPublishedSizeBytes(ChangeMessage change) {
+		String json;
+		try {
+			json = EntityFactory.createJSONStringForEntity(change);
+		} catch (JSONObjectAdapterException e) {
+			throw new IllegalArgumentException(e);
+		}
+		int size = json.getBytes(StandardCharsets.UTF_8).length + 1;
+		for (int i = 0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if (c == '"' || c == '\\') {
+				size++;
+			}
+		}
+		return size;
+	}
+
 }
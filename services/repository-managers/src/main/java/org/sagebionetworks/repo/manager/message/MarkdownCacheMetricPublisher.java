@@ -0,0 +1,77 @@
+package org.sagebionetworks.repo.manager.message;
+
+import java.util.Date;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.markdown.MarkdownCache;
+import org.sagebionetworks.util.Clock;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Publishes the hit ratio and the conversion latency of the node-local
+ * {@link MarkdownCache} to CloudWatch.
+ *
+ */
+public class MarkdownCacheMetricPublisher {
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Markdown-Cache-";
+	public static final String METRIC_HIT_COUNT = "Hit Count";
+	public static final String METRIC_MISS_COUNT = "Miss Count";
+	public static final String METRIC_HIT_RATIO = "Hit Ratio";
+	public static final String METRIC_CONVERSION_COUNT = "Conversion Count";
+	public static final String METRIC_CONVERSION_LATENCY = "Average Conversion Latency";
+	public static final String METRIC_ENTRY_COUNT = "Entry Count";
+	public static final String METRIC_SPILLED_ENTRY_COUNT = "Spilled Entry Count";
+
+	@Autowired
+	private MarkdownCache markdownCache;
+	@Autowired
+	private Consumer consumer;
+	@Autowired
+	private StackConfiguration stackConfig;
+	@Autowired
+	private Clock clock;
+
+	/**
+	 * Called from a timer to push the metrics gathered since the last call.
+	 */
+	public void pushMetrics() {
+		Date timestamp = new Date(clock.currentTimeMillis());
+		long hitCount = markdownCache.getAndResetHitCount();
+		long missCount = markdownCache.getAndResetMissCount();
+		long conversionCount = markdownCache.getAndResetConversionCount();
+		long conversionTimeMS = markdownCache.getAndResetConversionTimeMS();
+		consumer.addProfileData(createMetric(METRIC_HIT_COUNT, hitCount, StandardUnit.Count, timestamp));
+		consumer.addProfileData(createMetric(METRIC_MISS_COUNT, missCount, StandardUnit.Count, timestamp));
+		long requestCount = hitCount + missCount;
+		if (requestCount > 0) {
+			double hitRatio = 100.0 * hitCount / requestCount;
+			consumer.addProfileData(createMetric(METRIC_HIT_RATIO, hitRatio, StandardUnit.Percent, timestamp));
+		}
+		consumer.addProfileData(createMetric(METRIC_CONVERSION_COUNT, conversionCount, StandardUnit.Count, timestamp));
+		if (conversionCount > 0) {
+			double averageLatency = (double) conversionTimeMS / conversionCount;
+			consumer.addProfileData(
+					createMetric(METRIC_CONVERSION_LATENCY, averageLatency, StandardUnit.Milliseconds, timestamp));
+		}
+		consumer.addProfileData(
+				createMetric(METRIC_ENTRY_COUNT, markdownCache.getEntryCount(), StandardUnit.Count, timestamp));
+		consumer.addProfileData(createMetric(METRIC_SPILLED_ENTRY_COUNT, markdownCache.getSpilledEntryCount(),
+				StandardUnit.Count, timestamp));
+	}
+
+	ProfileData createMetric(String name, double value, StandardUnit unit, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfig.getStackInstance());
+		profileData.setName(name);
+		profileData.setValue(value);
+		profileData.setUnit(unit.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
+	}
+
+}
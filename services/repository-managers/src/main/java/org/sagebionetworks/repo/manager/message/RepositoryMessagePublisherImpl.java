@@ -1,6 +1,9 @@
 package org.sagebionetworks.repo.manager.message;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +12,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.MetricStats;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeMessages;
@@ -18,8 +24,10 @@ import org.sagebionetworks.repo.transactions.NewWriteTransaction;
 import org.sagebionetworks.schema.adapter.JSONEntity;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
 import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.CreateTopicRequest;
 import com.amazonaws.services.sns.model.CreateTopicResult;
@@ -38,6 +46,23 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	public static final String SEMAPHORE_KEY = "UNSENT_MESSAGE_WORKER";
 	static private Log log = LogFactory.getLog(RepositoryMessagePublisherImpl.class);
 
+	/**
+	 * Bytes reserved for the SNS notification that wraps each published batch
+	 * when it is delivered to SQS.
+	 */
+	public static final int SNS_NOTIFICATION_OVERHEAD_BYTES = 4 * 1000;
+	/**
+	 * The maximum size of the JSON of a single published batch.
+	 */
+	public static final int MAX_PUBLISH_BATCH_BYTES = ChangeMessageUtils.MAX_SQS_MESSAGES_SIZE_BYTES
+			- SNS_NOTIFICATION_OVERHEAD_BYTES;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Repository-Message-Publisher-";
+	public static final String METRIC_MESSAGES_PER_PUBLISH = "Messages Per Publish";
+	public static final String METRIC_PUBLISH_LATENCY = "Publish Latency";
+	public static final String METRIC_FAILED_MESSAGES = "Failed Messages";
+	public static final String DIMENSION_OBJECT_TYPE = "objectType";
+
 	@Autowired
 	TransactionalMessenger transactionalMessanger;
 
@@ -47,6 +72,12 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	@Autowired
 	StackConfiguration stackConfiguration;
 
+	@Autowired
+	Consumer consumer;
+
+	@Autowired
+	Clock clock;
+
 	// Maps each object type to its topic
 	Map<ObjectType, TopicInfo> typeToTopicMap = new HashMap<ObjectType, TopicInfo>();;
 
@@ -98,7 +129,9 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	}
 
 	/**
-	 * Quartz will fire this method on a timer.  This is where we actually publish the data. 
+	 * Quartz will fire this method on a timer.  This is where we actually publish the data.
+	 * The messages are grouped by object type and each group is published in as few
+	 * batches as the SQS message size allows.
 	 */
 	@Override
 	public void timerFired(){
@@ -111,21 +144,82 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 			}
 			return;
 		}
-		// Publish each message to the topic
+		List<ChangeMessage> changes = new ArrayList<ChangeMessage>(currentQueue.size());
 		for (Message queueItem : currentQueue) {
-			try {
-				if (queueItem instanceof ChangeMessage) {
-					ChangeMessage message = (ChangeMessage) queueItem;
-					publishToTopic(message);
-				} else {
-					throw new IllegalArgumentException("Unknown message type " + queueItem.getClass().getName());
+			if (queueItem instanceof ChangeMessage) {
+				changes.add((ChangeMessage) queueItem);
+			} else {
+				log.error("Failed to publish message. Unknown message type " + queueItem.getClass().getName());
+			}
+		}
+		if (changes.isEmpty()) {
+			return;
+		}
+		// Group the changes by object type and partition each group by the max SQS message body.
+		Map<ObjectType, List<List<ChangeMessage>>> batches = ChangeMessageUtils.groupByObjectTypeAndPartitionBySize(
+				changes, ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE, MAX_PUBLISH_BATCH_BYTES);
+		Date timestamp = new Date(clock.currentTimeMillis());
+		for (ObjectType type : batches.keySet()) {
+			List<Long> batchSizes = new ArrayList<Long>();
+			List<Long> latencies = new ArrayList<Long>();
+			long failedCount = 0;
+			for (List<ChangeMessage> batch : batches.get(type)) {
+				try {
+					long start = clock.currentTimeMillis();
+					publishBatchToTopic(type, batch);
+					latencies.add(clock.currentTimeMillis() - start);
+					batchSizes.add((long) batch.size());
+				} catch (Throwable e) {
+					// If one batch fails, we must send the rest.
+					// A batch is only recorded as sent after it is published, so the change synch worker will send it again.
+					failedCount += batch.size();
+					log.error("Failed to publish a batch of " + batch.size() + " " + type + " messages.", e);
 				}
-			} catch (Throwable e) {
-				// If one messages fails, we must send the rest.
-				log.error("Failed to publish message.", e);
+			}
+			if (!batchSizes.isEmpty()) {
+				consumer.addProfileData(createMetric(METRIC_MESSAGES_PER_PUBLISH, StandardUnit.Count, batchSizes, type, timestamp));
+				consumer.addProfileData(createMetric(METRIC_PUBLISH_LATENCY, StandardUnit.Milliseconds, latencies, type, timestamp));
+			}
+			if (failedCount > 0) {
+				consumer.addProfileData(createMetric(METRIC_FAILED_MESSAGES, StandardUnit.Count,
+						Collections.singletonList(failedCount), type, timestamp));
 			}
 		}
 	}
+
+	/**
+	 * Create a metric with the statistics of the given values.
+	 * 
+	 * @param name
+	 * @param unit
+	 * @param values
+	 * @param type
+	 * @param timestamp
+	 * @return
+	 */
+	ProfileData createMetric(String name, StandardUnit unit, List<Long> values, ObjectType type, Date timestamp) {
+		MetricStats stats = new MetricStats();
+		long minimum = Long.MAX_VALUE;
+		long maximum = Long.MIN_VALUE;
+		long sum = 0L;
+		for (Long value : values) {
+			minimum = Math.min(minimum, value);
+			maximum = Math.max(maximum, value);
+			sum += value;
+		}
+		stats.setMinimum((double) minimum);
+		stats.setMaximum((double) maximum);
+		stats.setSum((double) sum);
+		stats.setCount((double) values.size());
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfiguration.getStackInstance());
+		profileData.setName(name);
+		profileData.setUnit(unit.name());
+		profileData.setMetricStats(stats);
+		profileData.setDimension(Collections.singletonMap(DIMENSION_OBJECT_TYPE, type.name()));
+		profileData.setTimestamp(timestamp);
+		return profileData;
+	}
 	
 	/**
 	 * Poll all data currently on the queue and add it to a list.
@@ -163,7 +257,7 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 	}
 
 	/**
-	 * Publish the message and recored it as sent. Each sent message requires its own transaction.
+	 * Publish the message and record it as sent. Each sent message requires its own transaction.
 	 * 
 	 * @param message
 	 */
@@ -189,14 +283,20 @@ public class RepositoryMessagePublisherImpl implements RepositoryMessagePublishe
 					"Batch size is limited to the number of messages that can be written to a single SQS Messages body.  Current maximumn: "
 							+ ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE);
 		}
-		// Write the batch to sent table.
-		this.transactionalMessanger.registerMessagesSent(type, batch);
 		// Lookup the topic arn.
 		String topicArn = getTopicInfoLazy(type).getArn();
 		ChangeMessages messages = new ChangeMessages();
 		messages.setList(batch);
 		// publish the batch to to the topic
 		publish(messages, topicArn);
+		/*
+		 * Write the batch to sent table only after it is published. This method is
+		 * also called from timerFired() without the transaction proxy, so a batch
+		 * that fails to publish must never be recorded as sent. A batch that is
+		 * published but fails to be recorded is sent again by the change synch
+		 * worker.
+		 */
+		this.transactionalMessanger.registerMessagesSent(type, batch);
 	}
 
 	private void publish(JSONEntity message, String topicArn) {
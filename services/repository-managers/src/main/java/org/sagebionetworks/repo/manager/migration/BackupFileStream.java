@@ -6,6 +6,7 @@ import java.io.OutputStream;
 
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.dbo.MigratableDatabaseObject;
+import org.sagebionetworks.repo.model.migration.BackupFormat;
 
 /**
  * Abstraction for streaming migration backup files, for both creation an
@@ -43,4 +44,19 @@ public interface BackupFileStream {
 	 */
 	public void writeBackupFile(OutputStream out, Iterable<MigratableDatabaseObject<?,?>> stream, BackupAliasType backupAliasType,
 			long maximumRowsPerFile) throws IOException;
+
+	/**
+	 * Stream over the provide data to write the given backup file OutputStream,
+	 * writing each sub-file in the given format. The format of each sub-file is
+	 * detected when the backup file is read.
+	 * 
+	 * @param out
+	 * @param stream
+	 * @param backupAliasType
+	 * @param maximumRowsPerFile
+	 * @param format
+	 * @throws IOException
+	 */
+	public void writeBackupFile(OutputStream out, Iterable<MigratableDatabaseObject<?,?>> stream, BackupAliasType backupAliasType,
+			long maximumRowsPerFile, BackupFormat format) throws IOException;
 }
@@ -9,6 +9,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -24,6 +25,7 @@ import org.sagebionetworks.repo.model.dbo.DatabaseObject;
 import org.sagebionetworks.repo.model.dbo.MigratableDatabaseObject;
 import org.sagebionetworks.repo.model.dbo.migration.MigratableTableTranslation;
 import org.sagebionetworks.repo.model.dbo.migration.MigrationTypeProvider;
+import org.sagebionetworks.repo.model.migration.BackupFormat;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.ValidateArgument;
@@ -38,7 +40,9 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	private static final String UTF_8 = "UTF-8";
 	private static final String INPUT_CONTAINED_NO_DATA = "input contained no data";
 	private static final String DOT = ".";
-	private static final String FILE_NAME_TEMPLATE = "%1$s.%2$d.xml";
+	private static final String FILE_NAME_TEMPLATE = "%1$s.%2$d.%3$s";
+	private static final String XML_EXTENSION = "xml";
+	private static final String BINARY_EXTENSION = "bin";
 
 	@Autowired
 	MigrationTypeProvider typeProvider;
@@ -133,8 +137,35 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	 * @return
 	 */
 	public static String createFileName(MigrationType type, int index) {
+		return createFileName(type, index, BackupFormat.XML);
+	}
+
+	/**
+	 * Create a FileName for zip entry. The extension of the name identifies the
+	 * format of the entry when the file is read.
+	 * 
+	 * @param type
+	 * @param index
+	 * @param format
+	 * @return
+	 */
+	public static String createFileName(MigrationType type, int index, BackupFormat format) {
 		ValidateArgument.required(type, "MigrationType");
-		return String.format(FILE_NAME_TEMPLATE, type.name(), index);
+		ValidateArgument.required(format, "BackupFormat");
+		String extension = BackupFormat.BINARY == format ? BINARY_EXTENSION : XML_EXTENSION;
+		return String.format(FILE_NAME_TEMPLATE, type.name(), index, extension);
+	}
+
+	/**
+	 * Extract the format of a file from its name. Files that are not binary are
+	 * XML.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	public static BackupFormat getFormatFromFileName(String name) {
+		ValidateArgument.required(name, "Name");
+		return name.endsWith(DOT + BINARY_EXTENSION) ? BackupFormat.BINARY : BackupFormat.XML;
 	}
 
 	/*
@@ -144,9 +175,20 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	@Override
 	public void writeBackupFile(OutputStream out, Iterable<MigratableDatabaseObject<?,?>> stream, BackupAliasType backupAliasType,
 			long maximumRowsPerFile) throws IOException {
+		writeBackupFile(out, stream, backupAliasType, maximumRowsPerFile, BackupFormat.XML);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.sagebionetworks.repo.manager.migration.BackupFileStream#writeBackupFile(java.io.OutputStream, java.lang.Iterable, org.sagebionetworks.repo.model.daemon.BackupAliasType, long, org.sagebionetworks.repo.model.migration.BackupFormat)
+	 */
+	@Override
+	public void writeBackupFile(OutputStream out, Iterable<MigratableDatabaseObject<?,?>> stream, BackupAliasType backupAliasType,
+			long maximumRowsPerFile, BackupFormat format) throws IOException {
 		ValidateArgument.required(out, "OutputStream");
 		ValidateArgument.required(stream, "Stream");
 		ValidateArgument.required(backupAliasType, "BackupAliasType");
+		ValidateArgument.required(format, "BackupFormat");
 		ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out));
 		try {
 			MigrationType currentType = null;
@@ -168,7 +210,7 @@ public class BackupFileStreamImpl implements BackupFileStream {
 				 * file if the maximum batch size is exceeded or if there is a type change.
 				 */
 				if (currentType != row.getMigratableTableType() || currentBatch.size() >= maximumRowsPerFile) {
-					writeBatchToZip(zos, currentBatch, index, currentType, backupAliasType);
+					writeBatchToZip(zos, currentBatch, index, currentType, backupAliasType, format);
 					currentBatch.clear();
 					index++;
 				}
@@ -177,7 +219,7 @@ public class BackupFileStreamImpl implements BackupFileStream {
 				currentType = row.getMigratableTableType();
 			}
 			// Write the remaining data
-			writeBatchToZip(zos, currentBatch, index, currentType, backupAliasType);
+			writeBatchToZip(zos, currentBatch, index, currentType, backupAliasType, format);
 		} finally {
 			IOUtils.closeQuietly(zos);
 		}
@@ -196,14 +238,38 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	 */
 	public<D extends DatabaseObject<D>, B> void writeBatchToZip(ZipOutputStream zos, List<MigratableDatabaseObject<?,?>> currentBatch, int index, MigrationType currentType,
 			BackupAliasType backupAliasType) throws IOException {
+		writeBatchToZip(zos, currentBatch, index, currentType, backupAliasType, BackupFormat.XML);
+	}
+
+	/**
+	 * Write a single batch of rows as a new sub-file in the zip stream using the
+	 * given format. Types with a backup class that is not supported by the
+	 * {@link BinaryBackupCodec} are always written as XML.
+	 * 
+	 * @param zos
+	 * @param currentBatch
+	 * @param index
+	 * @param currentType
+	 * @param backupAliasType
+	 * @param format
+	 * @throws IOException
+	 */
+	public<D extends DatabaseObject<D>, B> void writeBatchToZip(ZipOutputStream zos, List<MigratableDatabaseObject<?,?>> currentBatch, int index, MigrationType currentType,
+			BackupAliasType backupAliasType, BackupFormat format) throws IOException {
 		if(currentType != null && currentBatch != null && !currentBatch.isEmpty()) {
+			if (BackupFormat.BINARY == format && !BinaryBackupCodec.isSupported(typeProvider.getObjectForType(currentType).getBackupClass())) {
+				format = BackupFormat.XML;
+			}
 			// Write the current batch as a sub-file to the zip
-			String fileName = createFileName(currentType, index);
+			String fileName = createFileName(currentType, index, format);
 			ZipEntry entry = new ZipEntry(fileName);
 			zos.putNextEntry(entry);
-			Writer zipWriter = new OutputStreamWriter(zos, UTF_8);
-
-			writeBatchToStream(currentBatch, currentType, backupAliasType, zipWriter);
+			if (BackupFormat.BINARY == format) {
+				writeBatchToBinaryStream(currentBatch, currentType, zos);
+			} else {
+				Writer zipWriter = new OutputStreamWriter(zos, UTF_8);
+				writeBatchToStream(currentBatch, currentType, backupAliasType, zipWriter);
+			}
 		}
 	}
 
@@ -218,17 +284,47 @@ public class BackupFileStreamImpl implements BackupFileStream {
 	<D extends DatabaseObject<D>, B> void writeBatchToStream(List<MigratableDatabaseObject<?, ?>> currentBatch,
 			MigrationType currentType, BackupAliasType backupAliasType, Writer writer) throws IOException {
 		MigratableDatabaseObject<D, B> mdo = typeProvider.getObjectForType(currentType);
+		List<B> backupObjects = translateToBackupObjects(mdo, currentBatch);
+
+		typeProvider.getXStream(backupAliasType).toXML(backupObjects, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Write the given batch of objects to the passed stream with the
+	 * {@link BinaryBackupCodec}.
+	 * 
+	 * @param currentBatch
+	 * @param currentType
+	 * @param out
+	 * @throws IOException
+	 */
+	<D extends DatabaseObject<D>, B> void writeBatchToBinaryStream(List<MigratableDatabaseObject<?, ?>> currentBatch,
+			MigrationType currentType, OutputStream out) throws IOException {
+		MigratableDatabaseObject<D, B> mdo = typeProvider.getObjectForType(currentType);
+		List<B> backupObjects = translateToBackupObjects(mdo, currentBatch);
+
+		BinaryBackupCodec.writeBatch(backupObjects, mdo.getBackupClass(), out);
+	}
+
+	/**
+	 * Translate the given batch of database objects to backup objects.
+	 * 
+	 * @param mdo
+	 * @param currentBatch
+	 * @return
+	 */
+	static <D extends DatabaseObject<D>, B> List<B> translateToBackupObjects(MigratableDatabaseObject<D, B> mdo,
+			List<MigratableDatabaseObject<?, ?>> currentBatch) {
 		MigratableTableTranslation<D,B> translator = mdo.getTranslator();
 		
 		// translate to the backup objects
-		List<B> backupObjects = new LinkedList<>();
+		List<B> backupObjects = new ArrayList<>(currentBatch.size());
 		for(MigratableDatabaseObject<?,?> migrationOjbect: currentBatch) {
 			B backupObject = translator.createBackupFromDatabaseObject((D) migrationOjbect);
 			backupObjects.add(backupObject);
 		}
-
-		typeProvider.getXStream(backupAliasType).toXML(backupObjects, writer);
-		writer.flush();
+		return backupObjects;
 	}
 
 	/**
@@ -283,7 +379,13 @@ public class BackupFileStreamImpl implements BackupFileStream {
 
 		List<B> backupObjects;
 		try {
-			backupObjects = (List<B>) typeProvider.getXStream(backupAliasType).fromXML(input);
+			if (BackupFormat.BINARY == getFormatFromFileName(fileName)) {
+				backupObjects = BinaryBackupCodec.readBatch(input, mdo.getBackupClass());
+			} else {
+				backupObjects = (List<B>) typeProvider.getXStream(backupAliasType).fromXML(input);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		} catch (StreamException e) {
 			if (!(e.getCause() instanceof EOFException && e.getCause().getMessage().contains(INPUT_CONTAINED_NO_DATA))) {
 				throw new RuntimeException(e);
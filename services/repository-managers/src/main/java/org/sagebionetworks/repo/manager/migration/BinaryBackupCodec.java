@@ -0,0 +1,587 @@
+package org.sagebionetworks.repo.manager.migration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Compact columnar encoding of a single batch of migration backup objects. Like
+ * XStream, every non-static, non-transient field of the backup class (and its
+ * super classes) is written, but the values are written one column at a time
+ * rather than one object at a time:
+ *
+ * <pre>
+ * format version (byte)
+ * row count, column count (var-int)
+ * for each column: the field name and the value type
+ * for each column: the value of the field for each row
+ * </pre>
+ *
+ * Strings and enum names are dictionary encoded, so a value that repeats within
+ * the batch (an etag prefix, a node type, an element name) is only written
+ * once. Longs are written as the zig-zag var-int of the difference from the
+ * previous value of the column, so sequential IDs and timestamps take one or
+ * two bytes each. Fields are matched by name on read, so fields that have been
+ * added or removed from a backup class since the file was written are ignored.
+ * <p>
+ * A backup class with a field of any other type is not supported and is written
+ * as XML instead, see {@link #isSupported(Class)}.
+ *
+ */
+public class BinaryBackupCodec {
+
+	public static final byte FORMAT_VERSION = 1;
+
+	/**
+	 * The types of field values supported by this codec. The code of each type is
+	 * written to the file so it must never change.
+	 *
+	 */
+	enum ValueType {
+		LONG(1), INTEGER(2), SHORT(3), BYTE(4), BOOLEAN(5), DOUBLE(6), FLOAT(7), STRING(8), BYTES(9), DATE(10), ENUM(11);
+
+		final byte code;
+
+		ValueType(int code) {
+			this.code = (byte) code;
+		}
+
+		static ValueType fromCode(byte code) {
+			for (ValueType type : values()) {
+				if (type.code == code) {
+					return type;
+				}
+			}
+			throw new IllegalStateException("Unknown value type code: " + code);
+		}
+
+		/**
+		 * The value type of a field of the given class.
+		 *
+		 * @param clazz
+		 * @return {@link Optional#empty()} if fields of the given class are not
+		 *         supported.
+		 */
+		static Optional<ValueType> forClass(Class<?> clazz) {
+			if (Long.class.equals(clazz) || long.class.equals(clazz)) {
+				return Optional.of(LONG);
+			} else if (Integer.class.equals(clazz) || int.class.equals(clazz)) {
+				return Optional.of(INTEGER);
+			} else if (Short.class.equals(clazz) || short.class.equals(clazz)) {
+				return Optional.of(SHORT);
+			} else if (Byte.class.equals(clazz) || byte.class.equals(clazz)) {
+				return Optional.of(BYTE);
+			} else if (Boolean.class.equals(clazz) || boolean.class.equals(clazz)) {
+				return Optional.of(BOOLEAN);
+			} else if (Double.class.equals(clazz) || double.class.equals(clazz)) {
+				return Optional.of(DOUBLE);
+			} else if (Float.class.equals(clazz) || float.class.equals(clazz)) {
+				return Optional.of(FLOAT);
+			} else if (String.class.equals(clazz)) {
+				return Optional.of(STRING);
+			} else if (byte[].class.equals(clazz)) {
+				return Optional.of(BYTES);
+			} else if (Date.class.isAssignableFrom(clazz)) {
+				return Optional.of(DATE);
+			} else if (clazz.isEnum()) {
+				return Optional.of(ENUM);
+			}
+			return Optional.empty();
+		}
+	}
+
+	// Tags written before each date value.
+	private static final int DATE_NULL = 0;
+	private static final int DATE_UTIL = 1;
+	private static final int DATE_TIMESTAMP = 2;
+	private static final int DATE_SQL = 3;
+
+	/**
+	 * A field of a backup class and the type of its values.
+	 *
+	 */
+	static class Column {
+
+		final Field field;
+		final ValueType type;
+
+		Column(Field field, ValueType type) {
+			this.field = field;
+			this.type = type;
+		}
+	}
+
+	/*
+	 * The columns of each supported backup class. Unsupported classes map to an
+	 * empty list.
+	 */
+	private static final Map<Class<?>, List<Column>> COLUMN_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * Can objects of the given backup class be written with this codec? A class is
+	 * supported if it has a no-argument constructor, the names of its fields are
+	 * unique within its hierarchy, and the type of each field is supported.
+	 *
+	 * @param backupClass
+	 * @return
+	 */
+	public static boolean isSupported(Class<?> backupClass) {
+		ValidateArgument.required(backupClass, "backupClass");
+		return !getColumns(backupClass).isEmpty();
+	}
+
+	static List<Column> getColumns(Class<?> backupClass) {
+		return COLUMN_CACHE.computeIfAbsent(backupClass, BinaryBackupCodec::createColumns);
+	}
+
+	/**
+	 * Create the columns of the given backup class.
+	 *
+	 * @param backupClass
+	 * @return An empty list if the class is not supported.
+	 */
+	static List<Column> createColumns(Class<?> backupClass) {
+		if (backupClass.isInterface() || Modifier.isAbstract(backupClass.getModifiers())) {
+			return Collections.emptyList();
+		}
+		try {
+			backupClass.getDeclaredConstructor();
+		} catch (NoSuchMethodException e) {
+			return Collections.emptyList();
+		}
+		List<Column> columns = new ArrayList<>();
+		Set<String> names = new HashSet<>();
+		for (Class<?> clazz = backupClass; clazz != null && !Object.class.equals(clazz); clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+					continue;
+				}
+				Optional<ValueType> type = ValueType.forClass(field.getType());
+				if (!type.isPresent() || !names.add(field.getName())) {
+					return Collections.emptyList();
+				}
+				field.setAccessible(true);
+				columns.add(new Column(field, type.get()));
+			}
+		}
+		if (columns.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(columns);
+	}
+
+	/**
+	 * Write the given batch of backup objects to the given stream. The stream is
+	 * flushed but not closed.
+	 *
+	 * @param batch       Each object must be an instance of the backup class.
+	 * @param backupClass
+	 * @param out
+	 * @throws IOException
+	 */
+	public static <B> void writeBatch(List<B> batch, Class<? extends B> backupClass, OutputStream out)
+			throws IOException {
+		ValidateArgument.required(batch, "batch");
+		ValidateArgument.required(backupClass, "backupClass");
+		ValidateArgument.required(out, "out");
+		List<Column> columns = getColumns(backupClass);
+		if (columns.isEmpty()) {
+			throw new IllegalArgumentException("Unsupported backup class: " + backupClass.getName());
+		}
+		for (B backup : batch) {
+			if (backup == null || !backupClass.equals(backup.getClass())) {
+				throw new IllegalArgumentException("Each object must be an instance of: " + backupClass.getName());
+			}
+		}
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+		Encoder encoder = new Encoder(dataOut);
+		dataOut.writeByte(FORMAT_VERSION);
+		encoder.writeVarLong(batch.size());
+		encoder.writeVarLong(columns.size());
+		for (Column column : columns) {
+			encoder.writeString(column.field.getName());
+			dataOut.writeByte(column.type.code);
+		}
+		try {
+			for (Column column : columns) {
+				encoder.startColumn();
+				for (B backup : batch) {
+					encoder.writeValue(column.type, column.field.get(backup));
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		dataOut.flush();
+	}
+
+	/**
+	 * Read a batch of backup objects written by
+	 * {@link #writeBatch(List, Class, OutputStream)}. The stream is not closed.
+	 *
+	 * @param input
+	 * @param backupClass
+	 * @return
+	 * @throws IOException
+	 * @throws EmptyFileException If the given stream contains no data.
+	 * @throws IllegalStateException If none of the fields in the stream can be
+	 *                               restored to the given class.
+	 */
+	public static <B> List<B> readBatch(InputStream input, Class<? extends B> backupClass)
+			throws IOException, EmptyFileException {
+		ValidateArgument.required(input, "input");
+		ValidateArgument.required(backupClass, "backupClass");
+		DataInputStream dataIn = new DataInputStream(new BufferedInputStream(input));
+		int version = dataIn.read();
+		if (version < 0) {
+			throw new EmptyFileException();
+		}
+		if (version != FORMAT_VERSION) {
+			throw new IllegalStateException("Unknown binary backup format version: " + version);
+		}
+		Decoder decoder = new Decoder(dataIn);
+		int rowCount = (int) decoder.readVarLong();
+		int columnCount = (int) decoder.readVarLong();
+		Map<String, Column> columnsByName = new HashMap<>();
+		for (Column column : getColumns(backupClass)) {
+			columnsByName.put(column.field.getName(), column);
+		}
+		if (columnsByName.isEmpty()) {
+			throw new IllegalStateException("Class: " + backupClass.getName() + " has no fields that can be restored");
+		}
+		String[] names = new String[columnCount];
+		ValueType[] types = new ValueType[columnCount];
+		int matchedCount = 0;
+		for (int i = 0; i < columnCount; i++) {
+			names[i] = decoder.readString();
+			types[i] = ValueType.fromCode(dataIn.readByte());
+			Column column = columnsByName.get(names[i]);
+			if (column != null) {
+				if (column.type != types[i]) {
+					throw new IllegalStateException("Field: " + names[i] + " of: " + backupClass.getName()
+							+ " is of type: " + column.type + " but the file contains: " + types[i]);
+				}
+				matchedCount++;
+			}
+		}
+		if (matchedCount == 0) {
+			// restoring would silently produce objects with only default values.
+			throw new IllegalStateException(
+					"None of the fields in the file match the fields of: " + backupClass.getName());
+		}
+		try {
+			Constructor<? extends B> constructor = backupClass.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			List<B> results = new ArrayList<>(rowCount);
+			for (int row = 0; row < rowCount; row++) {
+				results.add(constructor.newInstance());
+			}
+			for (int i = 0; i < columnCount; i++) {
+				// fields that no longer exist are read and ignored.
+				Column column = columnsByName.get(names[i]);
+				decoder.startColumn();
+				for (B backup : results) {
+					Object value = decoder.readValue(types[i], column == null ? null : column.field.getType());
+					if (column != null && !(value == null && column.field.getType().isPrimitive())) {
+						column.field.set(backup, value);
+					}
+				}
+			}
+			return results;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the values of a single file.
+	 *
+	 */
+	static class Encoder {
+
+		private final DataOutputStream out;
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private long previousLong;
+
+		Encoder(DataOutputStream out) {
+			this.out = out;
+		}
+
+		/**
+		 * Must be called before the values of each column are written.
+		 */
+		void startColumn() {
+			previousLong = 0L;
+		}
+
+		void writeValue(ValueType type, Object value) throws IOException {
+			switch (type) {
+			case LONG:
+				out.writeBoolean(value != null);
+				if (value != null) {
+					long longValue = (Long) value;
+					writeZigZag(longValue - previousLong);
+					previousLong = longValue;
+				}
+				break;
+			case INTEGER:
+			case SHORT:
+			case BYTE:
+				out.writeBoolean(value != null);
+				if (value != null) {
+					writeZigZag(((Number) value).longValue());
+				}
+				break;
+			case BOOLEAN:
+				out.writeByte(value == null ? 0 : ((Boolean) value ? 2 : 1));
+				break;
+			case DOUBLE:
+				out.writeBoolean(value != null);
+				if (value != null) {
+					out.writeDouble((Double) value);
+				}
+				break;
+			case FLOAT:
+				out.writeBoolean(value != null);
+				if (value != null) {
+					out.writeFloat((Float) value);
+				}
+				break;
+			case STRING:
+				writeString((String) value);
+				break;
+			case ENUM:
+				writeString(value == null ? null : ((Enum<?>) value).name());
+				break;
+			case BYTES:
+				writeBytes((byte[]) value);
+				break;
+			case DATE:
+				writeDate((Date) value);
+				break;
+			default:
+				throw new IllegalStateException("Unknown type: " + type);
+			}
+		}
+
+		/**
+		 * Write a string as its dictionary code. Zero is null, a code one past the end
+		 * of the dictionary is followed by the new value, and any other code is the
+		 * position of the value in the dictionary plus one.
+		 *
+		 * @param value
+		 * @throws IOException
+		 */
+		void writeString(String value) throws IOException {
+			if (value == null) {
+				writeVarLong(0);
+				return;
+			}
+			Integer index = dictionary.get(value);
+			if (index != null) {
+				writeVarLong(index + 1);
+				return;
+			}
+			index = dictionary.size();
+			dictionary.put(value, index);
+			writeVarLong(index + 1);
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length);
+			out.write(bytes);
+		}
+
+		void writeBytes(byte[] value) throws IOException {
+			if (value == null) {
+				writeVarLong(0);
+				return;
+			}
+			writeVarLong(value.length + 1L);
+			out.write(value);
+		}
+
+		void writeDate(Date value) throws IOException {
+			if (value == null) {
+				out.writeByte(DATE_NULL);
+			} else if (value instanceof Timestamp) {
+				out.writeByte(DATE_TIMESTAMP);
+				writeZigZag(value.getTime());
+				writeVarLong(((Timestamp) value).getNanos());
+			} else if (value instanceof java.sql.Date) {
+				out.writeByte(DATE_SQL);
+				writeZigZag(value.getTime());
+			} else {
+				out.writeByte(DATE_UTIL);
+				writeZigZag(value.getTime());
+			}
+		}
+
+		void writeZigZag(long value) throws IOException {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		void writeVarLong(long value) throws IOException {
+			while ((value & ~0x7FL) != 0L) {
+				out.writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.writeByte((int) value);
+		}
+	}
+
+	/**
+	 * Reads the values written by an {@link Encoder}.
+	 *
+	 */
+	static class Decoder {
+
+		private final DataInputStream in;
+		private final List<String> dictionary = new ArrayList<>();
+		private long previousLong;
+
+		Decoder(DataInputStream in) {
+			this.in = in;
+		}
+
+		void startColumn() {
+			previousLong = 0L;
+		}
+
+		/**
+		 * Read a single value.
+		 *
+		 * @param type
+		 * @param fieldType The type of the field the value will be set on. Only used
+		 *                  to convert enum and integer values, null if the field no
+		 *                  longer exists.
+		 * @return
+		 * @throws IOException
+		 */
+		Object readValue(ValueType type, Class<?> fieldType) throws IOException {
+			switch (type) {
+			case LONG:
+				if (!in.readBoolean()) {
+					return null;
+				}
+				previousLong += readZigZag();
+				return previousLong;
+			case INTEGER:
+				return in.readBoolean() ? (Object) (int) readZigZag() : null;
+			case SHORT:
+				return in.readBoolean() ? (Object) (short) readZigZag() : null;
+			case BYTE:
+				return in.readBoolean() ? (Object) (byte) readZigZag() : null;
+			case BOOLEAN:
+				int flag = in.readByte();
+				return flag == 0 ? null : flag == 2;
+			case DOUBLE:
+				return in.readBoolean() ? (Object) in.readDouble() : null;
+			case FLOAT:
+				return in.readBoolean() ? (Object) in.readFloat() : null;
+			case STRING:
+				return readString();
+			case ENUM:
+				String name = readString();
+				if (name == null || fieldType == null) {
+					return null;
+				}
+				return toEnum(fieldType, name);
+			case BYTES:
+				return readBytes();
+			case DATE:
+				return readDate();
+			default:
+				throw new IllegalStateException("Unknown type: " + type);
+			}
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		static Object toEnum(Class<?> enumType, String name) {
+			return Enum.valueOf((Class<? extends Enum>) enumType, name);
+		}
+
+		String readString() throws IOException {
+			int code = (int) readVarLong();
+			if (code == 0) {
+				return null;
+			}
+			if (code <= dictionary.size()) {
+				return dictionary.get(code - 1);
+			}
+			if (code != dictionary.size() + 1) {
+				throw new IllegalStateException("Invalid string dictionary code: " + code);
+			}
+			byte[] bytes = new byte[(int) readVarLong()];
+			in.readFully(bytes);
+			String value = new String(bytes, StandardCharsets.UTF_8);
+			dictionary.add(value);
+			return value;
+		}
+
+		byte[] readBytes() throws IOException {
+			long length = readVarLong();
+			if (length == 0L) {
+				return null;
+			}
+			byte[] bytes = new byte[(int) (length - 1)];
+			in.readFully(bytes);
+			return bytes;
+		}
+
+		Date readDate() throws IOException {
+			int tag = in.readByte();
+			switch (tag) {
+			case DATE_NULL:
+				return null;
+			case DATE_UTIL:
+				return new Date(readZigZag());
+			case DATE_SQL:
+				return new java.sql.Date(readZigZag());
+			case DATE_TIMESTAMP:
+				Timestamp timestamp = new Timestamp(readZigZag());
+				timestamp.setNanos((int) readVarLong());
+				return timestamp;
+			default:
+				throw new IllegalStateException("Unknown date tag: " + tag);
+			}
+		}
+
+		long readZigZag() throws IOException {
+			long value = readVarLong();
+			return (value >>> 1) ^ -(value & 1L);
+		}
+
+		long readVarLong() throws IOException {
+			long value = 0L;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IllegalStateException("Malformed var-int");
+		}
+	}
+}
@@ -11,8 +11,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.sagebionetworks.StackConfigurationSingleton;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.repo.model.AuthorizationConstants;
@@ -28,6 +31,7 @@ import org.sagebionetworks.repo.model.migration.AsyncMigrationRangeChecksumReque
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeChecksumRequest;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountRequest;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
+import org.sagebionetworks.repo.model.migration.BackupFormat;
 import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
 import org.sagebionetworks.repo.model.migration.BackupTypeResponse;
 import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
@@ -45,11 +49,13 @@ import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
 import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
 import org.sagebionetworks.repo.model.status.StatusEnum;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
+import org.sagebionetworks.upload.multipart.S3MultipartUploadOutputStream;
 import org.sagebionetworks.util.FileProvider;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 import com.google.common.collect.Iterables;
 
 
@@ -66,6 +72,17 @@ public class MigrationManagerImpl implements MigrationManager {
 	public static String stack = StackConfigurationSingleton.singleton().getStack();
 	public static String instance = StackConfigurationSingleton.singleton().getStackInstance();
 	
+	/**
+	 * The size of each part of a backup file streamed to S3.
+	 */
+	public static final int STREAM_PART_SIZE_BYTES = S3MultipartUploadOutputStream.MIN_PART_SIZE_BYTES * 2;
+	public static final int STREAM_MAX_PENDING_PARTS = 2;
+	/**
+	 * A backup file streamed from S3 is read up to 16 MB ahead of the restore.
+	 */
+	public static final int RESTORE_READ_AHEAD_CHUNK_BYTES = 1024 * 1024;
+	public static final int RESTORE_READ_AHEAD_MAX_CHUNKS = 16;
+	
 	@Autowired
 	MigratableTableDAO migratableTableDao;
 	@Autowired
@@ -76,6 +93,8 @@ public class MigrationManagerImpl implements MigrationManager {
 	SynapseS3Client s3Client;
 	@Autowired
 	FileProvider fileProvider;
+	@Autowired
+	ExecutorService migrationExecutorService;
 	
 	/**
 	 * The list of migration listeners
@@ -92,6 +111,12 @@ public class MigrationManagerImpl implements MigrationManager {
 	 */
 	int backupBatchMax = 500;
 	
+	/**
+	 * When true, backup files are streamed directly to and from S3 rather than
+	 * through a local temporary file.
+	 */
+	boolean streamingEnabled = false;
+	
 	public MigrationManagerImpl(){
 		// Default the batch max 
 		this.backupBatchMax = 500;
@@ -105,6 +130,14 @@ public class MigrationManagerImpl implements MigrationManager {
 		this.backupBatchMax = backupBatchMax;
 	}
 
+	/**
+	 * Injected via Spring
+	 * @param streamingEnabled
+	 */
+	public void setStreamingEnabled(Boolean streamingEnabled) {
+		this.streamingEnabled = streamingEnabled;
+	}
+
 	@Override
 	public long getCount(UserInfo user, MigrationType type) {
 		validateUser(user);
@@ -367,8 +400,9 @@ public class MigrationManagerImpl implements MigrationManager {
 					.streamDatabaseObjects(secondaryType, request.getMinimumId(), request.getMaximumId(), request.getBatchSize());
 			dataStream = Iterables.concat(dataStream, secondaryStream);
 		}
+		BackupFormat format = request.getBackupFormat() == null ? BackupFormat.XML : request.getBackupFormat();
 		// Create the backup and upload it to S3.
-		return backupStreamToS3(request.getMigrationType(), dataStream, request.getAliasType(), request.getBatchSize());
+		return backupStreamToS3(request.getMigrationType(), dataStream, request.getAliasType(), request.getBatchSize(), format);
 	}
 	
 	/**
@@ -377,16 +411,20 @@ public class MigrationManagerImpl implements MigrationManager {
 	 * @param type
 	 * @param dataStream
 	 * @param aliasType
+	 * @param format
 	 * @return
 	 * @throws IOException 
 	 */
-	public BackupTypeResponse backupStreamToS3(MigrationType type, Iterable<MigratableDatabaseObject<?, ?>> dataStream, BackupAliasType aliasType, long batchSize) throws IOException {
+	public BackupTypeResponse backupStreamToS3(MigrationType type, Iterable<MigratableDatabaseObject<?, ?>> dataStream, BackupAliasType aliasType, long batchSize, BackupFormat format) throws IOException {
+		if (streamingEnabled) {
+			return backupStreamToS3Multipart(type, dataStream, aliasType, batchSize, format);
+		}
 		// Stream all of the data to a local temporary file.
 		File temp = fileProvider.createTempFile("MigrationBackup", ".zip");
 		OutputStream fos = null;
 		try {
 			fos = fileProvider.createFileOutputStream(temp);
-			backupFileStream.writeBackupFile(fos, dataStream, aliasType, batchSize);
+			backupFileStream.writeBackupFile(fos, dataStream, aliasType, batchSize, format);
 			fos.flush();
 			fos.close();
 			// Upload the file to S3
@@ -405,6 +443,36 @@ public class MigrationManagerImpl implements MigrationManager {
 		}
 	}
 	
+	/**
+	 * Stream the data directly to S3 with a multi-part upload, so each part of the
+	 * backup file is uploaded while the following rows are read from the database.
+	 * The upload is aborted if the backup cannot be written.
+	 * 
+	 * @param type
+	 * @param dataStream
+	 * @param aliasType
+	 * @param batchSize
+	 * @param format
+	 * @return
+	 * @throws IOException
+	 */
+	BackupTypeResponse backupStreamToS3Multipart(MigrationType type, Iterable<MigratableDatabaseObject<?, ?>> dataStream, BackupAliasType aliasType, long batchSize, BackupFormat format) throws IOException {
+		String key = createNewBackupKey(stack, instance, type);
+		S3MultipartUploadOutputStream out = new S3MultipartUploadOutputStream(s3Client, backupBucket, key,
+				migrationExecutorService, STREAM_PART_SIZE_BYTES, STREAM_MAX_PENDING_PARTS);
+		try {
+			// The backup file stream closes the stream it is given, which would complete the upload even on failure.
+			backupFileStream.writeBackupFile(new CloseShieldOutputStream(out), dataStream, aliasType, batchSize, format);
+			out.close();
+		} finally {
+			// does nothing if the upload is complete.
+			out.abort();
+		}
+		BackupTypeResponse response = new BackupTypeResponse();
+		response.setBackupFileKey(key);
+		return response;
+	}
+	
 	/**
 	 * Create new key to to store a backup file in S3.
 	 * 
@@ -434,6 +502,9 @@ public class MigrationManagerImpl implements MigrationManager {
 			deleteByRange(request.getMigrationType(), request.getMinimumRowId(), request.getMaximumRowId());
 		}
 		
+		if (streamingEnabled) {
+			return restoreStreamFromS3(request);
+		}
 		// Stream all of the data to a local temporary file.
 		File temp = fileProvider.createTempFile("MigrationRestore", ".zip");
 		InputStream fis = null;
@@ -458,6 +529,34 @@ public class MigrationManagerImpl implements MigrationManager {
 		}
 	}
 
+	/**
+	 * Restore the backup file directly from S3. The file is downloaded on a
+	 * background thread while the rows that have already been downloaded are
+	 * restored.
+	 * <p>
+	 * This is called within the restore transaction, so each restore reads on its
+	 * own thread rather than waiting for a thread of a shared pool while holding
+	 * a database connection.
+	 * 
+	 * @param request
+	 * @return
+	 * @throws IOException
+	 */
+	RestoreTypeResponse restoreStreamFromS3(RestoreTypeRequest request) throws IOException {
+		S3Object s3Object = s3Client.getObject(backupBucket, request.getBackupFileKey());
+		RestoreTypeResponse response;
+		ExecutorService readAheadExecutor = Executors.newSingleThreadExecutor();
+		try (InputStream input = new ReadAheadInputStream(s3Object.getObjectContent(), readAheadExecutor,
+				RESTORE_READ_AHEAD_CHUNK_BYTES, RESTORE_READ_AHEAD_MAX_CHUNKS)) {
+			response = restoreStream(input, request.getMigrationType(), request.getAliasType(), request.getBatchSize());
+		} finally {
+			readAheadExecutor.shutdownNow();
+		}
+		// delete the file from S3
+		s3Client.deleteObject(backupBucket, request.getBackupFileKey());
+		return response;
+	}
+
 	/**
 	 * Restore all of the data from the provided stream.
 	 * 
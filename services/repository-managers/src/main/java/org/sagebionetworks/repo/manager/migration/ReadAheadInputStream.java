@@ -0,0 +1,172 @@
+package org.sagebionetworks.repo.manager.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * An InputStream that reads from its source on a background thread, up to
+ * maxChunks chunks ahead of the reader. This allows a download to continue
+ * while the data that has already been downloaded is processed.
+ * <p>
+ * Any failure to read the source is thrown to the reader once all of the data
+ * read before the failure has been consumed. Closing this stream stops the
+ * background read and closes the source.
+ *
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	/*
+	 * Marks the end of the source.
+	 */
+	private static final Chunk END = new Chunk(new byte[0], 0, null);
+
+	private final InputStream source;
+	private final BlockingQueue<Chunk> queue;
+	private final Future<?> reader;
+	private Chunk current;
+	private int position;
+	private boolean closed;
+
+	/**
+	 *
+	 * @param source         The stream to read ahead of the caller.
+	 * @param executor       Used to read the source.
+	 * @param chunkSizeBytes The size of each read from the source.
+	 * @param maxChunks      The maximum number of chunks read ahead of the
+	 *                       caller.
+	 */
+	public ReadAheadInputStream(InputStream source, ExecutorService executor, int chunkSizeBytes, int maxChunks) {
+		ValidateArgument.required(source, "source");
+		ValidateArgument.required(executor, "executor");
+		ValidateArgument.requirement(chunkSizeBytes > 0, "chunkSizeBytes must be greater than zero");
+		ValidateArgument.requirement(maxChunks > 0, "maxChunks must be greater than zero");
+		this.source = source;
+		this.queue = new ArrayBlockingQueue<>(maxChunks);
+		this.reader = executor.submit(() -> {
+			readSource(chunkSizeBytes);
+		});
+	}
+
+	/**
+	 * Read the source into the queue until the end of the source is reached or
+	 * the reading fails.
+	 *
+	 * @param chunkSizeBytes
+	 */
+	void readSource(int chunkSizeBytes) {
+		try {
+			try {
+				while (true) {
+					byte[] bytes = new byte[chunkSizeBytes];
+					int count = source.read(bytes);
+					if (count < 0) {
+						break;
+					}
+					if (count > 0) {
+						queue.put(new Chunk(bytes, count, null));
+					}
+				}
+				queue.put(END);
+			} catch (IOException e) {
+				queue.put(new Chunk(null, 0, e));
+			} catch (RuntimeException e) {
+				queue.put(new Chunk(null, 0, new IOException(e)));
+			}
+		} catch (InterruptedException e) {
+			// The reader was closed.
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextChunk()) {
+			return -1;
+		}
+		return current.bytes[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextChunk()) {
+			return -1;
+		}
+		int toCopy = Math.min(len, current.count - position);
+		System.arraycopy(current.bytes, position, b, off, toCopy);
+		position += toCopy;
+		return toCopy;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (closed || current == null || current == END) {
+			return 0;
+		}
+		return current.count - position;
+	}
+
+	/**
+	 * Ensure the current chunk has data to read.
+	 *
+	 * @return False if the end of the source has been reached.
+	 * @throws IOException
+	 */
+	private boolean nextChunk() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		while (current == null || (current != END && position >= current.count)) {
+			try {
+				current = queue.take();
+				position = 0;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			if (current.exception != null) {
+				IOException exception = current.exception;
+				current = END;
+				throw exception;
+			}
+		}
+		return current != END;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		// stop the background read before closing the source.
+		reader.cancel(true);
+		queue.clear();
+		source.close();
+	}
+
+	/**
+	 * Data read from the source or the failure to read it.
+	 *
+	 */
+	private static class Chunk {
+
+		final byte[] bytes;
+		final int count;
+		final IOException exception;
+
+		Chunk(byte[] bytes, int count, IOException exception) {
+			this.bytes = bytes;
+			this.count = count;
+			this.exception = exception;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package org.sagebionetworks.repo.manager.replication;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.table.ObjectAnnotationDTO;
+import org.sagebionetworks.repo.model.table.ObjectDataDTO;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * The changes that must be applied to the replicated data of a batch of
+ * objects so it matches the truth. Objects that already match the truth are
+ * skipped, and only the annotations that differ are written.
+ *
+ */
+public class ReplicationDelta {
+
+	private final List<Long> idsToDelete;
+	private final List<ObjectDataDTO> rowsToUpsert;
+	private final List<ObjectAnnotationDTO> annotationsToUpsert;
+	private final List<ObjectAnnotationDTO> annotationsToDelete;
+	private long unchangedCount;
+
+	private ReplicationDelta() {
+		this.idsToDelete = new ArrayList<>();
+		this.rowsToUpsert = new ArrayList<>();
+		this.annotationsToUpsert = new ArrayList<>();
+		this.annotationsToDelete = new ArrayList<>();
+		this.unchangedCount = 0L;
+	}
+
+	/**
+	 * Calculate the delta between the truth and the replica for a batch of
+	 * objects.
+	 *
+	 * @param truth   The current data of each object in the batch that still
+	 *                exists.
+	 * @param replica The replicated data of each object in the batch that is
+	 *                currently in the replica. Any object without truth data is
+	 *                deleted from the replica.
+	 * @return
+	 */
+	public static ReplicationDelta calculate(List<ObjectDataDTO> truth, List<ObjectDataDTO> replica) {
+		ValidateArgument.required(truth, "truth");
+		ValidateArgument.required(replica, "replica");
+		ReplicationDelta delta = new ReplicationDelta();
+		Map<Long, ObjectDataDTO> truthById = new LinkedHashMap<>(truth.size());
+		// the last DTO of an object wins.
+		truth.forEach(dto -> truthById.put(dto.getId(), dto));
+		Map<Long, ObjectDataDTO> replicaById = new LinkedHashMap<>(replica.size());
+		replica.forEach(dto -> replicaById.put(dto.getId(), dto));
+
+		for (ObjectDataDTO replicaDto : replicaById.values()) {
+			if (!truthById.containsKey(replicaDto.getId())) {
+				delta.idsToDelete.add(replicaDto.getId());
+			}
+		}
+		for (ObjectDataDTO truthDto : truthById.values()) {
+			ObjectDataDTO replicaDto = replicaById.get(truthDto.getId());
+			boolean rowChanged = replicaDto == null || !isObjectRowEqual(truthDto, replicaDto);
+			if (rowChanged) {
+				delta.rowsToUpsert.add(truthDto);
+			}
+			boolean annotationsChanged = addAnnotationChanges(delta, truthDto,
+					replicaDto == null ? null : replicaDto.getAnnotations());
+			if (!rowChanged && !annotationsChanged) {
+				delta.unchangedCount++;
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * Add the annotations of the given object that must be written or deleted.
+	 *
+	 * @param delta
+	 * @param truthDto
+	 * @param replicaAnnotations
+	 * @return True if any annotation of the object changed.
+	 */
+	private static boolean addAnnotationChanges(ReplicationDelta delta, ObjectDataDTO truthDto,
+			List<ObjectAnnotationDTO> replicaAnnotations) {
+		Map<String, ObjectAnnotationDTO> truthByKey = mapByKey(truthDto.getAnnotations());
+		Map<String, ObjectAnnotationDTO> replicaByKey = mapByKey(replicaAnnotations);
+		boolean changed = false;
+		for (ObjectAnnotationDTO replicaAnnotation : replicaByKey.values()) {
+			ObjectAnnotationDTO truthAnnotation = truthByKey.get(replicaAnnotation.getKey());
+			// The type is part of the primary key, so an upsert cannot change it.
+			if (truthAnnotation == null || truthAnnotation.getType() != replicaAnnotation.getType()) {
+				delta.annotationsToDelete.add(replicaAnnotation);
+				changed = true;
+			}
+		}
+		for (ObjectAnnotationDTO truthAnnotation : truthByKey.values()) {
+			if (!truthAnnotation.equals(replicaByKey.get(truthAnnotation.getKey()))) {
+				delta.annotationsToUpsert.add(truthAnnotation);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private static Map<String, ObjectAnnotationDTO> mapByKey(List<ObjectAnnotationDTO> annotations) {
+		if (annotations == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, ObjectAnnotationDTO> byKey = new LinkedHashMap<>(annotations.size());
+		annotations.forEach(annotation -> byKey.put(annotation.getKey(), annotation));
+		return byKey;
+	}
+
+	/**
+	 * Compare all of the replicated fields of the given objects except their
+	 * annotations.
+	 *
+	 * @param one
+	 * @param two
+	 * @return
+	 */
+	static boolean isObjectRowEqual(ObjectDataDTO one, ObjectDataDTO two) {
+		return Objects.equals(one.getId(), two.getId())
+				&& Objects.equals(one.getCurrentVersion(), two.getCurrentVersion())
+				&& Objects.equals(one.getCreatedBy(), two.getCreatedBy())
+				&& isTimeEqual(one.getCreatedOn(), two.getCreatedOn())
+				&& Objects.equals(one.getEtag(), two.getEtag())
+				&& Objects.equals(one.getName(), two.getName())
+				&& Objects.equals(one.getSubType(), two.getSubType())
+				&& Objects.equals(one.getParentId(), two.getParentId())
+				&& Objects.equals(one.getBenefactorId(), two.getBenefactorId())
+				&& Objects.equals(one.getProjectId(), two.getProjectId())
+				&& Objects.equals(one.getModifiedBy(), two.getModifiedBy())
+				&& isTimeEqual(one.getModifiedOn(), two.getModifiedOn())
+				&& Objects.equals(one.getFileHandleId(), two.getFileHandleId())
+				&& Objects.equals(one.getFileSizeBytes(), two.getFileSizeBytes())
+				&& Objects.equals(one.getIsInSynapseStorage(), two.getIsInSynapseStorage())
+				&& Objects.equals(one.getFileMD5(), two.getFileMD5());
+	}
+
+	/**
+	 * The replica only stores the time in MS, so a Timestamp from the truth must
+	 * be compared on its time alone.
+	 */
+	private static boolean isTimeEqual(Date one, Date two) {
+		if (one == null || two == null) {
+			return one == two;
+		}
+		return one.getTime() == two.getTime();
+	}
+
+	/**
+	 * The IDs of the objects that are in the replica but no longer exist.
+	 *
+	 * @return
+	 */
+	public List<Long> getIdsToDelete() {
+		return idsToDelete;
+	}
+
+	/**
+	 * The objects with a new or changed object row.
+	 *
+	 * @return
+	 */
+	public List<ObjectDataDTO> getRowsToUpsert() {
+		return rowsToUpsert;
+	}
+
+	/**
+	 * The new or changed annotations.
+	 *
+	 * @return
+	 */
+	public List<ObjectAnnotationDTO> getAnnotationsToUpsert() {
+		return annotationsToUpsert;
+	}
+
+	/**
+	 * The annotations that were removed or whose type changed.
+	 *
+	 * @return
+	 */
+	public List<ObjectAnnotationDTO> getAnnotationsToDelete() {
+		return annotationsToDelete;
+	}
+
+	/**
+	 * The number of rows written to the replica by this delta.
+	 *
+	 * @return
+	 */
+	public long getRowsWritten() {
+		return idsToDelete.size() + rowsToUpsert.size() + annotationsToUpsert.size() + annotationsToDelete.size();
+	}
+
+	/**
+	 * The number of objects that already matched the truth and were skipped.
+	 *
+	 * @return
+	 */
+	public long getUnchangedCount() {
+		return unchangedCount;
+	}
+
+}
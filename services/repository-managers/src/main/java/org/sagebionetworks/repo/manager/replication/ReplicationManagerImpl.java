@@ -10,8 +10,15 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.manager.table.TableManagerSupport;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProviderFactory;
@@ -34,6 +41,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionStatus;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
 @Service
 public class ReplicationManagerImpl implements ReplicationManager {
 
@@ -44,6 +53,26 @@ public class ReplicationManagerImpl implements ReplicationManager {
 	 */
 	public static final long SYNCHRONIZATION_FEQUENCY_MS = 1000 * 60 * 1000; // 1000 minutes.
 
+	public static final String METRIC_NAMESPACE_PREFIX = "Replication-";
+	public static final String METRIC_ROWS_WRITTEN = "Rows Written";
+	public static final String METRIC_OBJECTS_SKIPPED = "Objects Skipped";
+	public static final String DIMENSION_OBJECT_TYPE = "objectType";
+
+	/**
+	 * The children of an out-of-synch parent are compared in ID buckets, where a
+	 * child is in bucket (ID DIV width). These are the widths of each level of
+	 * buckets, from the coarsest to the finest. Each width is a multiple of the
+	 * next, so each bucket is contained in a single bucket of the level above.
+	 */
+	public static final long[] CHILD_BUCKET_WIDTHS = new long[] { 1_000_000L, 10_000L, 100L };
+	/**
+	 * The width of the single level above the first level of buckets. Every
+	 * positive ID is in one of the {@link #ROOT_BUCKETS} of this width.
+	 */
+	public static final long ROOT_BUCKET_WIDTH = 1_000_000_000_000_000_000L;
+	public static final List<Long> ROOT_BUCKETS = Collections.unmodifiableList(
+			LongStream.rangeClosed(0L, Long.MAX_VALUE / ROOT_BUCKET_WIDTH).boxed().collect(Collectors.toList()));
+
 	private ConnectionFactory connectionFactory;
 
 	private MetadataIndexProviderFactory metadataIndexProviderFactory;
@@ -54,17 +83,25 @@ public class ReplicationManagerImpl implements ReplicationManager {
 
 	private Clock clock;
 
+	private Consumer consumer;
+
+	private StackConfiguration stackConfig;
+
 	@Autowired
 	public ReplicationManagerImpl(ConnectionFactory connectionFactory,
 			MetadataIndexProviderFactory metadataIndexProviderFactory, 
 			TableManagerSupport tableManagerSupport,
 			ReplicationMessageManager replicationMessageManager, 
-			Clock clock) {
+			Clock clock,
+			Consumer consumer,
+			StackConfiguration stackConfig) {
 		this.connectionFactory = connectionFactory;
 		this.metadataIndexProviderFactory = metadataIndexProviderFactory;
 		this.tableManagerSupport = tableManagerSupport;
 		this.replicationMessageManager = replicationMessageManager;
 		this.clock = clock;
+		this.consumer = consumer;
+		this.stackConfig = stackConfig;
 	}
 
 	/**
@@ -241,13 +278,18 @@ public class ReplicationManagerImpl implements ReplicationManager {
 
 		List<ChangeMessage> changes = new LinkedList<>();
 
-		Set<IdAndEtag> replicaChildren = new LinkedHashSet<>(
-				firstIndex.getObjectChildren(viewObjectType, outOfSynchParentId));
-
 		if (!isParentInTrash) {
-			// The parent is not in the trash so find entities that are
-			// out-of-synch
-			List<IdAndEtag> truthChildren = provider.getChildren(outOfSynchParentId);
+			// The parent is not in the trash so only the children in the buckets that
+			// are out-of-synch need to be compared.
+			List<Long> outOfSynchBuckets = findOutOfSynchBuckets(firstIndex, provider, outOfSynchParentId);
+			if (outOfSynchBuckets.isEmpty()) {
+				return changes;
+			}
+			long leafWidth = CHILD_BUCKET_WIDTHS[CHILD_BUCKET_WIDTHS.length - 1];
+			Set<IdAndEtag> replicaChildren = new LinkedHashSet<>(firstIndex.getObjectChildrenInBuckets(viewObjectType,
+					outOfSynchParentId, leafWidth, outOfSynchBuckets));
+			List<IdAndEtag> truthChildren = provider.getChildrenInBuckets(outOfSynchParentId, leafWidth,
+					outOfSynchBuckets);
 			Set<Long> truthIds = new HashSet<Long>();
 			// find the create/updates
 			for (IdAndEtag test : truthChildren) {
@@ -265,6 +307,7 @@ public class ReplicationManagerImpl implements ReplicationManager {
 		} else {
 			// the parent is the the trash so setup the delete of any children
 			// that appear in the replica.
+			List<IdAndEtag> replicaChildren = firstIndex.getObjectChildren(viewObjectType, outOfSynchParentId);
 			for (IdAndEtag toDelete : replicaChildren) {
 				changes.add(createChange(viewObjectType.getObjectType(), toDelete.getId(), ChangeType.DELETE));
 			}
@@ -272,6 +315,57 @@ public class ReplicationManagerImpl implements ReplicationManager {
 		return changes;
 	}
 
+	/**
+	 * Find the finest ID buckets of children of the given parent that are
+	 * out-of-synch. Starting from the coarsest level, the CRCs of the buckets
+	 * are compared between the truth and the replica, and only the buckets that
+	 * do not match are divided and compared at the next level. The data read is
+	 * therefore proportional to the number of out-of-synch children rather than
+	 * the number of children.
+	 * 
+	 * @param indexDao
+	 * @param provider
+	 * @param parentId
+	 * @return The out-of-synch buckets of the finest width, in ascending order.
+	 */
+	List<Long> findOutOfSynchBuckets(TableIndexDAO indexDao, MetadataIndexProvider provider, Long parentId) {
+		ViewObjectType viewObjectType = provider.getObjectType();
+		long filterWidth = ROOT_BUCKET_WIDTH;
+		List<Long> outOfSynchBuckets = ROOT_BUCKETS;
+		for (long bucketWidth : CHILD_BUCKET_WIDTHS) {
+			Map<Long, Long> truthCRCs = provider.getSumOfChildCRCsForEachBucket(parentId, bucketWidth, filterWidth,
+					outOfSynchBuckets);
+			Map<Long, Long> indexCRCs = indexDao.getSumOfChildCRCsForEachBucket(viewObjectType, parentId,
+					bucketWidth, filterWidth, outOfSynchBuckets);
+			outOfSynchBuckets = compareBucketCheckSums(truthCRCs, indexCRCs);
+			if (outOfSynchBuckets.isEmpty()) {
+				break;
+			}
+			filterWidth = bucketWidth;
+		}
+		return outOfSynchBuckets;
+	}
+
+	/**
+	 * Compare the CRCs of each bucket between the truth and the replica.
+	 * 
+	 * @param truthCRCs
+	 * @param indexCRCs
+	 * @return The buckets that are missing from either side or do not match, in
+	 *         ascending order.
+	 */
+	static List<Long> compareBucketCheckSums(Map<Long, Long> truthCRCs, Map<Long, Long> indexCRCs) {
+		Set<Long> allBuckets = new TreeSet<>(truthCRCs.keySet());
+		allBuckets.addAll(indexCRCs.keySet());
+		List<Long> outOfSynch = new ArrayList<>();
+		for (Long bucket : allBuckets) {
+			if (!Objects.equals(truthCRCs.get(bucket), indexCRCs.get(bucket))) {
+				outOfSynch.add(bucket);
+			}
+		}
+		return outOfSynch;
+	}
+
 	/**
 	 * Create a ChangeMessage from the given info and type.
 	 * 
@@ -339,7 +433,9 @@ public class ReplicationManagerImpl implements ReplicationManager {
 	}
 
 	/**
-	 * Replicate the given
+	 * Replicate the given objects by comparing them to the data currently in the
+	 * replica. Objects that already match are skipped, and only the object rows
+	 * and annotations that differ are written.
 	 * 
 	 * @param indexDao
 	 * @param entityDTOs DTO to be created/updated
@@ -347,11 +443,32 @@ public class ReplicationManagerImpl implements ReplicationManager {
 	 */
 	void replicateInIndex(TableIndexDAO indexDao, ViewObjectType objectType, List<ObjectDataDTO> entityDTOs,
 			List<Long> ids) {
-		indexDao.executeInWriteTransaction((TransactionStatus status) -> {
-			indexDao.deleteObjectData(objectType, ids);
-			indexDao.addObjectData(objectType, entityDTOs);
-			return null;
+		ReplicationDelta delta = indexDao.executeInWriteTransaction((TransactionStatus status) -> {
+			// lock the replicated rows so concurrent replication of the same objects cannot interleave.
+			List<ObjectDataDTO> replica = indexDao.getObjectDataForUpdate(objectType, ids);
+			ReplicationDelta changes = ReplicationDelta.calculate(entityDTOs, replica);
+			if (!changes.getIdsToDelete().isEmpty()) {
+				indexDao.deleteObjectData(objectType, changes.getIdsToDelete());
+			}
+			indexDao.upsertObjectRows(objectType, changes.getRowsToUpsert());
+			indexDao.deleteObjectAnnotations(objectType, changes.getAnnotationsToDelete());
+			indexDao.upsertObjectAnnotations(objectType, changes.getAnnotationsToUpsert());
+			return changes;
 		});
+		Date timestamp = new Date(clock.currentTimeMillis());
+		consumer.addProfileData(createMetric(METRIC_ROWS_WRITTEN, delta.getRowsWritten(), objectType, timestamp));
+		consumer.addProfileData(createMetric(METRIC_OBJECTS_SKIPPED, delta.getUnchangedCount(), objectType, timestamp));
+	}
+
+	ProfileData createMetric(String name, long value, ViewObjectType objectType, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfig.getStackInstance());
+		profileData.setName(name);
+		profileData.setValue((double) value);
+		profileData.setUnit(StandardUnit.Count.name());
+		profileData.setTimestamp(timestamp);
+		profileData.setDimension(Collections.singletonMap(DIMENSION_OBJECT_TYPE, objectType.name()));
+		return profileData;
 	}
 	
 	/**
@@ -0,0 +1,45 @@
+package org.sagebionetworks.repo.manager.schema;
+
+import org.everit.json.schema.Schema;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * A validation schema that has been compiled into a validator. A compiled
+ * schema is immutable and can be shared by any number of threads validating
+ * subjects at the same time.
+ *
+ */
+public class CompiledJsonSchema {
+
+	private final String $id;
+	private final Schema validator;
+
+	/**
+	 *
+	 * @param $id       The $id of the validation schema.
+	 * @param validator The validator compiled from the validation schema.
+	 */
+	public CompiledJsonSchema(String $id, Schema validator) {
+		ValidateArgument.required(validator, "validator");
+		this.$id = $id;
+		this.validator = validator;
+	}
+
+	/**
+	 * The $id of the validation schema.
+	 *
+	 * @return
+	 */
+	public String get$id() {
+		return $id;
+	}
+
+	/**
+	 * The validator compiled from the validation schema.
+	 *
+	 * @return
+	 */
+	public Schema getValidator() {
+		return validator;
+	}
+}
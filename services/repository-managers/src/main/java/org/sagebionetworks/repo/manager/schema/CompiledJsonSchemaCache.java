@@ -0,0 +1,40 @@
+package org.sagebionetworks.repo.manager.schema;
+
+import org.sagebionetworks.repo.model.schema.JsonSchemaVersionInfo;
+
+/**
+ * A bounded, node-local cache of compiled validation schemas keyed on the $id
+ * and version ID of each schema version.
+ * <p>
+ * A version with a semantic version is immutable, as are all of the schemas it
+ * references, so its entry never needs to be invalidated. A version without a
+ * semantic version can reference the latest version of other schemas, so its
+ * entry is mutable: mutable entries are removed when a schema version is
+ * created or deleted on this node, and expire after a short time so changes
+ * made on other nodes are also picked up.
+ *
+ */
+public interface CompiledJsonSchemaCache {
+
+	/**
+	 * Get the cached compiled schema for the given version.
+	 *
+	 * @param versionInfo
+	 * @return null if the version is not in the cache.
+	 */
+	CompiledJsonSchema get(JsonSchemaVersionInfo versionInfo);
+
+	/**
+	 * Add the compiled schema of the given version to the cache.
+	 *
+	 * @param versionInfo
+	 * @param schema
+	 */
+	void put(JsonSchemaVersionInfo versionInfo, CompiledJsonSchema schema);
+
+	/**
+	 * Remove all of the entries for versions without a semantic version.
+	 */
+	void invalidateMutable();
+
+}
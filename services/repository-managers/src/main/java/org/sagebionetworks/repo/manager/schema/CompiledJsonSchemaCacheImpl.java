@@ -0,0 +1,153 @@
+package org.sagebionetworks.repo.manager.schema;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.schema.JsonSchemaVersionInfo;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation of the {@link CompiledJsonSchemaCache} that holds the
+ * immutable and the mutable entries in two least recently used maps, each
+ * bounded by its number of entries.
+ *
+ */
+@Service
+public class CompiledJsonSchemaCacheImpl implements CompiledJsonSchemaCache {
+
+	/**
+	 * The maximum number of immutable entries.
+	 */
+	public static final int MAX_IMMUTABLE_ENTRIES = 500;
+	/**
+	 * The maximum number of mutable entries.
+	 */
+	public static final int MAX_MUTABLE_ENTRIES = 100;
+	/**
+	 * Mutable entries expire after this many milliseconds.
+	 */
+	public static final long MUTABLE_ENTRY_EXPIRES_MS = 60 * 1000;
+
+	private Clock clock;
+
+	/*
+	 * All access to the entries is synchronized on this object.
+	 */
+	private final Map<CacheKey, CompiledJsonSchema> immutableEntries = createLruMap(MAX_IMMUTABLE_ENTRIES);
+	private final Map<CacheKey, MutableEntry> mutableEntries = createLruMap(MAX_MUTABLE_ENTRIES);
+
+	@Autowired
+	public CompiledJsonSchemaCacheImpl(Clock clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public synchronized CompiledJsonSchema get(JsonSchemaVersionInfo versionInfo) {
+		ValidateArgument.required(versionInfo, "versionInfo");
+		CacheKey key = new CacheKey(versionInfo);
+		if (isImmutable(versionInfo)) {
+			return immutableEntries.get(key);
+		}
+		MutableEntry entry = mutableEntries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (clock.currentTimeMillis() - entry.createdOn > MUTABLE_ENTRY_EXPIRES_MS) {
+			mutableEntries.remove(key);
+			return null;
+		}
+		return entry.schema;
+	}
+
+	@Override
+	public synchronized void put(JsonSchemaVersionInfo versionInfo, CompiledJsonSchema schema) {
+		ValidateArgument.required(versionInfo, "versionInfo");
+		ValidateArgument.required(schema, "schema");
+		CacheKey key = new CacheKey(versionInfo);
+		if (isImmutable(versionInfo)) {
+			immutableEntries.put(key, schema);
+		} else {
+			mutableEntries.put(key, new MutableEntry(schema, clock.currentTimeMillis()));
+		}
+	}
+
+	@Override
+	public synchronized void invalidateMutable() {
+		mutableEntries.clear();
+	}
+
+	public synchronized int getImmutableEntryCount() {
+		return immutableEntries.size();
+	}
+
+	public synchronized int getMutableEntryCount() {
+		return mutableEntries.size();
+	}
+
+	/**
+	 * A version with a semantic version can only reference other versions with
+	 * a semantic version, so neither it nor its validation schema can change.
+	 *
+	 * @param versionInfo
+	 * @return
+	 */
+	static boolean isImmutable(JsonSchemaVersionInfo versionInfo) {
+		return versionInfo.getSemanticVersion() != null;
+	}
+
+	private static <V> Map<CacheKey, V> createLruMap(int maxEntries) {
+		return new LinkedHashMap<CacheKey, V>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<CacheKey, V> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	private static class MutableEntry {
+
+		private final CompiledJsonSchema schema;
+		private final long createdOn;
+
+		MutableEntry(CompiledJsonSchema schema, long createdOn) {
+			this.schema = schema;
+			this.createdOn = createdOn;
+		}
+	}
+
+	private static class CacheKey {
+
+		private final String $id;
+		private final String versionId;
+
+		CacheKey(JsonSchemaVersionInfo versionInfo) {
+			this.$id = versionInfo.get$id();
+			this.versionId = versionInfo.getVersionId();
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash($id, versionId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return Objects.equals($id, other.$id) && Objects.equals(versionId, other.versionId);
+		}
+	}
+}
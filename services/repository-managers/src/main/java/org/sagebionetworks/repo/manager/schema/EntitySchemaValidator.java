@@ -1,15 +1,28 @@
 package org.sagebionetworks.repo.manager.schema;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
 import org.sagebionetworks.repo.manager.EntityManager;
 import org.sagebionetworks.repo.model.dbo.schema.SchemaValidationResultDao;
-import org.sagebionetworks.repo.model.schema.JsonSchema;
 import org.sagebionetworks.repo.model.schema.JsonSchemaObjectBinding;
+import org.sagebionetworks.repo.model.schema.JsonSchemaVersionInfo;
 import org.sagebionetworks.repo.model.schema.ObjectType;
 import org.sagebionetworks.repo.model.schema.ValidationResults;
 import org.sagebionetworks.repo.transactions.WriteTransaction;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.util.ValidateArgument;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,16 +32,19 @@ public class EntitySchemaValidator implements ObjectSchemaValidator {
 	private JsonSchemaManager jsonSchemaManager;
 	private JsonSchemaValidationManager jsonSchemaValidationManager;
 	private SchemaValidationResultDao schemaValidationResultDao;
+	private ExecutorService schemaValidationExecutorService;
 
 	@Autowired
 	public EntitySchemaValidator(EntityManager entityManger, JsonSchemaManager jsonSchemaManager,
 			JsonSchemaValidationManager jsonSchemaValidationManager,
-			SchemaValidationResultDao schemaValidationResultDao) {
+			SchemaValidationResultDao schemaValidationResultDao,
+			@Qualifier("schemaValidationExecutorService") ExecutorService schemaValidationExecutorService) {
 		super();
 		this.entityManger = entityManger;
 		this.jsonSchemaManager = jsonSchemaManager;
 		this.jsonSchemaValidationManager = jsonSchemaValidationManager;
 		this.schemaValidationResultDao = schemaValidationResultDao;
+		this.schemaValidationExecutorService = schemaValidationExecutorService;
 	}
 
 	@WriteTransaction
@@ -38,8 +54,8 @@ public class EntitySchemaValidator implements ObjectSchemaValidator {
 		try {
 			JsonSchemaObjectBinding binding = entityManger.getBoundSchema(entityId);
 			JsonSubject entitySubject = entityManger.getEntityJsonSubject(entityId);
-			JsonSchema validationSchema = jsonSchemaManager
-					.getValidationSchema(binding.getJsonSchemaVersionInfo().get$id());
+			CompiledJsonSchema validationSchema = jsonSchemaManager
+					.getCompiledValidationSchema(binding.getJsonSchemaVersionInfo());
 			ValidationResults results = jsonSchemaValidationManager.validate(validationSchema, entitySubject);
 			schemaValidationResultDao.createOrUpdateResults(results);
 		} catch (NotFoundException e) {
@@ -47,4 +63,98 @@ public class EntitySchemaValidator implements ObjectSchemaValidator {
 		}
 	}
 
+	/**
+	 * The entities are grouped by the schema version bound to each entity, so
+	 * each schema is compiled at most once per batch. The bindings and the
+	 * entities are fetched, and the entities validated, in parallel. All of the
+	 * results are then written with one batch upsert and the results of entities
+	 * that no longer exist, or no longer have a bound schema, are cleared with
+	 * one batch delete.
+	 */
+	@Override
+	public void validateObjects(List<String> entityIds) {
+		ValidateArgument.required(entityIds, "entityIds");
+		List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(entityIds));
+		List<String> idsToClear = new ArrayList<>();
+
+		// Lookup the schema bound to each entity.
+		List<Optional<JsonSchemaObjectBinding>> bindings = invokeAll(uniqueIds, entityId -> {
+			try {
+				return Optional.of(entityManger.getBoundSchema(entityId));
+			} catch (NotFoundException e) {
+				return Optional.empty();
+			}
+		});
+		Map<String, JsonSchemaVersionInfo> versions = new LinkedHashMap<>();
+		Map<String, List<String>> entityIdsByVersionId = new LinkedHashMap<>();
+		for (int i = 0; i < uniqueIds.size(); i++) {
+			String entityId = uniqueIds.get(i);
+			Optional<JsonSchemaObjectBinding> binding = bindings.get(i);
+			if (!binding.isPresent()) {
+				idsToClear.add(entityId);
+				continue;
+			}
+			JsonSchemaVersionInfo versionInfo = binding.get().getJsonSchemaVersionInfo();
+			versions.putIfAbsent(versionInfo.getVersionId(), versionInfo);
+			entityIdsByVersionId.computeIfAbsent(versionInfo.getVersionId(), k -> new ArrayList<>()).add(entityId);
+		}
+
+		// Validate each group against its shared compiled schema.
+		List<ValidationResults> allResults = new ArrayList<>(uniqueIds.size());
+		for (Map.Entry<String, List<String>> group : entityIdsByVersionId.entrySet()) {
+			CompiledJsonSchema validationSchema = jsonSchemaManager
+					.getCompiledValidationSchema(versions.get(group.getKey()));
+			List<String> groupIds = group.getValue();
+			List<Optional<ValidationResults>> groupResults = invokeAll(groupIds, entityId -> {
+				try {
+					JsonSubject entitySubject = entityManger.getEntityJsonSubject(entityId);
+					return Optional.of(jsonSchemaValidationManager.validate(validationSchema, entitySubject));
+				} catch (NotFoundException e) {
+					return Optional.empty();
+				}
+			});
+			for (int i = 0; i < groupIds.size(); i++) {
+				Optional<ValidationResults> results = groupResults.get(i);
+				if (results.isPresent()) {
+					allResults.add(results.get());
+				} else {
+					idsToClear.add(groupIds.get(i));
+				}
+			}
+		}
+		schemaValidationResultDao.createOrUpdateResultsBatch(allResults);
+		schemaValidationResultDao.clearResultsBatch(idsToClear, ObjectType.entity);
+	}
+
+	/**
+	 * Apply the given function to each of the given entity IDs on the executor.
+	 *
+	 * @param entityIds
+	 * @param function
+	 * @return The result for each entity ID, in the order of the given IDs.
+	 */
+	<T> List<T> invokeAll(List<String> entityIds, Function<String, T> function) {
+		List<Callable<T>> tasks = new ArrayList<>(entityIds.size());
+		for (String entityId : entityIds) {
+			tasks.add(() -> function.apply(entityId));
+		}
+		try {
+			List<Future<T>> futures = schemaValidationExecutorService.invokeAll(tasks);
+			List<T> results = new ArrayList<>(futures.size());
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
 }
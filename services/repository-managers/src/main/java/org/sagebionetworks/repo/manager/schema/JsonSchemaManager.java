@@ -134,6 +134,16 @@ public interface JsonSchemaManager {
 	 */
 	JsonSchema getValidationSchema(String id);
 
+	/**
+	 * Get the compiled validation schema for the given schema version. Compiled
+	 * schemas are cached, so the validation schema is only loaded and compiled
+	 * on a cache miss.
+	 * 
+	 * @param versionInfo
+	 * @return
+	 */
+	CompiledJsonSchema getCompiledValidationSchema(JsonSchemaVersionInfo versionInfo);
+
 	/**
 	 * Bind a JSON schema to an object.
 	 * @param createdBy
@@ -75,6 +75,12 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 	@Autowired
 	private JsonSchemaDao jsonSchemaDao;
 
+	@Autowired
+	private JsonSchemaValidationManager jsonSchemaValidationManager;
+
+	@Autowired
+	private CompiledJsonSchemaCache compiledSchemaCache;
+
 	public static final Set<ACCESS_TYPE> ADMIN_PERMISSIONS = Sets.newHashSet(READ, CREATE, CHANGE_PERMISSIONS, UPDATE,
 			DELETE);
 
@@ -210,6 +216,8 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 				.withSemanticVersion(semanticVersionString).withJsonSchema(request.getSchema())
 				.withDependencies(dependencies);
 		JsonSchemaVersionInfo info = jsonSchemaDao.createNewSchemaVersion(newVersionRequest);
+		// The new version can change the validation schema of any mutable schema.
+		compiledSchemaCache.invalidateMutable();
 
 		// Ensure we can create the validation schema
 		JsonSchema validationSchema = getValidationSchema(schemaId.toString());
@@ -354,6 +362,7 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 		} else {
 			jsonSchemaDao.deleteSchemaVersion(versionInfo.getVersionId());
 		}
+		compiledSchemaCache.invalidateMutable();
 	}
 
 	@Override
@@ -416,6 +425,18 @@ public class JsonSchemaManagerImpl implements JsonSchemaManager {
 		return getValidationSchema(visitedStack, $id);
 	}
 
+	@Override
+	public CompiledJsonSchema getCompiledValidationSchema(JsonSchemaVersionInfo versionInfo) {
+		ValidateArgument.required(versionInfo, "versionInfo");
+		ValidateArgument.required(versionInfo.get$id(), "versionInfo.$id");
+		CompiledJsonSchema compiled = compiledSchemaCache.get(versionInfo);
+		if (compiled == null) {
+			compiled = jsonSchemaValidationManager.compile(getValidationSchema(versionInfo.get$id()));
+			compiledSchemaCache.put(versionInfo, compiled);
+		}
+		return compiled;
+	}
+
 	/**
 	 * Recursively build the validation schema for the given $id.
 	 * 
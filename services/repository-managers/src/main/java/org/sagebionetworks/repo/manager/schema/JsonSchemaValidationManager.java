@@ -14,4 +14,22 @@ public interface JsonSchemaValidationManager {
 	 */
 	public ValidationResults validate(JsonSchema schema, JsonSubject subject);
 
+	/**
+	 * Compile the given validation schema into a validator that can be used to
+	 * validate any number of subjects.
+	 * 
+	 * @param schema
+	 * @return
+	 */
+	public CompiledJsonSchema compile(JsonSchema schema);
+
+	/**
+	 * Validate the given subject against the given compiled schema.
+	 * 
+	 * @param schema
+	 * @param subject
+	 * @return
+	 */
+	public ValidationResults validate(CompiledJsonSchema schema, JsonSubject subject);
+
 }
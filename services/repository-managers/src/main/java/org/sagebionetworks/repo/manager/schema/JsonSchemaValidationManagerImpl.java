@@ -22,16 +22,22 @@ public class JsonSchemaValidationManagerImpl implements JsonSchemaValidationMana
 
 	@Override
 	public ValidationResults validate(JsonSchema jsonSchema, JsonSubject subject) {
+		ValidateArgument.required(jsonSchema, "jsonSchema");
+		ValidateArgument.required(subject, "subject");
+		return validate(compile(jsonSchema), subject);
+	}
+
+	@Override
+	public CompiledJsonSchema compile(JsonSchema jsonSchema) {
 		try {
-			return doValidate(jsonSchema, subject);
+			return doCompile(jsonSchema);
 		} catch (JSONObjectAdapterException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	ValidationResults doValidate(JsonSchema jsonSchema, JsonSubject subject) throws JSONObjectAdapterException {
+	CompiledJsonSchema doCompile(JsonSchema jsonSchema) throws JSONObjectAdapterException {
 		ValidateArgument.required(jsonSchema, "jsonSchema");
-		ValidateArgument.required(subject, "subject");
 		if (StringUtils.isBlank(jsonSchema.get$schema())) {
 			/**
 			 * The validation library silently ignores all JSON schema features added after
@@ -41,16 +47,23 @@ public class JsonSchemaValidationManagerImpl implements JsonSchemaValidationMana
 			 */
 			jsonSchema.set$schema(DRAFT_07);
 		}
+		String validationSchemaJson = EntityFactory.createJSONStringForEntity(jsonSchema);
+		Schema schemaValidator = SchemaLoader.load(new JSONObject(validationSchemaJson));
+		return new CompiledJsonSchema(jsonSchema.get$id(), schemaValidator);
+	}
+
+	@Override
+	public ValidationResults validate(CompiledJsonSchema schema, JsonSubject subject) {
+		ValidateArgument.required(schema, "schema");
+		ValidateArgument.required(subject, "subject");
 		ValidationResults result = new ValidationResults();
 		result.setObjectId(subject.getObjectId());
 		result.setObjectType(subject.getObjectType());
 		result.setObjectEtag(subject.getObjectEtag());
-		result.setSchema$id(jsonSchema.get$id());
+		result.setSchema$id(schema.get$id());
 		result.setValidatedOn(new Date());
-		String validationSchemaJson = EntityFactory.createJSONStringForEntity(jsonSchema);
-		Schema schemaValidator = SchemaLoader.load(new JSONObject(validationSchemaJson));
 		try {
-			schemaValidator.validate(subject.toJson());
+			schema.getValidator().validate(subject.toJson());
 			result.setIsValid(true);
 		} catch (org.everit.json.schema.ValidationException e) {
 			result.setIsValid(false);
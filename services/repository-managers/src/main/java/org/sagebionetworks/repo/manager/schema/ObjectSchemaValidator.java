@@ -1,5 +1,7 @@
 package org.sagebionetworks.repo.manager.schema;
 
+import java.util.List;
+
 public interface ObjectSchemaValidator {
 
 	/**
@@ -9,4 +11,12 @@ public interface ObjectSchemaValidator {
 	 */
 	public void validateObject(String objectId);
 
+	/**
+	 * Validate each of the given objects against its JSON schema, writing all of
+	 * the results in a single batch.
+	 * 
+	 * @param objectIds
+	 */
+	public void validateObjects(List<String> objectIds);
+
 }
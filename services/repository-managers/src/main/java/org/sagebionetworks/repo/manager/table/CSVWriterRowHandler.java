@@ -5,15 +5,18 @@ import java.util.List;
 import org.sagebionetworks.repo.model.dao.table.RowHandler;
 import org.sagebionetworks.repo.model.table.Row;
 import org.sagebionetworks.repo.model.table.SelectColumn;
+import org.sagebionetworks.table.cluster.RowBatch;
+import org.sagebionetworks.table.cluster.RowBatchHandler;
 import org.sagebionetworks.table.cluster.utils.TableModelUtils;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 
 /**
  * RowHandler that captures rows and write them to the 
- * provided CSV writer.
+ * provided CSV writer. Rows can also be passed in batches,
+ * which avoids creating a Row for each row written.
  *
  */
-public class CSVWriterRowHandler implements RowHandler {
+public class CSVWriterRowHandler implements RowHandler, RowBatchHandler {
 	
 	CSVWriterStream writer;
 	List<SelectColumn> selectColumns;
@@ -50,5 +53,30 @@ public class CSVWriterRowHandler implements RowHandler {
 		writer.writeNext(array);
 	}
 
+	@Override
+	public void nextBatch(RowBatch batch) {
+		int metadataCount = 0;
+		if (includeRowIdAndVersion) {
+			metadataCount = includeRowEtag ? 3 : 2;
+		}
+		int columnCount = batch.getColumnCount();
+		for (int row = 0; row < batch.getSize(); row++) {
+			// The writer can keep the array so a new array is needed for each row.
+			String[] array = new String[metadataCount + columnCount];
+			int index = 0;
+			if (includeRowIdAndVersion) {
+				array[index++] = Long.toString(batch.getRowId(row));
+				array[index++] = Long.toString(batch.getRowVersion(row));
+				if (includeRowEtag) {
+					array[index++] = batch.getEtag(row);
+				}
+			}
+			for (int column = 0; column < columnCount; column++) {
+				array[index++] = batch.getValue(row, column);
+			}
+			writer.writeNext(array);
+		}
+	}
+
 
 }
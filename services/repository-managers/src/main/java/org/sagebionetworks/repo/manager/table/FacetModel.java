@@ -152,6 +152,8 @@ public class FacetModel {
 					.includeRowIdAndRowVersion(sqlQuery.includesRowIdAndVersion())
 					.tableType(sqlQuery.getTableType())
 					.selectedFacets(sqlQuery.getSelectedFacets())
+					.keysetPagination(sqlQuery.getKeysetPagination())
+					.seekAfter(sqlQuery.getSeekAfterRowId(), sqlQuery.getSeekAfterSortValues())
 					.build();
 		}catch (ParseException e){
 			throw new RuntimeException(e);
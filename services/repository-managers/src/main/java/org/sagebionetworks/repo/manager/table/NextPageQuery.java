@@ -0,0 +1,50 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.List;
+
+import org.sagebionetworks.repo.model.table.Query;
+
+/**
+ * The query captured in a {@link org.sagebionetworks.repo.model.table.QueryNextPageToken}.
+ * In addition to the offset of the next page, the token includes the position of
+ * the last row of the previous page so a query that uses keyset pagination can
+ * seek to the next page rather than skipping the offset.
+ * <p>
+ * This is serialized with the same element name as {@link Query} so tokens
+ * created before keyset pagination fall back to the offset. A machine that does
+ * not know the seek position reads the token as a {@link Query}, ignoring the
+ * unknown seek elements, and also falls back to the offset.
+ *
+ */
+public class NextPageQuery extends Query {
+
+	private Long seekAfterRowId;
+	private List<String> seekAfterSortValues;
+
+	/**
+	 * The ROW_ID of the last row of the previous page.
+	 *
+	 * @return
+	 */
+	public Long getSeekAfterRowId() {
+		return seekAfterRowId;
+	}
+
+	public void setSeekAfterRowId(Long seekAfterRowId) {
+		this.seekAfterRowId = seekAfterRowId;
+	}
+
+	/**
+	 * The value of each sort key of the last row of the previous page.
+	 *
+	 * @return
+	 */
+	public List<String> getSeekAfterSortValues() {
+		return seekAfterSortValues;
+	}
+
+	public void setSeekAfterSortValues(List<String> seekAfterSortValues) {
+		this.seekAfterSortValues = seekAfterSortValues;
+	}
+
+}
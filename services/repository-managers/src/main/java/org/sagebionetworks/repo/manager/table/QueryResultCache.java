@@ -0,0 +1,36 @@
+package org.sagebionetworks.repo.manager.table;
+
+import org.sagebionetworks.repo.model.table.QueryResultBundle;
+
+/**
+ * A bounded, node-local cache of single pages of query results. Each entry is
+ * keyed on the version of the table so an entry can only be read while the
+ * table is unchanged. When a newer version of a table is seen, all entries for
+ * the older version are removed.
+ *
+ */
+public interface QueryResultCache {
+
+	/**
+	 * Get a copy of the cached results for the given key.
+	 *
+	 * @param key
+	 * @return null if the results are not in the cache.
+	 */
+	QueryResultBundle get(QueryResultCacheKey key);
+
+	/**
+	 * Add a copy of the given results to the cache. Results that are too large
+	 * are not cached.
+	 *
+	 * @param key
+	 * @param bundle
+	 */
+	void put(QueryResultCacheKey key, QueryResultBundle bundle);
+
+	/**
+	 * Called from a timer to publish the hit ratio and memory usage of the cache.
+	 */
+	void pushMetrics();
+
+}
@@ -0,0 +1,220 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.table.QueryResultBundle;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+
+/**
+ * Implementation of the {@link QueryResultCache} that holds each page of
+ * results as JSON in a least recently used map bounded by the total size of the
+ * JSON. Holding the JSON rather than the bundle means each caller gets its own
+ * copy of the results and the memory used by the cache is known.
+ *
+ */
+public class QueryResultCacheImpl implements QueryResultCache {
+
+	/**
+	 * The default maximum number of bytes held by the cache.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 100L * 1024 * 1024;
+	/**
+	 * The default maximum number of bytes of a single page of results.
+	 */
+	public static final long DEFAULT_MAX_ENTRY_BYTES = 2L * 1024 * 1024;
+	/**
+	 * The maximum number of table versions tracked.
+	 */
+	public static final int MAX_TABLE_VERSIONS = 10_000;
+
+	public static final String METRIC_NAMESPACE_PREFIX = "Query-Result-Cache-";
+	public static final String METRIC_HIT_COUNT = "Hit Count";
+	public static final String METRIC_MISS_COUNT = "Miss Count";
+	public static final String METRIC_ENTRY_COUNT = "Entry Count";
+	public static final String METRIC_SIZE_BYTES = "Size";
+
+	@Autowired
+	private Consumer consumer;
+	@Autowired
+	private StackConfiguration stackConfig;
+	@Autowired
+	private Clock clock;
+
+	private long maxBytes = DEFAULT_MAX_BYTES;
+	private long maxEntryBytes = DEFAULT_MAX_ENTRY_BYTES;
+
+	/*
+	 * All access to the entries, table versions and size is synchronized on this
+	 * object.
+	 */
+	private final LinkedHashMap<QueryResultCacheKey, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, String> tableVersions = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Entry<String, String> eldest) {
+			return size() > MAX_TABLE_VERSIONS;
+		}
+	};
+	private long sizeBytes = 0L;
+
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+
+	/**
+	 * The maximum number of bytes held by the cache.
+	 *
+	 * @param maxBytes
+	 */
+	public void setMaxBytes(long maxBytes) {
+		ValidateArgument.requirement(maxBytes > 0, "maxBytes must be greater than zero");
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Results larger than this number of bytes are not cached.
+	 *
+	 * @param maxEntryBytes
+	 */
+	public void setMaxEntryBytes(long maxEntryBytes) {
+		ValidateArgument.requirement(maxEntryBytes > 0, "maxEntryBytes must be greater than zero");
+		this.maxEntryBytes = maxEntryBytes;
+	}
+
+	@Override
+	public QueryResultBundle get(QueryResultCacheKey key) {
+		ValidateArgument.required(key, "key");
+		String json;
+		synchronized (this) {
+			checkTableVersion(key);
+			json = entries.get(key);
+		}
+		if (json == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		try {
+			return EntityFactory.createEntityFromJSONString(json, QueryResultBundle.class);
+		} catch (JSONObjectAdapterException e) {
+			// should never occur
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void put(QueryResultCacheKey key, QueryResultBundle bundle) {
+		ValidateArgument.required(key, "key");
+		ValidateArgument.required(bundle, "bundle");
+		String json;
+		try {
+			json = EntityFactory.createJSONStringForEntity(bundle);
+		} catch (JSONObjectAdapterException e) {
+			// should never occur
+			throw new RuntimeException(e);
+		}
+		long entryBytes = estimateBytes(json);
+		if (entryBytes > maxEntryBytes) {
+			return;
+		}
+		synchronized (this) {
+			checkTableVersion(key);
+			String previous = entries.put(key, json);
+			if (previous != null) {
+				sizeBytes -= estimateBytes(previous);
+			}
+			sizeBytes += entryBytes;
+			// Remove the least recently used entries until the cache is within its limit.
+			Iterator<String> iterator = entries.values().iterator();
+			while (sizeBytes > maxBytes && iterator.hasNext()) {
+				sizeBytes -= estimateBytes(iterator.next());
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * When the given key is for a different version of the table than the last
+	 * key seen for the table, all entries for the table are removed.
+	 *
+	 * @param key
+	 */
+	private void checkTableVersion(QueryResultCacheKey key) {
+		String lastVersion = tableVersions.put(key.getTableId(), key.getTableVersion());
+		if (lastVersion != null && !lastVersion.equals(key.getTableVersion())) {
+			Iterator<Entry<QueryResultCacheKey, String>> iterator = entries.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Entry<QueryResultCacheKey, String> entry = iterator.next();
+				if (entry.getKey().getTableId().equals(key.getTableId())) {
+					sizeBytes -= estimateBytes(entry.getValue());
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Each character of a string uses up to two bytes.
+	 *
+	 * @param json
+	 * @return
+	 */
+	static long estimateBytes(String json) {
+		return json.length() * 2L;
+	}
+
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	public synchronized long getSizeBytes() {
+		return sizeBytes;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Push the hit and miss counts since the last push along with the current
+	 * number of entries and size of the cache.
+	 */
+	@Override
+	public void pushMetrics() {
+		Date timestamp = new Date(clock.currentTimeMillis());
+		consumer.addProfileData(createMetric(METRIC_HIT_COUNT, hitCount.getAndSet(0), StandardUnit.Count, timestamp));
+		consumer.addProfileData(createMetric(METRIC_MISS_COUNT, missCount.getAndSet(0), StandardUnit.Count, timestamp));
+		consumer.addProfileData(createMetric(METRIC_ENTRY_COUNT, getEntryCount(), StandardUnit.Count, timestamp));
+		consumer.addProfileData(createMetric(METRIC_SIZE_BYTES, getSizeBytes(), StandardUnit.Bytes, timestamp));
+	}
+
+	ProfileData createMetric(String name, long value, StandardUnit unit, Date timestamp) {
+		ProfileData profileData = new ProfileData();
+		profileData.setNamespace(METRIC_NAMESPACE_PREFIX + stackConfig.getStackInstance());
+		profileData.setName(name);
+		profileData.setValue((double) value);
+		profileData.setUnit(unit.name());
+		profileData.setTimestamp(timestamp);
+		return profileData;
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.FacetColumnRequest;
+import org.sagebionetworks.repo.model.table.QueryOptions;
+import org.sagebionetworks.repo.model.table.TableStatus;
+import org.sagebionetworks.table.cluster.SqlQuery;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Identifies a single page of query results in the {@link QueryResultCache}.
+ * <p>
+ * The key includes the translated SQL and its bound parameters, so two queries
+ * that only differ in formatting share a key, while the row level filter of a
+ * view (the user's benefactors), the sort, and the limit and offset are part of
+ * the key. The key also includes the version of the table: the table's last
+ * change etag and the time the table's status last changed. Views are updated
+ * in place without changing the etag, so the change time is needed to detect
+ * an updated view.
+ *
+ */
+public class QueryResultCacheKey {
+
+	private final String tableId;
+	private final String tableVersion;
+	private final String sql;
+	private final Map<String, Object> parameters;
+	private final List<FacetColumnRequest> selectedFacets;
+	private final List<ColumnModel> tableSchema;
+	private final long partMask;
+
+	/**
+	 *
+	 * @param status  The status of the table at the time of the query.
+	 * @param query   The query after pre-flight.
+	 * @param options The parts of the bundle to be returned.
+	 */
+	public QueryResultCacheKey(TableStatus status, SqlQuery query, QueryOptions options) {
+		ValidateArgument.required(status, "status");
+		ValidateArgument.required(query, "query");
+		ValidateArgument.required(options, "options");
+		this.tableId = query.getTableId();
+		this.tableVersion = createTableVersion(status);
+		this.sql = query.getOutputSQL();
+		this.parameters = new HashMap<>(query.getParameters());
+		this.selectedFacets = query.getSelectedFacets();
+		this.tableSchema = query.getTableSchema();
+		this.partMask = options.getPartMask();
+	}
+
+	/**
+	 * The version of a table changes each time the table or view is updated.
+	 *
+	 * @param status
+	 * @return
+	 */
+	static String createTableVersion(TableStatus status) {
+		long changedOn = status.getChangedOn() == null ? -1L : status.getChangedOn().getTime();
+		return status.getLastTableChangeEtag() + "-" + changedOn;
+	}
+
+	public String getTableId() {
+		return tableId;
+	}
+
+	public String getTableVersion() {
+		return tableVersion;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(tableId, tableVersion, sql, parameters, selectedFacets, tableSchema, partMask);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		QueryResultCacheKey other = (QueryResultCacheKey) obj;
+		return Objects.equals(tableId, other.tableId) && Objects.equals(tableVersion, other.tableVersion)
+				&& Objects.equals(sql, other.sql) && Objects.equals(parameters, other.parameters)
+				&& Objects.equals(selectedFacets, other.selectedFacets)
+				&& Objects.equals(tableSchema, other.tableSchema) && partMask == other.partMask;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryResultCacheKey [tableId=" + tableId + ", tableVersion=" + tableVersion + ", sql=" + sql
+				+ ", parameters=" + parameters + ", partMask=" + partMask + "]";
+	}
+
+}
@@ -428,9 +428,12 @@ public class TableEntityManagerImpl implements TableEntityManager {
 		}
 		final Set<Long> deltaRowIds = rowIdToRowVersionNumberFromUpdate.keySet();
 		if(!deltaRowIds.isEmpty()){
-			// Need to check all changes that have been applied since the version of the delta?
-			List<TableRowChange> rowChanges = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersion(tableIdString, versionOfDelta);
-			// scan all changes greater than this row.
+			/*
+			 * Only the changes applied since the version of the delta that might include
+			 * one of its rows need to be downloaded. The row ID filter of each change can
+			 * have false positives so each candidate is still scanned.
+			 */
+			List<TableRowChange> rowChanges = tableRowTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableIdString, versionOfDelta, deltaRowIds);
 			for (final TableRowChange rowChange : rowChanges) {
 				if(TableChangeType.ROW.equals(rowChange.getChangeType())){
 					SparseChangeSetDto change = tableRowTruthDao.getRowSet(rowChange);
@@ -928,6 +931,11 @@ public class TableEntityManagerImpl implements TableEntityManager {
 			return wrapped.getEtag();
 		}
 
+		@Override
+		public Long getRowCount() {
+			return wrapped.getRowCount();
+		}
+
 		@Override
 		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
 				throws NotFoundException, IOException {
@@ -1,11 +1,14 @@
 package org.sagebionetworks.repo.manager.table;
 
+import java.util.concurrent.ExecutorService;
+
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProviderFactory;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
 import org.sagebionetworks.table.cluster.metadata.ObjectFieldModelResolverFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -18,14 +21,22 @@ public class TableIndexConnectionFactoryImpl implements TableIndexConnectionFact
 	private MetadataIndexProviderFactory metaDataIndexProviderFactory;
 	
 	private ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
+	
+	private TableRowCompactionManager tableRowCompactionManager;
+	
+	private ExecutorService tableChangePrefetchExecutorService;
 
 	@Autowired
 	public TableIndexConnectionFactoryImpl(ConnectionFactory connectionFactory, TableManagerSupport tableManagerSupport,
-			MetadataIndexProviderFactory metaDataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory) {
+			MetadataIndexProviderFactory metaDataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory,
+			TableRowCompactionManager tableRowCompactionManager,
+			@Qualifier("tableChangePrefetchExecutorService") ExecutorService tableChangePrefetchExecutorService) {
 		this.connectionFactory = connectionFactory;
 		this.tableManagerSupport = tableManagerSupport;
 		this.metaDataIndexProviderFactory = metaDataIndexProviderFactory;
 		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
+		this.tableRowCompactionManager = tableRowCompactionManager;
+		this.tableChangePrefetchExecutorService = tableChangePrefetchExecutorService;
 	}
 
 	@Override
@@ -37,13 +48,15 @@ public class TableIndexConnectionFactoryImpl implements TableIndexConnectionFact
 		if(dao == null){
 			throw new TableIndexConnectionUnavailableException("Cannot connect to table: "+tableId);
 		}
-		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory);
+		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory, tableRowCompactionManager,
+				tableChangePrefetchExecutorService);
 	}
 	
 	@Override
 	public TableIndexManager connectToFirstIndex(){
 		TableIndexDAO dao = connectionFactory.getFirstConnection();
-		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory);
+		return new TableIndexManagerImpl(dao, tableManagerSupport, metaDataIndexProviderFactory, objectFieldModelResolverFactory, tableRowCompactionManager,
+				tableChangePrefetchExecutorService);
 	}
 
 }
@@ -223,6 +223,29 @@ public interface TableIndexManager {
 	 */
 	void populateViewFromSnapshot(IdAndVersion idAndVersion, Iterator<String[]> input);
 
+	/**
+	 * Stream every row of the given table's index to the given writer. The first
+	 * row is the header.
+	 * 
+	 * @param idAndVersion
+	 * @param writer
+	 * @return The number of rows written, excluding the header.
+	 */
+	long streamIndexRows(IdAndVersion idAndVersion, CSVWriterStream writer);
+
+	/**
+	 * Populate an empty table index from rows written by
+	 * {@link #streamIndexRows(IdAndVersion, CSVWriterStream)}. Once all of the rows
+	 * are in the index the version of the index is set to the given change number.
+	 * 
+	 * @param idAndVersion
+	 * @param schema       The schema of the table at the given change number.
+	 * @param input
+	 * @param changeNumber The change number of the rows.
+	 */
+	void populateIndexFromRows(IdAndVersion idAndVersion, List<ColumnModel> schema, Iterator<String[]> input,
+			long changeNumber);
+
 	/**
 	 * Get a single page (up to the provided limit) of rowIds that are out-of-date
 	 * for the given view. A row is out-of-date if any of these conditions are true:
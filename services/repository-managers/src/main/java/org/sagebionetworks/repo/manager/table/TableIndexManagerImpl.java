@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -16,6 +17,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.repo.manager.table.change.ListColumnIndexTableChange;
+import org.sagebionetworks.repo.manager.table.change.PrefetchingTableChangeIterator;
 import org.sagebionetworks.repo.manager.table.change.TableChangeMetaData;
 import org.sagebionetworks.repo.manager.table.metadata.DefaultColumnModel;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
@@ -24,6 +26,7 @@ import org.sagebionetworks.repo.manager.table.metadata.ViewScopeFilterBuilder;
 import org.sagebionetworks.repo.manager.table.metadata.ViewScopeFilterProvider;
 import org.sagebionetworks.repo.model.NextPageToken;
 import org.sagebionetworks.repo.model.dbo.dao.table.InvalidStatusTokenException;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompaction;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.table.ColumnModel;
@@ -63,12 +66,28 @@ public class TableIndexManagerImpl implements TableIndexManager {
 
 	public static final long MAX_BYTES_PER_BATCH = 1024*1024*5;// 5MB
 
+	/**
+	 * A new compaction of a table's rows is created once this many changes have
+	 * been applied to the table since its last compaction. Compactions are only
+	 * created by a build that started from an empty index, so the rows of a
+	 * compaction are always the result of replaying the table's change sets.
+	 */
+	public static final long MIN_CHANGES_PER_COMPACTION = 1000;
+
+	/**
+	 * The maximum number of changes loaded ahead of the change being applied to
+	 * the index.
+	 */
+	public static final int MAX_PREFETCH_CHANGES = 8;
+
 	private final TableIndexDAO tableIndexDao;
 	private final TableManagerSupport tableManagerSupport;
 	private final MetadataIndexProviderFactory metadataIndexProviderFactory;
 	private final ObjectFieldModelResolverFactory objectFieldModelResolverFactory;
+	private final TableRowCompactionManager tableRowCompactionManager;
+	private final ExecutorService changePrefetchExecutor;
 
-	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory){
+	public TableIndexManagerImpl(TableIndexDAO dao, TableManagerSupport tableManagerSupport, MetadataIndexProviderFactory metadataIndexProviderFactory, ObjectFieldModelResolverFactory objectFieldModelResolverFactory, TableRowCompactionManager tableRowCompactionManager, ExecutorService changePrefetchExecutor){
 		if(dao == null){
 			throw new IllegalArgumentException("TableIndexDAO cannot be null");
 		}
@@ -81,10 +100,18 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		if (objectFieldModelResolverFactory == null) {
 			throw new IllegalArgumentException("ObjectFieldModelResolverFactory cannot be null");
 		}
+		if (tableRowCompactionManager == null) {
+			throw new IllegalArgumentException("TableRowCompactionManager cannot be null");
+		}
+		if (changePrefetchExecutor == null) {
+			throw new IllegalArgumentException("ExecutorService cannot be null");
+		}
 		this.tableIndexDao = dao;
 		this.tableManagerSupport = tableManagerSupport;
 		this.metadataIndexProviderFactory = metadataIndexProviderFactory;
 		this.objectFieldModelResolverFactory = objectFieldModelResolverFactory;
+		this.tableRowCompactionManager = tableRowCompactionManager;
+		this.changePrefetchExecutor = changePrefetchExecutor;
 	}
 	/*
 	 * (non-Javadoc)
@@ -606,21 +633,54 @@ public class TableIndexManagerImpl implements TableIndexManager {
 	String buildIndexToLatestChange(final IdAndVersion idAndVersion, final Iterator<TableChangeMetaData> iterator,
 			final long targetChangeNumber, final String tableResetToken) throws NotFoundException, IOException {
 		String lastEtag = null;
-		// Inspect each change.
-		while(iterator.hasNext()) {
-			TableChangeMetaData changeMetadata = iterator.next();
-			if(changeMetadata.getChangeNumber() > targetChangeNumber) {
-				// all changes have been applied to the index.
-				break;
+		long indexVersion = getCurrentVersionOfIndex(idAndVersion);
+		// An index that existed before this build could have drifted from the change sets.
+		final boolean builtFromChanges = indexVersion < 0L;
+		long compactionChangeNumber = -1L;
+		Optional<TableRowCompaction> compaction = tableRowCompactionManager.getCompaction(idAndVersion, targetChangeNumber);
+		if (compaction.isPresent()) {
+			compactionChangeNumber = compaction.get().getChangeNumber();
+			// An empty index is populated from the compaction rather than from each change up to the compaction.
+			if (indexVersion < 0L) {
+				tableManagerSupport.attemptToUpdateTableProgress(idAndVersion, tableResetToken,
+						"Restoring compaction: " + compactionChangeNumber, compactionChangeNumber, targetChangeNumber);
+				tableRowCompactionManager.populateIndexFromCompaction(idAndVersion, compaction.get(), this);
+				lastEtag = compaction.get().getChangeEtag();
+				indexVersion = compactionChangeNumber;
 			}
-			if(!isVersionAppliedToIndex(idAndVersion, changeMetadata.getChangeNumber())) {
-				// This change needs to be applied to the table
-				tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
-						tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
-						targetChangeNumber);
-				applyChangeToIndex(idAndVersion, changeMetadata);
-				lastEtag = changeMetadata.getETag();
+		}
+		final long startingIndexVersion = indexVersion;
+		// The changes that will be applied are downloaded ahead while the current change is applied.
+		PrefetchingTableChangeIterator prefetchIterator = new PrefetchingTableChangeIterator(iterator,
+				changePrefetchExecutor, (TableChangeMetaData change) -> change.getChangeNumber() > startingIndexVersion
+						&& change.getChangeNumber() <= targetChangeNumber,
+				MAX_PREFETCH_CHANGES, MAX_BYTES_PER_BATCH);
+		TableChangeMetaData lastChange = null;
+		long changesSinceCompaction = 0L;
+		try {
+			// Inspect each change.
+			while(prefetchIterator.hasNext()) {
+				TableChangeMetaData changeMetadata = prefetchIterator.next();
+				if(changeMetadata.getChangeNumber() > targetChangeNumber) {
+					// all changes have been applied to the index.
+					break;
+				}
+				lastChange = changeMetadata;
+				if (changeMetadata.getChangeNumber() > compactionChangeNumber) {
+					changesSinceCompaction++;
+				}
+				if(!isVersionAppliedToIndex(idAndVersion, changeMetadata.getChangeNumber())) {
+					// This change needs to be applied to the table
+					tableManagerSupport.attemptToUpdateTableProgress(idAndVersion,
+							tableResetToken, "Applying change: " + changeMetadata.getChangeNumber(), changeMetadata.getChangeNumber(),
+							targetChangeNumber);
+					applyChangeToIndex(idAndVersion, changeMetadata);
+					lastEtag = changeMetadata.getETag();
+				}
 			}
+		} finally {
+			// stop loading any change that will not be applied.
+			prefetchIterator.cancel();
 		}
 
 		/*
@@ -637,8 +697,29 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		}
 		// now that table is created and populated the indices on the table can be optimized.
 		optimizeTableIndices(idAndVersion);
+		if (builtFromChanges && lastChange != null && changesSinceCompaction >= MIN_CHANGES_PER_COMPACTION
+				&& !idAndVersion.getVersion().isPresent()) {
+			compactIndex(idAndVersion, lastChange, boundSchema);
+		}
 		return lastEtag;
 	}
+
+	/**
+	 * Replace the compaction of the given table with the current rows of its
+	 * index. A failure to create the compaction does not fail the build.
+	 * 
+	 * @param idAndVersion
+	 * @param lastChange   The last change applied to the index.
+	 * @param schema
+	 */
+	void compactIndex(IdAndVersion idAndVersion, TableChangeMetaData lastChange, List<ColumnModel> schema) {
+		try {
+			tableRowCompactionManager.createCompaction(idAndVersion, lastChange.getChangeNumber(),
+					lastChange.getETag(), schema, this);
+		} catch (Exception e) {
+			log.warn("Failed to create a compaction for table: " + idAndVersion, e);
+		}
+	}
 	
 	/**
 	 * Apply the provided change to the provided index.
@@ -717,6 +798,35 @@ public class TableIndexManagerImpl implements TableIndexManager {
 		tableIndexDao.populateViewFromSnapshot(idAndVersion, input, MAX_BYTES_PER_BATCH);
 	}
 
+	@Override
+	public long streamIndexRows(IdAndVersion idAndVersion, CSVWriterStream writer) {
+		return tableIndexDao.streamTableIndexRows(idAndVersion, writer);
+	}
+
+	@Override
+	public void populateIndexFromRows(IdAndVersion idAndVersion, List<ColumnModel> schema, Iterator<String[]> input,
+			long changeNumber) {
+		ValidateArgument.required(idAndVersion, "idAndVersion");
+		ValidateArgument.required(schema, "schema");
+		ValidateArgument.required(input, "input");
+		// remove anything left by an earlier attempt.
+		tableIndexDao.deleteTable(idAndVersion);
+		boolean isTableView = false;
+		setIndexSchema(idAndVersion, isTableView, schema);
+		tableIndexDao.populateTableFromRows(idAndVersion, input, MAX_BYTES_PER_BATCH);
+		for (ColumnModel column : schema) {
+			if (ColumnType.FILEHANDLEID.equals(column.getColumnType())) {
+				Set<Long> fileHandleIds = tableIndexDao.getDistinctLongValues(idAndVersion,
+						SQLUtils.getColumnNameForId(column.getId()));
+				if (!fileHandleIds.isEmpty()) {
+					tableIndexDao.applyFileHandleIdsToTable(idAndVersion, fileHandleIds);
+				}
+			}
+		}
+		populateListColumnIndexTables(idAndVersion, schema);
+		tableIndexDao.setMaxCurrentCompleteVersionForTable(idAndVersion, changeNumber);
+	}
+
 	@Override
 	public Set<Long> getOutOfDateRowsForView(IdAndVersion viewId, ViewScopeType scopeType, Set<Long> allContainersInScope,
 			long limit) {
@@ -30,6 +30,7 @@ import org.sagebionetworks.repo.model.table.ViewObjectType;
 import org.sagebionetworks.repo.model.table.ViewScopeType;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
+import org.sagebionetworks.table.cluster.RowBatchHandler;
 import org.sagebionetworks.table.cluster.SqlQuery;
 import org.sagebionetworks.table.cluster.SqlQueryBuilder;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
@@ -45,6 +46,7 @@ import org.sagebionetworks.util.ValidateArgument;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.BadSqlGrammarException;
 
 import java.util.ArrayList;
@@ -53,15 +55,32 @@ import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class TableQueryManagerImpl implements TableQueryManager {
 
 	public static final long MAX_ROWS_PER_CALL = 100;
+	/**
+	 * The default maximum amount of time a query will wait for its count, facet
+	 * and sum-file-size sub-queries.
+	 */
+	public static final long DEFAULT_SUB_QUERY_TIMEOUT_MS = 60 * 1000;
+	/**
+	 * The number of rows read at a time for a handler that accepts batches.
+	 */
+	public static final int QUERY_ROW_BATCH_SIZE = 1000;
 
 	@Autowired
 	TableManagerSupport tableManagerSupport;
 	@Autowired
 	ConnectionFactory tableConnectionFactory;
+	@Autowired
+	QueryResultCache queryResultCache;
 
 	/**
 	 * Injected via spring
@@ -72,6 +91,33 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		this.maxBytesPerRequest = maxBytesPerRequest;
 	}
 
+	/**
+	 * Injected via spring
+	 */
+	ExecutorService subQueryExecutorService;
+
+	long subQueryTimeoutMS = DEFAULT_SUB_QUERY_TIMEOUT_MS;
+
+	/**
+	 * The bounded executor used to run the count, facet and sum-file-size
+	 * sub-queries of a query concurrently with the main query.
+	 * 
+	 * @param subQueryExecutorService
+	 */
+	public void setSubQueryExecutorService(ExecutorService subQueryExecutorService) {
+		this.subQueryExecutorService = subQueryExecutorService;
+	}
+
+	/**
+	 * The maximum amount of time a query will wait for all of its sub-queries to
+	 * complete. Injected via spring from the stack configuration.
+	 * 
+	 * @param subQueryTimeoutMS
+	 */
+	public void setSubQueryTimeoutMS(long subQueryTimeoutMS) {
+		this.subQueryTimeoutMS = subQueryTimeoutMS;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -86,31 +132,30 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		try {
 			// Set the default values
 			TableQueryManagerImpl.setDefaultsValues(query);
-			// handler will capture the results of the query.
-			SinglePageRowHandler rowHandler = null;
-			if (options.runQuery()) {
-				rowHandler = new SinglePageRowHandler();
-			}
 			// pre-flight includes parsing and authorization
 			SqlQuery sqlQuery = queryPreflight(user, query, this.maxBytesPerRequest);
 
-			// run the query as a stream.
-			QueryResultBundle bundle = queryAsStream(progressCallback, user, sqlQuery, rowHandler, options);
+			// run the query or read the results from the cache.
+			QueryResultBundle bundle = queryAsSinglePage(progressCallback, sqlQuery, options);
 			// save the max rows per page.
 			if(options.returnMaxRowsPerPage()) {
 				bundle.setMaxRowsPerPage(sqlQuery.getMaxRowsPerPage());
 			}
 
-			// add captured rows to the bundle
-			if (options.runQuery()) {
-				bundle.getQueryResult().getQueryResults().setRows(rowHandler.getRows());
-			}
 			int maxRowsPerPage = sqlQuery.getMaxRowsPerPage().intValue();
 			// add the next page token if needed
 			if (isRowCountEqualToMaxRowsPerPage(bundle, maxRowsPerPage)) {
 				long nextOffset = (query.getOffset() == null ? 0 : query.getOffset()) + maxRowsPerPage;
+				Long seekAfterRowId = null;
+				List<String> seekAfterSortValues = null;
+				if (sqlQuery.isKeysetPaginated()) {
+					List<Row> rows = bundle.getQueryResult().getQueryResults().getRows();
+					Row lastRow = rows.get(rows.size() - 1);
+					seekAfterRowId = lastRow.getRowId();
+					seekAfterSortValues = sqlQuery.getKeysetSortValues(lastRow);
+				}
 				QueryNextPageToken nextPageToken = TableQueryUtils.createNextPageToken(query.getSql(), query.getSort(),
-						nextOffset, query.getLimit(), query.getSelectedFacets());
+						nextOffset, query.getLimit(), query.getSelectedFacets(), seekAfterRowId, seekAfterSortValues);
 				bundle.getQueryResult().setNextPageToken(nextPageToken);
 			}
 			return bundle;
@@ -166,10 +211,21 @@ public class TableQueryManagerImpl implements TableQueryManager {
 			model = addRowLevelFilter(user, model);
 		}
 		// Return the prepared query.
-		return new SqlQueryBuilder(model, user.getId()).tableSchema(columnModels).overrideOffset(query.getOffset())
+		SqlQueryBuilder builder = new SqlQueryBuilder(model, user.getId()).tableSchema(columnModels).overrideOffset(query.getOffset())
 				.overrideLimit(query.getLimit()).maxBytesPerPage(maxBytesPerPage)
 				.includeEntityEtag(query.getIncludeEntityEtag()).selectedFacets(query.getSelectedFacets())
-				.sortList(query.getSort()).additionalFilters(query.getAdditionalFilters()).tableType(tableType).build();
+				.sortList(query.getSort()).additionalFilters(query.getAdditionalFilters()).tableType(tableType)
+				.keysetPagination(query instanceof NextPageQuery);
+		if (query instanceof NextPageQuery) {
+			/*
+			 * Only a page read from a next page token is ordered by ROW_ID, so a first
+			 * page that never pages keeps its original ORDER BY. A next page seeks past
+			 * the last row of the previous page when the token includes it.
+			 */
+			NextPageQuery nextPageQuery = (NextPageQuery) query;
+			builder.seekAfter(nextPageQuery.getSeekAfterRowId(), nextPageQuery.getSeekAfterSortValues());
+		}
+		return builder.build();
 	}
 
 	/**
@@ -212,6 +268,50 @@ public class TableQueryManagerImpl implements TableQueryManager {
 				});
 	}
 
+	/**
+	 * Run a query that was authorized by the pre-flight and capture a single page
+	 * of results. The results for an unchanged table are read from the
+	 * {@link QueryResultCache} when possible.
+	 * 
+	 * @param progressCallback
+	 * @param query
+	 * @param options
+	 * @return
+	 * @throws TableUnavailableException
+	 * @throws TableFailedException
+	 * @throws LockUnavilableException
+	 * @throws EmptyResultException
+	 */
+	QueryResultBundle queryAsSinglePage(final ProgressCallback progressCallback, final SqlQuery query,
+			final QueryOptions options)
+			throws TableUnavailableException, TableFailedException, LockUnavilableException, EmptyResultException {
+		IdAndVersion idAndVersion = IdAndVersion.parse(query.getTableId());
+		return tryRunWithTableReadLock(progressCallback, idAndVersion, (ProgressCallback callback) -> {
+			// We can only run this query if the table is available.
+			final TableStatus status = validateTableIsAvailable(query.getTableId());
+			// The key includes the table's version so any change to the table is a miss.
+			QueryResultCacheKey cacheKey = new QueryResultCacheKey(status, query, options);
+			QueryResultBundle bundle = queryResultCache.get(cacheKey);
+			if (bundle != null) {
+				return bundle;
+			}
+			// handler will capture the results of the query.
+			SinglePageRowHandler rowHandler = null;
+			if (options.runQuery()) {
+				rowHandler = new SinglePageRowHandler();
+			}
+			bundle = queryAsStreamAfterAuthorization(progressCallback, query, rowHandler, options);
+			if (rowHandler != null) {
+				// add captured rows to the bundle
+				bundle.getQueryResult().getQueryResults().setRows(rowHandler.getRows());
+				// the etag is only returned for consistent queries.
+				bundle.getQueryResult().getQueryResults().setEtag(status.getLastTableChangeEtag());
+			}
+			queryResultCache.put(cacheKey, bundle);
+			return bundle;
+		});
+	}
+
 	/**
 	 * Run the passed runner while holding the table's read lock.
 	 * 
@@ -274,42 +374,66 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		FacetModel facetModel = new FacetModel(query.getSelectedFacets(), query, options.returnFacets());
 
 		// determine whether or not to run with facet filters
-		SqlQuery queryToRun;
+		final SqlQuery queryToRun;
 		if (facetModel.hasFiltersApplied()) {
 			queryToRun = facetModel.getFacetFilteredQuery();
 		} else {
 			queryToRun = query;
 		}
 
-		// run the actual query if needed.
-		if (rowHandler != null) {
-			// run the query
-			RowSet rowSet = runQueryAsStream(progressCallback, queryToRun, rowHandler, indexDao);
-			QueryResult queryResult = new QueryResult();
-			queryResult.setQueryResults(rowSet);
-			bundle.setQueryResult(queryResult);
-		}
+		/*
+		 * The count, facet and sum-file-size queries are independent of the main
+		 * query so they are started first and run concurrently with the main query,
+		 * each on its own connection. Every sub-query is either complete or cancelled
+		 * before the table's read lock is released.
+		 */
+		long deadlineMS = System.currentTimeMillis() + subQueryTimeoutMS;
+		// Interrupting a thread does not stop its statement so the database enforces the timeout.
+		TableIndexDAO subQueryDao = indexDao.withQueryTimeout(getSubQueryTimeoutSeconds());
+		List<Future<?>> subQueries = new ArrayList<>();
+		try {
+			Future<Long> countFuture = null;
+			if (options.runCount()) {
+				countFuture = submitSubQuery(subQueries, () -> runCountQuery(queryToRun, subQueryDao));
+			}
+			List<Future<FacetColumnResult>> facetFutures = null;
+			if (options.returnFacets()) {
+				// use original query instead of queryToRun because need the where clause that
+				// was not modified by any facets
+				facetFutures = submitFacetQueries(subQueries, facetModel, subQueryDao);
+			}
+			Future<SumFileSizes> sumFileSizesFuture = null;
+			if (options.runSumFileSizes()) {
+				sumFileSizesFuture = submitSubQuery(subQueries, () -> runSumFileSize(queryToRun, subQueryDao));
+			}
 
-		// run the count query if needed.
-		if (options.runCount()) {
-			// count requested.
-			Long count = runCountQuery(queryToRun, indexDao);
-			bundle.setQueryCount(count);
-		}
+			// run the actual query if needed.
+			if (rowHandler != null) {
+				// run the query
+				RowSet rowSet = runQueryAsStream(progressCallback, queryToRun, rowHandler, indexDao);
+				QueryResult queryResult = new QueryResult();
+				queryResult.setQueryResults(rowSet);
+				bundle.setQueryResult(queryResult);
+			}
 
-		// run the facet counts if needed
-		if (options.returnFacets()) {
-			// use original query instead of queryToRun because need the where clause that
-			// was not modified by any facets
-			List<FacetColumnResult> facetResults = runFacetQueries(facetModel, indexDao);
-			bundle.setFacets(facetResults);
-		}
-		
-		if(options.runSumFileSizes()) {
-			SumFileSizes sumFileSizes = runSumFileSize(queryToRun, indexDao);
-			bundle.setSumFileSizes(sumFileSizes);
+			if (countFuture != null) {
+				bundle.setQueryCount(getCountResult(countFuture, deadlineMS));
+			}
+			if (facetFutures != null) {
+				List<FacetColumnResult> facetResults = new ArrayList<>(facetFutures.size());
+				for (Future<FacetColumnResult> facetFuture : facetFutures) {
+					facetResults.add(getSubQueryResult(facetFuture, deadlineMS));
+				}
+				bundle.setFacets(facetResults);
+			}
+			if (sumFileSizesFuture != null) {
+				bundle.setSumFileSizes(getSubQueryResult(sumFileSizesFuture, deadlineMS));
+			}
+		} finally {
+			// Sub-queries that have not started are dropped. A statement that is already running is stopped by its timeout.
+			cancelSubQueries(subQueries);
 		}
-		
+
 		if(options.returnLastUpdatedOn()) {
 			Date lastUpdatedOn = tableManagerSupport.getLastChangedOn(idAndVersion);
 			bundle.setLastUpdatedOn(lastUpdatedOn);
@@ -318,9 +442,115 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		return bundle;
 	}
 
+	/**
+	 * Submit a single sub-query to the sub-query executor.
+	 * 
+	 * @param subQueries The submitted sub-query will be added to this list.
+	 * @param subQuery
+	 * @return
+	 */
+	<T> Future<T> submitSubQuery(List<Future<?>> subQueries, Callable<T> subQuery) {
+		Future<T> future = subQueryExecutorService.submit(subQuery);
+		subQueries.add(future);
+		return future;
+	}
+
+	/**
+	 * Submit one sub-query for each facet of the given model.
+	 * 
+	 * @param subQueries The submitted sub-queries will be added to this list.
+	 * @param facetModel
+	 * @param indexDao
+	 * @return The futures of each facet result in the order of the model's facets.
+	 */
+	List<Future<FacetColumnResult>> submitFacetQueries(List<Future<?>> subQueries, FacetModel facetModel,
+			TableIndexDAO indexDao) {
+		ValidateArgument.required(facetModel, "queryFacetColumns");
+		ValidateArgument.required(indexDao, "indexDao");
+
+		List<Future<FacetColumnResult>> facetFutures = new ArrayList<>();
+		for (FacetTransformer facetQueryTransformer : facetModel.getFacetInformationQueries()) {
+			facetFutures.add(submitSubQuery(subQueries, () -> {
+				RowSet rowSet = indexDao.query(null, facetQueryTransformer.getFacetSqlQuery());
+				return facetQueryTransformer.translateToResult(rowSet);
+			}));
+		}
+		return facetFutures;
+	}
+
+	/**
+	 * The statement timeout of each sub-query, rounded up to whole seconds.
+	 * 
+	 * @return
+	 */
+	int getSubQueryTimeoutSeconds() {
+		return (int) Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(subQueryTimeoutMS + 999L));
+	}
+
+	/**
+	 * Cancel each sub-query that has not completed. Cancelling does not stop a
+	 * statement that is already running on the database, which is bounded by the
+	 * sub-query statement timeout instead.
+	 * 
+	 * @param subQueries
+	 */
+	static void cancelSubQueries(List<Future<?>> subQueries) {
+		for (Future<?> subQuery : subQueries) {
+			subQuery.cancel(true);
+		}
+	}
+
+	/**
+	 * Wait for the result of the count sub-query until the given deadline. Callers
+	 * such as the CSV download only use the count to report progress, so a count
+	 * that does not complete in time is left out rather than failing the query.
+	 * 
+	 * @param countFuture
+	 * @param deadlineMS
+	 * @return null if the count did not complete before the deadline.
+	 */
+	Long getCountResult(Future<Long> countFuture, long deadlineMS) {
+		try {
+			return getSubQueryResult(countFuture, deadlineMS);
+		} catch (QueryTimeoutException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Wait for the result of a sub-query until the given deadline.
+	 * 
+	 * @param future
+	 * @param deadlineMS
+	 * @return
+	 * @throws QueryTimeoutException If the sub-query did not complete before the
+	 *                               deadline.
+	 */
+	<T> T getSubQueryResult(Future<T> future, long deadlineMS) {
+		try {
+			long waitMS = Math.max(0L, deadlineMS - System.currentTimeMillis());
+			return future.get(waitMS, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			// Failures of the sub-query are passed to the caller unchanged.
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("Query did not complete within " + subQueryTimeoutMS + " ms", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
 	/**
 	 * Runs facet queries (enumeration count or range min/max) for all columns in
-	 * queryFacetColumns.
+	 * queryFacetColumns. The facet queries are run concurrently.
 	 * 
 	 * @param originalQuery     the non-transformed query that was submitted by the
 	 *                          user.
@@ -332,12 +562,19 @@ public class TableQueryManagerImpl implements TableQueryManager {
 		ValidateArgument.required(facetModel, "queryFacetColumns");
 		ValidateArgument.required(indexDao, "indexDao");
 
-		List<FacetColumnResult> facetResults = new ArrayList<>();
-		for (FacetTransformer facetQueryTransformer : facetModel.getFacetInformationQueries()) {
-			RowSet rowSet = indexDao.query(null, facetQueryTransformer.getFacetSqlQuery());
-			facetResults.add(facetQueryTransformer.translateToResult(rowSet));
+		long deadlineMS = System.currentTimeMillis() + subQueryTimeoutMS;
+		TableIndexDAO subQueryDao = indexDao.withQueryTimeout(getSubQueryTimeoutSeconds());
+		List<Future<?>> subQueries = new ArrayList<>();
+		try {
+			List<Future<FacetColumnResult>> facetFutures = submitFacetQueries(subQueries, facetModel, subQueryDao);
+			List<FacetColumnResult> facetResults = new ArrayList<>(facetFutures.size());
+			for (Future<FacetColumnResult> facetFuture : facetFutures) {
+				facetResults.add(getSubQueryResult(facetFuture, deadlineMS));
+			}
+			return facetResults;
+		} finally {
+			cancelSubQueries(subQueries);
 		}
-		return facetResults;
 	}
 
 	/**
@@ -478,7 +715,11 @@ public class TableQueryManagerImpl implements TableQueryManager {
 	RowSet runQueryAsStream(ProgressCallback callback, SqlQuery query, RowHandler rowHandler, TableIndexDAO indexDao) {
 		ValidateArgument.required(query, "query");
 		ValidateArgument.required(rowHandler, "rowHandler");
-		indexDao.queryAsStream(callback, query, rowHandler);
+		if (rowHandler instanceof RowBatchHandler) {
+			indexDao.queryAsBatchStream(callback, query, QUERY_ROW_BATCH_SIZE, (RowBatchHandler) rowHandler);
+		} else {
+			indexDao.queryAsStream(callback, query, rowHandler);
+		}
 		RowSet results = new RowSet();
 		results.setHeaders(query.getSelectColumns());
 		results.setTableId(query.getTableId());
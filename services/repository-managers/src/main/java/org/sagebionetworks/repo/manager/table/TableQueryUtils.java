@@ -16,13 +16,14 @@ import org.sagebionetworks.table.query.TokenMgrError;
 import org.sagebionetworks.util.ValidateArgument;
 
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 public class TableQueryUtils {
 
 	private static final UnmodifiableXStream X_STREAM = UnmodifiableXStream.builder()
-			.alias("Query", Query.class)
-			.allowTypes(Query.class)
+			.alias("Query", NextPageQuery.class)
+			.allowTypes(Query.class, NextPageQuery.class)
 			.build();
 
 	/**
@@ -30,12 +31,12 @@ public class TableQueryUtils {
 	 * @param nextPageToken
 	 * @return
 	 */
-	public static Query createQueryFromNextPageToken(QueryNextPageToken nextPageToken) {
+	public static NextPageQuery createQueryFromNextPageToken(QueryNextPageToken nextPageToken) {
 		if (nextPageToken == null || StringUtils.isEmpty(nextPageToken.getToken())) {
 			throw new IllegalArgumentException("Next page token cannot be empty");
 		}
 		try {
-			Query query = (Query) X_STREAM.fromXML(nextPageToken.getToken(), new Query());
+			NextPageQuery query = (NextPageQuery) X_STREAM.fromXML(nextPageToken.getToken(), new NextPageQuery());
 			return query;
 		} catch (Throwable t) {
 			throw new IllegalArgumentException("Not a valid next page token", t);
@@ -50,12 +51,36 @@ public class TableQueryUtils {
 	 * @return
 	 */
 	public static QueryNextPageToken createNextPageToken(String sql, List<SortItem> sortList, Long nextOffset, Long limit, List<FacetColumnRequest> selectedFacets) {
-		Query query = new Query();
+		return createNextPageToken(sql, sortList, nextOffset, limit, selectedFacets, null, null);
+	}
+	
+	/**
+	 * Create a QueryNextPageToken that includes the position of the last row of
+	 * the current page for keyset pagination. The offset is always included.
+	 * 
+	 * @param sql
+	 * @param sortList
+	 * @param nextOffset
+	 * @param limit
+	 * @param selectedFacets
+	 * @param seekAfterRowId      The ROW_ID of the last row of the current page.
+	 * @param seekAfterSortValues The value of each sort key of the last row of
+	 *                            the current page.
+	 * @return
+	 */
+	public static QueryNextPageToken createNextPageToken(String sql, List<SortItem> sortList, Long nextOffset,
+			Long limit, List<FacetColumnRequest> selectedFacets, Long seekAfterRowId, List<String> seekAfterSortValues) {
+		NextPageQuery query = new NextPageQuery();
 		query.setSql(sql);
 		query.setSort(sortList);
 		query.setOffset(nextOffset);
 		query.setLimit(limit);
 		query.setSelectedFacets(selectedFacets);
+		query.setSeekAfterRowId(seekAfterRowId);
+		if (seekAfterSortValues != null) {
+			// serialize as a plain list regardless of the list implementation provided.
+			query.setSeekAfterSortValues(new ArrayList<>(seekAfterSortValues));
+		}
 
 		StringWriter writer = new StringWriter(sql.length() + 50);
 		X_STREAM.toXML(query, writer);
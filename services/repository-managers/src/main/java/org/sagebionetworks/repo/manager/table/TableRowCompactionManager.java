@@ -0,0 +1,60 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompaction;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+
+/**
+ * A compaction is a copy of every row of a table's index, as of a single
+ * change number, stored in S3. Building an empty index from a compaction
+ * avoids the need to apply each change set of a table with a long history.
+ * <p>
+ * Compactions are not migrated. On a new stack the first build of each table
+ * applies every change set, and only a build that started from an empty index
+ * creates a compaction, so later rebuilds on that stack start from it.
+ *
+ */
+public interface TableRowCompactionManager {
+
+	/**
+	 * Get the latest compaction of the given table that can be used to build the
+	 * table's index to the given change number. A compaction can only be used if
+	 * it does not include changes past the target and the change it was built
+	 * from has not been replaced.
+	 *
+	 * @param idAndVersion
+	 * @param targetChangeNumber
+	 * @return {@link Optional#empty()} if there is no usable compaction for the
+	 *         table.
+	 */
+	Optional<TableRowCompaction> getCompaction(IdAndVersion idAndVersion, long targetChangeNumber);
+
+	/**
+	 * Populate the empty index of the given table with the rows of the given
+	 * compaction.
+	 *
+	 * @param idAndVersion
+	 * @param compaction
+	 * @param indexManager
+	 */
+	void populateIndexFromCompaction(IdAndVersion idAndVersion, TableRowCompaction compaction,
+			TableIndexManager indexManager);
+
+	/**
+	 * Create a new compaction from the current rows of the given table's index,
+	 * replacing any existing compaction of the table. The index must have been
+	 * built from the table's change sets (or from a compaction) by the caller.
+	 *
+	 * @param idAndVersion
+	 * @param changeNumber The number of the last change applied to the index.
+	 * @param changeEtag   The etag of the last change applied to the index.
+	 * @param schema       The current schema of the index.
+	 * @param indexManager
+	 * @return
+	 */
+	TableRowCompaction createCompaction(IdAndVersion idAndVersion, long changeNumber, String changeEtag,
+			List<ColumnModel> schema, TableIndexManager indexManager);
+}
@@ -0,0 +1,309 @@
+package org.sagebionetworks.repo.manager.table;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.dao.table.TableRowTruthDAO;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompaction;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompactionDao;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.TableRowChange;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.FileProvider;
+import org.sagebionetworks.util.ValidateArgument;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * A compaction file is a GZIP file with one JSON array per line. The first
+ * line is the schema of the index, the second line is the names of the index
+ * columns, and each following line is a single row of the index. JSON is used
+ * rather than CSV so null values are preserved.
+ * <p>
+ * A replaced compaction file is not deleted right away since another build
+ * might have already resolved its key and still be reading it. Each new
+ * compaction deletes the files of the table that were replaced at least
+ * {@link #REPLACED_COMPACTION_GRACE_PERIOD_MS} ago.
+ *
+ */
+public class TableRowCompactionManagerImpl implements TableRowCompactionManager {
+
+	public static final String KEY_PREFIX = "compaction/";
+	/**
+	 * The minimum time a replaced compaction file is kept for builds that are
+	 * still reading it.
+	 */
+	public static final long REPLACED_COMPACTION_GRACE_PERIOD_MS = 24 * 60 * 60 * 1000;
+
+	@Autowired
+	private TableRowCompactionDao compactionDao;
+	@Autowired
+	private TableRowTruthDAO tableRowTruthDao;
+	@Autowired
+	private SynapseS3Client s3Client;
+	@Autowired
+	private FileProvider fileProvider;
+	@Autowired
+	private StackConfiguration config;
+	@Autowired
+	private Clock clock;
+
+	@Override
+	public Optional<TableRowCompaction> getCompaction(IdAndVersion idAndVersion, long targetChangeNumber) {
+		ValidateArgument.required(idAndVersion, "idAndVersion");
+		if (idAndVersion.getVersion().isPresent()) {
+			// compactions are only created for the current version of a table.
+			return Optional.empty();
+		}
+		Optional<TableRowCompaction> optional = compactionDao.getCompaction(idAndVersion.getId());
+		if (!optional.isPresent()) {
+			return optional;
+		}
+		TableRowCompaction compaction = optional.get();
+		if (compaction.getChangeNumber() > targetChangeNumber) {
+			return Optional.empty();
+		}
+		try {
+			TableRowChange change = tableRowTruthDao.getTableRowChange(idAndVersion.getId().toString(),
+					compaction.getChangeNumber());
+			if (!compaction.getChangeEtag().equals(change.getEtag())) {
+				// the change was replaced after the compaction was created.
+				return Optional.empty();
+			}
+		} catch (NotFoundException e) {
+			return Optional.empty();
+		}
+		return optional;
+	}
+
+	@Override
+	public void populateIndexFromCompaction(IdAndVersion idAndVersion, TableRowCompaction compaction,
+			TableIndexManager indexManager) {
+		ValidateArgument.required(idAndVersion, "idAndVersion");
+		ValidateArgument.required(compaction, "compaction");
+		ValidateArgument.required(indexManager, "indexManager");
+		File tempFile = null;
+		try {
+			tempFile = fileProvider.createTempFile("TableRowCompactionDownload", ".json.gz");
+			// download the compaction file to a temp file.
+			s3Client.getObject(new GetObjectRequest(compaction.getBucket(), compaction.getKey()), tempFile);
+			try (BufferedReader reader = new BufferedReader(fileProvider.createReader(
+					fileProvider.createGZIPInputStream(fileProvider.createFileInputStream(tempFile)),
+					StandardCharsets.UTF_8))) {
+				String schemaLine = reader.readLine();
+				if (schemaLine == null) {
+					throw new IllegalStateException("Compaction file is empty: " + compaction.getKey());
+				}
+				List<ColumnModel> schema = parseSchema(new JSONArray(schemaLine));
+				indexManager.populateIndexFromRows(idAndVersion, schema, new JSONArrayLineIterator(reader),
+						compaction.getChangeNumber());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	@Override
+	public TableRowCompaction createCompaction(IdAndVersion idAndVersion, long changeNumber, String changeEtag,
+			List<ColumnModel> schema, TableIndexManager indexManager) {
+		ValidateArgument.required(idAndVersion, "idAndVersion");
+		ValidateArgument.requirement(!idAndVersion.getVersion().isPresent(),
+				"Compactions are only created for the current version of a table");
+		ValidateArgument.required(changeEtag, "changeEtag");
+		ValidateArgument.required(schema, "schema");
+		ValidateArgument.required(indexManager, "indexManager");
+		File tempFile = null;
+		try {
+			tempFile = fileProvider.createTempFile("TableRowCompaction", ".json.gz");
+			long rowCount;
+			// Stream the rows of the index to a local file.
+			try (BufferedWriter writer = new BufferedWriter(fileProvider.createWriter(
+					fileProvider.createGZIPOutputStream(fileProvider.createFileOutputStream(tempFile)),
+					StandardCharsets.UTF_8))) {
+				writeLine(writer, createSchemaJSON(schema));
+				rowCount = indexManager.streamIndexRows(idAndVersion, (String[] nextLine) -> {
+					writeLine(writer, toJSONArray(nextLine));
+				});
+			}
+			// upload the resulting file to S3.
+			String bucket = config.getTableRowChangeBucketName();
+			String key = getKeyPrefix(idAndVersion.getId()) + UUID.randomUUID().toString() + ".json.gz";
+			s3Client.putObject(new PutObjectRequest(bucket, key, tempFile));
+			Optional<TableRowCompaction> previous = compactionDao.getCompaction(idAndVersion.getId());
+			TableRowCompaction compaction = new TableRowCompaction().withTableId(idAndVersion.getId())
+					.withChangeNumber(changeNumber).withChangeEtag(changeEtag).withRowCount(rowCount)
+					.withCreatedOn(new Date()).withBucket(bucket).withKey(key);
+			compactionDao.saveCompaction(compaction);
+			if (previous.isPresent()) {
+				deleteReplacedCompactions(idAndVersion.getId(), previous.get(), key);
+			}
+			return compaction;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			// unconditionally delete the temporary file.
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Delete each compaction file of the given table that was replaced at least
+	 * {@link #REPLACED_COMPACTION_GRACE_PERIOD_MS} ago. Every file created before
+	 * the previous compaction was replaced no later than the previous compaction
+	 * was created. The previous compaction itself was only replaced now, so it is
+	 * deleted by a later compaction.
+	 * 
+	 * @param tableId
+	 * @param previous The compaction that was just replaced.
+	 * @param newKey   The key of the compaction that replaced it.
+	 */
+	void deleteReplacedCompactions(Long tableId, TableRowCompaction previous, String newKey) {
+		long previousCreatedOn = previous.getCreatedOn().getTime();
+		if (clock.currentTimeMillis() - previousCreatedOn < REPLACED_COMPACTION_GRACE_PERIOD_MS) {
+			return;
+		}
+		for (S3ObjectSummary summary : s3Client.listObjects(previous.getBucket(), getKeyPrefix(tableId))
+				.getObjectSummaries()) {
+			String key = summary.getKey();
+			if (key.equals(previous.getKey()) || key.equals(newKey)) {
+				continue;
+			}
+			if (summary.getLastModified().getTime() < previousCreatedOn) {
+				s3Client.deleteObject(previous.getBucket(), key);
+			}
+		}
+	}
+
+	static String getKeyPrefix(Long tableId) {
+		return KEY_PREFIX + tableId + "/";
+	}
+
+	/**
+	 * Create a JSON array of the JSON of each column of the given schema.
+	 *
+	 * @param schema
+	 * @return
+	 */
+	static JSONArray createSchemaJSON(List<ColumnModel> schema) {
+		JSONArray array = new JSONArray();
+		try {
+			for (ColumnModel cm : schema) {
+				array.put(new JSONObject(EntityFactory.createJSONStringForEntity(cm)));
+			}
+		} catch (JSONObjectAdapterException e) {
+			// should never occur
+			throw new RuntimeException(e);
+		}
+		return array;
+	}
+
+	/**
+	 * Parse the schema written by {@link #createSchemaJSON(List)}.
+	 *
+	 * @param array
+	 * @return
+	 */
+	static List<ColumnModel> parseSchema(JSONArray array) {
+		List<ColumnModel> schema = new ArrayList<>(array.length());
+		try {
+			for (int i = 0; i < array.length(); i++) {
+				schema.add(EntityFactory.createEntityFromJSONString(array.getJSONObject(i).toString(),
+						ColumnModel.class));
+			}
+		} catch (JSONObjectAdapterException e) {
+			// should never occur
+			throw new RuntimeException(e);
+		}
+		return schema;
+	}
+
+	static JSONArray toJSONArray(String[] values) {
+		JSONArray array = new JSONArray();
+		for (String value : values) {
+			array.put(value == null ? JSONObject.NULL : value);
+		}
+		return array;
+	}
+
+	static String[] fromJSONArray(JSONArray array) {
+		String[] values = new String[array.length()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = array.isNull(i) ? null : array.getString(i);
+		}
+		return values;
+	}
+
+	static void writeLine(Writer writer, JSONArray line) {
+		try {
+			writer.write(line.toString());
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Iterator over the remaining lines of a compaction file.
+	 *
+	 */
+	static class JSONArrayLineIterator implements Iterator<String[]> {
+
+		private final BufferedReader reader;
+		private String nextLine;
+
+		JSONArrayLineIterator(BufferedReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (nextLine == null) {
+				try {
+					nextLine = reader.readLine();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return nextLine != null;
+		}
+
+		@Override
+		public String[] next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String line = nextLine;
+			nextLine = null;
+			return fromJSONArray(new JSONArray(line));
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.table.cluster.utils.TableModelUtils;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SparseChangeSet;
+import org.sagebionetworks.table.model.TableChange;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Iterator that loads the row changes ahead of the change that is currently
+ * being applied, so the download of the next changes from S3 overlaps with
+ * writing the current change to the index.
+ * <p>
+ * At most maxPrefetchCount changes are held ahead of the current change, and
+ * no more changes are loaded once the estimated size of the changes that have
+ * not been consumed reaches maxPrefetchBytes. A change that is still loading
+ * is estimated from its row count and the largest row size seen so far, or at
+ * maxPrefetchBytes when neither is known, so the budget also bounds the
+ * changes in flight. Only the changes that pass the given filter are loaded
+ * ahead, other changes are passed through unchanged.
+ * <p>
+ * Callers must {@link #cancel()} the iterator if it is not consumed to the end.
+ * This class is not thread safe.
+ *
+ */
+public class PrefetchingTableChangeIterator implements Iterator<TableChangeMetaData> {
+
+	private final Iterator<TableChangeMetaData> source;
+	private final ExecutorService executor;
+	private final Predicate<TableChangeMetaData> filter;
+	private final int maxPrefetchCount;
+	private final long maxPrefetchBytes;
+	private final LinkedList<TableChangeMetaData> buffer = new LinkedList<>();
+	// The largest maximum row size of the changes loaded so far.
+	private long maxBytesPerRow = 0L;
+
+	/**
+	 *
+	 * @param source           The changes in order.
+	 * @param executor         Used to load the changes ahead.
+	 * @param filter           Only changes that pass this filter are loaded ahead.
+	 * @param maxPrefetchCount The maximum number of changes held ahead of the
+	 *                         current change.
+	 * @param maxPrefetchBytes The estimated number of bytes of loading and
+	 *                         loaded changes at which no more changes are loaded
+	 *                         ahead.
+	 */
+	public PrefetchingTableChangeIterator(Iterator<TableChangeMetaData> source, ExecutorService executor,
+			Predicate<TableChangeMetaData> filter, int maxPrefetchCount, long maxPrefetchBytes) {
+		ValidateArgument.required(source, "source");
+		ValidateArgument.required(executor, "executor");
+		ValidateArgument.required(filter, "filter");
+		ValidateArgument.requirement(maxPrefetchCount > 0, "maxPrefetchCount must be greater than zero");
+		ValidateArgument.requirement(maxPrefetchBytes > 0, "maxPrefetchBytes must be greater than zero");
+		this.source = source;
+		this.executor = executor;
+		this.filter = filter;
+		this.maxPrefetchCount = maxPrefetchCount;
+		this.maxPrefetchBytes = maxPrefetchBytes;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return !buffer.isEmpty() || source.hasNext();
+	}
+
+	@Override
+	public TableChangeMetaData next() {
+		fillBuffer();
+		if (buffer.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		TableChangeMetaData next = buffer.removeFirst();
+		// start loading the following changes before the caller applies this change.
+		fillBuffer();
+		return next;
+	}
+
+	/**
+	 * Cancel the loading of any change that has not been consumed.
+	 */
+	public void cancel() {
+		for (TableChangeMetaData change : buffer) {
+			if (change instanceof PrefetchedChange) {
+				((PrefetchedChange) change).future.cancel(true);
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Read ahead from the source until the buffer is full or the buffered changes
+	 * reach the byte budget.
+	 */
+	void fillBuffer() {
+		while (buffer.size() < maxPrefetchCount && source.hasNext() && getBufferedBytes() < maxPrefetchBytes) {
+			TableChangeMetaData change = source.next();
+			if (TableChangeType.ROW.equals(change.getChangeType()) && filter.test(change)) {
+				buffer.add(new PrefetchedChange(change,
+						executor.submit(() -> change.loadChangeData(SparseChangeSet.class))));
+			} else {
+				buffer.add(change);
+			}
+		}
+	}
+
+	/**
+	 * The estimated size of the changes in the buffer, including the changes that
+	 * are still loading. Stops counting once the byte budget is reached.
+	 *
+	 * @return
+	 */
+	long getBufferedBytes() {
+		long bytes = 0L;
+		for (TableChangeMetaData change : buffer) {
+			if (change instanceof PrefetchedChange) {
+				bytes += getEstimatedBytes((PrefetchedChange) change);
+				if (bytes >= maxPrefetchBytes) {
+					return bytes;
+				}
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * A loaded change is estimated from its data. A change that is still loading
+	 * is estimated from its row count and the largest row size loaded so far, or
+	 * at the full budget when either is unknown.
+	 *
+	 * @param change
+	 * @return
+	 */
+	long getEstimatedBytes(PrefetchedChange change) {
+		if (change.future.isDone()) {
+			SparseChangeSet loaded = change.getLoadedChange();
+			if (loaded == null) {
+				// the failure is thrown when the change is consumed.
+				return 0L;
+			}
+			maxBytesPerRow = Math.max(maxBytesPerRow, TableModelUtils.calculateMaxRowSize(loaded.getSchema()));
+			return estimateBytes(loaded);
+		}
+		Long rowCount = change.getRowCount();
+		if (rowCount == null || maxBytesPerRow < 1L) {
+			return maxPrefetchBytes;
+		}
+		return rowCount * maxBytesPerRow;
+	}
+
+	/**
+	 * The estimated size of a loaded change set is the maximum size of a row of
+	 * its schema times its number of rows.
+	 *
+	 * @param changeSet
+	 * @return
+	 */
+	static long estimateBytes(SparseChangeSet changeSet) {
+		return (long) TableModelUtils.calculateMaxRowSize(changeSet.getSchema()) * changeSet.getRowCount();
+	}
+
+	/**
+	 * A change with its data loading in the background.
+	 *
+	 */
+	static class PrefetchedChange implements TableChangeMetaData {
+
+		private final TableChangeMetaData wrapped;
+		private final Future<ChangeData<SparseChangeSet>> future;
+
+		PrefetchedChange(TableChangeMetaData wrapped, Future<ChangeData<SparseChangeSet>> future) {
+			this.wrapped = wrapped;
+			this.future = future;
+		}
+
+		@Override
+		public Long getChangeNumber() {
+			return wrapped.getChangeNumber();
+		}
+
+		@Override
+		public TableChangeType getChangeType() {
+			return wrapped.getChangeType();
+		}
+
+		@Override
+		public String getETag() {
+			return wrapped.getETag();
+		}
+
+		@Override
+		public Long getRowCount() {
+			return wrapped.getRowCount();
+		}
+
+		/**
+		 * The loaded change set.
+		 *
+		 * @return Null if the change is still loading, was cancelled or failed to
+		 *         load.
+		 */
+		SparseChangeSet getLoadedChange() {
+			if (!future.isDone() || future.isCancelled()) {
+				return null;
+			}
+			try {
+				return future.get().getChange();
+			} catch (InterruptedException | ExecutionException e) {
+				return null;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends TableChange> ChangeData<T> loadChangeData(Class<T> clazz)
+				throws NotFoundException, IOException {
+			if (!SparseChangeSet.class.equals(clazz)) {
+				return wrapped.loadChangeData(clazz);
+			}
+			try {
+				return (ChangeData<T>) future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof NotFoundException) {
+					throw (NotFoundException) cause;
+				}
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
+	}
+}
@@ -43,4 +43,11 @@ public interface TableChangeMetaData {
 	 * @return
 	 */
 	String getETag();
+
+	/**
+	 * The number of rows in this change, if known.
+	 * 
+	 * @return Null for changes without rows.
+	 */
+	Long getRowCount();
 }
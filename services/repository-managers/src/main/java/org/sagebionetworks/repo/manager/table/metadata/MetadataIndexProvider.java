@@ -181,6 +181,36 @@ public interface MetadataIndexProvider extends HasViewObjectType, ViewScopeFilte
 	 * @return Map.key = containerId and map.value = sum of children CRCs
 	 */
 	Map<Long, Long> getSumOfChildCRCsForEachContainer(List<Long> containerIds);
+
+	/**
+	 * For the children of the given container get the sum of CRCs of the children
+	 * in each ID bucket, where a child is in bucket (ID DIV bucketWidth). The CRC
+	 * of each child must be computed as in
+	 * {@link #getSumOfChildCRCsForEachContainer(List)}.
+	 * 
+	 * @param containerId
+	 * @param bucketWidth   The width of each ID bucket to sum
+	 * @param filterWidth   The width of the filter buckets, a multiple of the
+	 *                      bucketWidth
+	 * @param filterBuckets Only the children within these filter buckets are
+	 *                      included
+	 * @return Map.key = bucket and map.value = sum of the CRCs of the children in
+	 *         the bucket
+	 */
+	Map<Long, Long> getSumOfChildCRCsForEachBucket(Long containerId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets);
+
+	/**
+	 * For the given container id return the <id, etag, benefactor> of the direct
+	 * children within the given ID buckets, where a child is in bucket (ID DIV
+	 * bucketWidth).
+	 * 
+	 * @param containerId
+	 * @param bucketWidth
+	 * @param buckets
+	 * @return The list of children metadata including the id, etag and benefactor
+	 */
+	List<IdAndEtag> getChildrenInBuckets(Long containerId, long bucketWidth, List<Long> buckets);
 	
 	/**
 	 * Validate the view type mask
@@ -151,6 +151,17 @@ public class EntityMetadataIndexProvider implements MetadataIndexProvider {
 		return nodeDao.getSumOfChildCRCsForEachParent(containerIds);
 	}
 
+	@Override
+	public Map<Long, Long> getSumOfChildCRCsForEachBucket(Long containerId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets) {
+		return nodeDao.getSumOfChildCRCsForEachBucket(containerId, bucketWidth, filterWidth, filterBuckets);
+	}
+
+	@Override
+	public List<IdAndEtag> getChildrenInBuckets(Long containerId, long bucketWidth, List<Long> buckets) {
+		return nodeDao.getChildrenInBuckets(containerId, bucketWidth, buckets);
+	}
+
 	@Override
 	public DefaultColumnModel getDefaultColumnModel(Long viewTypeMask) {
 		ValidateArgument.required(viewTypeMask, "viewTypeMask");
@@ -189,6 +189,17 @@ public class SubmissionMetadataIndexProvider implements MetadataIndexProvider {
 		return submissionDao.getSumOfSubmissionCRCsForEachEvaluation(containerIds);
 	}
 
+	@Override
+	public Map<Long, Long> getSumOfChildCRCsForEachBucket(Long containerId, long bucketWidth, long filterWidth,
+			List<Long> filterBuckets) {
+		return submissionDao.getSumOfSubmissionCRCsForEachBucket(containerId, bucketWidth, filterWidth, filterBuckets);
+	}
+
+	@Override
+	public List<IdAndEtag> getChildrenInBuckets(Long containerId, long bucketWidth, List<Long> buckets) {
+		return submissionDao.getSubmissionIdAndEtagInBuckets(containerId, bucketWidth, buckets);
+	}
+
 	@Override
 	public void validateTypeMask(Long viewTypeMask) {
 		// Nothing to validate, the mask is not used
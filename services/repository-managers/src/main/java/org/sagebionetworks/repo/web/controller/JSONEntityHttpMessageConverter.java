@@ -2,16 +2,23 @@ package org.sagebionetworks.repo.web.controller;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.sagebionetworks.repo.model.Entity;
 import org.sagebionetworks.repo.model.ErrorResponse;
 import org.sagebionetworks.repo.util.JSONEntityUtil;
@@ -102,21 +109,24 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 			// HTTP 1.1 says that the default is ISO-8859-1
 			charsetForDeSerializingBody = HTTP_1_1_DEFAULT_CHARSET;
 		}
-		String jsonString = JSONEntityHttpMessageConverter.readToString(inputMessage.getBody(), charsetForDeSerializingBody);
+		JSONObject jsonObject;
 		try {
-			return EntityFactory.createEntityFromJSONString(jsonString, clazz);
+			jsonObject = JSONEntityHttpMessageConverter.readJSONObject(inputMessage.getBody(), charsetForDeSerializingBody);
+		} catch (JSONException e) {
+			throw new HttpMessageNotReadableException(e.getMessage(), e);
+		}
+		try {
+			return EntityFactory.createEntityFromJSONObject(jsonObject, clazz);
 		} catch (JSONObjectAdapterException e) {
 			// Try to convert entity type to a concrete type and try again. See PLFM-2079.
 			try {
-				JSONObject jsonObject = new JSONObject(jsonString);
 				if(jsonObject.has(ENTITY_TYPE)){
 					// get the entity type so we can replace it with concrete type
 					String type = jsonObject.getString(ENTITY_TYPE);
 					jsonObject.remove(ENTITY_TYPE);
 					jsonObject.put(CONCRETE_TYPE, type);
-					jsonString = jsonObject.toString();
 					// try again
-					return EntityFactory.createEntityFromJSONString(jsonString, clazz);
+					return EntityFactory.createEntityFromJSONObject(jsonObject, clazz);
 				}else{
 					// Something else went wrong
 					throw new HttpMessageNotReadableException(e.getMessage(), e);
@@ -129,6 +139,29 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 		}
 	}
 
+	/**
+	 * Parse a JSON object directly from an input stream, without first reading
+	 * the entire body into a string.
+	 * 
+	 * @param in
+	 * @param charSet
+	 * @return
+	 * @throws IOException
+	 * @throws JSONException If the stream does not contain a valid JSON object.
+	 */
+	public static JSONObject readJSONObject(InputStream in, Charset charSet) throws IOException {
+		if(in == null) throw new IllegalArgumentException("No content to map to Object due to end of input");
+		try {
+			if(charSet == null){
+				charSet = Charset.forName(UTF_8);
+			}
+			Reader reader = new BufferedReader(new InputStreamReader(in, charSet));
+			return new JSONObject(new JSONTokener(reader));
+		} finally {
+			in.close();
+		}
+	}
+
 	/**
 	 * Read a string from an input stream
 	 * 
@@ -200,6 +233,43 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 		}
 	}
 
+	/**
+	 * Write the JSON of an entity directly to an output stream. The JSON is
+	 * encoded as it is written, so neither a string nor a byte array of the
+	 * entire JSON is created.
+	 * 
+	 * @param entity
+	 * @param out
+	 * @param charSet
+	 * @return The number of bytes written.
+	 * @throws IOException
+	 * @throws JSONObjectAdapterException
+	 */
+	public static long writeEntityToStream(JSONEntity entity, OutputStream out, Charset charSet)
+			throws IOException, JSONObjectAdapterException {
+		try {
+			if(charSet == null){
+				charSet = Charset.forName(UTF_8);
+			}
+			JSONObject jsonObject = new JSONObject();
+			entity.writeToJSONObject(new JSONObjectAdapterImpl(jsonObject));
+			CountingOutputStream counting = new CountingOutputStream(out);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(counting, charSet));
+			try {
+				jsonObject.write(writer);
+			} catch (JSONException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new JSONObjectAdapterException(e);
+			}
+			writer.flush();
+			return counting.getByteCount();
+		} finally {
+			out.close();
+		}
+	}
+
 	@Override
 	public void write(JSONEntity entity, final MediaType contentType,
 			HttpOutputMessage outputMessage) throws IOException,
@@ -223,13 +293,13 @@ public class JSONEntityHttpMessageConverter implements	HttpMessageConverter<JSON
 			}
 			HttpHeaders headers = outputMessage.getHeaders();
 			headers.setContentType(contentTypeForResponseHeader);
-			String jsonString;
+			long length;
 			if (contentTypeForResponseHeader.includes(MediaType.TEXT_PLAIN)) {
-				jsonString = convertEntityToPlainText(entity);
+				String text = convertEntityToPlainText(entity);
+				length = JSONEntityHttpMessageConverter.writeToStream(text, outputMessage.getBody(), charsetForSerializingBody);
 			} else {
-				jsonString = EntityFactory.createJSONStringForEntity(entity);
+				length = JSONEntityHttpMessageConverter.writeEntityToStream(entity, outputMessage.getBody(), charsetForSerializingBody);
 			}
-			long length = JSONEntityHttpMessageConverter.writeToStream(jsonString, outputMessage.getBody(), charsetForSerializingBody);
 			if (headers.getContentLength() == -1) {
 				headers.setContentLength(length);
 			}
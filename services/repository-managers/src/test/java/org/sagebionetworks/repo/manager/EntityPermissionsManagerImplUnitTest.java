@@ -27,6 +27,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.StackConfiguration;
 import org.sagebionetworks.repo.manager.dataaccess.RestrictionInformationManager;
+import org.sagebionetworks.repo.manager.entity.EntityHierarchyCache;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.AccessControlList;
 import org.sagebionetworks.repo.model.AccessControlListDAO;
@@ -92,6 +93,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	private TransactionalMessenger mockTransactionalMessenger;
 	@Mock
 	private ObjectTypeManager mockObjectTypeManager;
+	@Mock
+	private EntityHierarchyCache mockEntityHierarchyCache;
 	
 	private UserInfo anonymousUser;
 	
@@ -172,8 +175,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testGetUserPermissionsForCertifiedUserOnProject() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(projectId)).thenReturn(project);
-		when(mockNodeDao.getBenefactor(projectId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(projectParentId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(projectId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(projectParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(projectId)).thenReturn(EntityType.project);
 
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
@@ -213,8 +216,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testGetUserPermissionsForNonCertifiedUserOnProject() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(projectId)).thenReturn(project);
-		when(mockNodeDao.getBenefactor(projectId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(projectParentId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(projectId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(projectParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(projectId)).thenReturn(EntityType.project);
 
 		when(mockAclDAO.canAccess(eq(nonCertifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
@@ -254,7 +257,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testCanUpload() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(projectId)).thenReturn(project);
-		when(mockNodeDao.getBenefactor(projectId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(projectId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(projectId)).thenReturn(EntityType.project);
 
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
@@ -278,8 +281,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testGetUserPermissionsForCertifiedUserOnFolder() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
-		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(folderParentId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
@@ -319,8 +322,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testReadButNotDownload() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
-		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(folderParentId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderParentId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
@@ -364,7 +367,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testGetUserPermissionsForNonCertifiedUserOnFolder() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
-		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(folderId)).thenReturn(EntityType.folder);
 
 		when(mockAclDAO.canAccess(eq(nonCertifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
@@ -409,7 +412,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testAnonymousCannotDownloadDockerRepo() {
 		// Mock dependencies.
 		when(mockNodeDao.getNodeTypeById(dockerRepoId)).thenReturn(EntityType.dockerrepo);
-		when(mockNodeDao.getBenefactor(dockerRepoId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(dockerRepoId)).thenReturn(benefactorId);
 
 		assertFalse(entityPermissionsManager.hasAccess(dockerRepoId, ACCESS_TYPE.DOWNLOAD, anonymousUser).isAuthorized());
 	}
@@ -418,7 +421,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testGetUserPermissionsForCertifiedUserOnDockerRepo() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(dockerRepoId)).thenReturn(dockerRepo);
-		when(mockNodeDao.getBenefactor(dockerRepoId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(dockerRepoId)).thenReturn(benefactorId);
 		when(mockNodeDao.getNodeTypeById(dockerRepoId)).thenReturn(EntityType.dockerrepo);
 		when(mockAclDAO.canAccess(eq(certifiedUserInfo.getGroups()), eq(benefactorId), eq(ObjectType.ENTITY),
 				any(ACCESS_TYPE.class))).thenReturn(true);
@@ -495,7 +498,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	@Test
 	public void testUpdateAcl(){
 		// Mock dependencies.
-		when(mockNodeDao.getBenefactor(entityId)).thenReturn(entityId);
+		when(mockEntityHierarchyCache.getBenefactor(entityId)).thenReturn(entityId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -526,8 +529,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testOverrideInheritanceProject(){
 		// Mock dependencies.
 		when(mockNodeDao.getNode(projectId)).thenReturn(project);
-		when(mockNodeDao.getBenefactor(projectId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(benefactorId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(projectId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(benefactorId)).thenReturn(benefactorId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -548,8 +551,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testOverrideInheritanceFolder(){
 		// Mock dependencies.
 		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
-		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(benefactorId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(benefactorId)).thenReturn(benefactorId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -570,8 +573,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testOverrideInheritanceFile(){
 		// Mock dependencies.
 		when(mockNodeDao.getNode(fileId)).thenReturn(file);
-		when(mockNodeDao.getBenefactor(fileId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(benefactorId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(fileId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(benefactorId)).thenReturn(benefactorId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -592,8 +595,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testOverrideInheritance_CannotOverrideOnChildOfStsFolder() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(fileId)).thenReturn(file);
-		when(mockNodeDao.getBenefactor(fileId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(benefactorId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(fileId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(benefactorId)).thenReturn(benefactorId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -618,8 +621,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testOverrideInheritance_CanOverrideOnStsFolder() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(folderId)).thenReturn(folder);
-		when(mockNodeDao.getBenefactor(folderId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(benefactorId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(folderId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(benefactorId)).thenReturn(benefactorId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -647,8 +650,8 @@ public class EntityPermissionsManagerImplUnitTest {
 	public void testOverrideInheritance_CanOverrideOnNonStsFolder() {
 		// Mock dependencies.
 		when(mockNodeDao.getNode(fileId)).thenReturn(file);
-		when(mockNodeDao.getBenefactor(fileId)).thenReturn(benefactorId);
-		when(mockNodeDao.getBenefactor(benefactorId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(fileId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(benefactorId)).thenReturn(benefactorId);
 
 		when(mockUser.getId()).thenReturn(userId);
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -673,7 +676,7 @@ public class EntityPermissionsManagerImplUnitTest {
 
 	@Test
 	public void testRestoreInheritanceProject(){
-		when(mockNodeDao.getBenefactor(project.getId())).thenReturn(project.getId());
+		when(mockEntityHierarchyCache.getBenefactor(project.getId())).thenReturn(project.getId());
 		when(mockAclDAO.canAccess(anySet(), anyString(), any(ObjectType.class), any(ACCESS_TYPE.class))).
 		thenReturn(true);
 		when(mockNodeDao.touch(any(Long.class), anyString())).thenReturn(newEtag);
@@ -685,7 +688,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	
 	@Test
 	public void testRestoreInheritanceFolder(){
-		when(mockNodeDao.getBenefactor(folder.getId())).thenReturn(folder.getId());
+		when(mockEntityHierarchyCache.getBenefactor(folder.getId())).thenReturn(folder.getId());
 		when(mockAclDAO.canAccess(anySet(), anyString(), any(ObjectType.class), any(ACCESS_TYPE.class))).
 		thenReturn(true);
 		when(mockNodeDao.touch(any(Long.class), anyString())).thenReturn(newEtag);
@@ -697,7 +700,7 @@ public class EntityPermissionsManagerImplUnitTest {
 	
 	@Test
 	public void testRestoreInheritanceFile(){
-		when(mockNodeDao.getBenefactor(file.getId())).thenReturn(file.getId());
+		when(mockEntityHierarchyCache.getBenefactor(file.getId())).thenReturn(file.getId());
 		when(mockAclDAO.canAccess(anySet(), anyString(), any(ObjectType.class), any(ACCESS_TYPE.class))).
 		thenReturn(true);
 		when(mockNodeDao.touch(any(Long.class), anyString())).thenReturn(newEtag);
@@ -717,7 +720,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		boolean acceptedTermsOfUse = false;
 		
 		when(mockNodeDao.getNodeTypeById(nodeId)).thenReturn(EntityType.file);
-		when(mockNodeDao.getBenefactor(nodeId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(nodeId)).thenReturn(benefactorId);
 		userInfo.setAcceptsTermsOfUse(acceptedTermsOfUse);
 		
 		// Call under test
@@ -727,7 +730,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		assertEquals("You have not yet agreed to the Synapse Terms of Use.", status.getMessage());
 		
 		verify(mockNodeDao).getNodeTypeById(nodeId);
-		verify(mockNodeDao).getBenefactor(nodeId);
+		verify(mockEntityHierarchyCache).getBenefactor(nodeId);
 	}
 	
 	@Test
@@ -738,7 +741,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		UserInfo userInfo = anonymousUser;
 		
 		when(mockNodeDao.getNodeTypeById(nodeId)).thenReturn(EntityType.file);
-		when(mockNodeDao.getBenefactor(nodeId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(nodeId)).thenReturn(benefactorId);
 		when(mockObjectTypeManager.getObjectsDataType(nodeId, ObjectType.ENTITY)).thenReturn(dataType);
 		when(mockAclDAO.canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.READ)).thenReturn(true);
 		restrictionInfoRqst.setObjectId(nodeId);
@@ -753,7 +756,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		
 		verify(mockAclDAO).canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.READ);
 		verify(mockNodeDao).getNodeTypeById(nodeId);
-		verify(mockNodeDao).getBenefactor(nodeId);
+		verify(mockEntityHierarchyCache).getBenefactor(nodeId);
 		verify(mockObjectTypeManager).getObjectsDataType(nodeId, ObjectType.ENTITY);
 	}
 	
@@ -766,7 +769,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		UserInfo userInfo = anonymousUser;
 		
 		when(mockNodeDao.getNodeTypeById(nodeId)).thenReturn(EntityType.file);
-		when(mockNodeDao.getBenefactor(nodeId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(nodeId)).thenReturn(benefactorId);
 		when(mockObjectTypeManager.getObjectsDataType(nodeId, ObjectType.ENTITY)).thenReturn(dataType);
 		when(mockAclDAO.canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.READ)).thenReturn(true);
 		restrictionInfoRqst.setObjectId(nodeId);
@@ -782,7 +785,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		
 		verify(mockAclDAO).canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.READ);
 		verify(mockNodeDao).getNodeTypeById(nodeId);
-		verify(mockNodeDao).getBenefactor(nodeId);
+		verify(mockEntityHierarchyCache).getBenefactor(nodeId);
 		verify(mockObjectTypeManager).getObjectsDataType(nodeId, ObjectType.ENTITY);
 		verify(mockRestrictionInformationManager).getRestrictionInformation(userInfo, restrictionInfoRqst);
 
@@ -798,7 +801,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		userInfo.setAcceptsTermsOfUse(acceptedTermsOfUse);
 		
 		when(mockNodeDao.getNodeTypeById(nodeId)).thenReturn(EntityType.file);
-		when(mockNodeDao.getBenefactor(nodeId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(nodeId)).thenReturn(benefactorId);
 		when(mockObjectTypeManager.getObjectsDataType(nodeId, ObjectType.ENTITY)).thenReturn(dataType);
 		when(mockAclDAO.canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.READ)).thenReturn(true);
 		restrictionInfoRqst.setObjectId(nodeId);
@@ -813,7 +816,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		
 		verify(mockAclDAO).canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.READ);
 		verify(mockNodeDao).getNodeTypeById(nodeId);
-		verify(mockNodeDao).getBenefactor(nodeId);
+		verify(mockEntityHierarchyCache).getBenefactor(nodeId);
 		verify(mockObjectTypeManager).getObjectsDataType(nodeId, ObjectType.ENTITY);
 	}
 	
@@ -826,7 +829,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		String benefactorId = nodeId;
 		
 		when(mockNodeDao.getNodeTypeById(nodeId)).thenReturn(EntityType.file);
-		when(mockNodeDao.getBenefactor(nodeId)).thenReturn(benefactorId);
+		when(mockEntityHierarchyCache.getBenefactor(nodeId)).thenReturn(benefactorId);
 		when(mockObjectTypeManager.getObjectsDataType(nodeId, ObjectType.ENTITY)).thenReturn(dataType);
 
 		when(mockAclDAO.canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.DOWNLOAD)).thenReturn(false);
@@ -838,7 +841,7 @@ public class EntityPermissionsManagerImplUnitTest {
 		assertEquals("You lack DOWNLOAD access to the requested entity.", status.getMessage());
 		
 		verify(mockNodeDao).getNodeTypeById(nodeId);
-		verify(mockNodeDao).getBenefactor(nodeId);
+		verify(mockEntityHierarchyCache).getBenefactor(nodeId);
 		verify(mockObjectTypeManager).getObjectsDataType(nodeId, ObjectType.ENTITY);
 		verify(mockAclDAO).canAccess(userInfo.getGroups(), benefactorId, ObjectType.ENTITY, ACCESS_TYPE.DOWNLOAD);
 	}
@@ -0,0 +1,97 @@
+package org.sagebionetworks.repo.manager.asynch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.dao.asynch.AsynchJobProgress;
+import org.sagebionetworks.repo.model.dao.asynch.AsynchronousJobStatusDAO;
+import org.sagebionetworks.util.Clock;
+
+import com.google.common.collect.Sets;
+
+@ExtendWith(MockitoExtension.class)
+public class AsynchJobProgressBufferImplTest {
+
+	@Mock
+	private AsynchronousJobStatusDAO mockAsynchJobStatusDao;
+	@Mock
+	private Clock mockClock;
+	@Captor
+	private ArgumentCaptor<List<AsynchJobProgress>> progressCaptor;
+
+	private AsynchJobProgressBufferImpl buffer;
+
+	@BeforeEach
+	public void before() {
+		buffer = new AsynchJobProgressBufferImpl(mockAsynchJobStatusDao, mockClock);
+	}
+
+	@Test
+	public void testFlushWithLatestProgress() {
+		when(mockClock.currentTimeMillis()).thenReturn(1L, 2L, 3L);
+		buffer.add("123", 0L, 100L, "first");
+		buffer.add("123", 50L, 100L, "second");
+		buffer.add("456", 1L, 10L, "other");
+		assertEquals(2, buffer.getBufferedCount());
+		// call under test
+		buffer.flush();
+		verify(mockAsynchJobStatusDao).updateJobProgressBatch(progressCaptor.capture());
+		List<AsynchJobProgress> batch = progressCaptor.getValue();
+		assertEquals(2, batch.size());
+		AsynchJobProgress latest = new AsynchJobProgress("123", 50L, 100L, "second", 2L);
+		AsynchJobProgress other = new AsynchJobProgress("456", 1L, 10L, "other", 3L);
+		assertEquals(Sets.newHashSet(latest, other), new HashSet<>(batch));
+		assertEquals(0, buffer.getBufferedCount());
+	}
+
+	@Test
+	public void testFlushEmpty() {
+		// call under test
+		buffer.flush();
+		verify(mockAsynchJobStatusDao, never()).updateJobProgressBatch(any());
+	}
+
+	@Test
+	public void testRemove() {
+		when(mockClock.currentTimeMillis()).thenReturn(1L);
+		buffer.add("123", 0L, 100L, "first");
+		// call under test
+		buffer.remove("123");
+		buffer.flush();
+		verify(mockAsynchJobStatusDao, never()).updateJobProgressBatch(any());
+	}
+
+	@Test
+	public void testFlushWithFailure() {
+		when(mockClock.currentTimeMillis()).thenReturn(1L);
+		buffer.add("123", 0L, 100L, "first");
+		doThrow(new IllegalStateException("nope")).when(mockAsynchJobStatusDao).updateJobProgressBatch(any());
+		// call under test
+		buffer.flush();
+		// the progress is retried on the next flush.
+		assertEquals(1, buffer.getBufferedCount());
+	}
+
+	@Test
+	public void testAddWithNullJobId() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			buffer.add(null, 0L, 100L, "first");
+		});
+	}
+}
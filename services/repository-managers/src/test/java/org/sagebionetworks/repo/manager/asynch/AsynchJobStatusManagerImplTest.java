@@ -78,6 +78,8 @@ public class AsynchJobStatusManagerImplTest {
 	StackConfiguration mockStackConfig;
 	@Mock
 	Consumer mockConsumer;
+	@Mock
+	AsynchJobProgressBuffer mockAsynchJobProgressBuffer;
 	@Captor
 	ArgumentCaptor<ProfileData> profileCaptor;
 	
@@ -302,7 +304,11 @@ public class AsynchJobStatusManagerImplTest {
 	@Test (expected=IllegalStateException.class)
 	public void testUpdateProgressReadOnlyMode(){
 		when(mockStackStatusDao.getCurrentStatus()).thenReturn(StatusEnum.READ_ONLY);
-		manager.updateJobProgress("123", 0L, 100L, "testing");
+		try {
+			manager.updateJobProgress("123", 0L, 100L, "testing");
+		} finally {
+			verify(mockAsynchJobProgressBuffer, never()).add(anyString(), any(), any(), any());
+		}
 	}
 	
 	/**
@@ -319,6 +325,9 @@ public class AsynchJobStatusManagerImplTest {
 		when(mockStackStatusDao.getCurrentStatus()).thenReturn(StatusEnum.READ_WRITE);
 		String jobId = "123";
 		manager.updateJobProgress(jobId, 0L, 100L, "testing");
+		// progress is buffered rather than written through.
+		verify(mockAsynchJobProgressBuffer).add(jobId, 0L, 100L, "testing");
+		verify(mockAsynchJobStatusDao, never()).updateJobProgress(anyString(), any(), any(), any());
 	}
 
 	/**
@@ -372,6 +381,7 @@ public class AsynchJobStatusManagerImplTest {
 		// call under test
 		manager.setComplete("456", body);
 		String requestHash = null;
+		verify(mockAsynchJobProgressBuffer).remove("456");
 		verify(mockAsynchJobStatusDao).setComplete("456", body, requestHash);
 		verify(mockConsumer).addProfileData(profileCaptor.capture());
 		ProfileData profile = profileCaptor.getValue();
@@ -414,6 +424,7 @@ public class AsynchJobStatusManagerImplTest {
 			String result = manager.setJobFailed("123", new Throwable("Failed"));
 			assertEquals("etag", result);
 		}
+		verify(mockAsynchJobProgressBuffer, times(StatusEnum.values().length)).remove("123");
 	}
 	
 	@Test
@@ -0,0 +1,329 @@
+package org.sagebionetworks.repo.manager.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.repo.model.AccessControlListDAO;
+import org.sagebionetworks.repo.model.EntityType;
+import org.sagebionetworks.repo.model.NodeDAO;
+import org.sagebionetworks.repo.model.NodeHierarchyEntry;
+import org.sagebionetworks.repo.model.ObjectType;
+import org.sagebionetworks.repo.model.dbo.dao.DBOChangeDAO;
+import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.repo.model.message.TransactionalMessenger;
+import org.sagebionetworks.util.Clock;
+
+import com.google.common.collect.Sets;
+
+@ExtendWith(MockitoExtension.class)
+public class EntityHierarchyCacheImplTest {
+
+	@Mock
+	private NodeDAO mockNodeDao;
+	@Mock
+	private AccessControlListDAO mockAclDao;
+	@Mock
+	private DBOChangeDAO mockChangeDao;
+	@Mock
+	private TransactionalMessenger mockTransactionalMessenger;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private StackConfiguration mockStackConfig;
+	@Mock
+	private Clock mockClock;
+
+	@InjectMocks
+	private EntityHierarchyCacheImpl cache;
+
+	private long now;
+	private NodeHierarchyEntry project;
+	private NodeHierarchyEntry folder;
+	private NodeHierarchyEntry file;
+	private List<NodeHierarchyEntry> filePath;
+	private List<Long> filePathIds;
+
+	@BeforeEach
+	public void before() {
+		now = 1_000_000L;
+		project = new NodeHierarchyEntry(123L, 4489L, EntityType.project);
+		folder = new NodeHierarchyEntry(456L, 123L, EntityType.folder);
+		file = new NodeHierarchyEntry(789L, 456L, EntityType.file);
+		filePath = Arrays.asList(project, folder, file);
+		filePathIds = Arrays.asList(123L, 456L, 789L);
+	}
+
+	/**
+	 * Simulate the timer firing until the cache can be used.
+	 */
+	void startPolling() {
+		when(mockChangeDao.getCurrentChangeNumber()).thenReturn(100L);
+		pollAt(now - EntityHierarchyCacheImpl.MAX_TRANSACTION_MS - 1000);
+		pollAt(now - 1000);
+		pollAt(now);
+	}
+
+	void pollAt(long time) {
+		when(mockClock.currentTimeMillis()).thenReturn(time);
+		cache.timerFired();
+	}
+
+	@Test
+	public void testBypassBeforeFirstPoll() {
+		when(mockClock.currentTimeMillis()).thenReturn(now);
+		when(mockNodeDao.getBenefactor("syn789")).thenReturn("syn123");
+		// call under test
+		assertEquals("syn123", cache.getBenefactor("syn789"));
+		assertFalse(cache.isCacheUsable());
+		verify(mockNodeDao, never()).getEntityPathHierarchy(anyString());
+	}
+
+	/**
+	 * A change committed after startup could have been issued any change number
+	 * before startup, so the cache cannot be used until those changes are
+	 * committed.
+	 */
+	@Test
+	public void testBypassUntilTransactionsSettle() {
+		when(mockChangeDao.getCurrentChangeNumber()).thenReturn(100L);
+		pollAt(now - 1000);
+		// call under test
+		pollAt(now);
+		assertFalse(cache.isCacheUsable());
+		verify(mockChangeDao, never()).listChanges(anyLong(), any(ObjectType.class), anyLong());
+	}
+
+	@Test
+	public void testBypassWhenPollingStops() {
+		startPolling();
+		assertTrue(cache.isCacheUsable());
+		when(mockClock.currentTimeMillis()).thenReturn(now + EntityHierarchyCacheImpl.MAX_TIME_SINCE_LAST_POLL_MS);
+		// call under test
+		assertFalse(cache.isCacheUsable());
+	}
+
+	@Test
+	public void testGetBenefactorMissThenHit() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		Set<Long> withAcls = Sets.newHashSet(123L);
+		when(mockAclDao.getEntitiesWithAcls(filePathIds)).thenReturn(withAcls);
+		when(mockAclDao.getEntitiesWithAcls(Arrays.asList(123L, 456L))).thenReturn(withAcls);
+		// call under test
+		assertEquals("syn123", cache.getBenefactor("syn789"));
+		assertEquals("syn123", cache.getBenefactor("syn789"));
+		assertEquals("syn123", cache.getBenefactor("syn456"));
+		assertEquals(1L, cache.getMissCount());
+		assertEquals(2L, cache.getHitCount());
+		assertEquals(3, cache.getEntryCount());
+		verify(mockNodeDao, times(1)).getEntityPathHierarchy(anyString());
+		verify(mockNodeDao, never()).getBenefactor(anyString());
+	}
+
+	@Test
+	public void testGetBenefactorClosestAcl() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		when(mockAclDao.getEntitiesWithAcls(filePathIds)).thenReturn(Sets.newHashSet(123L, 456L));
+		// call under test
+		assertEquals("syn456", cache.getBenefactor("syn789"));
+	}
+
+	/**
+	 * Moving a hierarchy to the trash deletes the ACLs of its descendants
+	 * without sending a change message for those descendants. The benefactor of
+	 * a cached child must still change.
+	 */
+	@Test
+	public void testGetBenefactorAfterChildAclDeletedWithoutMessage() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		when(mockAclDao.getEntitiesWithAcls(filePathIds)).thenReturn(Sets.newHashSet(123L, 789L),
+				Sets.newHashSet(123L));
+		assertEquals("syn789", cache.getBenefactor("syn789"));
+		// call under test
+		assertEquals("syn123", cache.getBenefactor("syn789"));
+		// the path is still served from the cache.
+		verify(mockNodeDao, times(1)).getEntityPathHierarchy("syn789");
+	}
+
+	@Test
+	public void testGetBenefactorNoAclInPath() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		when(mockAclDao.getEntitiesWithAcls(filePathIds)).thenReturn(Collections.emptySet());
+		when(mockNodeDao.getBenefactor("syn789")).thenReturn("syn4489");
+		// call under test
+		assertEquals("syn4489", cache.getBenefactor("syn789"));
+	}
+
+	@Test
+	public void testGetProjectId() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		// call under test
+		assertEquals("syn123", cache.getProjectId("syn789"));
+		verify(mockNodeDao, never()).getProjectId(anyString());
+	}
+
+	@Test
+	public void testGetEntityPathIds() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		// call under test
+		assertEquals(Arrays.asList(123L, 456L, 789L), cache.getEntityPathIds("syn789"));
+	}
+
+	@Test
+	public void testFireChangeMessageInvalidates() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		cache.getEntityPathIds("syn789");
+		ChangeMessage message = new ChangeMessage();
+		message.setObjectType(ObjectType.ENTITY);
+		message.setObjectId("syn456");
+		// call under test
+		cache.fireChangeMessage(message);
+		assertEquals(2, cache.getEntryCount());
+		// the file can no longer be resolved from the cache since its parent is gone.
+		cache.getEntityPathIds("syn789");
+		verify(mockNodeDao, times(2)).getEntityPathHierarchy("syn789");
+	}
+
+	@Test
+	public void testFireChangeMessageOtherType() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		cache.getEntityPathIds("syn789");
+		ChangeMessage message = new ChangeMessage();
+		message.setObjectType(ObjectType.TABLE);
+		message.setObjectId("456");
+		// call under test
+		cache.fireChangeMessage(message);
+		assertEquals(3, cache.getEntryCount());
+	}
+
+	@Test
+	public void testPollChangesInvalidates() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		cache.getEntityPathIds("syn789");
+		ChangeMessage change = new ChangeMessage();
+		change.setObjectType(ObjectType.ENTITY);
+		change.setObjectId("123");
+		change.setChangeNumber(101L);
+		when(mockChangeDao.listChanges(100L, ObjectType.ENTITY, EntityHierarchyCacheImpl.MAX_CHANGES_PER_POLL))
+				.thenReturn(Collections.singletonList(change));
+		// call under test
+		assertTrue(cache.pollChanges(now + 1000));
+		assertEquals(2, cache.getEntryCount());
+	}
+
+	/**
+	 * A change with a low change number that commits after a change with a much
+	 * higher number must still be applied.
+	 */
+	@Test
+	public void testPollChangesLateCommit() {
+		startPolling();
+		ChangeMessage later = new ChangeMessage();
+		later.setObjectType(ObjectType.ENTITY);
+		later.setObjectId("123");
+		later.setChangeNumber(2000L);
+		ChangeMessage earlier = new ChangeMessage();
+		earlier.setObjectType(ObjectType.ENTITY);
+		earlier.setObjectId("456");
+		earlier.setChangeNumber(500L);
+		when(mockChangeDao.listChanges(100L, ObjectType.ENTITY, EntityHierarchyCacheImpl.MAX_CHANGES_PER_POLL))
+				.thenReturn(Collections.singletonList(later), Arrays.asList(earlier, later));
+		when(mockChangeDao.getCurrentChangeNumber()).thenReturn(2000L);
+		assertTrue(cache.pollChanges(now + 1000));
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		cache.getEntityPathIds("syn789");
+		assertEquals(3, cache.getEntryCount());
+		// call under test
+		assertTrue(cache.pollChanges(now + 2000));
+		// only the late change is applied.
+		assertEquals(2, cache.getEntryCount());
+		cache.getEntityPathIds("syn789");
+		verify(mockNodeDao, times(2)).getEntityPathHierarchy("syn789");
+	}
+
+	@Test
+	public void testPollChangesTooManyChanges() {
+		startPolling();
+		when(mockNodeDao.getEntityPathHierarchy("syn789")).thenReturn(filePath);
+		cache.getEntityPathIds("syn789");
+		List<ChangeMessage> changes = new ArrayList<>();
+		for (int i = 0; i < EntityHierarchyCacheImpl.MAX_CHANGES_PER_POLL; i++) {
+			changes.add(new ChangeMessage());
+		}
+		when(mockChangeDao.listChanges(anyLong(), eq(ObjectType.ENTITY), eq(EntityHierarchyCacheImpl.MAX_CHANGES_PER_POLL)))
+				.thenReturn(changes);
+		// call under test
+		assertTrue(cache.pollChanges(now + 1000));
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void testPutAllFull() {
+		cache.setMaxEntries(4);
+		cache.putAll(filePath);
+		assertEquals(3, cache.getEntryCount());
+		// call under test
+		cache.putAll(Arrays.asList(new NodeHierarchyEntry(1L, 2L, EntityType.file),
+				new NodeHierarchyEntry(2L, null, EntityType.folder)));
+		assertEquals(2, cache.getEntryCount());
+	}
+
+	/**
+	 * Each permission check of a deep hierarchy walks the hierarchy in the
+	 * database without the cache. With the cache only the first check of the
+	 * deepest node reads the hierarchy, and each check reads the ACLs of its
+	 * path with a single query.
+	 */
+	@Test
+	public void testDeepHierarchy() {
+		startPolling();
+		int depth = 50;
+		List<NodeHierarchyEntry> path = new ArrayList<>(depth);
+		path.add(new NodeHierarchyEntry(1L, null, EntityType.project));
+		for (long id = 2; id <= depth; id++) {
+			path.add(new NodeHierarchyEntry(id, id - 1, EntityType.folder));
+		}
+		when(mockNodeDao.getEntityPathHierarchy("syn" + depth)).thenReturn(path);
+		when(mockAclDao.getEntitiesWithAcls(anyList())).thenReturn(Sets.newHashSet(1L));
+		int lookups = 10_000;
+		for (int i = 0; i < lookups; i++) {
+			assertEquals("syn1", cache.getBenefactor("syn" + (depth - (i % depth))));
+		}
+		verify(mockNodeDao, times(1)).getEntityPathHierarchy(anyString());
+		verify(mockNodeDao, never()).getBenefactor(anyString());
+		verify(mockAclDao, times(lookups)).getEntitiesWithAcls(anyList());
+		assertEquals(lookups - 1, cache.getHitCount());
+	}
+}
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -25,6 +26,7 @@ import static org.sagebionetworks.repo.manager.file.FileHandleManagerImpl.FILE_H
 import static org.sagebionetworks.repo.manager.file.FileHandleManagerImpl.MAX_REQUESTS_PER_CALL;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.MessageDigest;
@@ -40,6 +42,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -58,6 +61,7 @@ import org.sagebionetworks.repo.manager.AuthorizationManager;
 import org.sagebionetworks.repo.manager.ProjectSettingsManager;
 import org.sagebionetworks.repo.manager.audit.ObjectRecordQueue;
 import org.sagebionetworks.repo.manager.events.EventsCollector;
+import org.sagebionetworks.repo.manager.file.transfer.TransferUtils;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.DatastoreException;
 import org.sagebionetworks.repo.model.ObjectType;
@@ -143,6 +147,8 @@ public class FileHandleManagerImplTest {
 	ProjectSettingsManager mockProjectSettingsManager;
 	@Mock
 	EventsCollector mockStatisticsCollector;
+	@Mock
+	ExecutorService mockStreamingUploadExecutorService;
 
 	@InjectMocks
 	@Spy
@@ -2408,4 +2414,42 @@ public class FileHandleManagerImplTest {
 		assertEquals("The targetFileHandleId is required.", ex.getMessage());
 		
 	}
+	
+	@Test
+	public void testStartStreamingUpload() throws IOException {
+		when(mockStorageLocationDao.get(externalS3StorageLocationId)).thenReturn(externalS3StorageLocationSetting);
+		when(mockIdGenerator.generateNewId(IdType.FILE_IDS)).thenReturn(555L);
+		when(mockFileHandleDao.createFile(any(S3FileHandle.class))).then(returnsFirstArg());
+		byte[] content = "some streamed data".getBytes("UTF-8");
+		LocalFileUploadRequest request = new LocalFileUploadRequest().withFileName("foo.zip")
+				.withUserId(mockUser.getId().toString()).withContentType("application/zip")
+				.withStorageLocationId(externalS3StorageLocationId);
+		// call under test
+		StreamingFileUpload upload = manager.startStreamingUpload(request);
+		upload.write(content);
+		S3FileHandle result = upload.complete();
+		assertEquals("555", result.getId());
+		assertEquals(bucket, result.getBucketName());
+		assertTrue(result.getKey().startsWith(BASE_KEY));
+		assertEquals("foo.zip", result.getFileName());
+		assertEquals("application/zip", result.getContentType());
+		assertEquals(mockUser.getId().toString(), result.getCreatedBy());
+		assertEquals(externalS3StorageLocationId, result.getStorageLocationId());
+		assertEquals(new Long(content.length), result.getContentSize());
+		assertEquals(BinaryUtils.toHex(TransferUtils.createMD5Digest().digest(content)), result.getContentMd5());
+		// the data was smaller than a part
+		ArgumentCaptor<ObjectMetadata> metadataCaptor = ArgumentCaptor.forClass(ObjectMetadata.class);
+		verify(mockS3Client).putObject(eq(bucket), eq(result.getKey()), any(InputStream.class), metadataCaptor.capture());
+		assertEquals("application/zip", metadataCaptor.getValue().getContentType());
+		verify(mockFileHandleDao).createFile(result);
+	}
+	
+	@Test
+	public void testStartStreamingUploadNoFileName() {
+		LocalFileUploadRequest request = new LocalFileUploadRequest().withUserId(mockUser.getId().toString());
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.startStreamingUpload(request);
+		});
+	}
 }
@@ -0,0 +1,107 @@
+package org.sagebionetworks.repo.manager.file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.manager.file.transfer.TransferUtils;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.upload.multipart.S3MultipartUploadOutputStream;
+
+import com.amazonaws.util.BinaryUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class StreamingFileUploadTest {
+
+	@Mock
+	private S3MultipartUploadOutputStream mockOut;
+	@Mock
+	private UnaryOperator<S3FileHandle> mockCreator;
+
+	private S3FileHandle fileHandle;
+	private S3FileHandle created;
+	private byte[] data;
+
+	@BeforeEach
+	public void before() throws IOException {
+		fileHandle = new S3FileHandle();
+		fileHandle.setBucketName("bucket");
+		fileHandle.setKey("key");
+		created = new S3FileHandle();
+		created.setId("123");
+		data = "some data to upload".getBytes("UTF-8");
+	}
+
+	@Test
+	public void testComplete() throws IOException {
+		when(mockCreator.apply(fileHandle)).thenReturn(created);
+		StreamingFileUpload upload = new StreamingFileUpload(mockOut, fileHandle, mockCreator);
+		upload.write(data[0]);
+		upload.write(data, 1, data.length - 1);
+		assertEquals(data.length, upload.getBytesWritten());
+		// call under test
+		S3FileHandle result = upload.complete();
+		assertSame(created, result);
+		verify(mockOut).write(data[0]);
+		verify(mockOut).write(data, 1, data.length - 1);
+		verify(mockOut).close();
+		assertEquals(new Long(data.length), fileHandle.getContentSize());
+		assertEquals(BinaryUtils.toHex(TransferUtils.createMD5Digest().digest(data)), fileHandle.getContentMd5());
+		// abort after complete does nothing.
+		upload.abort();
+		verify(mockOut, never()).abort();
+	}
+
+	@Test
+	public void testCloseDoesNotComplete() throws IOException {
+		StreamingFileUpload upload = new StreamingFileUpload(mockOut, fileHandle, mockCreator);
+		// call under test
+		upload.close();
+		verifyZeroInteractions(mockOut);
+		verifyZeroInteractions(mockCreator);
+	}
+
+	@Test
+	public void testAbort() throws IOException {
+		StreamingFileUpload upload = new StreamingFileUpload(mockOut, fileHandle, mockCreator);
+		upload.write(data);
+		// call under test
+		upload.abort();
+		verify(mockOut).abort();
+		verify(mockOut, never()).close();
+		verifyZeroInteractions(mockCreator);
+		assertThrows(IOException.class, () -> {
+			upload.write(1);
+		});
+		assertThrows(IOException.class, () -> {
+			upload.complete();
+		});
+	}
+
+	@Test
+	public void testCompleteFailure() throws IOException {
+		IOException exception = new IOException("upload failed");
+		doThrow(exception).when(mockOut).close();
+		StreamingFileUpload upload = new StreamingFileUpload(mockOut, fileHandle, mockCreator);
+		IOException thrown = assertThrows(IOException.class, () -> {
+			// call under test
+			upload.complete();
+		});
+		assertSame(exception, thrown);
+		verify(mockCreator, never()).apply(any(S3FileHandle.class));
+	}
+}
@@ -0,0 +1,105 @@
+package org.sagebionetworks.repo.manager.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
+
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+import com.google.common.collect.Lists;
+
+@ExtendWith(MockitoExtension.class)
+public class BroadcastEmailSenderImplTest {
+
+	@Mock
+	private SynapseEmailService mockSesClient;
+
+	private ExecutorService executorService;
+	private BroadcastEmailSenderImpl sender;
+
+	private SendRawEmailRequest one;
+	private SendRawEmailRequest two;
+	private SendRawEmailRequest three;
+
+	@BeforeEach
+	public void before() {
+		executorService = Executors.newFixedThreadPool(2);
+		sender = new BroadcastEmailSenderImpl(mockSesClient, executorService, 1000.0);
+		one = new SendRawEmailRequest().withSource("one");
+		two = new SendRawEmailRequest().withSource("two");
+		three = new SendRawEmailRequest().withSource("three");
+	}
+
+	@AfterEach
+	public void after() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testSendEmails() {
+		// call under test
+		sender.sendEmails(Lists.newArrayList(one, two, three));
+		verify(mockSesClient).sendRawEmail(one);
+		verify(mockSesClient).sendRawEmail(two);
+		verify(mockSesClient).sendRawEmail(three);
+	}
+
+	@Test
+	public void testSendEmailsEmpty() {
+		// call under test
+		sender.sendEmails(Collections.emptyList());
+		verify(mockSesClient, never()).sendRawEmail(any());
+	}
+
+	@Test
+	public void testSendEmailsWithFailure() {
+		IllegalStateException failure = new IllegalStateException("SES is down");
+		doThrow(failure).when(mockSesClient).sendRawEmail(two);
+		List<SendRawEmailRequest> requests = Lists.newArrayList(one, two, three);
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			sender.sendEmails(requests);
+		});
+		assertSame(failure, thrown);
+		// the failure must not stop the other emails.
+		verify(mockSesClient).sendRawEmail(one);
+		verify(mockSesClient).sendRawEmail(three);
+	}
+
+	@Test
+	public void testSendEmailsWithNullRequests() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			sender.sendEmails(null);
+		});
+	}
+
+	@Test
+	public void testGetMaxSendsPerSecond() {
+		assertEquals(1000.0, sender.getMaxSendsPerSecond(), 0.0001);
+	}
+
+	@Test
+	public void testConstructorWithZeroRate() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			new BroadcastEmailSenderImpl(mockSesClient, executorService, 0.0);
+		});
+	}
+}
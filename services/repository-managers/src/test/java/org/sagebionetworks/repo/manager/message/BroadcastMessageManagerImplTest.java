@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.manager.message;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.lenient;
@@ -22,6 +23,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -29,7 +32,6 @@ import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.markdown.MarkdownClientException;
 import org.sagebionetworks.repo.manager.AuthorizationManager;
 import org.sagebionetworks.repo.manager.UserManager;
-import org.sagebionetworks.repo.manager.principal.SynapseEmailService;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.UnauthorizedException;
 import org.sagebionetworks.repo.model.UserInfo;
@@ -61,7 +63,7 @@ public class BroadcastMessageManagerImplTest {
 	@Mock
 	private DBOChangeDAO mockChangeDao;
 	@Mock
-	private SynapseEmailService mockSesClient;
+	private BroadcastEmailSender mockEmailSender;
 	@Mock
 	private TimeoutUtils mockTimeoutUtils;
 	@Mock
@@ -83,6 +85,9 @@ public class BroadcastMessageManagerImplTest {
 	@Mock
 	private EmailQuarantineDao mockEmailQuarantineDao;
 
+	@Captor
+	private ArgumentCaptor<List<SendRawEmailRequest>> emailCaptor;
+
 	@InjectMocks
 	private BroadcastMessageManagerImpl manager;
 	
@@ -141,7 +146,24 @@ public class BroadcastMessageManagerImplTest {
 		// The message state should be sent.
 		verify(mockBroadcastMessageDao).setBroadcast(change.getChangeNumber());
 		// two messages should be sent
-		verify(mockSesClient, times(2)).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockEmailSender).sendEmails(emailCaptor.capture());
+		assertEquals(2, emailCaptor.getValue().size());
+	}
+
+	@Test
+	public void testBroadcastLooksUpQuarantinedEmailsOnce() throws Exception{
+		subscribers.get(0).setNotificationEmail("one@example.com");
+		subscribers.get(1).setNotificationEmail("two@example.com");
+		when(mockSubscriptionDAO.getAllEmailSubscribers(topic.getObjectId(), topic.getObjectType())).thenReturn(subscribers);
+		when(mockBroadcastMessageBuilder.buildEmailForSubscriber(any(Subscriber.class))).thenReturn(new SendRawEmailRequest());
+		when(mockBroadcastMessageBuilder.getRelatedUsers()).thenReturn(Collections.emptySet());
+		// call under test
+		manager.broadcastMessage(mockUser, mockCallback, change);
+		// a single lookup for all subscribers
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(Lists.newArrayList("one@example.com", "two@example.com"));
+		verify(mockEmailQuarantineDao, never()).isQuarantined(any());
+		verify(mockEmailSender).sendEmails(emailCaptor.capture());
+		assertEquals(2, emailCaptor.getValue().size());
 	}
 
 	@Test
@@ -181,7 +203,10 @@ public class BroadcastMessageManagerImplTest {
 		verify(mockUserManager, never()).getUserInfo(2L);
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo, topic.getObjectId(), topic.getObjectType());
 		verify(mockAuthManager).canSubscribe(accessDeniedUserInfo, topic.getObjectId(), topic.getObjectType());
-		verify(mockSesClient, times(2)).sendRawEmail(any(SendRawEmailRequest.class));
+		// one batch for the subscribers and one for the mentioned users
+		verify(mockEmailSender, times(2)).sendEmails(emailCaptor.capture());
+		assertEquals(2, emailCaptor.getAllValues().get(0).size());
+		assertEquals(1, emailCaptor.getAllValues().get(1).size());
 	}
 	
 	@Test
@@ -190,15 +215,16 @@ public class BroadcastMessageManagerImplTest {
 		
 		subscribers.get(0).setNotificationEmail(quarantinedEmail);
 		
-		when(mockEmailQuarantineDao.isQuarantined(quarantinedEmail)).thenReturn(true);
+		when(mockEmailQuarantineDao.getQuarantinedEmails(Lists.newArrayList(quarantinedEmail))).thenReturn(Collections.singleton(quarantinedEmail));
 		when(mockSubscriptionDAO.getAllEmailSubscribers(topic.getObjectId(), topic.getObjectType())).thenReturn(subscribers);
 		when(mockBroadcastMessageBuilder.buildEmailForSubscriber(any(Subscriber.class))).thenReturn(new SendRawEmailRequest());
 		// call under test
 		manager.broadcastMessage(mockUser, mockCallback, change);
 
-		verify(mockEmailQuarantineDao).isQuarantined(quarantinedEmail);
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(Lists.newArrayList(quarantinedEmail));
 		// Only one message should be sent
-		verify(mockSesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockEmailSender).sendEmails(emailCaptor.capture());
+		assertEquals(1, emailCaptor.getValue().size());
 	}
 
 	@SuppressWarnings("unchecked")
@@ -273,7 +299,8 @@ public class BroadcastMessageManagerImplTest {
 		verify(mockUserManager).getUserInfo(222L);
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo, topic.getObjectId(), topic.getObjectType());
 		verify(mockAuthManager).canSubscribe(accessDeniedUserInfo, topic.getObjectId(), topic.getObjectType());
-		verify(mockSesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockEmailSender).sendEmails(emailCaptor.capture());
+		assertEquals(1, emailCaptor.getValue().size());
 	}
 
 	@Test
@@ -308,7 +335,8 @@ public class BroadcastMessageManagerImplTest {
 		verify(mockUserManager).getUserInfo(222L);
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo1, topic.getObjectId(), topic.getObjectType());
 		verify(mockAuthManager).canSubscribe(hasAccessUserInfo2, topic.getObjectId(), topic.getObjectType());
-		verify(mockSesClient, times(2)).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockEmailSender).sendEmails(emailCaptor.capture());
+		assertEquals(2, emailCaptor.getValue().size());
 	}
 	
 	@Test
@@ -316,7 +344,7 @@ public class BroadcastMessageManagerImplTest {
 		
 		String quarantinedEmail = "quarantined@example.com";
 
-		when(mockEmailQuarantineDao.isQuarantined(quarantinedEmail)).thenReturn(true);
+		when(mockEmailQuarantineDao.getQuarantinedEmails(Lists.newArrayList(quarantinedEmail))).thenReturn(Collections.singleton(quarantinedEmail));
 		when(mockBroadcastMessageBuilder.buildEmailForNonSubscriber(any(UserNotificationInfo.class))).thenReturn(new SendRawEmailRequest());
 		
 		
@@ -338,11 +366,12 @@ public class BroadcastMessageManagerImplTest {
 		
 		verify(mockBroadcastMessageBuilder).getRelatedUsers();
 		verify(mockUserProfileDao).getUserNotificationInfo(userIds);
-		verify(mockEmailQuarantineDao).isQuarantined(quarantinedEmail);
+		verify(mockEmailQuarantineDao).getQuarantinedEmails(Lists.newArrayList(quarantinedEmail));
 		verify(mockUserManager).getUserInfo(222L);
 		
 		// Only one should have been sent
-		verify(mockSesClient).sendRawEmail(any(SendRawEmailRequest.class));
+		verify(mockEmailSender).sendEmails(emailCaptor.capture());
+		assertEquals(1, emailCaptor.getValue().size());
 	}
 
 	@Test
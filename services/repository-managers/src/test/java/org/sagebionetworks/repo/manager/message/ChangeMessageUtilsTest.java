@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -80,4 +81,75 @@ public class ChangeMessageUtilsTest {
 		assertEquals(Arrays.asList(four), groupPartitions.get(0));
 	}
 
+	@Test
+	public void testGroupByObjectTypeAndPartitionBySizeCount() {
+		ChangeMessage one = createChange(ObjectType.ENTITY, "one");
+		ChangeMessage two = createChange(ObjectType.FILE, "two");
+		ChangeMessage three = createChange(ObjectType.ENTITY, "three");
+		ChangeMessage four = createChange(ObjectType.ENTITY, "four");
+		List<ChangeMessage> batch = Arrays.asList(one, two, three, four);
+		// call under test
+		Map<ObjectType, List<List<ChangeMessage>>> groups = ChangeMessageUtils
+				.groupByObjectTypeAndPartitionBySize(batch, 2, Integer.MAX_VALUE);
+		assertEquals(2, groups.size());
+		assertEquals(Arrays.asList(Arrays.asList(one, three), Arrays.asList(four)), groups.get(ObjectType.ENTITY));
+		assertEquals(Arrays.asList(Arrays.asList(two)), groups.get(ObjectType.FILE));
+	}
+
+	@Test
+	public void testGroupByObjectTypeAndPartitionBySizeBytes() {
+		List<ChangeMessage> batch = new ArrayList<ChangeMessage>();
+		for (int i = 0; i < 5; i++) {
+			batch.add(createChange(ObjectType.ENTITY, "syn" + i));
+		}
+		int changeBytes = ChangeMessageUtils.getPublishedSizeBytes(batch.get(0));
+		// room for exactly two changes per batch.
+		int maxBytes = ChangeMessageUtils.CHANGE_MESSAGES_ENVELOPE_BYTES + changeBytes * 2;
+		// call under test
+		Map<ObjectType, List<List<ChangeMessage>>> groups = ChangeMessageUtils
+				.groupByObjectTypeAndPartitionBySize(batch, 100, maxBytes);
+		assertEquals(Arrays.asList(batch.subList(0, 2), batch.subList(2, 4), batch.subList(4, 5)),
+				groups.get(ObjectType.ENTITY));
+	}
+
+	@Test
+	public void testGroupByObjectTypeAndPartitionBySizeOversized() {
+		ChangeMessage one = createChange(ObjectType.ENTITY, "one");
+		ChangeMessage two = createChange(ObjectType.ENTITY, "two");
+		// call under test
+		Map<ObjectType, List<List<ChangeMessage>>> groups = ChangeMessageUtils
+				.groupByObjectTypeAndPartitionBySize(Arrays.asList(one, two), 100, 1);
+		// each change is in a batch of its own.
+		assertEquals(Arrays.asList(Arrays.asList(one), Arrays.asList(two)), groups.get(ObjectType.ENTITY));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGroupByObjectTypeAndPartitionBySizeNullType() {
+		ChangeMessage one = createChange(null, "one");
+		ChangeMessageUtils.groupByObjectTypeAndPartitionBySize(Arrays.asList(one), 100, 1000);
+	}
+
+	@Test
+	public void testGetPublishedSizeBytes() throws Exception {
+		ChangeMessage change = createChange(ObjectType.ENTITY, "syn123");
+		ChangeMessages messages = new ChangeMessages();
+		messages.setList(Arrays.asList(change, change));
+		String json = EntityFactory.createJSONStringForEntity(messages);
+		// Escaping the JSON as a string adds a character for each quote.
+		int escapedSize = json.getBytes("UTF-8").length + json.replaceAll("[^\"]", "").length();
+		// call under test
+		int changeBytes = ChangeMessageUtils.getPublishedSizeBytes(change);
+		assertTrue(ChangeMessageUtils.CHANGE_MESSAGES_ENVELOPE_BYTES + changeBytes * 2 >= escapedSize);
+	}
+
+	static ChangeMessage createChange(ObjectType type, String objectId) {
+		ChangeMessage change = new ChangeMessage();
+		change.setChangeNumber(123L);
+		change.setChangeType(ChangeType.UPDATE);
+		change.setObjectType(type);
+		change.setObjectId(objectId);
+		change.setTimestamp(new Date(1L));
+		return change;
+	}
+
 }
@@ -10,6 +10,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -177,6 +178,44 @@ public class DiscussionBroadcastMessageBuilderTest {
 		assertNotNull(request);
 	}
 
+	@Test
+	public void testBuildHtmlBodyForSubscriberConvertsOnce() throws Exception{
+		when(mockMarkdownDao.convertMarkdown(anyString(), isNull())).thenAnswer(invocation -> "<p>" + invocation.getArgument(0) + "</p>");
+		Subscriber other = new Subscriber();
+		other.setFirstName("other<b>");
+		other.setLastName("last");
+		other.setUsername("otherUsername");
+		other.setSubscriptionId("1000");
+		// call under test
+		String one = builder.buildHtmlBodyForSubscriber(subscriber);
+		String two = builder.buildHtmlBodyForSubscriber(other);
+		// the markdown is only converted once for all subscribers.
+		verify(mockMarkdownDao, times(1)).convertMarkdown(anyString(), isNull());
+		assertTrue(one.contains("subscriberFirstName subscriberLastName (subscriberUsername)"));
+		assertTrue(one.contains("https://www.synapse.org/#!Subscription:subscriptionID=999"));
+		assertFalse(one.contains(DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER));
+		assertFalse(one.contains(DiscussionBroadcastMessageBuilder.SUBSCRIPTION_ID_PLACEHOLDER));
+		// names are escaped since they are added to the HTML.
+		assertTrue(two.contains("other&lt;b&gt; last (otherUsername)"));
+		assertTrue(two.contains("https://www.synapse.org/#!Subscription:subscriptionID=1000"));
+	}
+
+	@Test
+	public void testBuildHtmlBodyForNonSubscriberConvertsOnce() throws Exception{
+		when(mockMarkdownDao.convertMarkdown(anyString(), isNull())).thenAnswer(invocation -> "<p>" + invocation.getArgument(0) + "</p>");
+		UserNotificationInfo other = new UserNotificationInfo();
+		other.setFirstName("otherFirstName");
+		other.setLastName("otherLastName");
+		other.setUsername("otherUsername");
+		// call under test
+		String one = builder.buildHtmlBodyForNonSubscriber(user);
+		String two = builder.buildHtmlBodyForNonSubscriber(other);
+		verify(mockMarkdownDao, times(1)).convertMarkdown(anyString(), isNull());
+		assertTrue(one.contains("firstName lastName (username)"));
+		assertTrue(two.contains("otherFirstName otherLastName (otherUsername)"));
+		assertFalse(two.contains(DiscussionBroadcastMessageBuilder.RECIPIENT_NAME_PLACEHOLDER));
+	}
+
 	@Test
 	public void testTruncateStringOver(){
 		String input = "123456789";
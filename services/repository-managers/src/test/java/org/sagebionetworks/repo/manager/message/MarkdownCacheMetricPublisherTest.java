@@ -0,0 +1,88 @@
+package org.sagebionetworks.repo.manager.message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.markdown.MarkdownCache;
+import org.sagebionetworks.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class MarkdownCacheMetricPublisherTest {
+
+	@Mock
+	private MarkdownCache mockMarkdownCache;
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private StackConfiguration mockStackConfig;
+	@Mock
+	private Clock mockClock;
+	@Captor
+	private ArgumentCaptor<ProfileData> profileCaptor;
+
+	@InjectMocks
+	private MarkdownCacheMetricPublisher publisher;
+
+	@BeforeEach
+	public void before() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		when(mockStackConfig.getStackInstance()).thenReturn("test");
+		when(mockMarkdownCache.getEntryCount()).thenReturn(5);
+		when(mockMarkdownCache.getSpilledEntryCount()).thenReturn(2);
+	}
+
+	@Test
+	public void testPushMetrics() {
+		when(mockMarkdownCache.getAndResetHitCount()).thenReturn(3L);
+		when(mockMarkdownCache.getAndResetMissCount()).thenReturn(1L);
+		when(mockMarkdownCache.getAndResetConversionCount()).thenReturn(1L);
+		when(mockMarkdownCache.getAndResetConversionTimeMS()).thenReturn(40L);
+		// call under test
+		publisher.pushMetrics();
+		verify(mockConsumer, times(7)).addProfileData(profileCaptor.capture());
+		List<String> names = new ArrayList<>();
+		for (ProfileData data : profileCaptor.getAllValues()) {
+			assertEquals("Markdown-Cache-test", data.getNamespace());
+			assertEquals(1000L, data.getTimestamp().getTime());
+			names.add(data.getName() + "=" + data.getValue().longValue() + " " + data.getUnit());
+		}
+		assertEquals(Arrays.asList("Hit Count=3 Count", "Miss Count=1 Count", "Hit Ratio=75 Percent",
+				"Conversion Count=1 Count", "Average Conversion Latency=40 Milliseconds", "Entry Count=5 Count",
+				"Spilled Entry Count=2 Count"), names);
+	}
+
+	@Test
+	public void testPushMetricsWithNoRequests() {
+		when(mockMarkdownCache.getAndResetHitCount()).thenReturn(0L);
+		when(mockMarkdownCache.getAndResetMissCount()).thenReturn(0L);
+		when(mockMarkdownCache.getAndResetConversionCount()).thenReturn(0L);
+		when(mockMarkdownCache.getAndResetConversionTimeMS()).thenReturn(0L);
+		// call under test
+		publisher.pushMetrics();
+		// the ratio and the latency are undefined without any requests.
+		verify(mockConsumer, times(5)).addProfileData(profileCaptor.capture());
+		List<String> names = new ArrayList<>();
+		for (ProfileData data : profileCaptor.getAllValues()) {
+			names.add(data.getName());
+		}
+		assertEquals(Arrays.asList("Hit Count", "Miss Count", "Conversion Count", "Entry Count", "Spilled Entry Count"),
+				names);
+	}
+}
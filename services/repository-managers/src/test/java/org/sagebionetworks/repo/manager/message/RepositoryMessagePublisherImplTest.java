@@ -1,19 +1,41 @@
 package org.sagebionetworks.repo.manager.message;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.model.ObjectType;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
+import org.sagebionetworks.repo.model.message.ChangeMessages;
 import org.sagebionetworks.repo.model.message.ChangeType;
 import org.sagebionetworks.repo.model.message.TransactionalMessenger;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
 
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.CreateTopicRequest;
+import com.amazonaws.services.sns.model.CreateTopicResult;
+import com.amazonaws.services.sns.model.PublishRequest;
 
 /**
  * Unit test for RepositoryMessagePublisherImpl.
@@ -29,6 +51,12 @@ public class RepositoryMessagePublisherImplTest {
 	TransactionalMessenger mockTransactionalMessanger;
 	@Mock
 	AmazonSNS mockAwsSNSClient;
+	@Mock
+	StackConfiguration mockStackConfiguration;
+	@Mock
+	Consumer mockConsumer;
+	@Mock
+	Clock mockClock;
 
 	@InjectMocks
 	RepositoryMessagePublisherImpl messagePublisher;
@@ -77,5 +105,160 @@ public class RepositoryMessagePublisherImplTest {
 		// This should work
 		messagePublisher.fireChangeMessage(message);
 	}
+
+	/**
+	 * Create a valid change message.
+	 */
+	static ChangeMessage createMessage(ObjectType type, long changeNumber) {
+		ChangeMessage change = new ChangeMessage();
+		change.setChangeNumber(changeNumber);
+		change.setTimestamp(new Date(1L));
+		change.setChangeType(ChangeType.UPDATE);
+		change.setObjectId("" + changeNumber);
+		change.setObjectType(type);
+		return change;
+	}
+
+	static String toJson(List<ChangeMessage> batch) throws Exception {
+		ChangeMessages messages = new ChangeMessages();
+		messages.setList(batch);
+		return EntityFactory.createJSONStringForEntity(messages);
+	}
+
+	void setupPublish() {
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		when(mockStackConfiguration.getRepositoryChangeTopic(any(String.class))).then((invocation) -> {
+			return "topic-" + invocation.getArgument(0);
+		});
+		when(mockAwsSNSClient.createTopic(any(CreateTopicRequest.class))).then((invocation) -> {
+			CreateTopicRequest request = invocation.getArgument(0);
+			return new CreateTopicResult().withTopicArn("arn-" + request.getName());
+		});
+		when(mockStackConfiguration.getStackInstance()).thenReturn("instance");
+		when(mockClock.currentTimeMillis()).thenReturn(100L, 110L, 150L, 160L, 170L);
+	}
+
+	@Test
+	public void testTimerFiredBatchesByType() throws Exception {
+		setupPublish();
+		ChangeMessage entityOne = createMessage(ObjectType.ENTITY, 1L);
+		ChangeMessage file = createMessage(ObjectType.FILE, 2L);
+		ChangeMessage entityTwo = createMessage(ObjectType.ENTITY, 3L);
+		messagePublisher.fireChangeMessage(entityOne);
+		messagePublisher.fireChangeMessage(file);
+		messagePublisher.fireChangeMessage(entityTwo);
+		// call under test
+		messagePublisher.timerFired();
+		// one publish per type.
+		verify(mockAwsSNSClient, times(2)).publish(any(PublishRequest.class));
+		verify(mockAwsSNSClient).publish(new PublishRequest("arn-topic-ENTITY", toJson(Arrays.asList(entityOne, entityTwo))));
+		verify(mockAwsSNSClient).publish(new PublishRequest("arn-topic-FILE", toJson(Arrays.asList(file))));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(entityOne, entityTwo));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(file));
+		// messages per publish and latency for each type.
+		ArgumentCaptor<ProfileData> captor = ArgumentCaptor.forClass(ProfileData.class);
+		verify(mockConsumer, times(4)).addProfileData(captor.capture());
+		List<ProfileData> metrics = captor.getAllValues();
+		ProfileData entityCount = metrics.get(0);
+		assertEquals(RepositoryMessagePublisherImpl.METRIC_MESSAGES_PER_PUBLISH, entityCount.getName());
+		assertEquals("Repository-Message-Publisher-instance", entityCount.getNamespace());
+		assertEquals(Collections.singletonMap(RepositoryMessagePublisherImpl.DIMENSION_OBJECT_TYPE, "ENTITY"), entityCount.getDimension());
+		assertEquals(new Double(2), entityCount.getMetricStats().getSum());
+		assertEquals(new Double(1), entityCount.getMetricStats().getCount());
+		ProfileData entityLatency = metrics.get(1);
+		assertEquals(RepositoryMessagePublisherImpl.METRIC_PUBLISH_LATENCY, entityLatency.getName());
+		assertEquals(StandardUnit.Milliseconds.name(), entityLatency.getUnit());
+		assertEquals(new Double(40), entityLatency.getMetricStats().getSum());
+		assertEquals(new Date(100L), entityLatency.getTimestamp());
+		ProfileData fileCount = metrics.get(2);
+		assertEquals(Collections.singletonMap(RepositoryMessagePublisherImpl.DIMENSION_OBJECT_TYPE, "FILE"), fileCount.getDimension());
+		assertEquals(new Double(1), fileCount.getMetricStats().getSum());
+		// The queue is empty after the timer fires
+		messagePublisher.timerFired();
+		verify(mockAwsSNSClient, times(2)).publish(any(PublishRequest.class));
+	}
+
+	@Test
+	public void testTimerFiredPartitionsByCount() throws Exception {
+		setupPublish();
+		List<ChangeMessage> changes = new ArrayList<ChangeMessage>();
+		int count = ChangeMessageUtils.MAX_NUMBER_OF_CHANGE_MESSAGES_PER_SQS_MESSAGE + 1;
+		for (int i = 0; i < count; i++) {
+			ChangeMessage change = createMessage(ObjectType.ENTITY, i);
+			changes.add(change);
+			messagePublisher.fireChangeMessage(change);
+		}
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockAwsSNSClient, times(2)).publish(any(PublishRequest.class));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, changes.subList(0, count - 1));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.ENTITY, changes.subList(count - 1, count));
+		ArgumentCaptor<ProfileData> captor = ArgumentCaptor.forClass(ProfileData.class);
+		verify(mockConsumer, times(2)).addProfileData(captor.capture());
+		ProfileData countMetric = captor.getAllValues().get(0);
+		assertEquals(new Double(count), countMetric.getMetricStats().getSum());
+		assertEquals(new Double(2), countMetric.getMetricStats().getCount());
+		assertEquals(new Double(count - 1), countMetric.getMetricStats().getMaximum());
+		assertEquals(new Double(1), countMetric.getMetricStats().getMinimum());
+	}
+
+	@Test
+	public void testTimerFiredFailure() throws Exception {
+		setupPublish();
+		ChangeMessage entity = createMessage(ObjectType.ENTITY, 1L);
+		ChangeMessage file = createMessage(ObjectType.FILE, 2L);
+		messagePublisher.fireChangeMessage(entity);
+		messagePublisher.fireChangeMessage(file);
+		PublishRequest entityRequest = new PublishRequest("arn-topic-ENTITY", toJson(Arrays.asList(entity)));
+		when(mockAwsSNSClient.publish(entityRequest)).thenThrow(new IllegalStateException("failed"));
+		// call under test
+		messagePublisher.timerFired();
+		// the failure does not stop the other type from being published.
+		verify(mockAwsSNSClient).publish(new PublishRequest("arn-topic-FILE", toJson(Arrays.asList(file))));
+		ArgumentCaptor<ProfileData> captor = ArgumentCaptor.forClass(ProfileData.class);
+		verify(mockConsumer, times(3)).addProfileData(captor.capture());
+		ProfileData failed = captor.getAllValues().get(0);
+		assertEquals(RepositoryMessagePublisherImpl.METRIC_FAILED_MESSAGES, failed.getName());
+		assertEquals(new Double(1), failed.getMetricStats().getSum());
+		assertEquals(Collections.singletonMap(RepositoryMessagePublisherImpl.DIMENSION_OBJECT_TYPE, "ENTITY"), failed.getDimension());
+	}
+
+	/**
+	 * A batch that fails to publish must not be recorded as sent, so the change
+	 * synch worker will send it again.
+	 */
+	@Test
+	public void testTimerFiredFailureNotRegistered() throws Exception {
+		setupPublish();
+		ChangeMessage entity = createMessage(ObjectType.ENTITY, 1L);
+		ChangeMessage file = createMessage(ObjectType.FILE, 2L);
+		messagePublisher.fireChangeMessage(entity);
+		messagePublisher.fireChangeMessage(file);
+		PublishRequest entityRequest = new PublishRequest("arn-topic-ENTITY", toJson(Arrays.asList(entity)));
+		when(mockAwsSNSClient.publish(entityRequest)).thenThrow(new IllegalStateException("failed"));
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockTransactionalMessanger, never()).registerMessagesSent(ObjectType.ENTITY, Arrays.asList(entity));
+		verify(mockTransactionalMessanger).registerMessagesSent(ObjectType.FILE, Arrays.asList(file));
+	}
+
+	@Test
+	public void testTimerFiredShouldNotPublish() {
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(false);
+		messagePublisher.fireChangeMessage(message);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockAwsSNSClient, never()).publish(any(PublishRequest.class));
+		verify(mockConsumer, never()).addProfileData(any(ProfileData.class));
+	}
+
+	@Test
+	public void testTimerFiredEmpty() {
+		when(mockStackConfiguration.getShouldMessagesBePublishedToTopic()).thenReturn(true);
+		// call under test
+		messagePublisher.timerFired();
+		verify(mockAwsSNSClient, never()).publish(any(PublishRequest.class));
+		verify(mockConsumer, never()).addProfileData(any(ProfileData.class));
+	}
 	
 }
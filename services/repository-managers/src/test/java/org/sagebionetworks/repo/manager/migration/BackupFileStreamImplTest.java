@@ -40,6 +40,7 @@ import org.sagebionetworks.repo.model.dbo.persistence.DBONode;
 import org.sagebionetworks.repo.model.dbo.persistence.DBOResourceAccess;
 import org.sagebionetworks.repo.model.dbo.persistence.DBOResourceAccessType;
 import org.sagebionetworks.repo.model.dbo.persistence.DBORevision;
+import org.sagebionetworks.repo.model.migration.BackupFormat;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.model.query.jdo.SqlConstants;
 import org.sagebionetworks.repo.web.NotFoundException;
@@ -228,6 +229,28 @@ public class BackupFileStreamImplTest {
 		assertEquals("ACCESS_REQUIREMENT.3.xml", name);
 	}
 	
+	@Test
+	public void testCreateFileNameBinary() {
+		// call under test
+		String name = BackupFileStreamImpl.createFileName(MigrationType.ACCESS_REQUIREMENT, 3, BackupFormat.BINARY);
+		assertEquals("ACCESS_REQUIREMENT.3.bin", name);
+		assertEquals(MigrationType.ACCESS_REQUIREMENT, BackupFileStreamImpl.getTypeFromFileName(name));
+	}
+	
+	@Test (expected=IllegalArgumentException.class)
+	public void testCreateFileNameNullFormat() {
+		// call under test
+		BackupFileStreamImpl.createFileName(MigrationType.ACCESS_REQUIREMENT, 3, null);
+	}
+	
+	@Test
+	public void testGetFormatFromFileName() {
+		assertEquals(BackupFormat.BINARY, BackupFileStreamImpl.getFormatFromFileName("NODE.1.bin"));
+		assertEquals(BackupFormat.XML, BackupFileStreamImpl.getFormatFromFileName("NODE.1.xml"));
+		// Legacy names do not have an index.
+		assertEquals(BackupFormat.XML, BackupFileStreamImpl.getFormatFromFileName("NODE.xml"));
+	}
+	
 	@Test (expected=IllegalArgumentException.class)
 	public void testCreateFileNameNull() {
 		// call under test
@@ -406,6 +429,59 @@ public class BackupFileStreamImplTest {
 		assertEquals(rowsToWrite, allResults);
 	}
 	
+	@Test
+	public void testWriteBackupFileBinary() throws Exception {
+		int maximumRowsPerFile = 100;
+		// call under test
+		backupFileStream.writeBackupFile(byteArrayOutputStream, rowsToWrite, backupAliasType, maximumRowsPerFile, BackupFormat.BINARY);
+		// Read the results
+		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+		ZipEntry entry = zipIn.getNextEntry();
+		assertNotNull(entry);
+		assertEquals("NODE.0.bin", entry.getName());
+		List<DBONode> nodes = BinaryBackupCodec.readBatch(zipIn, DBONode.class);
+		assertEquals(Lists.newArrayList(dboNodeOne, dboNodeTwo), nodes);
+		entry = zipIn.getNextEntry();
+		assertNotNull(entry);
+		assertEquals("NODE_REVISION.1.bin", entry.getName());
+		// no more files
+		entry = zipIn.getNextEntry();
+		assertEquals(null, entry);
+	}
+	
+	@Test
+	public void testWriteThenReadBinarySmallMax() throws IOException {
+		int maximumRowsPerFile = 1;
+		// call under test
+		backupFileStream.writeBackupFile(byteArrayOutputStream, rowsToWrite, backupAliasType, maximumRowsPerFile, BackupFormat.BINARY);
+		ByteArrayInputStream input = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+		// call under test
+		Iterable<MigratableDatabaseObject<?, ?>> resultIterator = backupFileStream.readBackupFile(input, backupAliasType);
+		List<MigratableDatabaseObject<?, ?>> allResults = new LinkedList<>();
+		for(MigratableDatabaseObject<?, ?> row: resultIterator) {
+			allResults.add(row);
+		}
+		assertEquals(rowsToWrite, allResults);
+	}
+	
+	/**
+	 * A single backup file can contain both XML and binary files.
+	 */
+	@Test
+	public void testReadMixedFormats() throws IOException {
+		backupFileStream.writeBatchToZip(zipOutputStream, Lists.newArrayList(dboNodeOne, dboNodeTwo), 0, MigrationType.NODE, backupAliasType, BackupFormat.XML);
+		backupFileStream.writeBatchToZip(zipOutputStream, Lists.newArrayList(dboRevisionOne, dboRevisionTwo), 1, MigrationType.NODE_REVISION, backupAliasType, BackupFormat.BINARY);
+		IOUtils.closeQuietly(zipOutputStream);
+		ByteArrayInputStream input = new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+		// call under test
+		Iterable<MigratableDatabaseObject<?, ?>> resultIterator = backupFileStream.readBackupFile(input, backupAliasType);
+		List<MigratableDatabaseObject<?, ?>> allResults = new LinkedList<>();
+		for(MigratableDatabaseObject<?, ?> row: resultIterator) {
+			allResults.add(row);
+		}
+		assertEquals(rowsToWrite, allResults);
+	}
+	
 	@Test (expected=IllegalStateException.class)
 	public void testNextBeforeHasNext() throws IOException {
 		backupFileStream.writeBackupFile(byteArrayOutputStream, rowsToWrite, backupAliasType, maximumRowsPerFile);
@@ -494,6 +570,26 @@ public class BackupFileStreamImplTest {
 		backupFileStream.readFileFromStream(input, backupAliasType, fileName);
 	}
 	
+	@Test(expected = EmptyFileException.class)
+	public void testReadFileFromStreamEmptyBinaryFile() throws Exception {
+		StringInputStream input = new StringInputStream("");
+		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, 0, BackupFormat.BINARY);
+		// Call under test
+		backupFileStream.readFileFromStream(input, backupAliasType, fileName);
+	}
+	
+	@Test
+	public void testReadFileFromStreamBinary() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		backupFileStream.writeBatchToBinaryStream(credentials, MigrationType.CREDENTIAL, out);
+		String fileName = BackupFileStreamImpl.createFileName(MigrationType.CREDENTIAL, 0, BackupFormat.BINARY);
+		// Call under test
+		List<MigratableDatabaseObject<?, ?>> results = backupFileStream.readFileFromStream(new ByteArrayInputStream(out.toByteArray()), backupAliasType, fileName);
+		assertNotNull(results);
+		assertEquals(2, results.size());
+		assertEquals(credentialTwo, results.get(1));
+	}
+	
 	@Test(expected = EmptyFileException.class)
 	public void testReadFileFromStreamMigrationTypeDoesNotExist() throws Exception {
 		StringInputStream input = new StringInputStream("");
@@ -0,0 +1,420 @@
+package org.sagebionetworks.repo.manager.migration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.UnmodifiableXStream;
+import org.sagebionetworks.repo.model.dbo.persistence.DBOAccessControlList;
+import org.sagebionetworks.repo.model.dbo.persistence.DBOCredentialBackup;
+import org.sagebionetworks.repo.model.dbo.persistence.DBONode;
+import org.sagebionetworks.repo.model.dbo.persistence.DBOResourceAccess;
+import org.sagebionetworks.repo.model.query.jdo.SqlConstants;
+
+public class BinaryBackupCodecTest {
+
+	List<DBONode> nodes;
+	List<DBOAccessControlList> acls;
+	List<DBOResourceAccess> resourceAccess;
+
+	@BeforeEach
+	public void before() {
+		nodes = createNodes(1000);
+		acls = new ArrayList<>();
+		resourceAccess = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			DBOAccessControlList acl = new DBOAccessControlList();
+			acl.setId(9000L + i);
+			acl.setEtag("a3a8c0a2-6c5d-4b4c-9b0e-" + String.format("%012d", i));
+			acl.setCreationDate(1600000000000L + i * 1000L);
+			acl.setOwnerId(1000L + i);
+			acl.setOwnerType("ENTITY");
+			acls.add(acl);
+			DBOResourceAccess access = new DBOResourceAccess();
+			access.setId(20000L + i);
+			access.setOwner(acl.getId());
+			access.setUserGroupId(i % 3 == 0 ? 273948L : 3000L + i);
+			resourceAccess.add(access);
+		}
+	}
+
+	static List<DBONode> createNodes(int count) {
+		List<DBONode> nodes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			DBONode node = new DBONode();
+			node.setId(1000L + i);
+			node.setParentId(i % 10 == 0 ? null : 999L);
+			node.setName("file_" + i + ".txt");
+			node.setCurrentRevNumber(1L);
+			node.setMaxRevNumber(i % 5 + 1L);
+			node.setDescription(i % 2 == 0 ? null : ("description " + i).getBytes(StandardCharsets.UTF_8));
+			node.seteTag("4b9e3bd8-98f6-4c8c-a4a5-" + String.format("%012d", i));
+			node.setCreatedBy(3350396L);
+			node.setCreatedOn(1600000000000L + i * 1000L);
+			node.setType(i % 10 == 0 ? "folder" : "file");
+			node.setAlias(null);
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	<B> List<B> roundTrip(List<B> batch, Class<? extends B> backupClass) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(batch, backupClass, out);
+		return BinaryBackupCodec.readBatch(new ByteArrayInputStream(out.toByteArray()), backupClass);
+	}
+
+	@Test
+	public void testRoundTripNodes() throws Exception {
+		// call under test
+		List<DBONode> results = roundTrip(nodes, DBONode.class);
+		assertEquals(nodes, results);
+	}
+
+	@Test
+	public void testRoundTripAcls() throws Exception {
+		// call under test
+		assertEquals(acls, roundTrip(acls, DBOAccessControlList.class));
+		assertEquals(resourceAccess, roundTrip(resourceAccess, DBOResourceAccess.class));
+	}
+
+	@Test
+	public void testRoundTripCredentials() throws Exception {
+		DBOCredentialBackup credential = new DBOCredentialBackup();
+		credential.setPrincipalId(123L);
+		credential.setValidatedOn(new Date(1600000000123L));
+		credential.setPassHash("hash");
+		credential.setAgreesToTermsOfUse(true);
+		// call under test
+		List<DBOCredentialBackup> results = roundTrip(Arrays.asList(credential, new DBOCredentialBackup()),
+				DBOCredentialBackup.class);
+		assertEquals(2, results.size());
+		DBOCredentialBackup result = results.get(0);
+		assertEquals(credential.getPrincipalId(), result.getPrincipalId());
+		assertEquals(credential.getValidatedOn(), result.getValidatedOn());
+		assertNull(result.getSessionToken());
+		assertEquals(credential.getPassHash(), result.getPassHash());
+		assertNull(result.getSecretKey());
+		assertEquals(Boolean.TRUE, result.getAgreesToTermsOfUse());
+		result = results.get(1);
+		assertNull(result.getPrincipalId());
+		assertNull(result.getValidatedOn());
+		assertNull(result.getAgreesToTermsOfUse());
+	}
+
+	@Test
+	public void testRoundTripAllTypes() throws Exception {
+		AllTypes one = new AllTypes();
+		one.primitiveLong = Long.MIN_VALUE;
+		one.boxedLong = Long.MAX_VALUE;
+		one.primitiveInt = -7;
+		one.boxedInt = Integer.MAX_VALUE;
+		one.primitiveShort = Short.MIN_VALUE;
+		one.boxedShort = 12;
+		one.primitiveByte = -1;
+		one.boxedByte = Byte.MAX_VALUE;
+		one.primitiveBoolean = true;
+		one.boxedBoolean = false;
+		one.primitiveDouble = 1.5;
+		one.boxedDouble = -0.25;
+		one.primitiveFloat = 3.75f;
+		one.boxedFloat = Float.NaN;
+		one.string = "été ☃";
+		one.bytes = new byte[0];
+		one.date = new Date(-1L);
+		Timestamp timestamp = new Timestamp(1600000000123L);
+		timestamp.setNanos(123456789);
+		one.timestamp = timestamp;
+		one.sqlDate = new java.sql.Date(1600000000000L);
+		one.enumValue = Color.BLUE;
+		AllTypes two = new AllTypes();
+		two.string = one.string;
+		two.timestamp = new Timestamp(0L);
+		// call under test
+		List<AllTypes> results = roundTrip(Arrays.asList(one, two, new AllTypes()), AllTypes.class);
+		assertEquals(3, results.size());
+		AllTypes result = results.get(0);
+		assertEquals(one.primitiveLong, result.primitiveLong);
+		assertEquals(one.boxedLong, result.boxedLong);
+		assertEquals(one.primitiveInt, result.primitiveInt);
+		assertEquals(one.boxedInt, result.boxedInt);
+		assertEquals(one.primitiveShort, result.primitiveShort);
+		assertEquals(one.boxedShort, result.boxedShort);
+		assertEquals(one.primitiveByte, result.primitiveByte);
+		assertEquals(one.boxedByte, result.boxedByte);
+		assertEquals(one.primitiveBoolean, result.primitiveBoolean);
+		assertEquals(one.boxedBoolean, result.boxedBoolean);
+		assertEquals(one.primitiveDouble, result.primitiveDouble);
+		assertEquals(one.boxedDouble, result.boxedDouble);
+		assertEquals(one.primitiveFloat, result.primitiveFloat);
+		assertEquals(one.boxedFloat, result.boxedFloat);
+		assertEquals(one.string, result.string);
+		assertArrayEquals(one.bytes, result.bytes);
+		assertEquals(one.date, result.date);
+		assertEquals(Date.class, result.date.getClass());
+		assertEquals(one.timestamp, result.timestamp);
+		assertEquals(123456789, result.timestamp.getNanos());
+		assertEquals(one.sqlDate, result.sqlDate);
+		assertEquals(java.sql.Date.class, result.sqlDate.getClass());
+		assertEquals(Color.BLUE, result.enumValue);
+		// the same string is read from the dictionary.
+		assertEquals(one.string, results.get(1).string);
+		assertEquals(two.timestamp, results.get(1).timestamp);
+		AllTypes empty = results.get(2);
+		assertEquals(0L, empty.primitiveLong);
+		assertNull(empty.boxedLong);
+		assertNull(empty.boxedBoolean);
+		assertNull(empty.string);
+		assertNull(empty.bytes);
+		assertNull(empty.date);
+		assertNull(empty.enumValue);
+	}
+
+	@Test
+	public void testRoundTripEmptyBatch() throws Exception {
+		// call under test
+		List<DBONode> results = roundTrip(Collections.emptyList(), DBONode.class);
+		assertTrue(results.isEmpty());
+	}
+
+	@Test
+	public void testReadWithChangedFields() throws Exception {
+		OldVersion old = new OldVersion();
+		old.id = 123L;
+		old.removed = "gone";
+		old.name = "name";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(Arrays.asList(old), OldVersion.class, out);
+		// call under test
+		List<NewVersion> results = BinaryBackupCodec.readBatch(new ByteArrayInputStream(out.toByteArray()),
+				NewVersion.class);
+		assertEquals(1, results.size());
+		assertEquals(old.id, results.get(0).id);
+		assertEquals(old.name, results.get(0).name);
+		assertNull(results.get(0).added);
+	}
+
+	@Test
+	public void testReadWithChangedFieldType() throws Exception {
+		NewVersion newVersion = new NewVersion();
+		newVersion.id = 123L;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(Arrays.asList(newVersion), NewVersion.class, out);
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			BinaryBackupCodec.readBatch(new ByteArrayInputStream(out.toByteArray()), ChangedType.class);
+		});
+	}
+
+	@Test
+	public void testReadNoMatchingFields() throws Exception {
+		OldVersion old = new OldVersion();
+		old.id = 123L;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(Arrays.asList(old), OldVersion.class, out);
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			BinaryBackupCodec.readBatch(new ByteArrayInputStream(out.toByteArray()), Unrelated.class);
+		});
+	}
+
+	@Test
+	public void testReadNoFields() throws Exception {
+		OldVersion old = new OldVersion();
+		old.id = 123L;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(Arrays.asList(old), OldVersion.class, out);
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			BinaryBackupCodec.readBatch(new ByteArrayInputStream(out.toByteArray()), NoFields.class);
+		});
+	}
+
+	@Test
+	public void testReadEmpty() throws Exception {
+		assertThrows(EmptyFileException.class, () -> {
+			// call under test
+			BinaryBackupCodec.readBatch(new ByteArrayInputStream(new byte[0]), DBONode.class);
+		});
+	}
+
+	@Test
+	public void testReadUnknownVersion() throws Exception {
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			BinaryBackupCodec.readBatch(new ByteArrayInputStream("<list/>".getBytes(StandardCharsets.UTF_8)),
+					DBONode.class);
+		});
+	}
+
+	@Test
+	public void testWriteWrongClass() throws Exception {
+		List<Object> batch = Arrays.asList(new DBONode(), new DBOAccessControlList());
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			BinaryBackupCodec.writeBatch(batch, DBONode.class, new ByteArrayOutputStream());
+		});
+	}
+
+	@Test
+	public void testWriteUnsupported() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			BinaryBackupCodec.writeBatch(Arrays.asList(new Unsupported()), Unsupported.class,
+					new ByteArrayOutputStream());
+		});
+	}
+
+	@Test
+	public void testIsSupported() {
+		assertTrue(BinaryBackupCodec.isSupported(DBONode.class));
+		assertTrue(BinaryBackupCodec.isSupported(DBOAccessControlList.class));
+		assertTrue(BinaryBackupCodec.isSupported(DBOCredentialBackup.class));
+		assertTrue(BinaryBackupCodec.isSupported(AllTypes.class));
+		assertFalse(BinaryBackupCodec.isSupported(Unsupported.class));
+		assertFalse(BinaryBackupCodec.isSupported(NoDefaultConstructor.class));
+		assertFalse(BinaryBackupCodec.isSupported(NoFields.class));
+	}
+
+	@Test
+	public void testIsSupportedNull() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			BinaryBackupCodec.isSupported(null);
+		});
+	}
+
+	/**
+	 * The binary encoding must be smaller than XStream, both raw and compressed as
+	 * written to a migration backup zip, for batches of nodes and ACLs.
+	 */
+	@Test
+	public void testCompareToXStream() throws Exception {
+		UnmodifiableXStream xStream = UnmodifiableXStream.builder().alias(SqlConstants.TABLE_NODE, DBONode.class)
+				.alias(SqlConstants.TABLE_ACCESS_CONTROL_LIST, DBOAccessControlList.class)
+				.alias(SqlConstants.TABLE_RESOURCE_ACCESS, DBOResourceAccess.class).build();
+		List<DBONode> largeBatch = createNodes(20000);
+		compareToXStream(xStream, largeBatch, DBONode.class);
+		compareToXStream(xStream, acls, DBOAccessControlList.class);
+		compareToXStream(xStream, resourceAccess, DBOResourceAccess.class);
+	}
+
+	<B> void compareToXStream(UnmodifiableXStream xStream, List<B> batch, Class<? extends B> backupClass)
+			throws IOException, EmptyFileException {
+		byte[] xml = writeXml(xStream, batch);
+		byte[] binary = writeBinary(batch, backupClass);
+		List<B> results = BinaryBackupCodec.readBatch(new ByteArrayInputStream(binary), backupClass);
+		assertEquals(batch, results);
+
+		byte[] compressedXml = compress(xml);
+		byte[] compressedBinary = compress(binary);
+		assertTrue(binary.length < xml.length);
+		assertTrue(compressedBinary.length < compressedXml.length);
+	}
+
+	static byte[] writeXml(UnmodifiableXStream xStream, List<?> batch) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		xStream.toXML(batch, writer);
+		writer.flush();
+		return out.toByteArray();
+	}
+
+	static <B> byte[] writeBinary(List<B> batch, Class<? extends B> backupClass) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryBackupCodec.writeBatch(batch, backupClass, out);
+		return out.toByteArray();
+	}
+
+	static byte[] compress(byte[] bytes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+			deflater.write(bytes);
+		}
+		return out.toByteArray();
+	}
+
+	enum Color {
+		RED, BLUE
+	}
+
+	static class AllTypes {
+		long primitiveLong;
+		Long boxedLong;
+		int primitiveInt;
+		Integer boxedInt;
+		short primitiveShort;
+		Short boxedShort;
+		byte primitiveByte;
+		Byte boxedByte;
+		boolean primitiveBoolean;
+		Boolean boxedBoolean;
+		double primitiveDouble;
+		Double boxedDouble;
+		float primitiveFloat;
+		Float boxedFloat;
+		String string;
+		byte[] bytes;
+		Date date;
+		Timestamp timestamp;
+		java.sql.Date sqlDate;
+		Color enumValue;
+		static String ignoredStatic = "static";
+		transient String ignoredTransient;
+	}
+
+	static class OldVersion {
+		Long id;
+		String removed;
+		String name;
+	}
+
+	static class NewVersion {
+		Long id;
+		String name;
+		String added;
+	}
+
+	static class ChangedType {
+		String id;
+	}
+
+	static class Unrelated {
+		Long other;
+	}
+
+	static class Unsupported {
+		Long id;
+		List<String> values;
+	}
+
+	static class NoDefaultConstructor {
+		Long id;
+
+		NoDefaultConstructor(Long id) {
+			this.id = id;
+		}
+	}
+
+	static class NoFields {
+	}
+}
@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.manager.migration;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -9,12 +10,14 @@ import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -28,12 +31,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.repo.model.AuthorizationConstants;
@@ -48,6 +53,7 @@ import org.sagebionetworks.repo.model.dbo.migration.MigratableTableDAO;
 import org.sagebionetworks.repo.model.dbo.persistence.DBONode;
 import org.sagebionetworks.repo.model.dbo.persistence.DBORevision;
 import org.sagebionetworks.repo.model.dbo.persistence.DBOUserGroup;
+import org.sagebionetworks.repo.model.migration.BackupFormat;
 import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
 import org.sagebionetworks.repo.model.migration.BackupTypeResponse;
 import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
@@ -66,8 +72,11 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * The Unit test for MigrationManagerImpl;
@@ -327,10 +336,10 @@ public class MigrationManagerImplTest {
 		BackupAliasType aliasType = BackupAliasType.TABLE_NAME;
 		long batchSize = 2;
 		// call under test
-		BackupTypeResponse response = manager.backupStreamToS3(type, stream, aliasType, batchSize);
+		BackupTypeResponse response = manager.backupStreamToS3(type, stream, aliasType, batchSize, BackupFormat.XML);
 		assertNotNull(response);
 		assertNotNull(response.getBackupFileKey());
-		verify(mockBackupFileStream).writeBackupFile(mockOutputStream, stream, aliasType, batchSize);
+		verify(mockBackupFileStream).writeBackupFile(mockOutputStream, stream, aliasType, batchSize, BackupFormat.XML);
 		verify(mockS3Client).putObject(MigrationManagerImpl.backupBucket, response.getBackupFileKey(), mockFile);
 		// the stream must be flushed and closed.
 		verify(mockOutputStream).flush();
@@ -343,7 +352,7 @@ public class MigrationManagerImplTest {
 	public void testBackupStreamToS3Exception() throws IOException {
 		// setup an failure
 		IOException toBeThrown = new IOException("some kind of IO error");
-		doThrow(toBeThrown).when(mockBackupFileStream).writeBackupFile(any(OutputStream.class), any(Iterable.class), any(BackupAliasType.class), anyLong());
+		doThrow(toBeThrown).when(mockBackupFileStream).writeBackupFile(any(OutputStream.class), any(Iterable.class), any(BackupAliasType.class), anyLong(), any(BackupFormat.class));
 		// call under test
 		List<MigratableDatabaseObject<?, ?>> stream = new LinkedList<>();
 		MigrationType type = MigrationType.NODE;
@@ -351,7 +360,7 @@ public class MigrationManagerImplTest {
 		long batchSize = 2;
 		// call under test
 		try {
-			manager.backupStreamToS3(type, stream, aliasType, batchSize);
+			manager.backupStreamToS3(type, stream, aliasType, batchSize, BackupFormat.XML);
 			fail();
 		} catch (Exception e) {
 			// expected
@@ -363,11 +372,60 @@ public class MigrationManagerImplTest {
 		verify(mockFile).delete();
 	}
 	
+	@Test
+	public void testBackupStreamToS3Streaming() throws IOException {
+		ReflectionTestUtils.setField(manager, "streamingEnabled", true);
+		ReflectionTestUtils.setField(manager, "migrationExecutorService", MoreExecutors.newDirectExecutorService());
+		byte[] data = new byte[] {1, 2, 3};
+		doAnswer((InvocationOnMock invocation) -> {
+			OutputStream out = invocation.getArgument(0);
+			out.write(data);
+			out.close();
+			return null;
+		}).when(mockBackupFileStream).writeBackupFile(any(OutputStream.class), any(Iterable.class), any(BackupAliasType.class), anyLong(), any(BackupFormat.class));
+		List<MigratableDatabaseObject<?, ?>> stream = new LinkedList<>();
+		// call under test
+		BackupTypeResponse response = manager.backupStreamToS3(MigrationType.NODE, stream, BackupAliasType.TABLE_NAME, 2L, BackupFormat.BINARY);
+		assertNotNull(response);
+		assertNotNull(response.getBackupFileKey());
+		verify(mockBackupFileStream).writeBackupFile(any(OutputStream.class), eq(stream), eq(BackupAliasType.TABLE_NAME), eq(2L), eq(BackupFormat.BINARY));
+		// a small backup is uploaded with a single put.
+		ArgumentCaptor<InputStream> inputCaptor = ArgumentCaptor.forClass(InputStream.class);
+		verify(mockS3Client).putObject(eq(MigrationManagerImpl.backupBucket), eq(response.getBackupFileKey()), inputCaptor.capture(), any(ObjectMetadata.class));
+		assertArrayEquals(data, IOUtils.toByteArray(inputCaptor.getValue()));
+		// nothing is written to a local file.
+		verify(mockFileProvider, never()).createTempFile(anyString(), anyString());
+	}
+	
+	@Test
+	public void testBackupStreamToS3StreamingFailure() throws IOException {
+		ReflectionTestUtils.setField(manager, "streamingEnabled", true);
+		ReflectionTestUtils.setField(manager, "migrationExecutorService", MoreExecutors.newDirectExecutorService());
+		IOException toBeThrown = new IOException("some kind of IO error");
+		doAnswer((InvocationOnMock invocation) -> {
+			OutputStream out = invocation.getArgument(0);
+			out.write(1);
+			// the backup file stream closes its stream even on failure.
+			out.close();
+			throw toBeThrown;
+		}).when(mockBackupFileStream).writeBackupFile(any(OutputStream.class), any(Iterable.class), any(BackupAliasType.class), anyLong(), any(BackupFormat.class));
+		List<MigratableDatabaseObject<?, ?>> stream = new LinkedList<>();
+		try {
+			// call under test
+			manager.backupStreamToS3(MigrationType.NODE, stream, BackupAliasType.TABLE_NAME, 2L, BackupFormat.XML);
+			fail();
+		} catch (IOException e) {
+			assertEquals(toBeThrown, e);
+		}
+		// a partial backup must not be created.
+		verify(mockS3Client, never()).putObject(anyString(), anyString(), any(InputStream.class), any(ObjectMetadata.class));
+	}
+	
 	@Test
 	public void testBackupRangeRequest() throws IOException {
  		// call under test
 		manager.backupRequest(mockUser, rangeRequest);
-		verify(mockBackupFileStream).writeBackupFile(eq(mockOutputStream), iterableCator.capture(), eq(backupAlias), eq(batchSize));
+		verify(mockBackupFileStream).writeBackupFile(eq(mockOutputStream), iterableCator.capture(), eq(backupAlias), eq(batchSize), eq(BackupFormat.XML));
 		List<MigratableDatabaseObject<?, ?>> results = new LinkedList<>();
 		for(MigratableDatabaseObject<?, ?> object: iterableCator.getValue()) {
 			results.add(object);
@@ -375,6 +433,14 @@ public class MigrationManagerImplTest {
 		assertEquals(allObjects,results);
 	}
 	
+	@Test
+	public void testBackupRangeRequestBinaryFormat() throws IOException {
+		rangeRequest.setBackupFormat(BackupFormat.BINARY);
+ 		// call under test
+		manager.backupRequest(mockUser, rangeRequest);
+		verify(mockBackupFileStream).writeBackupFile(eq(mockOutputStream), any(Iterable.class), eq(backupAlias), eq(batchSize), eq(BackupFormat.BINARY));
+	}
+	
 	@Test (expected=UnauthorizedException.class)
 	public void testBackupRangeRequestNonAdmin() throws IOException {
 		when(mockUser.isAdmin()).thenReturn(false);
@@ -652,6 +718,24 @@ public class MigrationManagerImplTest {
 	}
 	
 	
+	@Test
+	public void testRestoreRequestStreaming() throws IOException {
+		ReflectionTestUtils.setField(manager, "streamingEnabled", true);
+		S3Object s3Object = new S3Object();
+		s3Object.setObjectContent(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+		when(mockS3Client.getObject(MigrationManagerImpl.backupBucket, restoreTypeRequest.getBackupFileKey())).thenReturn(s3Object);
+		// call under test
+		RestoreTypeResponse response = manager.restoreRequest(mockUser, restoreTypeRequest);
+		assertNotNull(response);
+		assertEquals(new Long(allObjects.size()), response.getRestoredRowCount());
+		// the backup is read while it downloads.
+		verify(mockBackupFileStream).readBackupFile(any(ReadAheadInputStream.class), eq(backupAlias));
+		verify(mockS3Client).deleteObject(MigrationManagerImpl.backupBucket, restoreTypeRequest.getBackupFileKey());
+		// nothing is written to a local file.
+		verify(mockFileProvider, never()).createTempFile(anyString(), anyString());
+		verify(mockS3Client, never()).getObject(any(GetObjectRequest.class), any(File.class));
+	}
+	
 	@Test (expected=UnauthorizedException.class)
 	public void testRestoreRequestUnauthorized() throws IOException {
 		// must be an admin
@@ -0,0 +1,142 @@
+package org.sagebionetworks.repo.manager.migration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ReadAheadInputStreamTest {
+
+	@Mock
+	private InputStream mockSource;
+
+	private ExecutorService executor;
+	private byte[] data;
+
+	@BeforeEach
+	public void before() {
+		executor = Executors.newSingleThreadExecutor();
+		data = new byte[10000];
+		new Random(42L).nextBytes(data);
+	}
+
+	@AfterEach
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testReadAll() throws IOException {
+		try (ReadAheadInputStream input = new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 333, 2)) {
+			// call under test
+			byte[] results = IOUtils.toByteArray(input);
+			assertArrayEquals(data, results);
+			assertEquals(-1, input.read());
+		}
+	}
+
+	@Test
+	public void testReadSingleBytes() throws IOException {
+		try (ReadAheadInputStream input = new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 7, 3)) {
+			for (int i = 0; i < data.length; i++) {
+				// call under test
+				assertEquals(data[i] & 0xFF, input.read());
+			}
+			assertEquals(-1, input.read());
+		}
+	}
+
+	@Test
+	public void testReadEmpty() throws IOException {
+		try (ReadAheadInputStream input = new ReadAheadInputStream(new ByteArrayInputStream(new byte[0]), executor,
+				100, 1)) {
+			// call under test
+			assertEquals(-1, input.read(new byte[10], 0, 10));
+		}
+	}
+
+	@Test
+	public void testSourceFailure() throws IOException {
+		IOException exception = new IOException("connection reset");
+		InputStream failing = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw exception;
+			}
+		};
+		InputStream source = new SequenceInputStream(new ByteArrayInputStream(data), failing);
+		try (ReadAheadInputStream input = new ReadAheadInputStream(source, executor, 1000, 2)) {
+			byte[] buffer = new byte[data.length];
+			// the data read before the failure is still returned.
+			IOUtils.readFully(input, buffer);
+			assertArrayEquals(data, buffer);
+			IOException thrown = assertThrows(IOException.class, () -> {
+				// call under test
+				input.read();
+			});
+			assertSame(exception, thrown);
+		}
+	}
+
+	@Test
+	public void testSourceRuntimeFailure() throws IOException {
+		IllegalStateException exception = new IllegalStateException("aborted");
+		when(mockSource.read(any(byte[].class))).thenThrow(exception);
+		try (ReadAheadInputStream input = new ReadAheadInputStream(mockSource, executor, 1000, 2)) {
+			IOException thrown = assertThrows(IOException.class, () -> {
+				// call under test
+				input.read();
+			});
+			assertSame(exception, thrown.getCause());
+		}
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		ReadAheadInputStream input = new ReadAheadInputStream(new ByteArrayInputStream(data), executor, 10, 1);
+		input.read();
+		// call under test
+		input.close();
+		assertThrows(IOException.class, () -> {
+			input.read();
+		});
+	}
+
+	@Test
+	public void testCloseClosesSource() throws IOException {
+		// the source may not be read before the stream is closed.
+		lenient().when(mockSource.read(any(byte[].class))).thenReturn(-1);
+		ReadAheadInputStream input = new ReadAheadInputStream(mockSource, executor, 10, 1);
+		// call under test
+		input.close();
+		verify(mockSource).close();
+	}
+
+	@Test
+	public void testZeroChunks() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new ReadAheadInputStream(mockSource, executor, 10, 0);
+		});
+	}
+}
@@ -0,0 +1,182 @@
+package org.sagebionetworks.repo.manager.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sagebionetworks.repo.model.table.AnnotationType;
+import org.sagebionetworks.repo.model.table.ObjectAnnotationDTO;
+import org.sagebionetworks.repo.model.table.ObjectDataDTO;
+
+import com.google.common.collect.Lists;
+
+public class ReplicationDeltaTest {
+
+	private ObjectDataDTO truth;
+	private ObjectDataDTO replica;
+
+	@BeforeEach
+	public void before() {
+		truth = createObject(123L, "a", "b");
+		replica = createObject(123L, "a", "b");
+	}
+
+	@Test
+	public void testCalculateUnchanged() {
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Lists.newArrayList(replica));
+		assertEquals(Collections.emptyList(), delta.getIdsToDelete());
+		assertEquals(Collections.emptyList(), delta.getRowsToUpsert());
+		assertEquals(Collections.emptyList(), delta.getAnnotationsToUpsert());
+		assertEquals(Collections.emptyList(), delta.getAnnotationsToDelete());
+		assertEquals(0L, delta.getRowsWritten());
+		assertEquals(1L, delta.getUnchangedCount());
+	}
+
+	@Test
+	public void testCalculateWithNewObject() {
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Collections.emptyList());
+		assertEquals(Lists.newArrayList(truth), delta.getRowsToUpsert());
+		assertEquals(truth.getAnnotations(), delta.getAnnotationsToUpsert());
+		assertEquals(Collections.emptyList(), delta.getAnnotationsToDelete());
+		assertEquals(3L, delta.getRowsWritten());
+		assertEquals(0L, delta.getUnchangedCount());
+	}
+
+	@Test
+	public void testCalculateWithDeletedObject() {
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Collections.emptyList(), Lists.newArrayList(replica));
+		assertEquals(Lists.newArrayList(123L), delta.getIdsToDelete());
+		assertEquals(Collections.emptyList(), delta.getRowsToUpsert());
+		assertEquals(1L, delta.getRowsWritten());
+	}
+
+	@Test
+	public void testCalculateWithRowChange() {
+		truth.setBenefactorId(999L);
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Lists.newArrayList(replica));
+		assertEquals(Lists.newArrayList(truth), delta.getRowsToUpsert());
+		assertEquals(Collections.emptyList(), delta.getAnnotationsToUpsert());
+		assertEquals(Collections.emptyList(), delta.getAnnotationsToDelete());
+		assertEquals(0L, delta.getUnchangedCount());
+	}
+
+	@Test
+	public void testCalculateWithTimestamp() {
+		// the truth can provide a Timestamp while the replica provides a Date.
+		truth.setCreatedOn(new Timestamp(replica.getCreatedOn().getTime()));
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Lists.newArrayList(replica));
+		assertEquals(1L, delta.getUnchangedCount());
+	}
+
+	@Test
+	public void testCalculateWithAnnotationChanges() {
+		// b is removed, a is changed and c is added.
+		truth = createObject(123L, "a", "c");
+		truth.getAnnotations().get(0).setValue("changed");
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Lists.newArrayList(replica));
+		assertEquals(Collections.emptyList(), delta.getRowsToUpsert());
+		assertEquals(truth.getAnnotations(), delta.getAnnotationsToUpsert());
+		assertEquals(Lists.newArrayList(replica.getAnnotations().get(1)), delta.getAnnotationsToDelete());
+		assertEquals(3L, delta.getRowsWritten());
+		assertEquals(0L, delta.getUnchangedCount());
+	}
+
+	@Test
+	public void testCalculateWithAnnotationTypeChange() {
+		truth.getAnnotations().get(0).setType(AnnotationType.LONG);
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Lists.newArrayList(replica));
+		// the old type must be deleted since the type is part of the key.
+		assertEquals(Lists.newArrayList(replica.getAnnotations().get(0)), delta.getAnnotationsToDelete());
+		assertEquals(Lists.newArrayList(truth.getAnnotations().get(0)), delta.getAnnotationsToUpsert());
+	}
+
+	@Test
+	public void testCalculateWithAllAnnotationsRemoved() {
+		truth.setAnnotations(null);
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth), Lists.newArrayList(replica));
+		assertEquals(replica.getAnnotations(), delta.getAnnotationsToDelete());
+		assertEquals(Collections.emptyList(), delta.getAnnotationsToUpsert());
+	}
+
+	@Test
+	public void testCalculateWithDuplicateTruth() {
+		ObjectDataDTO newer = createObject(123L, "a", "b");
+		newer.setEtag("newer");
+		// call under test
+		ReplicationDelta delta = ReplicationDelta.calculate(Lists.newArrayList(truth, newer),
+				Lists.newArrayList(replica));
+		assertEquals(Lists.newArrayList(newer), delta.getRowsToUpsert());
+	}
+
+	@Test
+	public void testCalculateWithNullTruth() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			ReplicationDelta.calculate(null, Collections.emptyList());
+		});
+	}
+
+	@Test
+	public void testCalculateWithNullReplica() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			ReplicationDelta.calculate(Collections.emptyList(), null);
+		});
+	}
+
+	@Test
+	public void testIsObjectRowEqual() {
+		assertTrue(ReplicationDelta.isObjectRowEqual(truth, replica));
+		// annotations are not compared.
+		truth.setAnnotations(null);
+		assertTrue(ReplicationDelta.isObjectRowEqual(truth, replica));
+		truth.setFileMD5("changed");
+		assertFalse(ReplicationDelta.isObjectRowEqual(truth, replica));
+	}
+
+	private static ObjectDataDTO createObject(Long id, String... annotationKeys) {
+		ObjectDataDTO dto = new ObjectDataDTO();
+		dto.setId(id);
+		dto.setCurrentVersion(2L);
+		dto.setCreatedBy(222L);
+		dto.setCreatedOn(new Date(1000L));
+		dto.setEtag("etag");
+		dto.setName("name");
+		dto.setSubType("file");
+		dto.setParentId(1L);
+		dto.setBenefactorId(2L);
+		dto.setProjectId(3L);
+		dto.setModifiedBy(333L);
+		dto.setModifiedOn(new Date(2000L));
+		dto.setFileHandleId(888L);
+		dto.setFileSizeBytes(999L);
+		dto.setFileMD5("md5");
+		List<ObjectAnnotationDTO> annotations = Lists.newArrayList();
+		for (String key : annotationKeys) {
+			ObjectAnnotationDTO annotation = new ObjectAnnotationDTO();
+			annotation.setObjectId(id);
+			annotation.setKey(key);
+			annotation.setType(AnnotationType.STRING);
+			annotation.setValue("value-" + key);
+			annotations.add(annotation);
+		}
+		dto.setAnnotations(annotations);
+		return dto;
+	}
+}
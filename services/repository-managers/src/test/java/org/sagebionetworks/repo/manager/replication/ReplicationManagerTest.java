@@ -26,9 +26,13 @@ import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProvider;
 import org.sagebionetworks.repo.manager.table.metadata.MetadataIndexProviderFactory;
 import org.sagebionetworks.repo.model.IdAndEtag;
@@ -37,6 +41,8 @@ import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.message.ChangeMessage;
 import org.sagebionetworks.repo.model.message.ChangeType;
+import org.sagebionetworks.repo.model.table.AnnotationType;
+import org.sagebionetworks.repo.model.table.ObjectAnnotationDTO;
 import org.sagebionetworks.repo.model.table.ObjectDataDTO;
 import org.sagebionetworks.repo.model.table.ViewObjectType;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
@@ -47,6 +53,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -63,6 +70,10 @@ public class ReplicationManagerTest {
 	ReplicationMessageManager mockReplicationMessageManager;
 	@Mock
 	Clock clock;
+	@Mock
+	Consumer mockConsumer;
+	@Mock
+	StackConfiguration mockStackConfig;
 	
 	@InjectMocks
 	ReplicationManagerImpl manager;
@@ -214,8 +225,9 @@ public class ReplicationManagerTest {
 		verify(mockConnectionFactory).getAllConnections();
 		verify(mockMetadataIndexProviderFactory).getMetadataIndexProvider(viewObjectType);
 		verify(mockMetadataIndexProvider).getObjectData(ImmutableList.of(111L, 222L), ReplicationManagerImpl.MAX_ANNOTATION_CHARS);
-		verify(mockIndexDao).deleteObjectData(viewObjectType, ImmutableList.of(111L,222L,333L));
-		verify(mockIndexDao).addObjectData(viewObjectType, entityData);
+		verify(mockIndexDao).getObjectDataForUpdate(viewObjectType, ImmutableList.of(111L,222L,333L));
+		verify(mockIndexDao).upsertObjectRows(viewObjectType, entityData);
+		verify(mockIndexDao, never()).deleteObjectData(any(), any());
 	}
 
 	
@@ -287,8 +299,53 @@ public class ReplicationManagerTest {
 		verify(mockConnectionFactory).getConnection(ideAndVersion);
 		verify(mockMetadataIndexProviderFactory).getMetadataIndexProvider(viewObjectType);
 		verify(mockMetadataIndexProvider).getObjectData(entityids, ReplicationManagerImpl.MAX_ANNOTATION_CHARS);
-		verify(mockIndexDao).deleteObjectData(viewObjectType, Collections.singletonList(123L));
-		verify(mockIndexDao).addObjectData(viewObjectType, entityData);
+		verify(mockIndexDao).getObjectDataForUpdate(viewObjectType, Collections.singletonList(123L));
+		verify(mockIndexDao).upsertObjectRows(viewObjectType, entityData);
+	}
+
+	@Test
+	public void testReplicateInIndex() {
+		List<ObjectDataDTO> replica = createEntityDtos(4);
+		List<ObjectDataDTO> truth = createEntityDtos(4);
+		// zero is unchanged.
+		// one has a new etag.
+		truth.get(1).setEtag("newEtag");
+		// two has a new annotation.
+		ObjectAnnotationDTO annotation = new ObjectAnnotationDTO();
+		annotation.setObjectId(2L);
+		annotation.setKey("foo");
+		annotation.setType(AnnotationType.STRING);
+		annotation.setValue("bar");
+		truth.get(2).setAnnotations(Lists.newArrayList(annotation));
+		// three was deleted.
+		truth.remove(3);
+		List<Long> ids = Lists.newArrayList(0L, 1L, 2L, 3L);
+
+		when(mockIndexDao.getObjectDataForUpdate(viewObjectType, ids)).thenReturn(replica);
+		when(clock.currentTimeMillis()).thenReturn(nowMS);
+		when(mockStackConfig.getStackInstance()).thenReturn("test");
+		setupDaoWriteTransaction();
+
+		// call under test
+		manager.replicateInIndex(mockIndexDao, viewObjectType, truth, ids);
+
+		verify(mockIndexDao).deleteObjectData(viewObjectType, Lists.newArrayList(3L));
+		verify(mockIndexDao).upsertObjectRows(viewObjectType, Lists.newArrayList(truth.get(1)));
+		verify(mockIndexDao).deleteObjectAnnotations(viewObjectType, Collections.emptyList());
+		verify(mockIndexDao).upsertObjectAnnotations(viewObjectType, Lists.newArrayList(annotation));
+		verify(mockIndexDao, never()).addObjectData(any(), any());
+
+		ArgumentCaptor<ProfileData> captor = ArgumentCaptor.forClass(ProfileData.class);
+		verify(mockConsumer, times(2)).addProfileData(captor.capture());
+		ProfileData written = captor.getAllValues().get(0);
+		assertEquals(ReplicationManagerImpl.METRIC_NAMESPACE_PREFIX + "test", written.getNamespace());
+		assertEquals(ReplicationManagerImpl.METRIC_ROWS_WRITTEN, written.getName());
+		assertEquals(3.0, written.getValue(), 1e-6);
+		assertEquals(Collections.singletonMap(ReplicationManagerImpl.DIMENSION_OBJECT_TYPE, viewObjectType.name()),
+				written.getDimension());
+		ProfileData skipped = captor.getAllValues().get(1);
+		assertEquals(ReplicationManagerImpl.METRIC_OBJECTS_SKIPPED, skipped.getName());
+		assertEquals(1.0, skipped.getValue(), 1e-6);
 	}
 	
 
@@ -334,11 +391,21 @@ public class ReplicationManagerTest {
 		assertNotNull(message.getTimestamp());
 	}
 	
+	/**
+	 * Setup the bucket CRCs such that bucket zero is out-of-synch at each level.
+	 */
+	void setupOutOfSynchBuckets() {
+		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachBucket(anyLong(), anyLong(), anyLong(), any())).thenReturn(ImmutableMap.of(0L, 1L));
+		when(mockIndexDao.getSumOfChildCRCsForEachBucket(any(), anyLong(), anyLong(), anyLong(), any())).thenReturn(ImmutableMap.of(0L, 2L));
+	}
+	
 	@Test
 	public void testFindChangesForParentIdParentNotInTrash(){
 		when(mockMetadataIndexProvider.getObjectType()).thenReturn(viewObjectType);
-		when(mockMetadataIndexProvider.getChildren(firstParentId)).thenReturn(Lists.newArrayList(truthOne,truthTwo,truthThree));
-		when(mockIndexDao.getObjectChildren(viewObjectType, firstParentId)).thenReturn(Lists.newArrayList(replicaOne,replicaTwo,replicaFour));
+		setupOutOfSynchBuckets();
+		List<Long> buckets = Lists.newArrayList(0L);
+		when(mockMetadataIndexProvider.getChildrenInBuckets(firstParentId, 100L, buckets)).thenReturn(Lists.newArrayList(truthOne,truthTwo,truthThree));
+		when(mockIndexDao.getObjectChildrenInBuckets(viewObjectType, firstParentId, 100L, buckets)).thenReturn(Lists.newArrayList(replicaOne,replicaTwo,replicaFour));
 		
 		// see before() for setup.
 		boolean parentInTrash = false;		
@@ -359,8 +426,79 @@ public class ReplicationManagerTest {
 		assertEquals(""+replicaFour.getId(), message.getObjectId());
 		assertEquals(ChangeType.DELETE, message.getChangeType());
 		
-		verify(mockIndexDao).getObjectChildren(viewObjectType, firstParentId);
-		verify(mockMetadataIndexProvider).getChildren(firstParentId);
+		verify(mockIndexDao).getObjectChildrenInBuckets(viewObjectType, firstParentId, 100L, buckets);
+		verify(mockMetadataIndexProvider).getChildrenInBuckets(firstParentId, 100L, buckets);
+		verify(mockIndexDao, never()).getObjectChildren(any(), any());
+		verify(mockMetadataIndexProvider, never()).getChildren(any());
+	}
+	
+	@Test
+	public void testFindChangesForParentIdAllBucketsMatch(){
+		when(mockMetadataIndexProvider.getObjectType()).thenReturn(viewObjectType);
+		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachBucket(anyLong(), anyLong(), anyLong(), any())).thenReturn(ImmutableMap.of(0L, 1L));
+		when(mockIndexDao.getSumOfChildCRCsForEachBucket(any(), anyLong(), anyLong(), anyLong(), any())).thenReturn(ImmutableMap.of(0L, 1L));
+		boolean parentInTrash = false;
+		// call under test
+		List<ChangeMessage> result = manager.findChangesForParentId(mockIndexDao, mockMetadataIndexProvider, firstParentId, parentInTrash);
+		assertEquals(Collections.emptyList(), result);
+		verify(mockIndexDao, never()).getObjectChildrenInBuckets(any(), any(), anyLong(), any());
+		verify(mockMetadataIndexProvider, never()).getChildrenInBuckets(any(), anyLong(), any());
+	}
+	
+	@Test
+	public void testFindOutOfSynchBuckets(){
+		when(mockMetadataIndexProvider.getObjectType()).thenReturn(viewObjectType);
+		// first level, bucket 6 does not match
+		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachBucket(firstParentId, 1_000_000L,
+				ReplicationManagerImpl.ROOT_BUCKET_WIDTH, ReplicationManagerImpl.ROOT_BUCKETS)).thenReturn(ImmutableMap.of(5L, 1L, 6L, 2L));
+		when(mockIndexDao.getSumOfChildCRCsForEachBucket(viewObjectType, firstParentId, 1_000_000L,
+				ReplicationManagerImpl.ROOT_BUCKET_WIDTH, ReplicationManagerImpl.ROOT_BUCKETS)).thenReturn(ImmutableMap.of(5L, 1L, 6L, 3L));
+		// second level, bucket 601 is missing from the replica
+		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachBucket(firstParentId, 10_000L, 1_000_000L,
+				Lists.newArrayList(6L))).thenReturn(ImmutableMap.of(600L, 1L, 601L, 2L));
+		when(mockIndexDao.getSumOfChildCRCsForEachBucket(viewObjectType, firstParentId, 10_000L, 1_000_000L,
+				Lists.newArrayList(6L))).thenReturn(ImmutableMap.of(600L, 1L));
+		// third level, bucket 60155 is missing from the truth
+		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachBucket(firstParentId, 100L, 10_000L,
+				Lists.newArrayList(601L))).thenReturn(ImmutableMap.of(60100L, 1L));
+		when(mockIndexDao.getSumOfChildCRCsForEachBucket(viewObjectType, firstParentId, 100L, 10_000L,
+				Lists.newArrayList(601L))).thenReturn(ImmutableMap.of(60100L, 1L, 60155L, 7L));
+		// call under test
+		List<Long> result = manager.findOutOfSynchBuckets(mockIndexDao, mockMetadataIndexProvider, firstParentId);
+		assertEquals(Lists.newArrayList(60155L), result);
+	}
+	
+	@Test
+	public void testFindOutOfSynchBucketsFirstLevelMatches(){
+		when(mockMetadataIndexProvider.getObjectType()).thenReturn(viewObjectType);
+		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachBucket(anyLong(), anyLong(), anyLong(), any())).thenReturn(ImmutableMap.of(5L, 1L));
+		when(mockIndexDao.getSumOfChildCRCsForEachBucket(any(), anyLong(), anyLong(), anyLong(), any())).thenReturn(ImmutableMap.of(5L, 1L));
+		// call under test
+		List<Long> result = manager.findOutOfSynchBuckets(mockIndexDao, mockMetadataIndexProvider, firstParentId);
+		assertEquals(Collections.emptyList(), result);
+		// the finer levels are not compared.
+		verify(mockMetadataIndexProvider).getSumOfChildCRCsForEachBucket(anyLong(), anyLong(), anyLong(), any());
+		verify(mockIndexDao).getSumOfChildCRCsForEachBucket(any(), anyLong(), anyLong(), anyLong(), any());
+	}
+	
+	@Test
+	public void testCompareBucketCheckSums(){
+		Map<Long, Long> truth = ImmutableMap.of(1L, 11L, 2L, 22L, 3L, 33L);
+		Map<Long, Long> replica = ImmutableMap.of(4L, 44L, 2L, 22L, 3L, -33L);
+		// call under test
+		List<Long> result = ReplicationManagerImpl.compareBucketCheckSums(truth, replica);
+		// 1 is missing from the replica, 3 does not match and 4 is missing from the truth.
+		assertEquals(Lists.newArrayList(1L, 3L, 4L), result);
+	}
+	
+	@Test
+	public void testRootBuckets(){
+		// every positive ID must be within the root buckets.
+		assertTrue(ReplicationManagerImpl.ROOT_BUCKETS.contains(Long.MAX_VALUE / ReplicationManagerImpl.ROOT_BUCKET_WIDTH));
+		assertTrue(ReplicationManagerImpl.ROOT_BUCKETS.contains(0L));
+		for (long width : ReplicationManagerImpl.CHILD_BUCKET_WIDTHS) {
+			assertEquals(0L, ReplicationManagerImpl.ROOT_BUCKET_WIDTH % width);
+		}
 	}
 	
 	@Test
@@ -385,22 +523,24 @@ public class ReplicationManagerTest {
 		assertEquals(ChangeType.DELETE, message.getChangeType());
 		
 		verify(mockIndexDao).getObjectChildren(viewObjectType, parentId);
-		// since the parent is in the trash this call should not be made
-		verify(mockMetadataIndexProvider, never()).getChildren(parentId);
+		// since the parent is in the trash these calls should not be made
+		verify(mockMetadataIndexProvider, never()).getChildrenInBuckets(any(), anyLong(), any());
+		verify(mockMetadataIndexProvider, never()).getSumOfChildCRCsForEachBucket(any(), anyLong(), anyLong(), any());
 	}
 	
 	@Test
 	public void testPLFM_5352BenefactorDoesNotMatch() {
 		when(mockMetadataIndexProvider.getObjectType()).thenReturn(viewObjectType);
-		when(mockMetadataIndexProvider.getChildren(firstParentId)).thenReturn(Lists.newArrayList(truthOne,truthTwo,truthThree));
-		when(mockIndexDao.getObjectChildren(viewObjectType, firstParentId)).thenReturn(Lists.newArrayList(replicaOne,replicaTwo,replicaFour));
+		setupOutOfSynchBuckets();
+		List<Long> buckets = Lists.newArrayList(0L);
+		when(mockMetadataIndexProvider.getChildrenInBuckets(firstParentId, 100L, buckets)).thenReturn(Lists.newArrayList(truthOne,truthTwo,truthThree));
 		
 		// setup some differences between the truth and replica.
 		Long parentId = firstParentId;
 		boolean parentInTrash = false;
 		// The benefactor does not match
 		replicaOne.setBenefactorId(truthOne.getBenefactorId()+1);
-		when(mockIndexDao.getObjectChildren(viewObjectType, parentId)).thenReturn(Lists.newArrayList(replicaOne));
+		when(mockIndexDao.getObjectChildrenInBuckets(viewObjectType, parentId, 100L, buckets)).thenReturn(Lists.newArrayList(replicaOne));
 		
 		// call under test
 		List<ChangeMessage> result = manager.findChangesForParentId(mockIndexDao, mockMetadataIndexProvider, parentId, parentInTrash);
@@ -420,8 +560,10 @@ public class ReplicationManagerTest {
 		when(mockMetadataIndexProvider.getObjectType()).thenReturn(viewObjectType);
 		when(mockMetadataIndexProvider.getSumOfChildCRCsForEachContainer(any())).thenReturn(truthCRCs);
 		when(mockIndexDao.getSumOfChildCRCsForEachParent(any(), any())).thenReturn(replicaCRCs);
-		when(mockMetadataIndexProvider.getChildren(firstParentId)).thenReturn(Lists.newArrayList(truthOne,truthTwo,truthThree));
-		when(mockIndexDao.getObjectChildren(viewObjectType, firstParentId)).thenReturn(Lists.newArrayList(replicaOne,replicaTwo,replicaFour));
+		setupOutOfSynchBuckets();
+		List<Long> buckets = Lists.newArrayList(0L);
+		when(mockMetadataIndexProvider.getChildrenInBuckets(firstParentId, 100L, buckets)).thenReturn(Lists.newArrayList(truthOne,truthTwo,truthThree));
+		when(mockIndexDao.getObjectChildrenInBuckets(viewObjectType, firstParentId, 100L, buckets)).thenReturn(Lists.newArrayList(replicaOne,replicaTwo,replicaFour));
 		// see before() for test setup.
 		// call under test
 		manager.findChildrenDeltas(mockIndexDao, mockMetadataIndexProvider, parentIds, trashedParents);
@@ -429,10 +571,11 @@ public class ReplicationManagerTest {
 		verify(mockMetadataIndexProvider).getSumOfChildCRCsForEachContainer(parentIds);
 		verify(mockIndexDao).getSumOfChildCRCsForEachParent(viewObjectType, parentIds);
 		
-		// four parents are out-of-synch
-		verify(mockIndexDao, times(4)).getObjectChildren(eq(viewObjectType), anyLong());
+		// one trashed parent is out-of-synch
+		verify(mockIndexDao, times(1)).getObjectChildren(eq(viewObjectType), anyLong());
 		// three non-trashed parents are out-of-synch
-		verify(mockMetadataIndexProvider, times(3)).getChildren(anyLong());
+		verify(mockIndexDao, times(3)).getObjectChildrenInBuckets(eq(viewObjectType), anyLong(), eq(100L), eq(buckets));
+		verify(mockMetadataIndexProvider, times(3)).getChildrenInBuckets(anyLong(), eq(100L), eq(buckets));
 		// four batches should be set.
 		verify(mockReplicationMessageManager, times(4)).pushChangeMessagesToReplicationQueue(any());
 	}
@@ -450,8 +593,7 @@ public class ReplicationManagerTest {
 	private void setupDaoWriteTransaction() {
 		doAnswer(invocation -> {
 			TransactionCallback<?> callback = (TransactionCallback<?>) invocation.getArguments()[0];
-			callback.doInTransaction(transactionStatus);
-			return null;
+			return callback.doInTransaction(transactionStatus);
 		}).when(mockIndexDao).executeInWriteTransaction(any());
 	}
 	
@@ -0,0 +1,151 @@
+package org.sagebionetworks.repo.manager.schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.model.schema.JsonSchemaVersionInfo;
+import org.sagebionetworks.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class CompiledJsonSchemaCacheImplTest {
+
+	@Mock
+	private Clock mockClock;
+	@Mock
+	private CompiledJsonSchema mockCompiled;
+	@Mock
+	private CompiledJsonSchema mockCompiledTwo;
+
+	private CompiledJsonSchemaCacheImpl cache;
+
+	private JsonSchemaVersionInfo immutableVersion;
+	private JsonSchemaVersionInfo mutableVersion;
+
+	@BeforeEach
+	public void before() {
+		cache = new CompiledJsonSchemaCacheImpl(mockClock);
+		immutableVersion = createVersion("my.org-foo.bar-1.0.0", "111", "1.0.0");
+		mutableVersion = createVersion("my.org-foo.bar", "222", null);
+	}
+
+	@Test
+	public void testPutAndGetImmutable() {
+		cache.put(immutableVersion, mockCompiled);
+		// call under test
+		assertSame(mockCompiled, cache.get(immutableVersion));
+		assertEquals(1, cache.getImmutableEntryCount());
+		assertEquals(0, cache.getMutableEntryCount());
+	}
+
+	@Test
+	public void testGetWithMiss() {
+		// call under test
+		assertNull(cache.get(immutableVersion));
+		assertNull(cache.get(mutableVersion));
+	}
+
+	@Test
+	public void testGetWithDifferentVersionId() {
+		cache.put(immutableVersion, mockCompiled);
+		JsonSchemaVersionInfo other = createVersion(immutableVersion.get$id(), "333", "1.0.0");
+		// call under test
+		assertNull(cache.get(other));
+	}
+
+	@Test
+	public void testPutAndGetMutable() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L + CompiledJsonSchemaCacheImpl.MUTABLE_ENTRY_EXPIRES_MS);
+		cache.put(mutableVersion, mockCompiled);
+		// call under test
+		assertSame(mockCompiled, cache.get(mutableVersion));
+		assertEquals(0, cache.getImmutableEntryCount());
+		assertEquals(1, cache.getMutableEntryCount());
+	}
+
+	@Test
+	public void testGetMutableExpired() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1001L + CompiledJsonSchemaCacheImpl.MUTABLE_ENTRY_EXPIRES_MS);
+		cache.put(mutableVersion, mockCompiled);
+		// call under test
+		assertNull(cache.get(mutableVersion));
+		assertEquals(0, cache.getMutableEntryCount());
+	}
+
+	@Test
+	public void testInvalidateMutable() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		cache.put(immutableVersion, mockCompiled);
+		cache.put(mutableVersion, mockCompiledTwo);
+		// call under test
+		cache.invalidateMutable();
+		assertNull(cache.get(mutableVersion));
+		assertSame(mockCompiled, cache.get(immutableVersion));
+	}
+
+	@Test
+	public void testImmutableEntriesBounded() {
+		for (int i = 0; i < CompiledJsonSchemaCacheImpl.MAX_IMMUTABLE_ENTRIES; i++) {
+			cache.put(createVersion("my.org-foo.bar-1.0." + i, "" + i, "1.0." + i), mockCompiled);
+		}
+		JsonSchemaVersionInfo first = createVersion("my.org-foo.bar-1.0.0", "0", "1.0.0");
+		JsonSchemaVersionInfo second = createVersion("my.org-foo.bar-1.0.1", "1", "1.0.1");
+		// touch the first entry so the second is the least recently used.
+		assertSame(mockCompiled, cache.get(first));
+		// call under test
+		cache.put(immutableVersion, mockCompiledTwo);
+		assertEquals(CompiledJsonSchemaCacheImpl.MAX_IMMUTABLE_ENTRIES, cache.getImmutableEntryCount());
+		assertSame(mockCompiled, cache.get(first));
+		assertNull(cache.get(second));
+		assertSame(mockCompiledTwo, cache.get(immutableVersion));
+	}
+
+	@Test
+	public void testMutableEntriesBounded() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		for (int i = 0; i < CompiledJsonSchemaCacheImpl.MAX_MUTABLE_ENTRIES + 1; i++) {
+			cache.put(createVersion("my.org-foo.bar" + i, "" + i, null), mockCompiled);
+		}
+		assertEquals(CompiledJsonSchemaCacheImpl.MAX_MUTABLE_ENTRIES, cache.getMutableEntryCount());
+		assertNull(cache.get(createVersion("my.org-foo.bar0", "0", null)));
+	}
+
+	@Test
+	public void testIsImmutable() {
+		assertTrue(CompiledJsonSchemaCacheImpl.isImmutable(immutableVersion));
+		assertFalse(CompiledJsonSchemaCacheImpl.isImmutable(mutableVersion));
+	}
+
+	@Test
+	public void testGetWithNullVersion() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.get(null);
+		});
+	}
+
+	@Test
+	public void testPutWithNullSchema() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			cache.put(immutableVersion, null);
+		});
+	}
+
+	private static JsonSchemaVersionInfo createVersion(String $id, String versionId, String semanticVersion) {
+		JsonSchemaVersionInfo info = new JsonSchemaVersionInfo();
+		info.set$id($id);
+		info.setVersionId(versionId);
+		info.setSemanticVersion(semanticVersion);
+		return info;
+	}
+}
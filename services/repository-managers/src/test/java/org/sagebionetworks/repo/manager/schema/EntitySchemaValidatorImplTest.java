@@ -1,26 +1,30 @@
 package org.sagebionetworks.repo.manager.schema;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.sagebionetworks.repo.manager.EntityManager;
 import org.sagebionetworks.repo.model.dbo.schema.SchemaValidationResultDao;
-import org.sagebionetworks.repo.model.schema.JsonSchema;
 import org.sagebionetworks.repo.model.schema.JsonSchemaObjectBinding;
 import org.sagebionetworks.repo.model.schema.JsonSchemaVersionInfo;
 import org.sagebionetworks.repo.model.schema.ObjectType;
 import org.sagebionetworks.repo.model.schema.ValidationResults;
 import org.sagebionetworks.repo.web.NotFoundException;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
 @ExtendWith(MockitoExtension.class)
 public class EntitySchemaValidatorImplTest {
 
@@ -33,34 +37,60 @@ public class EntitySchemaValidatorImplTest {
 	@Mock
 	private SchemaValidationResultDao mockSchemaValidationResultDao;
 
-	@InjectMocks
 	private EntitySchemaValidator manager;
 
 	String entityId;
 	String schema$id;
 	JsonSchemaObjectBinding binding;
+	JsonSchemaVersionInfo versionInfo;
 	@Mock
 	JsonSubject mockEntitySubject;
 	@Mock
-	JsonSchema mockJsonSchema;
+	CompiledJsonSchema mockJsonSchema;
 	@Mock
 	ValidationResults mockValidationResults;
+	@Mock
+	JsonSubject mockEntitySubjectTwo;
+	@Mock
+	JsonSubject mockEntitySubjectThree;
+	@Mock
+	CompiledJsonSchema mockJsonSchemaTwo;
+	@Mock
+	ValidationResults mockValidationResultsTwo;
+	@Mock
+	ValidationResults mockValidationResultsThree;
+
+	String entityIdTwo;
+	String entityIdThree;
+	JsonSchemaObjectBinding bindingTwo;
+	JsonSchemaVersionInfo versionInfoTwo;
 
 	@BeforeEach
 	public void before() {
+		manager = new EntitySchemaValidator(mockEntityManger, mockJsonSchemaManager, mockJsonSchemaValidationManager,
+				mockSchemaValidationResultDao, MoreExecutors.newDirectExecutorService());
 		entityId = "syn123";
 		schema$id = "my.org-foo.bar-1.0.0";
 		binding = new JsonSchemaObjectBinding();
-		JsonSchemaVersionInfo versionInfo = new JsonSchemaVersionInfo();
+		versionInfo = new JsonSchemaVersionInfo();
 		versionInfo.set$id(schema$id);
+		versionInfo.setVersionId("111");
 		binding.setJsonSchemaVersionInfo(versionInfo);
+
+		entityIdTwo = "syn456";
+		entityIdThree = "syn789";
+		bindingTwo = new JsonSchemaObjectBinding();
+		versionInfoTwo = new JsonSchemaVersionInfo();
+		versionInfoTwo.set$id("my.org-foo.baz-1.0.0");
+		versionInfoTwo.setVersionId("222");
+		bindingTwo.setJsonSchemaVersionInfo(versionInfoTwo);
 	}
 
 	@Test
 	public void testValidateObject() {
 		when(mockEntityManger.getBoundSchema(entityId)).thenReturn(binding);
 		when(mockEntityManger.getEntityJsonSubject(entityId)).thenReturn(mockEntitySubject);
-		when(mockJsonSchemaManager.getValidationSchema(schema$id)).thenReturn(mockJsonSchema);
+		when(mockJsonSchemaManager.getCompiledValidationSchema(versionInfo)).thenReturn(mockJsonSchema);
 		when(mockJsonSchemaValidationManager.validate(mockJsonSchema, mockEntitySubject))
 				.thenReturn(mockValidationResults);
 		// call under test
@@ -69,7 +99,7 @@ public class EntitySchemaValidatorImplTest {
 		verify(mockSchemaValidationResultDao, never()).clearResults(any(), any());
 		verify(mockEntityManger).getBoundSchema(entityId);
 		verify(mockEntityManger).getEntityJsonSubject(entityId);
-		verify(mockJsonSchemaManager).getValidationSchema(schema$id);
+		verify(mockJsonSchemaManager).getCompiledValidationSchema(versionInfo);
 		verify(mockJsonSchemaValidationManager).validate(mockJsonSchema, mockEntitySubject);
 	}
 	
@@ -91,4 +121,80 @@ public class EntitySchemaValidatorImplTest {
 			manager.validateObject(entityId);
 		});
 	}
+
+	@Test
+	public void testValidateObjects() {
+		when(mockEntityManger.getBoundSchema(entityId)).thenReturn(binding);
+		when(mockEntityManger.getBoundSchema(entityIdTwo)).thenReturn(bindingTwo);
+		when(mockEntityManger.getBoundSchema(entityIdThree)).thenReturn(binding);
+		when(mockEntityManger.getEntityJsonSubject(entityId)).thenReturn(mockEntitySubject);
+		when(mockEntityManger.getEntityJsonSubject(entityIdTwo)).thenReturn(mockEntitySubjectTwo);
+		when(mockEntityManger.getEntityJsonSubject(entityIdThree)).thenReturn(mockEntitySubjectThree);
+		when(mockJsonSchemaManager.getCompiledValidationSchema(versionInfo)).thenReturn(mockJsonSchema);
+		when(mockJsonSchemaManager.getCompiledValidationSchema(versionInfoTwo)).thenReturn(mockJsonSchemaTwo);
+		when(mockJsonSchemaValidationManager.validate(mockJsonSchema, mockEntitySubject))
+				.thenReturn(mockValidationResults);
+		when(mockJsonSchemaValidationManager.validate(mockJsonSchemaTwo, mockEntitySubjectTwo))
+				.thenReturn(mockValidationResultsTwo);
+		when(mockJsonSchemaValidationManager.validate(mockJsonSchema, mockEntitySubjectThree))
+				.thenReturn(mockValidationResultsThree);
+		// call under test
+		manager.validateObjects(Lists.newArrayList(entityId, entityIdTwo, entityIdThree, entityId));
+		// each schema is only fetched once and each entity is only validated once.
+		verify(mockJsonSchemaManager).getCompiledValidationSchema(versionInfo);
+		verify(mockJsonSchemaManager).getCompiledValidationSchema(versionInfoTwo);
+		verify(mockEntityManger).getEntityJsonSubject(entityId);
+		verify(mockSchemaValidationResultDao).createOrUpdateResultsBatch(
+				Lists.newArrayList(mockValidationResults, mockValidationResultsThree, mockValidationResultsTwo));
+		verify(mockSchemaValidationResultDao).clearResultsBatch(Collections.emptyList(), ObjectType.entity);
+		verify(mockSchemaValidationResultDao, never()).createOrUpdateResults(any());
+	}
+
+	@Test
+	public void testValidateObjectsWithNotFound() {
+		when(mockEntityManger.getBoundSchema(entityId)).thenReturn(binding);
+		when(mockEntityManger.getBoundSchema(entityIdTwo)).thenThrow(new NotFoundException());
+		when(mockEntityManger.getBoundSchema(entityIdThree)).thenReturn(binding);
+		when(mockEntityManger.getEntityJsonSubject(entityId)).thenReturn(mockEntitySubject);
+		when(mockEntityManger.getEntityJsonSubject(entityIdThree)).thenThrow(new NotFoundException());
+		when(mockJsonSchemaManager.getCompiledValidationSchema(versionInfo)).thenReturn(mockJsonSchema);
+		when(mockJsonSchemaValidationManager.validate(mockJsonSchema, mockEntitySubject))
+				.thenReturn(mockValidationResults);
+		// call under test
+		manager.validateObjects(Lists.newArrayList(entityId, entityIdTwo, entityIdThree));
+		verify(mockSchemaValidationResultDao).createOrUpdateResultsBatch(Lists.newArrayList(mockValidationResults));
+		verify(mockSchemaValidationResultDao).clearResultsBatch(Lists.newArrayList(entityIdTwo, entityIdThree),
+				ObjectType.entity);
+	}
+
+	@Test
+	public void testValidateObjectsWithFailure() {
+		IllegalStateException exception = new IllegalStateException("something went wrong");
+		when(mockEntityManger.getBoundSchema(entityId)).thenReturn(binding);
+		when(mockEntityManger.getEntityJsonSubject(entityId)).thenThrow(exception);
+		when(mockJsonSchemaManager.getCompiledValidationSchema(versionInfo)).thenReturn(mockJsonSchema);
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			manager.validateObjects(Lists.newArrayList(entityId));
+		});
+		assertSame(exception, thrown);
+		verify(mockSchemaValidationResultDao, never()).createOrUpdateResultsBatch(any());
+		verify(mockSchemaValidationResultDao, never()).clearResultsBatch(any(), any());
+	}
+
+	@Test
+	public void testValidateObjectsWithEmpty() {
+		// call under test
+		manager.validateObjects(Collections.emptyList());
+		verify(mockSchemaValidationResultDao).createOrUpdateResultsBatch(Collections.emptyList());
+		verify(mockSchemaValidationResultDao).clearResultsBatch(Collections.emptyList(), ObjectType.entity);
+	}
+
+	@Test
+	public void testValidateObjectsWithNullEntityIds() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.validateObjects(null);
+		});
+	}
 }
@@ -86,6 +86,15 @@ public class JsonSchemaManagerImplTest {
 	@Mock
 	JsonSchemaDao mockSchemaDao;
 
+	@Mock
+	JsonSchemaValidationManager mockJsonSchemaValidationManager;
+
+	@Mock
+	CompiledJsonSchemaCache mockCompiledSchemaCache;
+
+	@Mock
+	CompiledJsonSchema mockCompiledSchema;
+
 	@Captor
 	ArgumentCaptor<AccessControlList> aclCaptor;
 
@@ -808,6 +817,7 @@ public class JsonSchemaManagerImplTest {
 		verify(mockSchemaDao).createNewSchemaVersion(expectedNewSchemaRequest);
 		verify(managerSpy).getValidationSchema(schema.get$id());
 		verify(managerSpy).validateSchema(schema);
+		verify(mockCompiledSchemaCache).invalidateMutable();
 	}
 
 	@Test
@@ -1158,6 +1168,40 @@ public class JsonSchemaManagerImplTest {
 		manager.deleteSchemaById(user, $id);
 		verify(mockAclDao).canAccess(user, organization.getId(), ObjectType.ORGANIZATION, ACCESS_TYPE.DELETE);
 		verify(mockSchemaDao).deleteSchemaVersion(versionInfo.getVersionId());
+		verify(mockCompiledSchemaCache).invalidateMutable();
+	}
+
+	@Test
+	public void testGetCompiledValidationSchemaWithCacheHit() {
+		versionInfo.set$id(schema.get$id());
+		when(mockCompiledSchemaCache.get(versionInfo)).thenReturn(mockCompiledSchema);
+		// call under test
+		CompiledJsonSchema result = managerSpy.getCompiledValidationSchema(versionInfo);
+		assertEquals(mockCompiledSchema, result);
+		verify(managerSpy, never()).getValidationSchema(any(String.class));
+		verify(mockJsonSchemaValidationManager, never()).compile(any());
+		verify(mockCompiledSchemaCache, never()).put(any(), any());
+	}
+
+	@Test
+	public void testGetCompiledValidationSchemaWithCacheMiss() {
+		versionInfo.set$id(schema.get$id());
+		when(mockCompiledSchemaCache.get(versionInfo)).thenReturn(null);
+		doReturn(validationSchema).when(managerSpy).getValidationSchema(schema.get$id());
+		when(mockJsonSchemaValidationManager.compile(validationSchema)).thenReturn(mockCompiledSchema);
+		// call under test
+		CompiledJsonSchema result = managerSpy.getCompiledValidationSchema(versionInfo);
+		assertEquals(mockCompiledSchema, result);
+		verify(managerSpy).getValidationSchema(schema.get$id());
+		verify(mockCompiledSchemaCache).put(versionInfo, mockCompiledSchema);
+	}
+
+	@Test
+	public void testGetCompiledValidationSchemaWithNullVersionInfo() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.getCompiledValidationSchema(null);
+		});
 	}
 
 	@Test
@@ -100,6 +100,45 @@ public class JsonSchemaValidationManagerImplTest {
 		assertNull(subException.getSchemaLocation());
 	}
 
+	@Test
+	public void testValidationWithCompiledSchema() throws Exception {
+		JsonSchema schema = loadSchemaFromClasspath("schemas/Enum.json");
+		// call under test
+		CompiledJsonSchema compiled = manager.compile(schema);
+		assertNotNull(compiled);
+		assertEquals("hasEnum", compiled.get$id());
+		// The same compiled schema can validate any number of subjects.
+		JsonSubject valid = setupSubject();
+		valid.toJson().put("enumKey", "a");
+		JsonSubject invalid = setupSubject();
+		invalid.toJson().put("enumKey", "c");
+		// call under test
+		ValidationResults result = manager.validate(compiled, valid);
+		assertTrue(result.getIsValid());
+		assertEquals("hasEnum", result.getSchema$id());
+		// call under test
+		result = manager.validate(compiled, invalid);
+		assertFalse(result.getIsValid());
+		assertEquals(Lists.newArrayList("#/enumKey: c is not a valid enum value"), result.getAllValidationMessages());
+	}
+
+	@Test
+	public void testCompileWithNullSchema() {
+		JsonSchema schema = null;
+		assertThrows(IllegalArgumentException.class, () -> {
+			manager.compile(schema);
+		});
+	}
+
+	@Test
+	public void testValidationWithNullCompiledSchema() {
+		CompiledJsonSchema schema = null;
+		JsonSubject subject = Mockito.mock(JsonSubject.class);
+		assertThrows(IllegalArgumentException.class, () -> {
+			manager.validate(schema, subject);
+		});
+	}
+
 	@Test
 	public void testValidationWithNullSchema() {
 		JsonSchema schema = null;
@@ -10,6 +10,7 @@ import org.junit.Test;
 import org.sagebionetworks.repo.model.table.ColumnType;
 import org.sagebionetworks.repo.model.table.Row;
 import org.sagebionetworks.repo.model.table.SelectColumn;
+import org.sagebionetworks.table.cluster.RowBatch;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 
 import com.google.common.collect.Lists;
@@ -87,5 +88,49 @@ public class CSVWriterRowHandlerTest {
 		assertEquals("ROW_ID,ROW_VERSION,ROW_ETAG,foo", writtenLines.get(0));
 		assertEquals("1,2,someEtag,one", writtenLines.get(1));
 	}
+	
+	@Test
+	public void testNextBatch(){
+		RowBatch batch = new RowBatch(3, 1);
+		int index = batch.addRow();
+		batch.setRowIdAndVersion(index, 1L, 2L);
+		batch.setValue(index, 0, "one");
+		index = batch.addRow();
+		batch.setRowIdAndVersion(index, 3L, 4L);
+		batch.setValue(index, 0, null);
+		// call under test
+		handler.nextBatch(batch);
+		assertEquals(2, writtenLines.size());
+		assertEquals("1,2,one", writtenLines.get(0));
+		assertEquals("3,4,null", writtenLines.get(1));
+	}
+	
+	@Test
+	public void testNextBatchWithEtag(){
+		includeRowEtag = true;
+		handler = new CSVWriterRowHandler(writer, selectColumns, includeRowIdAndVersion, includeRowEtag);
+		RowBatch batch = new RowBatch(3, 1);
+		int index = batch.addRow();
+		batch.setRowIdAndVersion(index, 1L, 2L);
+		batch.setEtag(index, "someEtag");
+		batch.setValue(index, 0, "one");
+		// call under test
+		handler.nextBatch(batch);
+		assertEquals(1, writtenLines.size());
+		assertEquals("1,2,someEtag,one", writtenLines.get(0));
+	}
+	
+	@Test
+	public void testNextBatchWithoutRowIdAndVersion(){
+		includeRowIdAndVersion = false;
+		handler = new CSVWriterRowHandler(writer, selectColumns, includeRowIdAndVersion, includeRowEtag);
+		RowBatch batch = new RowBatch(3, 1);
+		int index = batch.addRow();
+		batch.setValue(index, 0, "one");
+		// call under test
+		handler.nextBatch(batch);
+		assertEquals(1, writtenLines.size());
+		assertEquals("one", writtenLines.get(0));
+	}
 
 }
@@ -0,0 +1,227 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.cloudwatch.Consumer;
+import org.sagebionetworks.cloudwatch.ProfileData;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableModelTestUtils;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.QueryOptions;
+import org.sagebionetworks.repo.model.table.QueryResult;
+import org.sagebionetworks.repo.model.table.QueryResultBundle;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
+import org.sagebionetworks.repo.model.table.TableStatus;
+import org.sagebionetworks.table.cluster.SqlQuery;
+import org.sagebionetworks.table.cluster.SqlQueryBuilder;
+import org.sagebionetworks.util.Clock;
+
+@ExtendWith(MockitoExtension.class)
+public class QueryResultCacheImplTest {
+
+	@Mock
+	private Consumer mockConsumer;
+	@Mock
+	private StackConfiguration mockStackConfig;
+	@Mock
+	private Clock mockClock;
+	@Captor
+	private ArgumentCaptor<ProfileData> profileCaptor;
+
+	@InjectMocks
+	private QueryResultCacheImpl cache;
+
+	private List<ColumnModel> schema;
+	private TableStatus status;
+	private QueryOptions options;
+	private QueryResultBundle bundle;
+
+	@BeforeEach
+	public void before() throws Exception {
+		schema = TableModelTestUtils.createOneOfEachType();
+		status = new TableStatus();
+		status.setLastTableChangeEtag("etag1");
+		status.setChangedOn(new Date(123L));
+		options = new QueryOptions().withRunQuery(true);
+		List<Row> rows = TableModelTestUtils.createRows(schema, 3);
+		bundle = new QueryResultBundle();
+		bundle.setQueryResult(new QueryResult());
+		bundle.getQueryResult().setQueryResults(new RowSet());
+		bundle.getQueryResult().getQueryResults().setRows(rows);
+		bundle.getQueryResult().getQueryResults().setEtag("etag1");
+	}
+
+	QueryResultCacheKey createKey(String sql, TableStatus status) throws Exception {
+		SqlQuery query = new SqlQueryBuilder(sql, schema, 1L).build();
+		return new QueryResultCacheKey(status, query, options);
+	}
+
+	@Test
+	public void testPutGet() throws Exception {
+		QueryResultCacheKey key = createKey("select * from syn123", status);
+		assertNull(cache.get(key));
+		cache.put(key, bundle);
+		// call under test
+		QueryResultBundle result = cache.get(key);
+		assertEquals(bundle, result);
+		assertNotSame(bundle, result);
+		assertEquals(1L, cache.getHitCount());
+		assertEquals(1L, cache.getMissCount());
+		assertEquals(1, cache.getEntryCount());
+	}
+
+	@Test
+	public void testGetEquivalentSql() throws Exception {
+		cache.put(createKey("select * from syn123 where i0 = 'a'", status), bundle);
+		// call under test
+		assertEquals(bundle, cache.get(createKey("SELECT *   FROM syn123 WHERE \"i0\" = 'a'", status)));
+	}
+
+	@Test
+	public void testGetDifferentParameters() throws Exception {
+		cache.put(createKey("select * from syn123 where i0 = 'a'", status), bundle);
+		// call under test
+		assertNull(cache.get(createKey("select * from syn123 where i0 = 'b'", status)));
+	}
+
+	@Test
+	public void testGetDifferentOptions() throws Exception {
+		QueryResultCacheKey key = createKey("select * from syn123", status);
+		cache.put(key, bundle);
+		options = new QueryOptions().withRunQuery(true).withRunCount(true);
+		// call under test
+		assertNull(cache.get(createKey("select * from syn123", status)));
+	}
+
+	@Test
+	public void testTableEtagChange() throws Exception {
+		cache.put(createKey("select * from syn123", status), bundle);
+		cache.put(createKey("select i0 from syn123", status), bundle);
+		cache.put(createKey("select * from syn456", status), bundle);
+		assertEquals(3, cache.getEntryCount());
+		TableStatus newStatus = new TableStatus();
+		newStatus.setLastTableChangeEtag("etag2");
+		newStatus.setChangedOn(status.getChangedOn());
+		// call under test
+		assertNull(cache.get(createKey("select * from syn123", newStatus)));
+		// all entries for the old version of the table are removed.
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(bundle, cache.get(createKey("select * from syn456", status)));
+	}
+
+	@Test
+	public void testViewChangedOnChange() throws Exception {
+		cache.put(createKey("select * from syn123", status), bundle);
+		TableStatus newStatus = new TableStatus();
+		newStatus.setLastTableChangeEtag(status.getLastTableChangeEtag());
+		newStatus.setChangedOn(new Date(456L));
+		// call under test
+		assertNull(cache.get(createKey("select * from syn123", newStatus)));
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void testPutTooLarge() throws Exception {
+		cache.setMaxEntryBytes(10);
+		// call under test
+		cache.put(createKey("select * from syn123", status), bundle);
+		assertEquals(0, cache.getEntryCount());
+		assertEquals(0L, cache.getSizeBytes());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		QueryResultCacheKey one = createKey("select * from syn123 where i0 = 'one'", status);
+		QueryResultCacheKey two = createKey("select * from syn123 where i0 = 'two'", status);
+		QueryResultCacheKey three = createKey("select * from syn123 where i0 = 'three'", status);
+		cache.put(one, bundle);
+		long entryBytes = cache.getSizeBytes();
+		cache.setMaxBytes(entryBytes * 2);
+		cache.put(two, bundle);
+		// one is now the most recently used.
+		cache.get(one);
+		// call under test
+		cache.put(three, bundle);
+		assertEquals(2, cache.getEntryCount());
+		assertEquals(entryBytes * 2, cache.getSizeBytes());
+		assertEquals(bundle, cache.get(one));
+		assertNull(cache.get(two));
+		assertEquals(bundle, cache.get(three));
+	}
+
+	@Test
+	public void testPutReplace() throws Exception {
+		QueryResultCacheKey key = createKey("select * from syn123", status);
+		cache.put(key, bundle);
+		long entryBytes = cache.getSizeBytes();
+		// call under test
+		cache.put(key, bundle);
+		assertEquals(1, cache.getEntryCount());
+		assertEquals(entryBytes, cache.getSizeBytes());
+	}
+
+	@Test
+	public void testPushMetrics() throws Exception {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		when(mockStackConfig.getStackInstance()).thenReturn("test");
+		QueryResultCacheKey key = createKey("select * from syn123", status);
+		cache.get(key);
+		cache.put(key, bundle);
+		cache.get(key);
+		cache.get(key);
+		// call under test
+		cache.pushMetrics();
+		verify(mockConsumer, times(4)).addProfileData(profileCaptor.capture());
+		List<String> names = new ArrayList<>();
+		for (ProfileData data : profileCaptor.getAllValues()) {
+			assertEquals("Query-Result-Cache-test", data.getNamespace());
+			names.add(data.getName() + "=" + data.getValue().longValue());
+		}
+		assertEquals(Arrays.asList("Hit Count=2", "Miss Count=1", "Entry Count=1", "Size=" + cache.getSizeBytes()), names);
+		// the counts are reset
+		assertEquals(0L, cache.getHitCount());
+		assertEquals(0L, cache.getMissCount());
+	}
+
+	/**
+	 * A dashboard runs the same query repeatedly. Only the first run needs the
+	 * database.
+	 */
+	@Test
+	public void testRepeatedQuery() throws Exception {
+		QueryResultCacheKey key = createKey("select * from syn123 where i0 = 'a' order by i1", status);
+		int runs = 1000;
+		int databaseCalls = 0;
+		for (int i = 0; i < runs; i++) {
+			QueryResultCacheKey runKey = createKey("select * from syn123 where i0 = 'a' order by i1", status);
+			if (cache.get(runKey) == null) {
+				databaseCalls++;
+				cache.put(runKey, bundle);
+			}
+		}
+		assertEquals(1, databaseCalls);
+		assertEquals(runs - 1, cache.getHitCount());
+		assertEquals(1L, cache.getMissCount());
+		assertEquals(bundle, cache.get(key));
+	}
+}
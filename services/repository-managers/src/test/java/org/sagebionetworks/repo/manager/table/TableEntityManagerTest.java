@@ -397,7 +397,7 @@ public class TableEntityManagerTest {
 		assertEquals(rowCount, fileHandes.size());
 		verify(mockTruthDao).reserveIdsInRange(tableId, new Long(rowCount-1));
 		// row level conflict test
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, 0L);
+		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersionWithRows(eq(tableId), eq(0L), any());
 		// save the row set
 		verify(mockTruthDao).appendRowSetToTable(""+user.getId(), tableId, range.getEtag(), range.getVersionNumber(), models, sparseChangeSet.writeToDto(), transactionId);
 		verify(mockStatisticsCollector, times(1)).collectEvents(any(List.class));
@@ -1417,7 +1417,7 @@ public class TableEntityManagerTest {
 		TableRowChange change = new TableRowChange();
 		change.setKey("someKey");
 		change.setChangeType(TableChangeType.ROW);
-		when(mockTruthDao.listRowSetsKeysForTableGreaterThanVersion(tableId, etagVersion)).thenReturn(Lists.newArrayList(change));
+		when(mockTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, etagVersion, Sets.newHashSet(0L, 1L))).thenReturn(Lists.newArrayList(change));
 		SparseChangeSetDto conflictUpdate = new SparseChangeSetDto();
 		SparseRowDto conflictRow = new SparseRowDto();
 		conflictRow.setRowId(0L);
@@ -1446,7 +1446,36 @@ public class TableEntityManagerTest {
 			assertTrue(e.getMessage().startsWith(""));
 		}
 		// The etag version should be used to list the values
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, etagVersion);
+		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, etagVersion, Sets.newHashSet(0L, 1L));
+	}
+	
+	@Test
+	public void testCheckForRowLevelConflictWithNoConflict() throws IOException{
+		String etag = "anEtag";
+		Long etagVersion = 25L;
+		when(mockTruthDao.getVersionForEtag(tableId, etag)).thenReturn(25L);
+		TableRowChange change = new TableRowChange();
+		change.setKey("someKey");
+		change.setChangeType(TableChangeType.ROW);
+		// a false positive of the row ID filter.
+		when(mockTruthDao.listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, etagVersion, Sets.newHashSet(0L))).thenReturn(Lists.newArrayList(change));
+		SparseChangeSetDto otherUpdate = new SparseChangeSetDto();
+		SparseRowDto otherRow = new SparseRowDto();
+		otherRow.setRowId(5L);
+		otherUpdate.setRows(Lists.newArrayList(otherRow));
+		when(mockTruthDao.getRowSet(change)).thenReturn(otherUpdate);
+		
+		List<ColumnModel> columns = TableModelTestUtils.createOneOfEachType();
+		SparseChangeSet changeSet = new SparseChangeSet(tableId, columns);
+		changeSet.setEtag(etag);
+		SparseRow row = changeSet.addEmptyRow();
+		row.setRowId(0L);
+		row.setVersionNumber(2L);
+		row.setCellValue("1", "1.1");
+		
+		// call under test
+		manager.checkForRowLevelConflict(tableId, changeSet);
+		verify(mockTruthDao).getRowSet(change);
 	}
 	
 	
@@ -1469,7 +1498,7 @@ public class TableEntityManagerTest {
 		
 		manager.checkForRowLevelConflict(tableId, changeSet);
 		// All versions greater than two should be scanned
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, 2L);
+		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, 2L, Sets.newHashSet(0L, 1L));
 	}
 	
 	@Test
@@ -1494,7 +1523,7 @@ public class TableEntityManagerTest {
 		
 		manager.checkForRowLevelConflict(tableId, changeSet);
 		// The etag version should be used to list the values
-		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersion(tableId, etagVersion);
+		verify(mockTruthDao).listRowSetsKeysForTableGreaterThanVersionWithRows(tableId, etagVersion, Sets.newHashSet(0L, 1L));
 	}
 	
 	@Test
@@ -30,6 +30,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -54,6 +55,7 @@ import org.sagebionetworks.repo.model.EntityType;
 import org.sagebionetworks.repo.model.NextPageToken;
 import org.sagebionetworks.repo.model.dbo.dao.table.InvalidStatusTokenException;
 import org.sagebionetworks.repo.model.dbo.dao.table.TableModelTestUtils;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompaction;
 import org.sagebionetworks.repo.model.entity.IdAndVersion;
 import org.sagebionetworks.repo.model.jdo.KeyFactory;
 import org.sagebionetworks.repo.model.table.ColumnModel;
@@ -85,6 +87,7 @@ import org.sagebionetworks.table.model.SchemaChange;
 import org.sagebionetworks.table.model.SparseChangeSet;
 import org.sagebionetworks.table.model.SparseRow;
 import org.sagebionetworks.util.EnumUtils;
+import org.sagebionetworks.util.csv.CSVWriterStream;
 import org.sagebionetworks.workers.util.aws.message.RecoverableMessageException;
 import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
 import org.springframework.transaction.TransactionStatus;
@@ -93,6 +96,7 @@ import org.springframework.transaction.support.TransactionCallback;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 @ExtendWith(MockitoExtension.class)
 public class TableIndexManagerImplTest {
@@ -115,12 +119,15 @@ public class TableIndexManagerImplTest {
 	ObjectFieldModelResolverFactory mockObjectFieldModelResolverFactory;
 	@Mock
 	ObjectFieldModelResolver mockObjectFieldModelResolver;
+	@Mock
+	TableRowCompactionManager mockTableRowCompactionManager;
 	
 	@Captor 
 	ArgumentCaptor<List<ColumnChangeDetails>> changeCaptor;
 	
 	TableIndexManagerImpl manager;
 	TableIndexManagerImpl managerSpy;
+	ExecutorService executorService;
 	
 	IdAndVersion tableId;
 	Long versionNumber;
@@ -156,7 +163,8 @@ public class TableIndexManagerImplTest {
 		
 		objectType = ViewObjectType.ENTITY;
 		tableId = IdAndVersion.parse("syn123");
-		manager = new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory);
+		executorService = MoreExecutors.newDirectExecutorService();
+		manager = new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, mockTableRowCompactionManager, executorService);
 		managerSpy = Mockito.spy(manager);
 		versionNumber = 99L;		
 		schema = Arrays.asList(
@@ -214,7 +222,7 @@ public class TableIndexManagerImplTest {
 	@Test
 	public void testNullDao(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(null, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory);	
+			new TableIndexManagerImpl(null, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, mockTableRowCompactionManager, executorService);	
 		});
 	}
 	
@@ -222,21 +230,35 @@ public class TableIndexManagerImplTest {
 	@Test
 	public void testNullSupport(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(mockIndexDao, null, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory);			
+			new TableIndexManagerImpl(mockIndexDao, null, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, mockTableRowCompactionManager, executorService);			
 		});
 	}
 	
 	@Test
 	public void testNullProviderFactory(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory);			
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, null, mockObjectFieldModelResolverFactory, mockTableRowCompactionManager, executorService);			
 		});
 	}
 	
 	@Test
 	public void testNullObjectFieldFactory(){
 		assertThrows(IllegalArgumentException.class, ()->{
-			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null);			
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, null, mockTableRowCompactionManager, executorService);			
+		});
+	}
+	
+	@Test
+	public void testNullTableRowCompactionManager(){
+		assertThrows(IllegalArgumentException.class, ()->{
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, null, executorService);			
+		});
+	}
+	
+	@Test
+	public void testNullExecutorService(){
+		assertThrows(IllegalArgumentException.class, ()->{
+			new TableIndexManagerImpl(mockIndexDao, mockManagerSupport, mockMetadataProviderFactory, mockObjectFieldModelResolverFactory, mockTableRowCompactionManager, null);			
 		});
 	}
 	
@@ -1138,7 +1160,7 @@ public class TableIndexManagerImplTest {
 	
 	@Test
 	public void testBuildIndexToChangeNumberWithExclusiveLockFirstChangeOnly() throws Exception {
-		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L,0L);
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L,-1L,0L);
 		List<TableChangeMetaData> list = setupMockChanges();
 		Iterator<TableChangeMetaData> iterator = list.iterator();
 		// no version means there are no table changes.
@@ -1174,6 +1196,222 @@ public class TableIndexManagerImplTest {
 		verify(mockManagerSupport).getTableSchema(tableId);
 	}
 	
+	@Test
+	public void testBuildIndexToChangeNumberLoadsOnlyChangesToApply() throws Exception {
+		setupExecuteInWriteTransaction();
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(0L);
+		TableChangeMetaData applied = Mockito.mock(TableChangeMetaData.class);
+		when(applied.getChangeNumber()).thenReturn(0L);
+		TableChangeMetaData pastTarget = Mockito.mock(TableChangeMetaData.class);
+		when(pastTarget.getChangeNumber()).thenReturn(2L);
+		TableChangeMetaData toApply = setupMockRowChange(1L);
+		List<TableChangeMetaData> list = Lists.newArrayList(applied, toApply, pastTarget);
+		long targetChangeNumber = 1L;
+		String resetToken = "resetToken";
+		// call under test
+		String lastEtag = manager.buildIndexToLatestChange(tableId, list.iterator(), targetChangeNumber, resetToken);
+		assertEquals(toApply.getETag(), lastEtag);
+		verify(mockIndexDao, times(2)).createOrUpdateOrDeleteRows(any(IdAndVersion.class), any(Grouping.class));
+		// changes that are already applied or past the target are never loaded.
+		verify(applied, never()).loadChangeData(any());
+		verify(pastTarget, never()).loadChangeData(any());
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberWithCompaction() throws Exception {
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		TableRowCompaction compaction = new TableRowCompaction().withTableId(tableId.getId()).withChangeNumber(0L)
+				.withChangeEtag("etag-0");
+		when(mockTableRowCompactionManager.getCompaction(tableId, 1L)).thenReturn(Optional.of(compaction));
+		// the index is empty until the compaction is restored.
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, 0L);
+		List<TableChangeMetaData> list = setupMockChanges();
+		Iterator<TableChangeMetaData> iterator = list.iterator();
+		long targetChangeNumber = 1L;
+		String resetToken = "resetToken";
+		// call under test
+		String lastEtag = manager.buildIndexToLatestChange(tableId, iterator, targetChangeNumber, resetToken);
+		assertEquals(list.get(1).getETag(), lastEtag);
+		verify(mockManagerSupport).attemptToUpdateTableProgress(tableId, resetToken, "Restoring compaction: 0", 0L, 1L);
+		verify(mockTableRowCompactionManager).populateIndexFromCompaction(tableId, compaction, manager);
+		// only the change after the compaction should be applied.
+		verify(mockManagerSupport).attemptToUpdateTableProgress(tableId, resetToken, "Applying change: 1", 1L, 1L);
+		verify(mockIndexDao, never()).createOrUpdateOrDeleteRows(any(IdAndVersion.class), any(Grouping.class));
+		boolean alterTemp = false;
+		verify(mockIndexDao).alterTableAsNeeded(tableId, columnChanges, alterTemp);
+		verify(mockIndexDao).optimizeTableIndices(anyList(), any(IdAndVersion.class), anyInt());
+		verify(mockTableRowCompactionManager, never()).createCompaction(any(IdAndVersion.class), anyLong(), anyString(), anyList(), any(TableIndexManager.class));
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberWithCompactionIndexNotEmpty() throws Exception {
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		TableRowCompaction compaction = new TableRowCompaction().withTableId(tableId.getId()).withChangeNumber(0L)
+				.withChangeEtag("etag-0");
+		when(mockTableRowCompactionManager.getCompaction(tableId, 1L)).thenReturn(Optional.of(compaction));
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(1L);
+		List<TableChangeMetaData> list = setupMockChanges();
+		Iterator<TableChangeMetaData> iterator = list.iterator();
+		long targetChangeNumber = 1L;
+		String resetToken = "resetToken";
+		// call under test
+		String lastEtag = manager.buildIndexToLatestChange(tableId, iterator, targetChangeNumber, resetToken);
+		assertEquals(null, lastEtag);
+		// the compaction is only used to build an empty index.
+		verify(mockTableRowCompactionManager, never()).populateIndexFromCompaction(any(IdAndVersion.class), any(TableRowCompaction.class), any(TableIndexManager.class));
+		verify(mockManagerSupport, never()).attemptToUpdateTableProgress(any(IdAndVersion.class), anyString(), anyString(), anyLong(), anyLong());
+	}
+	
+	/**
+	 * Stands in for a rebuild benchmark: a table with 10K changes is rebuilt with
+	 * a compaction of all but the last ten changes, so only the last ten changes
+	 * should be loaded and applied to the index.
+	 */
+	@Test
+	public void testBuildIndexToChangeNumberWithCompactionOfManyChanges() throws Exception {
+		setupExecuteInWriteTransaction();
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		int changeCount = 10_000;
+		long compactionChangeNumber = changeCount - 11;
+		long targetChangeNumber = changeCount - 1;
+		TableRowCompaction compaction = new TableRowCompaction().withTableId(tableId.getId())
+				.withChangeNumber(compactionChangeNumber).withChangeEtag("etag-" + compactionChangeNumber);
+		when(mockTableRowCompactionManager.getCompaction(tableId, targetChangeNumber)).thenReturn(Optional.of(compaction));
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, compactionChangeNumber);
+		List<TableChangeMetaData> list = new LinkedList<>();
+		for (long i = 0; i < changeCount; i++) {
+			list.add(setupMockRowChange(i));
+		}
+		String resetToken = "resetToken";
+		// call under test
+		String lastEtag = manager.buildIndexToLatestChange(tableId, list.iterator(), targetChangeNumber, resetToken);
+		assertEquals("etag-" + targetChangeNumber, lastEtag);
+		verify(mockTableRowCompactionManager).populateIndexFromCompaction(tableId, compaction, manager);
+		// each of the last ten changes has two groups.
+		verify(mockIndexDao, times(20)).createOrUpdateOrDeleteRows(any(IdAndVersion.class), any(Grouping.class));
+		// progress is reported for the compaction and each of the last ten changes.
+		verify(mockManagerSupport, times(11)).attemptToUpdateTableProgress(any(IdAndVersion.class), anyString(), anyString(), anyLong(), anyLong());
+		verify(mockTableRowCompactionManager, never()).createCompaction(any(IdAndVersion.class), anyLong(), anyString(), anyList(), any(TableIndexManager.class));
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberCreatesCompaction() throws Exception {
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		long lastChangeNumber = TableIndexManagerImpl.MIN_CHANGES_PER_COMPACTION - 1;
+		// the index is empty when the build starts.
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, lastChangeNumber);
+		List<TableChangeMetaData> list = new LinkedList<>();
+		for (long i = 0; i <= lastChangeNumber; i++) {
+			list.add(setupMockRowChange(i));
+		}
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), lastChangeNumber, resetToken);
+		verify(mockTableRowCompactionManager).createCompaction(tableId, lastChangeNumber, "etag-" + lastChangeNumber, schema, manager);
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberCreatesCompactionIndexNotEmpty() throws Exception {
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		long lastChangeNumber = TableIndexManagerImpl.MIN_CHANGES_PER_COMPACTION - 1;
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(lastChangeNumber);
+		List<TableChangeMetaData> list = new LinkedList<>();
+		for (long i = 0; i <= lastChangeNumber; i++) {
+			list.add(setupMockRowChange(i));
+		}
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), lastChangeNumber, resetToken);
+		// an index that existed before the build might not match the change sets.
+		verify(mockTableRowCompactionManager, never()).createCompaction(any(IdAndVersion.class), anyLong(), anyString(), anyList(), any(TableIndexManager.class));
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberCreatesCompactionTooFewChanges() throws Exception {
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		long lastChangeNumber = TableIndexManagerImpl.MIN_CHANGES_PER_COMPACTION - 1;
+		// only the changes after the existing compaction are counted.
+		TableRowCompaction compaction = new TableRowCompaction().withTableId(tableId.getId()).withChangeNumber(0L)
+				.withChangeEtag("etag-0");
+		when(mockTableRowCompactionManager.getCompaction(tableId, lastChangeNumber)).thenReturn(Optional.of(compaction));
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, lastChangeNumber);
+		List<TableChangeMetaData> list = new LinkedList<>();
+		for (long i = 0; i <= lastChangeNumber; i++) {
+			list.add(setupMockRowChange(i));
+		}
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), lastChangeNumber, resetToken);
+		verify(mockTableRowCompactionManager, never()).createCompaction(any(IdAndVersion.class), anyLong(), anyString(), anyList(), any(TableIndexManager.class));
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberCreatesCompactionWithVersion() throws Exception {
+		tableId = IdAndVersion.parse("syn123.1");
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		long lastChangeNumber = TableIndexManagerImpl.MIN_CHANGES_PER_COMPACTION - 1;
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, lastChangeNumber);
+		List<TableChangeMetaData> list = new LinkedList<>();
+		for (long i = 0; i <= lastChangeNumber; i++) {
+			list.add(setupMockRowChange(i));
+		}
+		String resetToken = "resetToken";
+		// call under test
+		manager.buildIndexToLatestChange(tableId, list.iterator(), lastChangeNumber, resetToken);
+		// compactions are not created for table versions.
+		verify(mockTableRowCompactionManager, never()).createCompaction(any(IdAndVersion.class), anyLong(), anyString(), anyList(), any(TableIndexManager.class));
+	}
+	
+	@Test
+	public void testBuildIndexToChangeNumberCreatesCompactionFailure() throws Exception {
+		when(mockManagerSupport.getTableSchema(tableId)).thenReturn(schema);
+		long lastChangeNumber = TableIndexManagerImpl.MIN_CHANGES_PER_COMPACTION - 1;
+		when(mockIndexDao.getMaxCurrentCompleteVersionForTable(tableId)).thenReturn(-1L, lastChangeNumber);
+		when(mockTableRowCompactionManager.createCompaction(tableId, lastChangeNumber, "etag-" + lastChangeNumber,
+				schema, manager)).thenThrow(new IllegalStateException("nope"));
+		List<TableChangeMetaData> list = new LinkedList<>();
+		for (long i = 0; i <= lastChangeNumber; i++) {
+			list.add(setupMockRowChange(i));
+		}
+		String resetToken = "resetToken";
+		// call under test
+		String lastEtag = manager.buildIndexToLatestChange(tableId, list.iterator(), lastChangeNumber, resetToken);
+		// a failed compaction does not fail the build.
+		assertEquals(null, lastEtag);
+	}
+	
+	@Test
+	public void testStreamIndexRows() {
+		CSVWriterStream writer = (String[] line) -> {};
+		when(mockIndexDao.streamTableIndexRows(tableId, writer)).thenReturn(3L);
+		// call under test
+		assertEquals(3L, manager.streamIndexRows(tableId, writer));
+	}
+	
+	@Test
+	public void testPopulateIndexFromRows() {
+		when(mockIndexDao.getDistinctLongValues(tableId, SQLUtils.getColumnNameForId("101"))).thenReturn(Sets.newHashSet(2L, 6L));
+		Iterator<String[]> input = Collections.emptyIterator();
+		long changeNumber = 12L;
+		// call under test
+		manager.populateIndexFromRows(tableId, schema, input, changeNumber);
+		verify(mockIndexDao).deleteTable(tableId);
+		verify(mockIndexDao).createTableIfDoesNotExist(tableId, false);
+		verify(mockIndexDao).populateTableFromRows(tableId, input, TableIndexManagerImpl.MAX_BYTES_PER_BATCH);
+		verify(mockIndexDao).applyFileHandleIdsToTable(tableId, Sets.newHashSet(2L, 6L));
+		verify(mockIndexDao).setMaxCurrentCompleteVersionForTable(tableId, changeNumber);
+	}
+	
+	@Test
+	public void testPopulateIndexFromRowsNullSchema() {
+		Iterator<String[]> input = Collections.emptyIterator();
+		assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			manager.populateIndexFromRows(tableId, null, input, 12L);
+		});
+	}
+	
 	@Test
 	public void testBuildIndexToChangeNumber() throws Exception {
 		setupTryRunWithTableExclusiveLock();
@@ -2,6 +2,7 @@ package org.sagebionetworks.repo.manager.table;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -53,6 +54,8 @@ import org.sagebionetworks.repo.model.table.ViewScopeType;
 import org.sagebionetworks.repo.model.table.ViewTypeMask;
 import org.sagebionetworks.repo.web.NotFoundException;
 import org.sagebionetworks.table.cluster.ConnectionFactory;
+import org.sagebionetworks.table.cluster.RowBatch;
+import org.sagebionetworks.table.cluster.RowBatchHandler;
 import org.sagebionetworks.table.cluster.SqlQuery;
 import org.sagebionetworks.table.cluster.SqlQueryBuilder;
 import org.sagebionetworks.table.cluster.TableIndexDAO;
@@ -62,6 +65,7 @@ import org.sagebionetworks.table.query.TableQueryParser;
 import org.sagebionetworks.table.query.model.QuerySpecification;
 import org.sagebionetworks.util.csv.CSVWriterStream;
 import org.sagebionetworks.workers.util.semaphore.LockUnavilableException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.BadSqlGrammarException;
 
 import java.util.ArrayList;
@@ -72,6 +76,12 @@ import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -81,11 +91,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -112,6 +124,10 @@ public class TableQueryManagerImplTest {
 	ProgressCallback mockProgressCallbackVoid;
 	@Mock
 	ProgressCallback mockProgressCallback2;
+	@Mock
+	QueryResultCache mockQueryResultCache;
+	@Captor
+	ArgumentCaptor<QueryResultCacheKey> cacheKeyCaptor;
 	@InjectMocks
 	TableQueryManagerImpl manager;
 	
@@ -162,6 +178,10 @@ public class TableQueryManagerImplTest {
 		models = TableModelTestUtils.createOneOfEachType(true);		
 		maxBytesPerRequest = 10000000;
 		manager.setMaxBytesPerRequest(maxBytesPerRequest);
+		// sub-queries are run on the calling thread unless a test needs a real pool.
+		manager.setSubQueryExecutorService(MoreExecutors.newDirectExecutorService());
+		// sub-queries run on the same mock dao.
+		lenient().when(mockTableIndexDAO.withQueryTimeout(anyInt())).thenReturn(mockTableIndexDAO);
 		
 		rows = TableModelTestUtils.createRows(models, 10);
 		
@@ -221,6 +241,31 @@ public class TableQueryManagerImplTest {
 		});
 	}
 
+	void setupQueryBatchCallback() {
+		when(mockTableIndexDAO.queryAsBatchStream(any(ProgressCallback.class), any(SqlQuery.class), anyInt(), any(RowBatchHandler.class))).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				capturedQuery = (SqlQuery) invocation.getArguments()[1];
+				int batchSize = (Integer) invocation.getArguments()[2];
+				RowBatchHandler handler = (RowBatchHandler) invocation.getArguments()[3];
+				// Pass all rows to the handler in batches
+				RowBatch batch = new RowBatch(batchSize, rows.get(0).getValues().size());
+				for (Row row : rows) {
+					int index = batch.addRow();
+					if (row.getRowId() != null) {
+						batch.setRowIdAndVersion(index, row.getRowId(), row.getVersionNumber());
+					}
+					batch.setEtag(index, row.getEtag());
+					for (int i = 0; i < row.getValues().size(); i++) {
+						batch.setValue(index, i, row.getValues().get(i));
+					}
+				}
+				handler.nextBatch(batch);
+				return true;
+			}
+		});
+	}
+
 	void setupNonExclusiveLock() throws Exception {
 		// Just call the caller.
 		when(mockTableManagerSupport.tryRunWithTableNonexclusiveLock(any(ProgressCallback.class),
@@ -1011,7 +1056,7 @@ public class TableQueryManagerImplTest {
 		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
 		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
-		setupQueryCallback();
+		setupQueryBatchCallback();
 		
 		DownloadFromTableRequest request = new DownloadFromTableRequest();
 		request.setSql("select * from "+tableId);
@@ -1035,7 +1080,7 @@ public class TableQueryManagerImplTest {
 		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
 		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
-		setupQueryCallback();
+		setupQueryBatchCallback();
 		
 		DownloadFromTableRequest request = new DownloadFromTableRequest();
 		request.setSql("select i0 from "+tableId);
@@ -1069,7 +1114,7 @@ public class TableQueryManagerImplTest {
 		when(mockTableIndexDAO.getDistinctLongValues(idAndVersion, TableConstants.ROW_BENEFACTOR)).thenReturn(benfactors);
 		when(mockTableManagerSupport.getViewScopeType(idAndVersion)).thenReturn(scopeType);
 		when(mockTableManagerSupport.getAccessibleBenefactors(user, scopeType, benfactors)).thenReturn(subSet);
-		setupQueryCallback();
+		setupQueryBatchCallback();
 		
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.entityview);
 		DownloadFromTableRequest request = new DownloadFromTableRequest();
@@ -1102,7 +1147,7 @@ public class TableQueryManagerImplTest {
 		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
 		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
-		setupQueryCallback();
+		setupQueryBatchCallback();
 		
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
 		DownloadFromTableRequest request = new DownloadFromTableRequest();
@@ -1135,7 +1180,7 @@ public class TableQueryManagerImplTest {
 		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
 		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
 		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
-		setupQueryCallback();
+		setupQueryBatchCallback();
 		
 		DownloadFromTableRequest request = new DownloadFromTableRequest();
 		request.setSql("select i0 from "+tableId);
@@ -1359,11 +1404,97 @@ public class TableQueryManagerImplTest {
 		assertEquals(new Long(1), result.getMaxRowsPerPage());
 		assertNotNull(result.getQueryResult());
 		assertNotNull(result.getQueryResult().getNextPageToken());
-		Query nextQuery = TableQueryUtils.createQueryFromNextPageToken(result.getQueryResult().getNextPageToken());
+		// a first page is not ordered by ROW_ID.
+		assertFalse(capturedQuery.isKeysetPaginated());
+		NextPageQuery nextQuery = TableQueryUtils.createQueryFromNextPageToken(result.getQueryResult().getNextPageToken());
 		assertNotNull(nextQuery);
 		assertEquals(null, nextQuery.getLimit());
 		assertEquals(new Long(1),nextQuery.getOffset());
 		assertEquals(query.getSql(), nextQuery.getSql());
+		// so the second page uses the offset.
+		assertNull(nextQuery.getSeekAfterRowId());
+		assertNull(nextQuery.getSeekAfterSortValues());
+	}
+
+	@Test
+	public void testQuerySinglePageWithNextPageKeyset() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenReturn(10L);
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		addRowIdAndVersionToRows();
+		
+		// setup the results to return one row.
+		Row row = rows.get(0);
+		rows.clear();
+		rows.add(row);
+		queryOptions = new QueryOptions().withRunQuery(true).withRunCount(true).withReturnFacets(false).withReturnMaxRowsPerPage(true);
+		// the second page is read from a token without a seek position.
+		NextPageQuery query = new NextPageQuery();
+		query.setSql("select * from "+tableId);
+		query.setSort(sortList);
+		query.setOffset(1L);
+		manager.setMaxBytesPerRequest(1);
+		// call under test.
+		QueryResultBundle result = manager.querySinglePage(
+				mockProgressCallbackVoid, user, query, queryOptions);
+		
+		assertTrue(capturedQuery.isKeysetPaginated());
+		NextPageQuery nextQuery = TableQueryUtils.createQueryFromNextPageToken(result.getQueryResult().getNextPageToken());
+		// the offset is included for tokens read by older machines.
+		assertEquals(new Long(2),nextQuery.getOffset());
+		// the next page will seek past the last row.
+		assertEquals(row.getRowId(), nextQuery.getSeekAfterRowId());
+		assertEquals(Lists.newArrayList(row.getValues().get(0)), nextQuery.getSeekAfterSortValues());
+	}
+
+	@Test
+	public void testQuerySinglePageCacheMiss() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		setupQueryCallback();
+		Query query = new Query();
+		query.setSql("select * from "+tableId);
+		// call under test.
+		QueryResultBundle result = manager.querySinglePage(
+				mockProgressCallbackVoid, user, query, queryOptions);
+		
+		assertEquals(rows, result.getQueryResult().getQueryResults().getRows());
+		verify(mockQueryResultCache).get(cacheKeyCaptor.capture());
+		verify(mockQueryResultCache).put(cacheKeyCaptor.getValue(), result);
+		QueryResultCacheKey key = cacheKeyCaptor.getValue();
+		assertEquals(tableId, key.getTableId());
+		assertEquals(QueryResultCacheKey.createTableVersion(status), key.getTableVersion());
+	}
+
+	@Test
+	public void testQuerySinglePageCacheHit() throws Exception{
+		when(mockTableManagerSupport.getTableStatusOrCreateIfNotExists(idAndVersion)).thenReturn(status);
+		setupNonExclusiveLock();
+		when(mockTableManagerSupport.getTableSchema(idAndVersion)).thenReturn(models);
+		when(mockTableManagerSupport.validateTableReadAccess(user, idAndVersion)).thenReturn(EntityType.table);
+		QueryResultBundle cached = new QueryResultBundle();
+		cached.setQueryResult(new QueryResult());
+		cached.getQueryResult().setQueryResults(new RowSet());
+		cached.getQueryResult().getQueryResults().setRows(rows);
+		when(mockQueryResultCache.get(any(QueryResultCacheKey.class))).thenReturn(cached);
+		Query query = new Query();
+		query.setSql("select * from "+tableId);
+		// call under test.
+		QueryResultBundle result = manager.querySinglePage(
+				mockProgressCallbackVoid, user, query, queryOptions);
+		
+		assertEquals(cached, result);
+		// the table must be available to read from the cache.
+		verify(mockTableManagerSupport).getTableStatusOrCreateIfNotExists(idAndVersion);
+		verify(mockTableConnectionFactory, never()).getConnection(any(IdAndVersion.class));
+		verify(mockQueryResultCache, never()).put(any(QueryResultCacheKey.class), any(QueryResultBundle.class));
 	}
 	
 	@Test
@@ -1711,6 +1842,7 @@ public class TableQueryManagerImplTest {
 		List<FacetColumnResult> results = manager.runFacetQueries(mockFacetModel, mockTableIndexDAO);
 		
 		//verify and assert
+		verify(mockTableIndexDAO).withQueryTimeout(60);
 		verify(mockFacetModel).getFacetInformationQueries();
 		verify(mockTransformer1).getFacetSqlQuery();
 		verify(mockTransformer2).getFacetSqlQuery();
@@ -1728,6 +1860,109 @@ public class TableQueryManagerImplTest {
 
 	}
 	
+	/**
+	 * The count query must be able to run while the main query is running.
+	 */
+	@Test
+	public void testQueryAsStreamAfterAuthorizationSubQueriesConcurrent() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			manager.setSubQueryExecutorService(executor);
+			when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+			// neither query can complete until both have started.
+			CyclicBarrier bothStarted = new CyclicBarrier(2);
+			Long count = 201L;
+			when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenAnswer(invocation -> {
+				bothStarted.await(10, TimeUnit.SECONDS);
+				return count;
+			});
+			when(mockTableIndexDAO.queryAsStream(any(ProgressCallback.class), any(SqlQuery.class), any(RowHandler.class)))
+					.thenAnswer(invocation -> {
+						bothStarted.await(10, TimeUnit.SECONDS);
+						return true;
+					});
+			RowHandler rowHandler = new SinglePageRowHandler();
+			queryOptions = new QueryOptions().withRunCount(true).withRunQuery(true);
+			SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId()).build();
+			// call under test
+			QueryResultBundle results = manager.queryAsStreamAfterAuthorization(mockProgressCallbackVoid, query, rowHandler, queryOptions);
+			assertEquals(count, results.getQueryCount());
+			assertNotNull(results.getQueryResult());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * A count that does not complete in time is cancelled and left out of the
+	 * results rather than failing the query.
+	 */
+	@Test
+	public void testQueryAsStreamAfterAuthorizationSubQueryTimeout() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			manager.setSubQueryExecutorService(executor);
+			manager.setSubQueryTimeoutMS(100L);
+			when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+			CountDownLatch neverReleased = new CountDownLatch(1);
+			CountDownLatch interrupted = new CountDownLatch(1);
+			when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenAnswer(invocation -> {
+				try {
+					neverReleased.await();
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return 1L;
+			});
+			queryOptions = new QueryOptions().withRunCount(true);
+			SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId()).build();
+			// call under test
+			QueryResultBundle results = manager.queryAsStreamAfterAuthorization(mockProgressCallbackVoid, query, null, queryOptions);
+			assertNull(results.getQueryCount());
+			assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+			// the statement timeout is rounded up to whole seconds.
+			verify(mockTableIndexDAO).withQueryTimeout(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * A failed sub-query fails the query with the original exception.
+	 */
+	@Test
+	public void testQueryAsStreamAfterAuthorizationSubQueryFailure() throws Exception {
+		when(mockTableConnectionFactory.getConnection(idAndVersion)).thenReturn(mockTableIndexDAO);
+		IllegalArgumentException exception = new IllegalArgumentException("bad count");
+		when(mockTableIndexDAO.countQuery(anyString(), anyMap())).thenThrow(exception);
+		queryOptions = new QueryOptions().withRunCount(true);
+		SqlQuery query = new SqlQueryBuilder("select * from " + tableId, models, user.getId()).build();
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, ()->{
+			// call under test
+			manager.queryAsStreamAfterAuthorization(mockProgressCallbackVoid, query, null, queryOptions);
+		});
+		assertEquals(exception, thrown);
+	}
+	
+	@Test
+	public void testGetSubQueryResultTimeout() {
+		CompletableFuture<Long> neverCompleted = new CompletableFuture<>();
+		assertThrows(QueryTimeoutException.class, ()->{
+			// call under test
+			manager.getSubQueryResult(neverCompleted, System.currentTimeMillis());
+		});
+	}
+	
+	@Test
+	public void testGetSubQueryTimeoutSeconds() {
+		manager.setSubQueryTimeoutMS(60000L);
+		assertEquals(60, manager.getSubQueryTimeoutSeconds());
+		manager.setSubQueryTimeoutMS(1001L);
+		assertEquals(2, manager.getSubQueryTimeoutSeconds());
+		manager.setSubQueryTimeoutMS(1L);
+		assertEquals(1, manager.getSubQueryTimeoutSeconds());
+	}
+
 	@Test
 	public void testRunSumFileSize() throws Exception {
 		when(mockTableIndexDAO.getRowIds(any(), any())).thenReturn(Lists.newArrayList(1L,2L));
@@ -5,6 +5,7 @@ import com.google.common.collect.Lists;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.sagebionetworks.repo.model.UnmodifiableXStream;
 import org.sagebionetworks.repo.model.asynch.CacheableRequestBody;
 import org.sagebionetworks.repo.model.dbo.dao.table.TableExceptionTranslator;
 import org.sagebionetworks.repo.model.table.DownloadFromTableRequest;
@@ -16,10 +17,14 @@ import org.sagebionetworks.repo.model.table.QueryNextPageToken;
 import org.sagebionetworks.repo.model.table.SortDirection;
 import org.sagebionetworks.repo.model.table.SortItem;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TableQueryUtilsTest {
 
@@ -67,6 +72,57 @@ public class TableQueryUtilsTest {
 		assertEquals(sortList, query.getSort());
 		assertEquals(selectedFacets, query.getSelectedFacets());
 	}
+
+	@Test
+	public void testCreateNextPageTokenWithSeek() throws Exception {
+		Long nextOffset = 10L;
+		Long limit = 21L;
+		List<String> sortValues = Arrays.asList("a", null);
+		QueryNextPageToken token = TableQueryUtils.createNextPageToken(sql, null, nextOffset, limit, null, 123L, sortValues);
+		// call under test
+		NextPageQuery query = TableQueryUtils.createQueryFromNextPageToken(token);
+		assertEquals(sql, query.getSql());
+		assertEquals(nextOffset, query.getOffset());
+		assertEquals(limit, query.getLimit());
+		assertEquals(new Long(123L), query.getSeekAfterRowId());
+		assertEquals(sortValues, query.getSeekAfterSortValues());
+	}
+
+	@Test
+	public void testCreateNextPageTokenWithoutSeek() throws Exception {
+		QueryNextPageToken token = TableQueryUtils.createNextPageToken(sql, null, 10L, 21L, null);
+		// tokens without a seek are unchanged.
+		assertTrue(token.getToken().startsWith("<Query>"));
+		assertFalse(token.getToken().contains("seekAfter"));
+	}
+
+	@Test
+	public void testCreateNextPageTokenWithSeekReadAsQuery() throws Exception {
+		QueryNextPageToken token = TableQueryUtils.createNextPageToken(sql, null, 10L, 21L, null, 123L, Arrays.asList("a", null));
+		// A machine that does not know the seek position reads the token as a Query.
+		UnmodifiableXStream queryXStream = UnmodifiableXStream.builder()
+				.alias("Query", Query.class)
+				.allowTypes(Query.class)
+				.build();
+		// call under test
+		Query query = (Query) queryXStream.fromXML(token.getToken(), new Query());
+		assertEquals(Query.class, query.getClass());
+		assertEquals(sql, query.getSql());
+		assertEquals(new Long(10L), query.getOffset());
+		assertEquals(new Long(21L), query.getLimit());
+	}
+
+	@Test
+	public void testCreateQueryFromNextPageTokenOffsetOnly() throws Exception {
+		QueryNextPageToken token = new QueryNextPageToken();
+		token.setToken("<Query><sql>select * from syn123</sql><offset>10</offset><limit>21</limit></Query>");
+		// call under test
+		NextPageQuery query = TableQueryUtils.createQueryFromNextPageToken(token);
+		assertEquals(sql, query.getSql());
+		assertEquals(new Long(10L), query.getOffset());
+		assertNull(query.getSeekAfterRowId());
+		assertNull(query.getSeekAfterSortValues());
+	}
 	
 	@Test
 	public void testExtractTableIdFromSql(){
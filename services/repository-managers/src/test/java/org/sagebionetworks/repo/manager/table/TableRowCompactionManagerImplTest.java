@@ -0,0 +1,342 @@
+package org.sagebionetworks.repo.manager.table;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.StackConfiguration;
+import org.sagebionetworks.aws.SynapseS3Client;
+import org.sagebionetworks.repo.model.dao.table.TableRowTruthDAO;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableModelTestUtils;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompaction;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableRowCompactionDao;
+import org.sagebionetworks.repo.model.entity.IdAndVersion;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.TableRowChange;
+import org.sagebionetworks.repo.web.NotFoundException;
+import org.sagebionetworks.util.Clock;
+import org.sagebionetworks.util.FileProvider;
+import org.sagebionetworks.util.csv.CSVWriterStream;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+@ExtendWith(MockitoExtension.class)
+public class TableRowCompactionManagerImplTest {
+
+	@Mock
+	private TableRowCompactionDao mockCompactionDao;
+	@Mock
+	private TableRowTruthDAO mockTableRowTruthDao;
+	@Mock
+	private SynapseS3Client mockS3Client;
+	@Mock
+	private FileProvider mockFileProvider;
+	@Mock
+	private StackConfiguration mockConfig;
+	@Mock
+	private Clock mockClock;
+	@Mock
+	private TableIndexManager mockIndexManager;
+	@Mock
+	private File mockFile;
+	@Mock
+	private OutputStream mockOutStream;
+	@Mock
+	private GZIPOutputStream mockGzipOutStream;
+	@Mock
+	private InputStream mockInputStream;
+	@Mock
+	private GZIPInputStream mockGzipInputStream;
+	@Captor
+	private ArgumentCaptor<PutObjectRequest> putRequestCaptor;
+	@Captor
+	private ArgumentCaptor<TableRowCompaction> compactionCaptor;
+
+	@InjectMocks
+	private TableRowCompactionManagerImpl manager;
+
+	private IdAndVersion idAndVersion;
+	private List<ColumnModel> schema;
+	private List<String[]> rows;
+	private TableRowCompaction compaction;
+	private TableRowChange change;
+
+	@BeforeEach
+	public void before() {
+		idAndVersion = IdAndVersion.parse("syn123");
+		schema = Arrays.asList(TableModelTestUtils.createColumn(99L, "aString", ColumnType.STRING),
+				TableModelTestUtils.createColumn(101L, "aFile", ColumnType.FILEHANDLEID));
+		rows = Arrays.asList(new String[] { "ROW_ID", "ROW_VERSION", "_C99_", "_C101_" },
+				new String[] { "1", "3", "has \"quotes\", and a comma\n", "44" },
+				new String[] { "2", "3", null, null });
+		compaction = new TableRowCompaction().withTableId(123L).withChangeNumber(12L).withChangeEtag("etag-12")
+				.withBucket("bucket").withKey("key");
+		change = new TableRowChange();
+		change.setRowVersion(12L);
+		change.setEtag("etag-12");
+	}
+
+	@Test
+	public void testGetCompaction() {
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.of(compaction));
+		when(mockTableRowTruthDao.getTableRowChange("123", 12L)).thenReturn(change);
+		// call under test
+		assertEquals(Optional.of(compaction), manager.getCompaction(idAndVersion, 12L));
+	}
+
+	@Test
+	public void testGetCompactionDoesNotExist() {
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.empty());
+		// call under test
+		assertEquals(Optional.empty(), manager.getCompaction(idAndVersion, 12L));
+		verify(mockTableRowTruthDao, never()).getTableRowChange(anyString(), anyLong());
+	}
+
+	@Test
+	public void testGetCompactionWithVersion() {
+		idAndVersion = IdAndVersion.parse("syn123.4");
+		// call under test
+		assertEquals(Optional.empty(), manager.getCompaction(idAndVersion, 12L));
+		verify(mockCompactionDao, never()).getCompaction(anyLong());
+	}
+
+	@Test
+	public void testGetCompactionPastTarget() {
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.of(compaction));
+		// call under test
+		assertEquals(Optional.empty(), manager.getCompaction(idAndVersion, 11L));
+		verify(mockTableRowTruthDao, never()).getTableRowChange(anyString(), anyLong());
+	}
+
+	@Test
+	public void testGetCompactionChangeReplaced() {
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.of(compaction));
+		change.setEtag("etag-other");
+		when(mockTableRowTruthDao.getTableRowChange("123", 12L)).thenReturn(change);
+		// call under test
+		assertEquals(Optional.empty(), manager.getCompaction(idAndVersion, 12L));
+	}
+
+	@Test
+	public void testGetCompactionChangeDoesNotExist() {
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.of(compaction));
+		when(mockTableRowTruthDao.getTableRowChange("123", 12L)).thenThrow(new NotFoundException("gone"));
+		// call under test
+		assertEquals(Optional.empty(), manager.getCompaction(idAndVersion, 12L));
+	}
+
+	@Test
+	public void testCreateCompaction() throws IOException {
+		StringWriter writer = setupWriter();
+		when(mockConfig.getTableRowChangeBucketName()).thenReturn("bucket");
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.empty());
+		setupStreamRows();
+		// call under test
+		TableRowCompaction result = manager.createCompaction(idAndVersion, 12L, "etag-12", schema, mockIndexManager);
+		verify(mockS3Client).putObject(putRequestCaptor.capture());
+		PutObjectRequest putRequest = putRequestCaptor.getValue();
+		assertEquals("bucket", putRequest.getBucketName());
+		assertTrue(putRequest.getKey().startsWith("compaction/123/"));
+		assertEquals(mockFile, putRequest.getFile());
+		verify(mockCompactionDao).saveCompaction(compactionCaptor.capture());
+		assertEquals(result, compactionCaptor.getValue());
+		assertEquals(Long.valueOf(123L), result.getTableId());
+		assertEquals(Long.valueOf(12L), result.getChangeNumber());
+		assertEquals("etag-12", result.getChangeEtag());
+		assertEquals(Long.valueOf(2L), result.getRowCount());
+		assertEquals("bucket", result.getBucket());
+		assertEquals(putRequest.getKey(), result.getKey());
+		verify(mockS3Client, never()).deleteObject(anyString(), anyString());
+		verify(mockFile).delete();
+		// schema, header and two rows
+		assertEquals(4, writer.toString().split("\n").length);
+	}
+
+	@Test
+	public void testCreateCompactionReplacesPrevious() throws IOException {
+		setupWriter();
+		when(mockConfig.getTableRowChangeBucketName()).thenReturn("bucket");
+		compaction.withCreatedOn(new Date(1_000_000L));
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.of(compaction));
+		when(mockClock.currentTimeMillis()).thenReturn(1_000_000L + TableRowCompactionManagerImpl.REPLACED_COMPACTION_GRACE_PERIOD_MS);
+		ObjectListing listing = new ObjectListing();
+		listing.getObjectSummaries().add(createSummary("older", 999_999L));
+		listing.getObjectSummaries().add(createSummary("key", 1_000_000L));
+		listing.getObjectSummaries().add(createSummary("newer", 1_000_001L));
+		when(mockS3Client.listObjects("bucket", "compaction/123/")).thenReturn(listing);
+		setupStreamRows();
+		// call under test
+		manager.createCompaction(idAndVersion, 13L, "etag-13", schema, mockIndexManager);
+		verify(mockCompactionDao).saveCompaction(any(TableRowCompaction.class));
+		// the file replaced by the previous compaction is past its grace period.
+		verify(mockS3Client).deleteObject("bucket", "older");
+		// the previous compaction could still be read by another build.
+		verify(mockS3Client, never()).deleteObject("bucket", "key");
+		verify(mockS3Client, never()).deleteObject("bucket", "newer");
+	}
+
+	@Test
+	public void testCreateCompactionReplacesPreviousWithinGracePeriod() throws IOException {
+		setupWriter();
+		when(mockConfig.getTableRowChangeBucketName()).thenReturn("bucket");
+		compaction.withCreatedOn(new Date(1_000_000L));
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.of(compaction));
+		when(mockClock.currentTimeMillis()).thenReturn(1_000_000L + TableRowCompactionManagerImpl.REPLACED_COMPACTION_GRACE_PERIOD_MS - 1);
+		setupStreamRows();
+		// call under test
+		manager.createCompaction(idAndVersion, 13L, "etag-13", schema, mockIndexManager);
+		verify(mockCompactionDao).saveCompaction(any(TableRowCompaction.class));
+		verify(mockS3Client, never()).listObjects(anyString(), anyString());
+		verify(mockS3Client, never()).deleteObject(anyString(), anyString());
+	}
+
+	S3ObjectSummary createSummary(String key, long lastModified) {
+		S3ObjectSummary summary = new S3ObjectSummary();
+		summary.setKey(key);
+		summary.setLastModified(new Date(lastModified));
+		return summary;
+	}
+
+	@Test
+	public void testCreateCompactionWithVersion() {
+		idAndVersion = IdAndVersion.parse("syn123.4");
+		assertThrows(IllegalArgumentException.class, () -> {
+			// call under test
+			manager.createCompaction(idAndVersion, 12L, "etag-12", schema, mockIndexManager);
+		});
+	}
+
+	@Test
+	public void testCreateCompactionError() throws IOException {
+		when(mockFileProvider.createTempFile(anyString(), anyString())).thenReturn(mockFile);
+		FileNotFoundException exception = new FileNotFoundException("nope");
+		when(mockFileProvider.createFileOutputStream(mockFile)).thenThrow(exception);
+		RuntimeException result = assertThrows(RuntimeException.class, () -> {
+			// call under test
+			manager.createCompaction(idAndVersion, 12L, "etag-12", schema, mockIndexManager);
+		});
+		assertEquals(exception, result.getCause());
+		verify(mockS3Client, never()).putObject(any(PutObjectRequest.class));
+		verify(mockCompactionDao, never()).saveCompaction(any(TableRowCompaction.class));
+		verify(mockFile).delete();
+	}
+
+	@Test
+	public void testCompactionRoundTrip() throws IOException {
+		StringWriter writer = setupWriter();
+		when(mockConfig.getTableRowChangeBucketName()).thenReturn("bucket");
+		when(mockCompactionDao.getCompaction(123L)).thenReturn(Optional.empty());
+		setupStreamRows();
+		TableRowCompaction created = manager.createCompaction(idAndVersion, 12L, "etag-12", schema, mockIndexManager);
+
+		setupReader(writer.toString());
+		List<List<ColumnModel>> schemas = new ArrayList<>();
+		List<String[]> restored = new ArrayList<>();
+		doAnswer(invocation -> {
+			schemas.add(invocation.getArgument(1));
+			Iterator<String[]> input = invocation.getArgument(2);
+			while (input.hasNext()) {
+				restored.add(input.next());
+			}
+			return null;
+		}).when(mockIndexManager).populateIndexFromRows(eq(idAndVersion), any(List.class), any(Iterator.class), eq(12L));
+		// call under test
+		manager.populateIndexFromCompaction(idAndVersion, created, mockIndexManager);
+		verify(mockS3Client).getObject(new GetObjectRequest("bucket", created.getKey()), mockFile);
+		assertEquals(Arrays.asList(schema), schemas);
+		assertEquals(rows.size(), restored.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertArrayEquals(rows.get(i), restored.get(i));
+		}
+	}
+
+	@Test
+	public void testPopulateIndexFromCompactionEmptyFile() throws IOException {
+		when(mockFileProvider.createTempFile(anyString(), anyString())).thenReturn(mockFile);
+		setupReader("");
+		assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			manager.populateIndexFromCompaction(idAndVersion, compaction, mockIndexManager);
+		});
+		verify(mockFile).delete();
+	}
+
+	/**
+	 * Setup the chain of file->gzip->writer.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	StringWriter setupWriter() throws IOException {
+		StringWriter writer = new StringWriter();
+		when(mockFileProvider.createTempFile(anyString(), anyString())).thenReturn(mockFile);
+		when(mockFileProvider.createFileOutputStream(mockFile)).thenReturn(mockOutStream);
+		when(mockFileProvider.createGZIPOutputStream(mockOutStream)).thenReturn(mockGzipOutStream);
+		when(mockFileProvider.createWriter(mockGzipOutStream, StandardCharsets.UTF_8)).thenReturn(writer);
+		return writer;
+	}
+
+	/**
+	 * Setup the chain of file->gzip->reader.
+	 *
+	 * @param toRead
+	 * @throws IOException
+	 */
+	void setupReader(String toRead) throws IOException {
+		when(mockFileProvider.createFileInputStream(mockFile)).thenReturn(mockInputStream);
+		when(mockFileProvider.createGZIPInputStream(mockInputStream)).thenReturn(mockGzipInputStream);
+		when(mockFileProvider.createReader(mockGzipInputStream, StandardCharsets.UTF_8))
+				.thenReturn(new StringReader(toRead));
+	}
+
+	/**
+	 * The index manager will stream the header and rows.
+	 */
+	void setupStreamRows() {
+		when(mockIndexManager.streamIndexRows(eq(idAndVersion), any(CSVWriterStream.class))).thenAnswer(invocation -> {
+			CSVWriterStream stream = invocation.getArgument(1);
+			for (String[] row : rows) {
+				stream.writeNext(row);
+			}
+			return (long) rows.size() - 1;
+		});
+	}
+}
@@ -0,0 +1,268 @@
+package org.sagebionetworks.repo.manager.table.change;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.repo.manager.table.TestTableChangeMetaData;
+import org.sagebionetworks.repo.model.dbo.dao.table.TableModelTestUtils;
+import org.sagebionetworks.repo.model.table.ColumnModel;
+import org.sagebionetworks.repo.model.table.ColumnType;
+import org.sagebionetworks.repo.model.table.TableChangeType;
+import org.sagebionetworks.table.model.ChangeData;
+import org.sagebionetworks.table.model.SchemaChange;
+import org.sagebionetworks.table.model.SparseChangeSet;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+@ExtendWith(MockitoExtension.class)
+public class PrefetchingTableChangeIteratorTest {
+
+	@Mock
+	private ExecutorService mockExecutor;
+	@Mock
+	private Future<ChangeData<SparseChangeSet>> mockFuture;
+	@Mock
+	private Future<ChangeData<SparseChangeSet>> mockLoadedFuture;
+	@Mock
+	private TableChangeMetaData mockChange;
+
+	private ExecutorService directExecutor;
+	private Predicate<TableChangeMetaData> all;
+	private SparseChangeSet changeSet;
+	private List<TableChangeMetaData> changes;
+
+	@BeforeEach
+	public void before() {
+		directExecutor = MoreExecutors.newDirectExecutorService();
+		all = (TableChangeMetaData change) -> true;
+		List<ColumnModel> schema = Arrays.asList(TableModelTestUtils.createColumn(99L, "aString", ColumnType.STRING));
+		changeSet = new SparseChangeSet("syn123", schema);
+		changeSet.addEmptyRow().setCellValue("99", "some string");
+		changes = new ArrayList<>();
+		for (long i = 0; i < 10; i++) {
+			changes.add(createRowChange(i));
+		}
+	}
+
+	@Test
+	public void testIterateInOrder() throws Exception {
+		changes.add(createColumnChange(10L));
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(),
+				directExecutor, all, 3, Long.MAX_VALUE);
+		List<TableChangeMetaData> results = new ArrayList<>();
+		// call under test
+		while (iterator.hasNext()) {
+			results.add(iterator.next());
+		}
+		assertEquals(changes.size(), results.size());
+		for (int i = 0; i < changes.size(); i++) {
+			assertEquals(changes.get(i).getChangeNumber(), results.get(i).getChangeNumber());
+			assertEquals(changes.get(i).getETag(), results.get(i).getETag());
+			assertEquals(changes.get(i).getChangeType(), results.get(i).getChangeType());
+		}
+		assertSame(changeSet, results.get(0).loadChangeData(SparseChangeSet.class).getChange());
+		// column changes are passed through.
+		assertSame(changes.get(10), results.get(10));
+		assertThrows(NoSuchElementException.class, () -> {
+			iterator.next();
+		});
+	}
+
+	@Test
+	public void testEmpty() {
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				new ArrayList<TableChangeMetaData>().iterator(), directExecutor, all, 3, Long.MAX_VALUE);
+		// call under test
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testNextPrefetchesAhead() throws Exception {
+		when(mockExecutor.submit(any(Callable.class))).thenReturn(mockLoadedFuture);
+		when(mockLoadedFuture.isDone()).thenReturn(true);
+		when(mockLoadedFuture.get()).thenReturn(new ChangeData<>(0L, changeSet));
+		Iterator<TableChangeMetaData> source = changes.iterator();
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(source, mockExecutor, all, 3,
+				Long.MAX_VALUE);
+		// call under test
+		iterator.next();
+		// the first change and the three changes after it.
+		verify(mockExecutor, times(4)).submit(any(Callable.class));
+		assertEquals(changes.get(4).getChangeNumber(), source.next().getChangeNumber());
+	}
+
+	@Test
+	public void testNextOverByteBudget() throws Exception {
+		when(mockExecutor.submit(any(Callable.class))).thenReturn(mockFuture);
+		when(mockFuture.isDone()).thenReturn(true);
+		when(mockFuture.isCancelled()).thenReturn(false);
+		when(mockFuture.get()).thenReturn(new ChangeData<>(0L, changeSet));
+		long changeSetBytes = PrefetchingTableChangeIterator.estimateBytes(changeSet);
+		// two loaded changes are over the budget.
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(), mockExecutor,
+				all, 5, changeSetBytes + 1);
+		// call under test
+		iterator.next();
+		// the first change and the two changes after it.
+		verify(mockExecutor, times(3)).submit(any(Callable.class));
+		assertEquals(changeSetBytes * 2, iterator.getBufferedBytes());
+	}
+
+	/**
+	 * Without a known row size a change that is still loading counts as the full
+	 * budget, so only one change is loaded at a time.
+	 */
+	@Test
+	public void testNextInFlightCountedAtBudget() {
+		when(mockExecutor.submit(any(Callable.class))).thenReturn(mockFuture);
+		when(mockFuture.isDone()).thenReturn(false);
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(), mockExecutor,
+				all, 5, Long.MAX_VALUE);
+		// call under test
+		iterator.next();
+		// the first change and the one change after it.
+		verify(mockExecutor, times(2)).submit(any(Callable.class));
+		assertEquals(Long.MAX_VALUE, iterator.getBufferedBytes());
+	}
+
+	/**
+	 * Once a change has loaded, the changes that are still loading are estimated
+	 * from their row counts.
+	 */
+	@Test
+	public void testNextInFlightCountedByRowCount() throws Exception {
+		when(mockExecutor.submit(any(Callable.class))).thenReturn(mockLoadedFuture, mockFuture);
+		when(mockLoadedFuture.isDone()).thenReturn(true);
+		when(mockLoadedFuture.get()).thenReturn(new ChangeData<>(0L, changeSet));
+		when(mockFuture.isDone()).thenReturn(false);
+		long changeSetBytes = PrefetchingTableChangeIterator.estimateBytes(changeSet);
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(), mockExecutor,
+				all, 5, changeSetBytes * 3);
+		// call under test
+		iterator.next();
+		// each change has one row so each change in flight counts as one loaded change.
+		verify(mockExecutor, times(4)).submit(any(Callable.class));
+		assertEquals(changeSetBytes * 3, iterator.getBufferedBytes());
+	}
+
+	@Test
+	public void testFilter() throws Exception {
+		when(mockChange.getChangeType()).thenReturn(TableChangeType.ROW);
+		Predicate<TableChangeMetaData> none = (TableChangeMetaData change) -> false;
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Arrays.asList(mockChange).iterator(), directExecutor, none, 3, Long.MAX_VALUE);
+		// call under test
+		TableChangeMetaData result = iterator.next();
+		assertSame(mockChange, result);
+		verify(mockChange, never()).loadChangeData(any());
+	}
+
+	@Test
+	public void testLoadChangeDataIOException() throws Exception {
+		IOException exception = new IOException("nope");
+		when(mockChange.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockChange.loadChangeData(SparseChangeSet.class)).thenThrow(exception);
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Arrays.asList(mockChange).iterator(), directExecutor, all, 3, Long.MAX_VALUE);
+		TableChangeMetaData result = iterator.next();
+		IOException thrown = assertThrows(IOException.class, () -> {
+			// call under test
+			result.loadChangeData(SparseChangeSet.class);
+		});
+		assertSame(exception, thrown);
+	}
+
+	@Test
+	public void testLoadChangeDataRuntimeException() throws Exception {
+		IllegalStateException exception = new IllegalStateException("nope");
+		when(mockChange.getChangeType()).thenReturn(TableChangeType.ROW);
+		when(mockChange.loadChangeData(SparseChangeSet.class)).thenThrow(exception);
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(
+				Arrays.asList(mockChange).iterator(), directExecutor, all, 3, Long.MAX_VALUE);
+		TableChangeMetaData result = iterator.next();
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			result.loadChangeData(SparseChangeSet.class);
+		});
+		assertSame(exception, thrown);
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		when(mockExecutor.submit(any(Callable.class))).thenReturn(mockFuture);
+		when(mockFuture.isDone()).thenReturn(true);
+		when(mockFuture.get()).thenReturn(new ChangeData<>(0L, changeSet));
+		PrefetchingTableChangeIterator iterator = new PrefetchingTableChangeIterator(changes.iterator(), mockExecutor,
+				all, 3, Long.MAX_VALUE);
+		iterator.next();
+		// call under test
+		iterator.cancel();
+		// the three changes ahead of the consumed change.
+		verify(mockFuture, times(3)).cancel(true);
+		assertTrue(iterator.hasNext());
+	}
+
+	@Test
+	public void testNullSource() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(null, directExecutor, all, 3, Long.MAX_VALUE);
+		});
+	}
+
+	@Test
+	public void testNullExecutor() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(changes.iterator(), null, all, 3, Long.MAX_VALUE);
+		});
+	}
+
+	@Test
+	public void testZeroPrefetchCount() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingTableChangeIterator(changes.iterator(), directExecutor, all, 0, Long.MAX_VALUE);
+		});
+	}
+
+	TableChangeMetaData createRowChange(long changeNumber) {
+		TestTableChangeMetaData<SparseChangeSet> change = new TestTableChangeMetaData<>();
+		change.setChangeNumber(changeNumber);
+		change.seteTag("etag-" + changeNumber);
+		change.setChangeType(TableChangeType.ROW);
+		change.setRowCount(1L);
+		change.setChangeData(new ChangeData<SparseChangeSet>(changeNumber, changeSet));
+		return change;
+	}
+
+	TableChangeMetaData createColumnChange(long changeNumber) {
+		TestTableChangeMetaData<SchemaChange> change = new TestTableChangeMetaData<>();
+		change.setChangeNumber(changeNumber);
+		change.seteTag("etag-" + changeNumber);
+		change.setChangeType(TableChangeType.COLUMN);
+		change.setChangeData(new ChangeData<SchemaChange>(changeNumber, new SchemaChange(new ArrayList<>())));
+		return change;
+	}
+}
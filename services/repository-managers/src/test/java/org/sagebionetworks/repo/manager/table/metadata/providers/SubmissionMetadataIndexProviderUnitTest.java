@@ -399,6 +399,35 @@ public class SubmissionMetadataIndexProviderUnitTest {
 		verify(mockSubmissionDao).getSumOfSubmissionCRCsForEachEvaluation(containerIds);
 	}
 
+	@Test
+	public void testGetSumOfChildCRCsForEachBucket() {
+		List<Long> filterBuckets = ImmutableList.of(0L);
+
+		Map<Long, Long> expected = ImmutableMap.of(3L, 10L, 4L, 30L);
+
+		when(mockSubmissionDao.getSumOfSubmissionCRCsForEachBucket(anyLong(), anyLong(), anyLong(), any())).thenReturn(expected);
+
+		// Call under test
+		Map<Long, Long> result = provider.getSumOfChildCRCsForEachBucket(1L, 100L, 10000L, filterBuckets);
+
+		assertEquals(expected, result);
+		verify(mockSubmissionDao).getSumOfSubmissionCRCsForEachBucket(1L, 100L, 10000L, filterBuckets);
+	}
+
+	@Test
+	public void testGetChildrenInBuckets() {
+		List<Long> buckets = ImmutableList.of(3L);
+		List<IdAndEtag> expected = ImmutableList.of(mockIdAndEtag, mockIdAndEtag);
+
+		when(mockSubmissionDao.getSubmissionIdAndEtagInBuckets(anyLong(), anyLong(), any())).thenReturn(expected);
+
+		// Call under test
+		List<IdAndEtag> result = provider.getChildrenInBuckets(1L, 100L, buckets);
+
+		assertEquals(expected, result);
+		verify(mockSubmissionDao).getSubmissionIdAndEtagInBuckets(1L, 100L, buckets);
+	}
+
 	@Test
 	public void testGetBenefactorObjectType() {
 
@@ -22,6 +22,7 @@ import org.sagebionetworks.repo.manager.NodeManager;
 import org.sagebionetworks.repo.manager.UserManager;
 import org.sagebionetworks.repo.manager.dataaccess.AccessRequirementManager;
 import org.sagebionetworks.repo.manager.dataaccess.AccessRequirementManagerImpl;
+import org.sagebionetworks.repo.manager.entity.EntityHierarchyCache;
 import org.sagebionetworks.repo.model.ACCESS_TYPE;
 import org.sagebionetworks.repo.model.AccessControlList;
 import org.sagebionetworks.repo.model.AccessRequirement;
@@ -70,6 +71,9 @@ public class TrashManagerImplAutowiredTest {
 	@Autowired 
 	private AccessRequirementManager accessRequirementManager;
 	
+	@Autowired
+	private EntityHierarchyCache entityHierarchyCache;
+	
 	private UserInfo testAdminUserInfo;
 	private UserInfo testUserInfo;
 	private String trashCanId;
@@ -675,6 +679,31 @@ public class TrashManagerImplAutowiredTest {
 		inspectUsersTrashCan(testUserInfo, 0);
 	}
 	
+	/**
+	 * Moving a hierarchy to the trash deletes the ACLs of the children without a
+	 * change message for the children. The benefactor of a child that was
+	 * already cached must still change.
+	 */
+	@Test
+	public void testMoveToTrashChildWithAclBenefactor() throws Exception {
+		Node parent = createNode("TrashManagerImplAutowiredTest.testMoveToTrashChildWithAclBenefactor() Parent", EntityType.project, null);
+		Node folder = createNode("TrashManagerImplAutowiredTest.testMoveToTrashChildWithAclBenefactor() Folder", EntityType.folder, parent.getId());
+		Node child = createNode("TrashManagerImplAutowiredTest.testMoveToTrashChildWithAclBenefactor() Child", EntityType.folder, folder.getId());
+		AccessControlList acl = AccessControlListUtil.createACLToGrantEntityAdminAccess(child.getId(), testUserInfo, new Date());
+		entityPermissionsManager.overrideInheritance(acl, testUserInfo);
+
+		// start polling so the cache is used.
+		entityHierarchyCache.timerFired();
+		assertEquals(child.getId(), entityPermissionsManager.getPermissionBenefactor(child.getId(), testUserInfo));
+
+		trashManager.moveToTrash(testUserInfo, folder.getId(), false);
+
+		entityHierarchyCache.timerFired();
+		// call under test
+		assertEquals(trashCanId, entityPermissionsManager.getPermissionBenefactor(child.getId(), testUserInfo));
+		assertEquals(trashCanId, nodeDAO.getBenefactor(child.getId()));
+	}
+
 	@Test
 	public void testPurgeTrashDeepHierarchy_PLFM_5932() {
 		final Node root = new Node();
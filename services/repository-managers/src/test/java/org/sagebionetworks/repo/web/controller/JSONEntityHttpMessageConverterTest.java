@@ -1,5 +1,6 @@
 package org.sagebionetworks.repo.web.controller;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -9,8 +10,11 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
@@ -21,6 +25,10 @@ import org.sagebionetworks.repo.model.Entity;
 import org.sagebionetworks.repo.model.ErrorResponse;
 import org.sagebionetworks.repo.model.ExampleEntity;
 import org.sagebionetworks.repo.model.Project;
+import org.sagebionetworks.repo.model.table.QueryResult;
+import org.sagebionetworks.repo.model.table.QueryResultBundle;
+import org.sagebionetworks.repo.model.table.Row;
+import org.sagebionetworks.repo.model.table.RowSet;
 import org.sagebionetworks.schema.adapter.JSONEntity;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapter;
 import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
@@ -30,6 +38,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 
 import com.amazonaws.util.StringInputStream;
@@ -105,6 +114,70 @@ public class JSONEntityHttpMessageConverterTest {
 		assertEquals(project, results);
 	}
 	
+	@Test
+	public void testRoundTripWithNonAsciiCharacters() throws HttpMessageNotWritableException, IOException{
+		project.setName("f\u00fc-\u20ac-\u4e2d");
+		JSONEntityHttpMessageConverter converter = new JSONEntityHttpMessageConverter();
+		// Write it out.
+		converter.write(project, MediaType.APPLICATION_JSON, mockOutMessage);
+		
+		ByteArrayInputStream in  = new ByteArrayInputStream(outStream.toByteArray());
+		Mockito.when(mockInMessage.getBody()).thenReturn(in);
+		Mockito.when(mockHeaders.getContentType()).thenReturn(new MediaType("application","json", StandardCharsets.UTF_8));
+		// Make sure we can read it back
+		JSONEntity results = converter.read(Project.class, mockInMessage);
+		assertEquals(project, results);
+	}
+	
+	@Test
+	public void testRoundTripLargeQueryResultBundle() throws Exception{
+		QueryResultBundle bundle = createQueryResultBundle(5000, 10);
+		JSONEntityHttpMessageConverter converter = new JSONEntityHttpMessageConverter();
+		// Write it out.
+		converter.write(bundle, MediaType.APPLICATION_JSON, mockOutMessage);
+		// The streamed JSON must match the JSON string of the entity.
+		byte[] expected = EntityFactory.createJSONStringForEntity(bundle).getBytes(StandardCharsets.UTF_8);
+		assertArrayEquals(expected, outStream.toByteArray());
+		
+		ByteArrayInputStream in  = new ByteArrayInputStream(outStream.toByteArray());
+		Mockito.when(mockInMessage.getBody()).thenReturn(in);
+		// Make sure we can read it back
+		JSONEntity results = converter.read(QueryResultBundle.class, mockInMessage);
+		assertEquals(bundle, results);
+	}
+	
+	@Test
+	public void testWriteEntityToStream() throws Exception{
+		// call under test
+		long length = JSONEntityHttpMessageConverter.writeEntityToStream(project, outStream, null);
+		String json = new String(outStream.toByteArray(), StandardCharsets.UTF_8);
+		assertEquals(EntityFactory.createJSONStringForEntity(project), json);
+		assertEquals(outStream.size(), length);
+	}
+	
+	@Test
+	public void testReadJSONObject() throws Exception{
+		String json = EntityFactory.createJSONStringForEntity(project);
+		InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+		// call under test
+		JSONObject jsonObject = JSONEntityHttpMessageConverter.readJSONObject(in, null);
+		assertEquals(project, EntityFactory.createEntityFromJSONObject(jsonObject, Project.class));
+	}
+	
+	@Test (expected=IllegalArgumentException.class)
+	public void testReadJSONObjectNullStream() throws Exception{
+		// call under test
+		JSONEntityHttpMessageConverter.readJSONObject(null, null);
+	}
+	
+	@Test (expected=HttpMessageNotReadableException.class)
+	public void testReadMalformedJSON() throws Exception{
+		JSONEntityHttpMessageConverter converter = new JSONEntityHttpMessageConverter();
+		Mockito.when(mockInMessage.getBody()).thenReturn(new StringInputStream("{\"name\":"));
+		// call under test
+		converter.read(Project.class, mockInMessage);
+	}
+	
 	@Test
 	public void testErrorResponseRoundTripWithPlainTextMediaType() throws HttpMessageNotWritableException, IOException{
 		JSONEntityHttpMessageConverter converter = new JSONEntityHttpMessageConverter();
@@ -222,4 +295,33 @@ public class JSONEntityHttpMessageConverterTest {
 		}
 	}
 	
+	/**
+	 * Create a bundle with a page of query results of the given size.
+	 */
+	private static QueryResultBundle createQueryResultBundle(int rowCount, int columnCount) {
+		List<Row> rows = new ArrayList<>(rowCount);
+		for (int i = 0; i < rowCount; i++) {
+			Row row = new Row();
+			row.setRowId((long) i);
+			row.setVersionNumber(1L);
+			row.setEtag("etag-" + i);
+			List<String> values = new ArrayList<>(columnCount);
+			for (int j = 0; j < columnCount; j++) {
+				values.add("value-" + i + "-" + j);
+			}
+			row.setValues(values);
+			rows.add(row);
+		}
+		RowSet rowSet = new RowSet();
+		rowSet.setTableId("syn123");
+		rowSet.setEtag("etag");
+		rowSet.setRows(rows);
+		QueryResult queryResult = new QueryResult();
+		queryResult.setQueryResults(rowSet);
+		QueryResultBundle bundle = new QueryResultBundle();
+		bundle.setQueryResult(queryResult);
+		bundle.setQueryCount((long) rowCount);
+		return bundle;
+	}
+	
 }
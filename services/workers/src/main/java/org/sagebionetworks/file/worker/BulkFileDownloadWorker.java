@@ -2,8 +2,15 @@ package org.sagebionetworks.file.worker;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import java.util.zip.ZipOutputStream;
 
@@ -11,12 +18,14 @@ import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
+import org.sagebionetworks.file.worker.PrefetchingFileDownloader.DownloadedFile;
 import org.sagebionetworks.repo.manager.UserManager;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobUtils;
 import org.sagebionetworks.repo.manager.events.EventsCollector;
 import org.sagebionetworks.repo.manager.file.FileHandleAssociationAuthorizationStatus;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.manager.statistics.StatisticsFileEvent;
 import org.sagebionetworks.repo.manager.statistics.StatisticsFileEventUtils;
 import org.sagebionetworks.repo.model.UserInfo;
@@ -27,6 +36,7 @@ import org.sagebionetworks.repo.model.file.FileConstants;
 import org.sagebionetworks.repo.model.file.FileDownloadCode;
 import org.sagebionetworks.repo.model.file.FileDownloadStatus;
 import org.sagebionetworks.repo.model.file.FileDownloadSummary;
+import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.file.ZipFileFormat;
 import org.sagebionetworks.repo.web.NotFoundException;
@@ -59,6 +69,28 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 
 	public static final String FILE_ALREADY_ADDED = "File already added.";
 
+	public static final String ONLY_S3_FILE_HANDLES_CAN_BE_DOWNLOADED = "Only S3FileHandles can be downloaded.";
+
+	public static final String FILE_HANDLE_DOES_NOT_EXIST = "FileHandle does not exist: ";
+
+	/**
+	 * The maximum number of files downloaded ahead of the file being written to
+	 * the zip.
+	 */
+	public static final int MAX_FILES_IN_FLIGHT = 10;
+
+	/**
+	 * No more files are downloaded ahead while the files being downloaded are
+	 * over this size.
+	 */
+	public static final long MAX_BYTES_IN_FLIGHT = 200L * 1024L * 1024L;
+
+	/**
+	 * Files up to this size are downloaded into memory rather than to a
+	 * temporary file.
+	 */
+	public static final long MAX_IN_MEMORY_FILE_BYTES = 5L * 1024L * 1024L;
+
 	static private Logger log = LogManager
 			.getLogger(BulkFileDownloadWorker.class);
 
@@ -70,6 +102,20 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 	FileHandleSupport fileHandleSupport; 
 	@Autowired
 	EventsCollector statisticsCollector;
+	@Autowired
+	ExecutorService bulkFileDownloadExecutorService;
+
+	private boolean streamingEnabled = false;
+
+	/**
+	 * When enabled the zip is streamed directly to S3 as it is built rather than
+	 * written to a local file first.
+	 * 
+	 * @param streamingEnabled
+	 */
+	public void setStreamingEnabled(Boolean streamingEnabled) {
+		this.streamingEnabled = Boolean.TRUE.equals(streamingEnabled);
+	}
 
 	@Override
 	public void run(ProgressCallback progressCallback, Message message)
@@ -105,6 +151,9 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 			final ProgressCallback progressCallback,
 			final Message message, AsynchronousJobStatus status,
 			BulkFileDownloadRequest request) throws IOException {
+		if (streamingEnabled) {
+			return buildZipStreaming(status, request);
+		}
 		// The generated zip will be written to this temp file.
 		File tempResultFile = fileHandleSupport.createTempFile("Job"
 				+ status.getJobId(), ".zip");
@@ -123,7 +172,7 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 			// Track the files added to the zip.
 			Set<String> fileIdsInZip = Sets.newHashSet();
 			// Build the zip
-			List<FileDownloadSummary> results = addFilesToZip(authResults, tempResultFile, zipOut, status, fileIdsInZip, zipEntryNameProvider);
+			List<FileDownloadSummary> results = addFilesToZip(authResults, tempResultFile::length, zipOut, status, fileIdsInZip, zipEntryNameProvider);
 			
 			IOUtils.closeQuietly(zipOut);
 			// Is there at least one file in the zip?
@@ -140,16 +189,7 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 								}));
 				resultFileHandleId = resultHandle.getId();
 			}
-			
-			collectDownloadStatistics(user.getId(), results);
-
-			// All of the parts are ready.
-			BulkFileDownloadResponse response = new BulkFileDownloadResponse();
-			response.setFileSummary(results);
-			// added for PLFM-3629
-			response.setUserId(""+user.getId());
-			response.setResultZipFileHandleId(resultFileHandleId);
-			return response;
+			return createResponse(user, results, resultFileHandleId);
 		} finally {
 			IOUtils.closeQuietly(zipOut);
 			tempResultFile.delete();
@@ -157,62 +197,215 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 	}
 
 	/**
+	 * Build the result zip for each authorized file, streaming the zip to S3 as
+	 * it is built. The upload of each part of the zip overlaps with the building
+	 * of the next part, and no local disk is used for the zip.
+	 * 
+	 * @param status
+	 * @param request
+	 * @return
+	 * @throws IOException
+	 */
+	BulkFileDownloadResponse buildZipStreaming(AsynchronousJobStatus status, BulkFileDownloadRequest request)
+			throws IOException {
+		UserInfo user = userManger.getUserInfo(status.getStartedByUserId());
+		// The authorization check is normalized around the associated object.
+		List<FileHandleAssociationAuthorizationStatus> authResults = fileHandleSupport.canDownLoadFile(user,
+				request.getRequestedFiles());
+		ZipEntryNameProvider zipEntryNameProvider = createZipEntryNameProvider(request.getZipFileFormat());
+		String fileName = request.getZipFileName();
+		if (fileName == null) {
+			fileName = "Job" + status.getJobId() + ".zip";
+		}
+		StreamingFileUpload upload = fileHandleSupport.startStreamingUpload(new LocalFileUploadRequest()
+				.withFileName(fileName).withUserId(user.getId().toString()).withContentType(APPLICATION_ZIP));
+		ZipOutputStream zipOut = new ZipOutputStream(upload);
+		try {
+			// Track the files added to the zip.
+			Set<String> fileIdsInZip = Sets.newHashSet();
+			// Build the zip
+			List<FileDownloadSummary> results = addFilesToZip(authResults, upload::getBytesWritten, zipOut, status,
+					fileIdsInZip, zipEntryNameProvider);
+			// Is there at least one file in the zip?
+			String resultFileHandleId = null;
+			if (fileIdsInZip.size() > 0) {
+				zipOut.finish();
+				// upload the last part and create the file handle.
+				resultFileHandleId = upload.complete().getId();
+			}
+			return createResponse(user, results, resultFileHandleId);
+		} finally {
+			// does nothing if the upload is complete.
+			upload.abort();
+			IOUtils.closeQuietly(zipOut);
+		}
+	}
+
+	/**
+	 * Create the response for a built zip.
+	 * 
+	 * @param user
+	 * @param results
+	 * @param resultFileHandleId
+	 * @return
+	 */
+	private BulkFileDownloadResponse createResponse(UserInfo user, List<FileDownloadSummary> results,
+			String resultFileHandleId) {
+		collectDownloadStatistics(user.getId(), results);
+
+		// All of the parts are ready.
+		BulkFileDownloadResponse response = new BulkFileDownloadResponse();
+		response.setFileSummary(results);
+		// added for PLFM-3629
+		response.setUserId(""+user.getId());
+		response.setResultZipFileHandleId(resultFileHandleId);
+		return response;
+	}
+
+	/**
+	 * Add each authorized file to the zip in request order. The FileHandles are
+	 * looked up in a single batch and the files are downloaded ahead of the file
+	 * being written to the zip.
 	 * 
 	 * @param progressCallback
 	 * @param message
 	 * @param authResults
-	 * @param tempResultFile
+	 * @param zipFileSize Provides the current size of the zip.
 	 * @param zipOut
 	 */
 	public List<FileDownloadSummary> addFilesToZip(
 			List<FileHandleAssociationAuthorizationStatus> authResults,
-			File tempResultFile, ZipOutputStream zipOut,
+			LongSupplier zipFileSize, ZipOutputStream zipOut,
 			AsynchronousJobStatus status,
 			Set<String> fileIdsInZip, ZipEntryNameProvider zipEntryNameProvider) {
 		long currentProgress = 0L;
 		final long totalProgress = (long) authResults.size();
 		// This will be the final summary of results..
 		List<FileDownloadSummary> fileSummaries = Lists.newLinkedList();
-		// process each request in order.
-		for (FileHandleAssociationAuthorizationStatus fhas : authResults) {
-			String fileHandleId = fhas.getAssociation().getFileHandleId();
-			// update the job progress
-			asynchJobStatusManager.updateJobProgress(status.getJobId(),
-					currentProgress, totalProgress, PROCESSING_FILE_HANDLE_ID
-							+ fhas.getAssociation().getFileHandleId());
-			FileDownloadSummary summary = new FileDownloadSummary();
-			summary.setFileHandleId(fileHandleId);
-			summary.setAssociateObjectId(fhas.getAssociation().getAssociateObjectId());
-			summary.setAssociateObjectType(fhas.getAssociation().getAssociateObjectType());
-			fileSummaries.add(summary);
-			try {
-				String zipEntryName = writeOneFileToZip(zipOut, tempResultFile.length(), fhas, fileIdsInZip, zipEntryNameProvider);
-				// download this file from S3
-				fileIdsInZip.add(fileHandleId);
-				summary.setStatus(FileDownloadStatus.SUCCESS);
-				summary.setZipEntryName(zipEntryName);
-			} catch (BulkFileException e) {
-				// known error conditions.
-				summary.setStatus(FileDownloadStatus.FAILURE);
-				summary.setFailureMessage(e.getMessage());
-				summary.setFailureCode(e.getFailureCode());
-			} catch (NotFoundException e) {
-				// file did not exist
-				summary.setStatus(FileDownloadStatus.FAILURE);
-				summary.setFailureMessage(e.getMessage());
-				summary.setFailureCode(FileDownloadCode.NOT_FOUND);
-			} catch (Exception e) {
-				// all unknown errors.
-				summary.setStatus(FileDownloadStatus.FAILURE);
-				summary.setFailureMessage(e.getMessage());
-				summary.setFailureCode(FileDownloadCode.UNKNOWN_ERROR);
-				log.error("Failed on: " + fhas.getAssociation(), e);
+		Map<String, FileHandle> fileHandles = getAuthorizedFileHandles(authResults);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(fileHandleSupport,
+				bulkFileDownloadExecutorService, selectFilesToDownload(authResults, fileHandles), MAX_FILES_IN_FLIGHT,
+				MAX_BYTES_IN_FLIGHT, MAX_IN_MEMORY_FILE_BYTES);
+		try {
+			// process each request in order.
+			for (FileHandleAssociationAuthorizationStatus fhas : authResults) {
+				String fileHandleId = fhas.getAssociation().getFileHandleId();
+				// update the job progress
+				asynchJobStatusManager.updateJobProgress(status.getJobId(),
+						currentProgress, totalProgress, PROCESSING_FILE_HANDLE_ID
+								+ fhas.getAssociation().getFileHandleId());
+				FileDownloadSummary summary = new FileDownloadSummary();
+				summary.setFileHandleId(fileHandleId);
+				summary.setAssociateObjectId(fhas.getAssociation().getAssociateObjectId());
+				summary.setAssociateObjectType(fhas.getAssociation().getAssociateObjectType());
+				fileSummaries.add(summary);
+				try {
+					String zipEntryName = writeOneFileToZip(zipOut, zipFileSize.getAsLong(), fhas, fileIdsInZip,
+							zipEntryNameProvider, fileHandles, downloader);
+					// download this file from S3
+					fileIdsInZip.add(fileHandleId);
+					summary.setStatus(FileDownloadStatus.SUCCESS);
+					summary.setZipEntryName(zipEntryName);
+				} catch (BulkFileException e) {
+					// known error conditions.
+					summary.setStatus(FileDownloadStatus.FAILURE);
+					summary.setFailureMessage(e.getMessage());
+					summary.setFailureCode(e.getFailureCode());
+				} catch (NotFoundException e) {
+					// file did not exist
+					summary.setStatus(FileDownloadStatus.FAILURE);
+					summary.setFailureMessage(e.getMessage());
+					summary.setFailureCode(FileDownloadCode.NOT_FOUND);
+				} catch (Exception e) {
+					// all unknown errors.
+					summary.setStatus(FileDownloadStatus.FAILURE);
+					summary.setFailureMessage(e.getMessage());
+					summary.setFailureCode(FileDownloadCode.UNKNOWN_ERROR);
+					log.error("Failed on: " + fhas.getAssociation(), e);
+				}
+				currentProgress++;
 			}
-			currentProgress++;
+		} finally {
+			// stop any download that was not used.
+			downloader.cancel();
 		}
 		return fileSummaries;
 	}
 
+	/**
+	 * Lookup the FileHandles of all authorized files in a single batch.
+	 * 
+	 * @param authResults
+	 * @return FileHandle.id to FileHandle
+	 */
+	Map<String, FileHandle> getAuthorizedFileHandles(List<FileHandleAssociationAuthorizationStatus> authResults) {
+		Set<String> fileHandleIds = new LinkedHashSet<>();
+		for (FileHandleAssociationAuthorizationStatus fhas : authResults) {
+			if (fhas.getStatus().isAuthorized()) {
+				fileHandleIds.add(fhas.getAssociation().getFileHandleId());
+			}
+		}
+		if (fileHandleIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return fileHandleSupport.getFileHandles(fileHandleIds);
+	}
+
+	/**
+	 * Select the files that are expected to be added to the zip in request
+	 * order. Each file is only selected once, and files that will be rejected
+	 * before they are downloaded are not selected.
+	 * 
+	 * @param authResults
+	 * @param fileHandles
+	 * @return
+	 */
+	static List<S3FileHandle> selectFilesToDownload(List<FileHandleAssociationAuthorizationStatus> authResults,
+			Map<String, FileHandle> fileHandles) {
+		Set<String> selectedIds = new HashSet<>();
+		List<S3FileHandle> toDownload = new LinkedList<>();
+		for (FileHandleAssociationAuthorizationStatus fhas : authResults) {
+			if (!fhas.getStatus().isAuthorized()) {
+				continue;
+			}
+			FileHandle handle = fileHandles.get(fhas.getAssociation().getFileHandleId());
+			if (!(handle instanceof S3FileHandle)) {
+				continue;
+			}
+			S3FileHandle s3Handle = (S3FileHandle) handle;
+			if (s3Handle.getContentSize() == null
+					|| s3Handle.getContentSize() > FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES) {
+				continue;
+			}
+			if (selectedIds.add(s3Handle.getId())) {
+				toDownload.add(s3Handle);
+			}
+		}
+		return toDownload;
+	}
+
+	/**
+	 * Get the S3FileHandle for the given FileHandle.id from the looked up
+	 * FileHandles.
+	 * 
+	 * @param fileHandles
+	 * @param fileHandleId
+	 * @return
+	 * @throws NotFoundException        If the FileHandle does not exist.
+	 * @throws IllegalArgumentException If the FileHandle is not an
+	 *                                  S3FileHandle.
+	 */
+	static S3FileHandle getS3FileHandle(Map<String, FileHandle> fileHandles, String fileHandleId) {
+		FileHandle handle = fileHandles.get(fileHandleId);
+		if (handle == null) {
+			throw new NotFoundException(FILE_HANDLE_DOES_NOT_EXIST + fileHandleId);
+		}
+		if (!(handle instanceof S3FileHandle)) {
+			throw new IllegalArgumentException(ONLY_S3_FILE_HANDLES_CAN_BE_DOWNLOADED);
+		}
+		return (S3FileHandle) handle;
+	}
+
 	/**
 	 * Write a single file to the given zip stream.
 	 * 
@@ -220,12 +413,15 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 	 * @param zipFileSize
 	 * @param fhas
 	 * @param fileIdsInZip
+	 * @param fileHandles The FileHandles of the authorized files.
+	 * @param downloader Provides the contents of each file.
 	 * @throws IOException
 	 * @return The zip entry name used for this file.
 	 */
 	public String writeOneFileToZip(ZipOutputStream zipOut, long zipFileSize,
 			FileHandleAssociationAuthorizationStatus fhas,
-			Set<String> fileIdsInZip, ZipEntryNameProvider zipEntryNameProvider) throws IOException {
+			Set<String> fileIdsInZip, ZipEntryNameProvider zipEntryNameProvider,
+			Map<String, FileHandle> fileHandles, PrefetchingFileDownloader downloader) throws IOException {
 		String fileHandleId = fhas.getAssociation().getFileHandleId();
 		// Is the user authorized to download this file?
 		if (!fhas.getStatus().isAuthorized()) {
@@ -244,23 +440,23 @@ public class BulkFileDownloadWorker implements MessageDrivenRunner {
 					FileDownloadCode.EXCEEDS_SIZE_LIMIT);
 		}
 		// Get this filehandle.
-		S3FileHandle s3Handle = fileHandleSupport.getS3FileHandle(fileHandleId);
+		S3FileHandle s3Handle = getS3FileHandle(fileHandles, fileHandleId);
 		// Each file must be under the max.s
 		if (s3Handle.getContentSize() > FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES) {
 			throw new BulkFileException(FILE_EXCEEDS_THE_MAXIMUM_SIZE_LIMIT,
 					FileDownloadCode.EXCEEDS_SIZE_LIMIT);
 		}
-		// This file will be downloaded to this temp.
-		File downloadTemp = fileHandleSupport.downloadToTempFile(s3Handle);
+		// This file is usually already downloaded.
+		DownloadedFile downloaded = downloader.take(s3Handle);
 		try {
 			// The entry name is the path plus file name.
 			String zipEntryName = zipEntryNameProvider.createZipEntryName(s3Handle.getFileName(),
 					Long.parseLong(s3Handle.getId()));
 			// write the file to the zip.
-			fileHandleSupport.addFileToZip(zipOut, downloadTemp, zipEntryName);
+			downloaded.addToZip(fileHandleSupport, zipOut, zipEntryName);
 			return zipEntryName;
 		} finally {
-			downloadTemp.delete();
+			downloaded.delete();
 		}
 	}
 	
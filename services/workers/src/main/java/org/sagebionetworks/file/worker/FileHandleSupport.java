@@ -3,11 +3,14 @@ package org.sagebionetworks.file.worker;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipOutputStream;
 
 import org.sagebionetworks.repo.manager.file.FileHandleAssociationAuthorizationStatus;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.model.UserInfo;
+import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.file.FileHandleAssociateType;
 import org.sagebionetworks.repo.model.file.FileHandleAssociation;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
@@ -60,13 +63,21 @@ public interface FileHandleSupport {
 	S3FileHandle multipartUploadLocalFile(LocalFileUploadRequest request);
 	
 	/**
-	 * Get the S3FileHandle for the given FileHandle.id.
+	 * Start an upload of data streamed directly to S3 without a local file.
 	 * 
-	 * @param fileHandleId
+	 * @param request
 	 * @return
-	 * @throws IllegalArgumentException If the requested FileHandle is not an S3FileHandle.
 	 */
-	S3FileHandle getS3FileHandle(String fileHandleId);
+	StreamingFileUpload startStreamingUpload(LocalFileUploadRequest request);
+	
+	/**
+	 * Get the FileHandles for the given FileHandle.ids in a single batch. Any
+	 * FileHandle that does not exist will be missing from the result.
+	 * 
+	 * @param fileHandleIds
+	 * @return FileHandle.id to FileHandle
+	 */
+	Map<String, FileHandle> getFileHandles(Iterable<String> fileHandleIds);
 	
 	/**
 	 * Download the given FileHandle to the a local file.
@@ -76,6 +87,14 @@ public interface FileHandleSupport {
 	 */
 	public File downloadToTempFile(S3FileHandle fileHandle) throws IOException;
 	
+	/**
+	 * Download the given FileHandle into memory. Only use for small files.
+	 * @param fileHandle
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] downloadToMemory(S3FileHandle fileHandle) throws IOException;
+	
 	/**
 	 * Add the given file to 
 	 * @param zipOut
@@ -85,5 +104,14 @@ public interface FileHandleSupport {
 	 */
 	public void addFileToZip(ZipOutputStream zipOut, File toAdd, String entryName) throws IOException;
 	
+	/**
+	 * Add the given bytes to the zip as a new entry.
+	 * @param zipOut
+	 * @param toAdd
+	 * @param entryName
+	 * @throws IOException
+	 */
+	public void addBytesToZip(ZipOutputStream zipOut, byte[] toAdd, String entryName) throws IOException;
+	
 	
 }
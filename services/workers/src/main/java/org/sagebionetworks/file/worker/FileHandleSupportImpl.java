@@ -6,6 +6,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -15,6 +16,7 @@ import org.sagebionetworks.repo.manager.file.FileHandleAssociationAuthorizationS
 import org.sagebionetworks.repo.manager.file.FileHandleAuthorizationManager;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.dao.FileHandleDao;
 import org.sagebionetworks.repo.model.file.FileHandle;
@@ -23,11 +25,10 @@ import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 
 public class FileHandleSupportImpl implements FileHandleSupport {
 	
-	private static final String ONLY_S3_FILE_HANDLES_CAN_BE_DOWNLOADED = "Only S3FileHandles can be downloaded.";
-	
 	@Autowired
 	FileHandleDao fileHandleDao;
 	@Autowired
@@ -70,18 +71,14 @@ public class FileHandleSupportImpl implements FileHandleSupport {
 		return fileHandleManager.uploadLocalFile(request);
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * @see org.sagebionetworks.file.worker.BulkDownloadDao#getS3FileHandle(java.lang.String)
-	 */
 	@Override
-	public S3FileHandle getS3FileHandle(String fileHandleId) {
-		FileHandle handle = fileHandleDao.get(fileHandleId);
-		if (!(handle instanceof S3FileHandle)) {
-			throw new IllegalArgumentException(
-					ONLY_S3_FILE_HANDLES_CAN_BE_DOWNLOADED);
-		}
-		return (S3FileHandle) handle;
+	public StreamingFileUpload startStreamingUpload(LocalFileUploadRequest request) {
+		return fileHandleManager.startStreamingUpload(request);
+	}
+
+	@Override
+	public Map<String, FileHandle> getFileHandles(Iterable<String> fileHandleIds) {
+		return fileHandleDao.getAllFileHandlesBatch(fileHandleIds);
 	}
 
 	/*
@@ -97,6 +94,14 @@ public class FileHandleSupportImpl implements FileHandleSupport {
 		return tempFile;
 	}
 
+	@Override
+	public byte[] downloadToMemory(S3FileHandle fileHandle) throws IOException {
+		S3Object object = s3client.getObject(fileHandle.getBucketName(), fileHandle.getKey());
+		try (InputStream in = object.getObjectContent()) {
+			return IOUtils.toByteArray(in);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.sagebionetworks.file.worker.BulkDownloadDao#addFileToZip(java.util.zip.ZipOutputStream, java.io.File, java.lang.String)
@@ -115,4 +120,12 @@ public class FileHandleSupportImpl implements FileHandleSupport {
 		}
 	}
 
+	@Override
+	public void addBytesToZip(ZipOutputStream zipOut, byte[] toAdd, String zipEntryName) throws IOException {
+		ZipEntry entry = new ZipEntry(zipEntryName);
+		zipOut.putNextEntry(entry);
+		zipOut.write(toAdd);
+		zipOut.closeEntry();
+	}
+
 }
@@ -0,0 +1,289 @@
+package org.sagebionetworks.file.worker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipOutputStream;
+
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * Downloads the files of a bulk download ahead of the file that is currently
+ * being written to the zip, so the downloads of the next files overlap with
+ * each other and with the zip writes.
+ * <p>
+ * The files are downloaded in the given order. At most maxFilesInFlight
+ * downloads are started ahead of the caller, and no more are started while
+ * the total size of the started downloads is over maxBytesInFlight (the first
+ * download is always started). Files no larger than maxInMemoryBytes are
+ * downloaded into memory, all other files are downloaded to a temporary file.
+ * <p>
+ * Callers must {@link #cancel()} the downloader when done to stop the
+ * downloads that were not taken and delete their temporary files. This class
+ * is not thread safe.
+ *
+ */
+public class PrefetchingFileDownloader {
+
+	private final FileHandleSupport fileHandleSupport;
+	private final ExecutorService executor;
+	private final int maxFilesInFlight;
+	private final long maxBytesInFlight;
+	private final long maxInMemoryBytes;
+	// Files that have not been started in download order.
+	private final LinkedList<S3FileHandle> pending;
+	// Downloads that have been started but not taken, keyed by file handle id.
+	private final LinkedHashMap<String, Future<DownloadedFile>> started;
+	private long bytesInFlight;
+	// Temporary files downloaded but not taken. Guarded by this.
+	private final Set<File> unclaimedFiles;
+	private boolean cancelled;
+
+	/**
+	 *
+	 * @param fileHandleSupport
+	 * @param executor          Used to download the files.
+	 * @param toDownload        The files to download in the order they will be
+	 *                          taken.
+	 * @param maxFilesInFlight  The maximum number of downloads started ahead of
+	 *                          the caller.
+	 * @param maxBytesInFlight  The total size of the started downloads above
+	 *                          which no more downloads are started.
+	 * @param maxInMemoryBytes  Files up to this size are downloaded into memory
+	 *                          rather than to a temporary file.
+	 */
+	public PrefetchingFileDownloader(FileHandleSupport fileHandleSupport, ExecutorService executor,
+			List<S3FileHandle> toDownload, int maxFilesInFlight, long maxBytesInFlight, long maxInMemoryBytes) {
+		ValidateArgument.required(fileHandleSupport, "fileHandleSupport");
+		ValidateArgument.required(executor, "executor");
+		ValidateArgument.required(toDownload, "toDownload");
+		ValidateArgument.requirement(maxFilesInFlight > 0, "maxFilesInFlight must be greater than zero");
+		ValidateArgument.requirement(maxBytesInFlight > 0, "maxBytesInFlight must be greater than zero");
+		this.fileHandleSupport = fileHandleSupport;
+		this.executor = executor;
+		this.maxFilesInFlight = maxFilesInFlight;
+		this.maxBytesInFlight = maxBytesInFlight;
+		this.maxInMemoryBytes = maxInMemoryBytes;
+		this.pending = new LinkedList<>(toDownload);
+		this.started = new LinkedHashMap<>();
+		this.bytesInFlight = 0L;
+		this.unclaimedFiles = new HashSet<>();
+		this.cancelled = false;
+		startDownloads();
+	}
+
+	/**
+	 * Wait for the given file to be downloaded. A file that was not in the
+	 * download list, or was already taken, is downloaded again on the caller's
+	 * thread. The caller must {@link DownloadedFile#delete()} the result.
+	 *
+	 * @param fileHandle
+	 * @return
+	 * @throws IOException
+	 */
+	public DownloadedFile take(S3FileHandle fileHandle) throws IOException {
+		ValidateArgument.required(fileHandle, "fileHandle");
+		if (cancelled) {
+			throw new IllegalStateException("The downloader has been cancelled");
+		}
+		Future<DownloadedFile> future = started.remove(fileHandle.getId());
+		if (future == null) {
+			removePending(fileHandle.getId());
+			// start the following downloads before this one.
+			startDownloads();
+			return claim(download(fileHandle));
+		}
+		bytesInFlight -= getSize(fileHandle);
+		// start the following downloads while waiting for this one.
+		startDownloads();
+		return claim(waitForDownload(future));
+	}
+
+	/**
+	 * Stop all of the downloads that have not been taken and delete their
+	 * temporary files.
+	 */
+	public void cancel() {
+		synchronized (this) {
+			cancelled = true;
+			for (File file : unclaimedFiles) {
+				file.delete();
+			}
+			unclaimedFiles.clear();
+		}
+		for (Future<DownloadedFile> future : started.values()) {
+			future.cancel(true);
+		}
+		started.clear();
+		pending.clear();
+		bytesInFlight = 0L;
+	}
+
+	/**
+	 * Start downloads from the pending list until the number or the size of the
+	 * started downloads reaches its limit.
+	 */
+	void startDownloads() {
+		while (!pending.isEmpty() && started.size() < maxFilesInFlight
+				&& (started.isEmpty() || bytesInFlight + getSize(pending.getFirst()) <= maxBytesInFlight)) {
+			S3FileHandle fileHandle = pending.removeFirst();
+			if (started.containsKey(fileHandle.getId())) {
+				// Each file is only downloaded once.
+				continue;
+			}
+			bytesInFlight += getSize(fileHandle);
+			started.put(fileHandle.getId(), executor.submit(() -> {
+				return register(download(fileHandle));
+			}));
+		}
+	}
+
+	/**
+	 * Download a single file into memory or to a temporary file depending on its
+	 * size.
+	 *
+	 * @param fileHandle
+	 * @return
+	 * @throws IOException
+	 */
+	DownloadedFile download(S3FileHandle fileHandle) throws IOException {
+		Long contentSize = fileHandle.getContentSize();
+		if (contentSize != null && contentSize <= maxInMemoryBytes) {
+			return new DownloadedFile(fileHandleSupport.downloadToMemory(fileHandle), null);
+		}
+		return new DownloadedFile(null, fileHandleSupport.downloadToTempFile(fileHandle));
+	}
+
+	/**
+	 * Track the temporary file of a background download until it is taken, or
+	 * delete it if the downloader was cancelled while it was downloading.
+	 *
+	 * @param downloaded
+	 * @return
+	 */
+	private synchronized DownloadedFile register(DownloadedFile downloaded) {
+		if (downloaded.file != null) {
+			if (cancelled) {
+				downloaded.delete();
+			} else {
+				unclaimedFiles.add(downloaded.file);
+			}
+		}
+		return downloaded;
+	}
+
+	private synchronized DownloadedFile claim(DownloadedFile downloaded) {
+		if (downloaded.file != null) {
+			unclaimedFiles.remove(downloaded.file);
+		}
+		return downloaded;
+	}
+
+	private void removePending(String fileHandleId) {
+		Iterator<S3FileHandle> iterator = pending.iterator();
+		while (iterator.hasNext()) {
+			if (fileHandleId.equals(iterator.next().getId())) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * The number of downloads that have been started but not taken.
+	 *
+	 * @return
+	 */
+	int getStartedCount() {
+		return started.size();
+	}
+
+	/**
+	 * The total size of the downloads that have been started but not taken.
+	 *
+	 * @return
+	 */
+	long getBytesInFlight() {
+		return bytesInFlight;
+	}
+
+	private static long getSize(S3FileHandle fileHandle) {
+		Long contentSize = fileHandle.getContentSize();
+		return contentSize == null ? 0L : contentSize;
+	}
+
+	private static DownloadedFile waitForDownload(Future<DownloadedFile> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * The contents of a downloaded file, either in memory or in a temporary file.
+	 *
+	 */
+	public static class DownloadedFile {
+
+		private final byte[] bytes;
+		private final File file;
+
+		DownloadedFile(byte[] bytes, File file) {
+			this.bytes = bytes;
+			this.file = file;
+		}
+
+		/**
+		 * Write this file to the given zip as a new entry.
+		 *
+		 * @param fileHandleSupport
+		 * @param zipOut
+		 * @param zipEntryName
+		 * @throws IOException
+		 */
+		public void addToZip(FileHandleSupport fileHandleSupport, ZipOutputStream zipOut, String zipEntryName)
+				throws IOException {
+			if (file != null) {
+				fileHandleSupport.addFileToZip(zipOut, file, zipEntryName);
+			} else {
+				fileHandleSupport.addBytesToZip(zipOut, bytes, zipEntryName);
+			}
+		}
+
+		/**
+		 * Delete the temporary file if there is one.
+		 */
+		public void delete() {
+			if (file != null) {
+				file.delete();
+			}
+		}
+
+		byte[] getBytes() {
+			return bytes;
+		}
+
+		File getFile() {
+			return file;
+		}
+	}
+}
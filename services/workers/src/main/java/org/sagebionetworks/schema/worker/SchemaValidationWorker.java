@@ -3,6 +3,7 @@ package org.sagebionetworks.schema.worker;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.sagebionetworks.asynchronous.workers.changes.BatchChangeMessageDrivenRunner;
 import org.sagebionetworks.cloudwatch.WorkerLogger;
@@ -32,12 +33,24 @@ public class SchemaValidationWorker implements BatchChangeMessageDrivenRunner {
 	public void run(ProgressCallback progressCallback, List<ChangeMessage> messages)
 			throws RecoverableMessageException, Exception {
 		ValidateArgument.required(messages, "messages");
-		messages.stream().filter(c -> validators.containsKey(c.getObjectType())).forEach(c -> {
+		Map<ObjectType, List<ChangeMessage>> messagesByType = messages.stream()
+				.filter(c -> validators.containsKey(c.getObjectType()))
+				.collect(Collectors.groupingBy(ChangeMessage::getObjectType, LinkedHashMap::new, Collectors.toList()));
+		messagesByType.forEach((objectType, typeMessages) -> {
+			ObjectSchemaValidator validator = validators.get(objectType);
 			try {
-				validators.get(c.getObjectType()).validateObject(c.getObjectId());
-			} catch (Throwable e) {
-				boolean willRetry = false;
-				workerLogger.logWorkerFailure(SchemaValidationWorker.class, c, e, willRetry);
+				validator.validateObjects(
+						typeMessages.stream().map(ChangeMessage::getObjectId).collect(Collectors.toList()));
+			} catch (Throwable batchException) {
+				// Validate each object on its own so a single bad object does not block the rest.
+				typeMessages.forEach(c -> {
+					try {
+						validator.validateObject(c.getObjectId());
+					} catch (Throwable e) {
+						boolean willRetry = false;
+						workerLogger.logWorkerFailure(SchemaValidationWorker.class, c, e, willRetry);
+					}
+				});
 			}
 		});
 	}
@@ -1,5 +1,7 @@
 package org.sagebionetworks.table.worker;
 
+import java.util.function.LongSupplier;
+
 import org.sagebionetworks.common.util.progress.ProgressCallback;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.util.Clock;
@@ -29,9 +31,16 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 	Message originatingMessage;
 	AsynchJobStatusManager asynchJobStatusManager;
 	long currentProgress;
-	long totalProgress;
+	/**
+	 * Null if the total is not known.
+	 */
+	Long totalProgress;
 	String jobId;
 	Clock clock;
+	/**
+	 * Optional supplier of the number of bytes written so far.
+	 */
+	LongSupplier bytesWritten;
 	/**
 	 * The time of the last progress update.
 	 */
@@ -51,7 +60,7 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 	public ProgressingCSVWriterStream(CSVWriter writer,
 			ProgressCallback progressCallback, Message originatingMessage,
 			AsynchJobStatusManager asynchJobStatusManager,
-			long currentProgress, long totalProgress, String jobId, Clock clock) {
+			long currentProgress, Long totalProgress, String jobId, Clock clock) {
 		super();
 		this.writer = writer;
 		this.progressCallback = progressCallback;
@@ -64,6 +73,41 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 		this.lastUpdateTimeMS = clock.currentTimeMillis();
 	}
 
+	/**
+	 * 
+	 * @param writer
+	 * @param progressCallback
+	 * @param originatingMessage
+	 * @param asynchJobStatusManager
+	 * @param currentProgress
+	 * @param totalProgress
+	 * @param jobId
+	 * @param clock
+	 * @param bytesWritten
+	 *            Provides the number of bytes written so far, including any
+	 *            that are buffered and not yet uploaded, which is included in
+	 *            each progress message.
+	 */
+	public ProgressingCSVWriterStream(CSVWriter writer,
+			ProgressCallback progressCallback, Message originatingMessage,
+			AsynchJobStatusManager asynchJobStatusManager,
+			long currentProgress, Long totalProgress, String jobId, Clock clock, LongSupplier bytesWritten) {
+		this(writer, progressCallback, originatingMessage, asynchJobStatusManager, currentProgress, totalProgress, jobId, clock);
+		this.bytesWritten = bytesWritten;
+	}
+
+	/**
+	 * The progress message for the current state.
+	 * 
+	 * @return
+	 */
+	String getProgressMessage() {
+		if (bytesWritten == null) {
+			return BUILDING_THE_CSV;
+		}
+		return BUILDING_THE_CSV + " " + bytesWritten.getAsLong() + " bytes written";
+	}
+
 
 
 	@Override
@@ -72,7 +116,7 @@ public class ProgressingCSVWriterStream implements CSVWriterStream {
 		if(clock.currentTimeMillis() - lastUpdateTimeMS > UPDATE_FEQUENCY_MS){
 			// It is time to update the progress
 			// Update the status
-			asynchJobStatusManager.updateJobProgress(jobId, currentProgress, totalProgress, BUILDING_THE_CSV);
+			asynchJobStatusManager.updateJobProgress(jobId, currentProgress, totalProgress, getProgressMessage());
 			// reset the clock
 			this.lastUpdateTimeMS = clock.currentTimeMillis();
 		}
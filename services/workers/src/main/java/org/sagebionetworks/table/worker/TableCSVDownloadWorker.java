@@ -1,9 +1,12 @@
 package org.sagebionetworks.table.worker;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.common.util.progress.ProgressCallback;
@@ -12,11 +15,11 @@ import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobUtils;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.manager.table.TableQueryManager;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.dbo.dao.table.TableExceptionTranslator;
-import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.table.DownloadFromTableRequest;
 import org.sagebionetworks.repo.model.table.DownloadFromTableResult;
 import org.sagebionetworks.repo.model.table.QueryOptions;
@@ -36,8 +39,9 @@ import au.com.bytecode.opencsv.CSVWriter;
 import au.com.bytecode.opencsv.Constants;
 
 /**
- * This worker will stream the results of a table SQL query to a local CSV file and upload the file
- * to S3 as a FileHandle.
+ * This worker will stream the results of a table SQL query as CSV, optionally
+ * compressed with gzip, directly to S3 as a FileHandle. The data is uploaded in
+ * parts as it is written, so it is never written to a local file.
  * 
  * @author jmhill
  *
@@ -46,6 +50,9 @@ public class TableCSVDownloadWorker implements MessageDrivenRunner {
 
 	static private Logger log = LogManager.getLogger(TableCSVDownloadWorker.class);
 
+	public static final String APPLICATION_GZIP = "application/x-gzip";
+	public static final String GZIP_EXTENSION = "gz";
+
 	@Autowired
 	private AsynchJobStatusManager asynchJobStatusManager;
 	@Autowired
@@ -63,7 +70,7 @@ public class TableCSVDownloadWorker implements MessageDrivenRunner {
 	public void run(ProgressCallback progressCallback, Message message) throws Exception {
 		AsynchronousJobStatus status = asynchJobStatusManager.lookupJobStatus(message.getBody());
 		String fileName = "Job-"+status.getJobId();
-		File temp = null;
+		StreamingFileUpload upload = null;
 		CSVWriter writer = null;
 		try{
 			UserInfo user = userManger.getUserInfo(status.getStartedByUserId());
@@ -72,40 +79,34 @@ public class TableCSVDownloadWorker implements MessageDrivenRunner {
 			QueryOptions queryOptions = new QueryOptions().withRunQuery(false).withRunCount(true).withReturnFacets(false);
 			// Before we start determine how many rows there are.
 			QueryResultBundle queryResult = tableQueryManager.querySinglePage(progressCallback, user, request, queryOptions);
-			long rowCount = queryResult.getQueryCount();
-			// Since each row must first be read from the database then uploaded to S3
-			// The total amount of progress is two times the number of rows.
-			long totalProgress = rowCount*2;
+			// The count is left out if it does not complete in time, in which case the total progress is unknown.
+			Long rowCount = queryResult.getQueryCount();
+			// Each row is uploaded as it is read from the database.
+			Long totalProgress = rowCount;
 			long currentProgress = 0;
-			// The CSV data will first be written to this file.
-			temp = File.createTempFile(
-					fileName,
-					"."
-							+ CSVUtils.guessExtension(request.getCsvTableDescriptor() == null ? null : request.getCsvTableDescriptor()
-									.getSeparator()));
-			writer = createCSVWriter(new FileWriter(temp), request);
-			// this object will update the progress of both the job and refresh the timeout on the message as rows are read from the DB.
-			ProgressingCSVWriterStream stream = new ProgressingCSVWriterStream(writer, progressCallback, message, asynchJobStatusManager, currentProgress, totalProgress, status.getJobId(), clock);
-			// Execute the actual query and stream the results to the file.
-			DownloadFromTableResult result = null;
-			try{
-				result = tableQueryManager.runQueryDownloadAsStream(progressCallback, user, request, stream);
-			}finally{
-				writer.close();
+			String separator = request.getCsvTableDescriptor() == null ? null : request.getCsvTableDescriptor().getSeparator();
+			boolean compress = Boolean.TRUE.equals(request.getCompressResults());
+			fileName = fileName + "." + CSVUtils.guessExtension(separator);
+			String contentType = CSVUtils.guessContentType(separator);
+			if (compress) {
+				fileName = fileName + "." + GZIP_EXTENSION;
+				contentType = APPLICATION_GZIP;
 			}
-
-			// At this point we have the entire CSV written to a local file.
-			// Upload the file to S3 can create the filehandle.
-			long startProgress = totalProgress/2; // we are half done at this point
-			double bytesPerRow = rowCount == 0 ? 1 : temp.length() / rowCount;
-			// This will keep the progress updated as the file is uploaded.
-			UploadProgressListener uploadListener = new UploadProgressListener(progressCallback, message, startProgress, bytesPerRow, totalProgress, asynchJobStatusManager, status.getJobId());
-			String contentType = CSVUtils.guessContentType(request
-					.getCsvTableDescriptor() == null ? null : request.getCsvTableDescriptor().getSeparator());
-			S3FileHandle fileHandle = fileHandleManager.uploadLocalFile(new LocalFileUploadRequest().withUserId(user.getId().toString()).withFileToUpload(temp).withContentType(contentType).withListener(uploadListener));
-			result.setResultsFileHandleId(fileHandle.getId());
-			// Create the file
-			// Now upload the file as a filehandle
+			// The CSV data is uploaded to S3 in parts as it is written.
+			upload = fileHandleManager.startStreamingUpload(new LocalFileUploadRequest()
+					.withUserId(user.getId().toString()).withFileName(fileName).withContentType(contentType));
+			OutputStream out = compress ? new GZIPOutputStream(upload) : upload;
+			writer = createCSVWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), request);
+			// this object will update the progress of both the job and refresh the timeout on the message as rows are read from the DB.
+			ProgressingCSVWriterStream stream = new ProgressingCSVWriterStream(writer, progressCallback, message,
+					asynchJobStatusManager, currentProgress, totalProgress, status.getJobId(), clock,
+					upload::getBytesWritten);
+			// Execute the actual query and stream the results to S3.
+			DownloadFromTableResult result = tableQueryManager.runQueryDownloadAsStream(progressCallback, user, request, stream);
+			// Flushes the remaining data and finishes the gzip. Closing does not complete the upload.
+			writer.close();
+			// upload the last part and create the file handle.
+			result.setResultsFileHandleId(upload.complete().getId());
 			asynchJobStatusManager.setComplete(status.getJobId(), result);
 		}catch (TableUnavailableException | LockUnavilableException e){
 			// This just means we cannot do this right now.  We can try again later.
@@ -122,14 +123,11 @@ public class TableCSVDownloadWorker implements MessageDrivenRunner {
 			asynchJobStatusManager.setJobFailed(status.getJobId(), translatedException);
 			log.error("Worker Failed", e);
 		}finally{
-			if(writer != null){
-				try {
-					writer.close();
-				} catch (Exception e2) {}
-			}
-			if(temp != null){
-				temp.delete();
+			if(upload != null){
+				// does nothing if the upload is complete.
+				upload.abort();
 			}
+			IOUtils.closeQuietly(writer);
 		}
 	}
 	
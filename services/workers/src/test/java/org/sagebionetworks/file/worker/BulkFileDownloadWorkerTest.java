@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
@@ -16,7 +17,9 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
@@ -37,23 +40,27 @@ import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.repo.manager.events.EventsCollector;
 import org.sagebionetworks.repo.manager.file.FileHandleAssociationAuthorizationStatus;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.auth.AuthorizationStatus;
 import org.sagebionetworks.repo.model.file.BulkFileDownloadRequest;
 import org.sagebionetworks.repo.model.file.BulkFileDownloadResponse;
+import org.sagebionetworks.repo.model.file.ExternalFileHandle;
 import org.sagebionetworks.repo.model.file.FileConstants;
 import org.sagebionetworks.repo.model.file.FileDownloadCode;
 import org.sagebionetworks.repo.model.file.FileDownloadStatus;
 import org.sagebionetworks.repo.model.file.FileDownloadSummary;
+import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.file.FileHandleAssociateType;
 import org.sagebionetworks.repo.model.file.FileHandleAssociation;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.sagebionetworks.repo.model.file.ZipFileFormat;
-import org.sagebionetworks.repo.web.NotFoundException;
 
 import com.amazonaws.services.sqs.model.Message;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 @RunWith(MockitoJUnitRunner.class)
 public class BulkFileDownloadWorkerTest {
 
@@ -67,6 +74,8 @@ public class BulkFileDownloadWorkerTest {
 	ProgressCallback mockProgress;
 	@Mock
 	EventsCollector mockStatisticsCollector;
+	@Mock
+	StreamingFileUpload mockUpload;
 
 	@InjectMocks
 	BulkFileDownloadWorker worker;
@@ -84,6 +93,8 @@ public class BulkFileDownloadWorkerTest {
 	Message message;
 	S3FileHandle fileHandle1;
 	S3FileHandle fileHandle2;
+	Map<String, FileHandle> fileHandles;
+	byte[] fileContents;
 
 	List<File> mockTempFilesCreated;
 	List<ZipOutputStream> mockZipOutCreated;
@@ -133,10 +144,15 @@ public class BulkFileDownloadWorkerTest {
 				.thenReturn(
 						Arrays.asList(new FileHandleAssociationAuthorizationStatus(
 								fha1, AuthorizationStatus.authorized())));
-		when(mockBulkDownloadManager.getS3FileHandle(fha1.getFileHandleId()))
-				.thenReturn(fileHandle1);
-		when(mockBulkDownloadManager.getS3FileHandle(fha2.getFileHandleId()))
-				.thenReturn(fileHandle2);
+		fileHandles = new HashMap<>();
+		fileHandles.put(fileHandle1.getId(), fileHandle1);
+		fileHandles.put(fileHandle2.getId(), fileHandle2);
+		when(mockBulkDownloadManager.getFileHandles(any())).thenReturn(fileHandles);
+		// small files are downloaded to memory
+		fileContents = "file contents".getBytes("UTF-8");
+		when(mockBulkDownloadManager.downloadToMemory(any(S3FileHandle.class))).thenReturn(fileContents);
+		// download on the calling thread.
+		worker.bulkFileDownloadExecutorService = MoreExecutors.newDirectExecutorService();
 
 		// Create and track a mock file for each temp requested.
 		mockTempFilesCreated = Lists.newLinkedList();
@@ -191,9 +207,11 @@ public class BulkFileDownloadWorkerTest {
 		assertEquals(1, mockTempFilesCreated.size());
 		// ZipOutputStream should be created for the zip.
 		assertEquals(1, mockZipOutCreated.size());
-		// one file should have been downloaded
-		assertEquals(1, mockDownloadedFiles.size());
+		// one small file should have been downloaded to memory
+		verify(mockBulkDownloadManager).downloadToMemory(fileHandle1);
+		assertEquals(0, mockDownloadedFiles.size());
 		verifyAllStreamsClosedAndFilesDeleted();
+		verify(mockBulkDownloadManager).getFileHandles(Sets.newHashSet(fha1.getFileHandleId()));
 		
 		// The zip should get uploaded
 		verify(mockBulkDownloadManager, times(1)).multipartUploadLocalFile(localFileRequestCaptor.capture());
@@ -208,9 +226,10 @@ public class BulkFileDownloadWorkerTest {
 		
 		ArgumentCaptor<String> entryCapture = ArgumentCaptor
 				.forClass(String.class);
-		verify(mockBulkDownloadManager).addFileToZip(any(ZipOutputStream.class),
-				any(File.class), entryCapture.capture());
+		verify(mockBulkDownloadManager).addBytesToZip(any(ZipOutputStream.class),
+				eq(fileContents), entryCapture.capture());
 		assertEquals("1/1/foo.txt", entryCapture.getValue());
+		verify(mockBulkDownloadManager, never()).addFileToZip(any(ZipOutputStream.class), any(File.class), anyString());
 
 		// expect the job to be completed with the response body.
 		FileDownloadSummary summary = new FileDownloadSummary();
@@ -314,6 +333,10 @@ public class BulkFileDownloadWorkerTest {
 				anyString(), anyLong(), anyLong(), anyString());
 		
 		verifyAllStreamsClosedAndFilesDeleted();
+		// only the authorized file is looked up and downloaded
+		verify(mockBulkDownloadManager).getFileHandles(Sets.newHashSet(fha2.getFileHandleId()));
+		verify(mockBulkDownloadManager).downloadToMemory(fileHandle2);
+		verify(mockBulkDownloadManager, never()).downloadToMemory(fileHandle1);
 		// The zip should get uploaded
 		verify(mockBulkDownloadManager, times(1)).multipartUploadLocalFile(any(LocalFileUploadRequest.class));
 		// expect the job to be completed with the response body.
@@ -348,8 +371,8 @@ public class BulkFileDownloadWorkerTest {
 	 */
 	@Test
 	public void testRunNotFoundException() throws Exception {
-		String error = "does not exist";
-		when(mockBulkDownloadManager.getS3FileHandle(fha1.getFileHandleId())).thenThrow(new NotFoundException(error));
+		String error = BulkFileDownloadWorker.FILE_HANDLE_DOES_NOT_EXIST + fha1.getFileHandleId();
+		fileHandles.remove(fha1.getFileHandleId());
 
 		// call under test
 		worker.run(mockProgress, message);
@@ -381,7 +404,7 @@ public class BulkFileDownloadWorkerTest {
 	@Test
 	public void testRunUnknownException() throws Exception {
 		String error = "does not exist";
-		when(mockBulkDownloadManager.getS3FileHandle(fha1.getFileHandleId())).thenThrow(new RuntimeException(error));
+		when(mockBulkDownloadManager.downloadToMemory(fileHandle1)).thenThrow(new RuntimeException(error));
 
 		// call under test
 		worker.run(mockProgress, message);
@@ -406,6 +429,55 @@ public class BulkFileDownloadWorkerTest {
 				expectedResponse);
 	}
 	
+	/**
+	 * Only S3FileHandles can be added to the zip.
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunNotS3FileHandle() throws Exception {
+		ExternalFileHandle external = new ExternalFileHandle();
+		external.setId(fha1.getFileHandleId());
+		fileHandles.put(fha1.getFileHandleId(), external);
+
+		// call under test
+		worker.run(mockProgress, message);
+
+		verifyAllStreamsClosedAndFilesDeleted();
+		verify(mockBulkDownloadManager, never()).downloadToMemory(any(S3FileHandle.class));
+
+		FileDownloadSummary summary = new FileDownloadSummary();
+		summary.setFileHandleId(fha1.getFileHandleId());
+		summary.setAssociateObjectId(fha1.getAssociateObjectId());
+		summary.setAssociateObjectType(fha1.getAssociateObjectType());
+		summary.setStatus(FileDownloadStatus.FAILURE);
+		summary.setFailureCode(FileDownloadCode.UNKNOWN_ERROR);
+		summary.setFailureMessage(BulkFileDownloadWorker.ONLY_S3_FILE_HANDLES_CAN_BE_DOWNLOADED);
+		BulkFileDownloadResponse expectedResponse = new BulkFileDownloadResponse();
+		expectedResponse.setResultZipFileHandleId(null);
+		expectedResponse.setFileSummary(Arrays.asList(summary));
+		expectedResponse.setUserId(""+user.getId());
+		verify(mockAsynchJobStatusManager).setComplete(jobStatus.getJobId(),
+				expectedResponse);
+	}
+	
+	/**
+	 * Files over the in memory limit are downloaded to a temporary file.
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunLargeFile() throws Exception {
+		fileHandle1.setContentSize(BulkFileDownloadWorker.MAX_IN_MEMORY_FILE_BYTES + 1);
+		// call under test
+		worker.run(mockProgress, message);
+
+		assertEquals(1, mockDownloadedFiles.size());
+		verifyAllStreamsClosedAndFilesDeleted();
+		verify(mockBulkDownloadManager, never()).downloadToMemory(any(S3FileHandle.class));
+		verify(mockBulkDownloadManager).addFileToZip(any(ZipOutputStream.class), eq(mockDownloadedFiles.get(0)),
+				eq("1/1/foo.txt"));
+		verify(mockBulkDownloadManager, times(1)).multipartUploadLocalFile(any(LocalFileUploadRequest.class));
+	}
+	
 	/**
 	 * A single S3File exceeds the max file size.
 	 * @throws Exception
@@ -492,6 +564,8 @@ public class BulkFileDownloadWorkerTest {
 		worker.run(mockProgress, message);
 
 		verifyAllStreamsClosedAndFilesDeleted();
+		// The file should only be downloaded once.
+		verify(mockBulkDownloadManager, times(1)).downloadToMemory(fileHandle1);
 		// The zip should get uploaded
 		verify(mockBulkDownloadManager, times(1)).multipartUploadLocalFile(any(LocalFileUploadRequest.class));
 		// expect the job to be completed with the response body.
@@ -540,6 +614,112 @@ public class BulkFileDownloadWorkerTest {
 				exception);
 	}
 	
+	@Test
+	public void testRunStreaming() throws Exception {
+		worker.setStreamingEnabled(true);
+		when(mockBulkDownloadManager.startStreamingUpload(any(LocalFileUploadRequest.class))).thenReturn(mockUpload);
+		when(mockUpload.complete()).thenReturn(resultHandle);
+		// call under test
+		worker.run(mockProgress, message);
+		// nothing is written to local disk
+		verify(mockBulkDownloadManager, never()).createTempFile(anyString(), anyString());
+		verify(mockBulkDownloadManager, never()).createZipOutputStream(any(File.class));
+		verify(mockBulkDownloadManager, never()).multipartUploadLocalFile(any(LocalFileUploadRequest.class));
+		verify(mockBulkDownloadManager).startStreamingUpload(localFileRequestCaptor.capture());
+		LocalFileUploadRequest request = localFileRequestCaptor.getValue();
+		// the default name
+		assertEquals("Job" + jobStatus.getJobId() + ".zip", request.getFileName());
+		assertEquals(BulkFileDownloadWorker.APPLICATION_ZIP, request.getContentType());
+		assertEquals(user.getId().toString(), request.getUserId());
+		verify(mockBulkDownloadManager).addBytesToZip(any(ZipOutputStream.class), eq(fileContents), eq("1/1/foo.txt"));
+		verify(mockUpload).complete();
+
+		FileDownloadSummary summary = new FileDownloadSummary();
+		summary.setFileHandleId(fha1.getFileHandleId());
+		summary.setAssociateObjectId(fha1.getAssociateObjectId());
+		summary.setAssociateObjectType(fha1.getAssociateObjectType());
+		summary.setStatus(FileDownloadStatus.SUCCESS);
+		summary.setZipEntryName("1/1/foo.txt");
+		BulkFileDownloadResponse expectedResponse = new BulkFileDownloadResponse();
+		expectedResponse.setResultZipFileHandleId(resultHandle.getId());
+		expectedResponse.setFileSummary(Arrays.asList(summary));
+		expectedResponse.setUserId(""+user.getId());
+		verify(mockStatisticsCollector, times(1)).collectEvents(any());
+		verify(mockAsynchJobStatusManager).setComplete(jobStatus.getJobId(),
+				expectedResponse);
+	}
+	
+	@Test
+	public void testRunStreamingWithName() throws Exception {
+		worker.setStreamingEnabled(true);
+		String fileName = "aRealFileName.zip";
+		this.requestBody.setZipFileName(fileName);
+		when(mockBulkDownloadManager.startStreamingUpload(any(LocalFileUploadRequest.class))).thenReturn(mockUpload);
+		when(mockUpload.complete()).thenReturn(resultHandle);
+		// call under test
+		worker.run(mockProgress, message);
+		verify(mockBulkDownloadManager).startStreamingUpload(localFileRequestCaptor.capture());
+		assertEquals(fileName, localFileRequestCaptor.getValue().getFileName());
+	}
+	
+	/**
+	 * When no files are added to the zip the upload is discarded.
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunStreamingNoFilesAdded() throws Exception {
+		worker.setStreamingEnabled(true);
+		when(mockBulkDownloadManager.startStreamingUpload(any(LocalFileUploadRequest.class))).thenReturn(mockUpload);
+		when(mockBulkDownloadManager.canDownLoadFile(user, Arrays.asList(fha1)))
+				.thenReturn(
+						Arrays.asList(new FileHandleAssociationAuthorizationStatus(
+								fha1, AuthorizationStatus
+										.accessDenied("because"))));
+		// call under test
+		worker.run(mockProgress, message);
+		verify(mockUpload, never()).complete();
+		verify(mockUpload).abort();
+		ArgumentCaptor<BulkFileDownloadResponse> responseCaptor = ArgumentCaptor.forClass(BulkFileDownloadResponse.class);
+		verify(mockAsynchJobStatusManager).setComplete(eq(jobStatus.getJobId()), responseCaptor.capture());
+		assertEquals(null, responseCaptor.getValue().getResultZipFileHandleId());
+	}
+	
+	/**
+	 * The streamed zip has grown past the maximum size.
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunStreamingZipFull() throws Exception {
+		worker.setStreamingEnabled(true);
+		when(mockBulkDownloadManager.startStreamingUpload(any(LocalFileUploadRequest.class))).thenReturn(mockUpload);
+		when(mockUpload.getBytesWritten()).thenReturn(FileConstants.BULK_FILE_DOWNLOAD_MAX_SIZE_BYTES+1);
+		// call under test
+		worker.run(mockProgress, message);
+		verify(mockUpload, never()).complete();
+		verify(mockUpload).abort();
+		ArgumentCaptor<BulkFileDownloadResponse> responseCaptor = ArgumentCaptor.forClass(BulkFileDownloadResponse.class);
+		verify(mockAsynchJobStatusManager).setComplete(eq(jobStatus.getJobId()), responseCaptor.capture());
+		FileDownloadSummary summary = responseCaptor.getValue().getFileSummary().get(0);
+		assertEquals(FileDownloadCode.EXCEEDS_SIZE_LIMIT, summary.getFailureCode());
+		assertEquals(BulkFileDownloadWorker.RESULT_FILE_HAS_REACHED_THE_MAXIMUM_SIZE, summary.getFailureMessage());
+	}
+	
+	/**
+	 * A failure to complete the upload fails the job.
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunStreamingUploadFailure() throws Exception {
+		worker.setStreamingEnabled(true);
+		when(mockBulkDownloadManager.startStreamingUpload(any(LocalFileUploadRequest.class))).thenReturn(mockUpload);
+		IOException exception = new IOException("upload failed");
+		when(mockUpload.complete()).thenThrow(exception);
+		// call under test
+		worker.run(mockProgress, message);
+		verify(mockUpload).abort();
+		verify(mockAsynchJobStatusManager).setJobFailed(jobStatus.getJobId(), exception);
+	}
+	
 	@Test
 	public void testCreateZipEntryNameProviderCommandLine() {
 		ZipFileFormat format = ZipFileFormat.CommandLineCache;
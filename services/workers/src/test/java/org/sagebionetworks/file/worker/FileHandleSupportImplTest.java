@@ -1,15 +1,22 @@
 package org.sagebionetworks.file.worker;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -21,12 +28,16 @@ import org.mockito.Mockito;
 import org.sagebionetworks.aws.SynapseS3Client;
 import org.sagebionetworks.repo.manager.file.FileHandleAuthorizationManager;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
+import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.model.dao.FileHandleDao;
 import org.sagebionetworks.repo.model.file.ExternalFileHandle;
+import org.sagebionetworks.repo.model.file.FileHandle;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
 
 public class FileHandleSupportImplTest {
 	
@@ -113,23 +124,60 @@ public class FileHandleSupportImplTest {
 	}
 	
 	@Test
-	public void testGetS3FileHandle(){
-		String fileHandleId = "123";
+	public void testGetFileHandles(){
 		S3FileHandle s3Handle = new S3FileHandle();
-		s3Handle.setId(fileHandleId);
-		
-		when(mockFileHandleDao.get(fileHandleId)).thenReturn(s3Handle);
-		S3FileHandle result = bulkDownloadDao.getS3FileHandle(fileHandleId);
-		assertEquals(s3Handle, result);
+		s3Handle.setId("123");
+		ExternalFileHandle external = new ExternalFileHandle();
+		external.setId("456");
+		Map<String, FileHandle> handles = new HashMap<>();
+		handles.put(s3Handle.getId(), s3Handle);
+		handles.put(external.getId(), external);
+		List<String> ids = Arrays.asList("123", "456");
+		when(mockFileHandleDao.getAllFileHandlesBatch(ids)).thenReturn(handles);
+		// call under test
+		Map<String, FileHandle> result = bulkDownloadDao.getFileHandles(ids);
+		assertEquals(handles, result);
 	}
 	
-	@Test (expected=IllegalArgumentException.class)
-	public void testGetS3FileHandleNotS3(){
-		String fileHandleId = "123";
-		ExternalFileHandle handle = new ExternalFileHandle();
-		handle.setId(fileHandleId);
-		when(mockFileHandleDao.get(fileHandleId)).thenReturn(handle);
-		bulkDownloadDao.getS3FileHandle(fileHandleId);
+	@Test
+	public void testStartStreamingUpload(){
+		LocalFileUploadRequest request = new LocalFileUploadRequest().withFileName("foo.zip");
+		StreamingFileUpload upload = Mockito.mock(StreamingFileUpload.class);
+		when(mockFileHandleManager.startStreamingUpload(request)).thenReturn(upload);
+		// call under test
+		assertEquals(upload, bulkDownloadDao.startStreamingUpload(request));
+	}
+	
+	@Test
+	public void testDownloadToMemory() throws IOException{
+		S3FileHandle s3Handle = new S3FileHandle();
+		s3Handle.setId("123");
+		s3Handle.setKey("someKey");
+		s3Handle.setBucketName("someBucket");
+		byte[] contents = "some data".getBytes("UTF-8");
+		S3Object object = new S3Object();
+		object.setObjectContent(new ByteArrayInputStream(contents));
+		when(mockS3client.getObject("someBucket", "someKey")).thenReturn(object);
+		// call under test
+		byte[] result = bulkDownloadDao.downloadToMemory(s3Handle);
+		assertArrayEquals(contents, result);
+	}
+	
+	@Test
+	public void testAddBytesToZip() throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ZipOutputStream zipOut = new ZipOutputStream(out);
+		String contents = "data for one";
+		String entryName = "p1/One.txt";
+		// call under test
+		bulkDownloadDao.addBytesToZip(zipOut, contents.getBytes("UTF-8"), entryName);
+		zipOut.close();
+		
+		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+		ZipEntry entry = zipIn.getNextEntry();
+		assertEquals(entryName, entry.getName());
+		assertEquals(contents, IOUtils.toString(zipIn, "UTF-8"));
+		zipIn.close();
 	}
 	
 	@Test
@@ -0,0 +1,280 @@
+package org.sagebionetworks.file.worker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.sagebionetworks.file.worker.PrefetchingFileDownloader.DownloadedFile;
+import org.sagebionetworks.repo.model.file.S3FileHandle;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+@ExtendWith(MockitoExtension.class)
+public class PrefetchingFileDownloaderTest {
+
+	@Mock
+	private FileHandleSupport mockFileHandleSupport;
+	@Mock
+	private ExecutorService mockExecutor;
+	@Mock
+	private File mockFile;
+	@Mock
+	private ZipOutputStream mockZipOut;
+
+	private ExecutorService directExecutor;
+	// tasks submitted to the mock executor that have not been run.
+	private List<FutureTask<?>> submitted;
+	private byte[] contents;
+
+	@BeforeEach
+	public void before() throws IOException {
+		directExecutor = MoreExecutors.newDirectExecutorService();
+		submitted = new ArrayList<>();
+		contents = "some data".getBytes("UTF-8");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void setupManualExecutor() {
+		when(mockExecutor.submit(any(Callable.class))).then((invocation) -> {
+			FutureTask task = new FutureTask((Callable) invocation.getArgument(0));
+			submitted.add(task);
+			return task;
+		});
+	}
+
+	static S3FileHandle createHandle(String id, Long size) {
+		S3FileHandle handle = new S3FileHandle();
+		handle.setId(id);
+		handle.setContentSize(size);
+		handle.setBucketName("bucket");
+		handle.setKey("key" + id);
+		return handle;
+	}
+
+	@Test
+	public void testStartLimitedByFileCount() throws IOException {
+		setupManualExecutor();
+		when(mockFileHandleSupport.downloadToMemory(any(S3FileHandle.class))).thenReturn(contents);
+		List<S3FileHandle> handles = Arrays.asList(createHandle("1", 10L), createHandle("2", 10L),
+				createHandle("3", 10L), createHandle("4", 10L));
+		// call under test
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, mockExecutor,
+				handles, 2, 1000L, 100L);
+		assertEquals(2, submitted.size());
+		assertEquals(2, downloader.getStartedCount());
+		assertEquals(20L, downloader.getBytesInFlight());
+		submitted.get(0).run();
+		// call under test
+		DownloadedFile downloaded = downloader.take(handles.get(0));
+		assertArrayEquals(contents, downloaded.getBytes());
+		// taking the first starts the third.
+		assertEquals(3, submitted.size());
+		assertEquals(2, downloader.getStartedCount());
+		downloader.cancel();
+	}
+
+	@Test
+	public void testStartLimitedByBytes() throws IOException {
+		setupManualExecutor();
+		when(mockFileHandleSupport.downloadToMemory(any(S3FileHandle.class))).thenReturn(contents);
+		List<S3FileHandle> handles = Arrays.asList(createHandle("1", 60L), createHandle("2", 60L),
+				createHandle("3", 30L));
+		// call under test
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, mockExecutor,
+				handles, 10, 100L, 100L);
+		assertEquals(1, submitted.size());
+		assertEquals(60L, downloader.getBytesInFlight());
+		submitted.get(0).run();
+		// call under test
+		downloader.take(handles.get(0));
+		// the second and third fit under the limit.
+		assertEquals(3, submitted.size());
+		assertEquals(90L, downloader.getBytesInFlight());
+		downloader.cancel();
+	}
+
+	@Test
+	public void testFirstAlwaysStarted() {
+		setupManualExecutor();
+		List<S3FileHandle> handles = Collections.singletonList(createHandle("1", 1000L));
+		// call under test
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, mockExecutor,
+				handles, 10, 100L, 100L);
+		assertEquals(1, submitted.size());
+		downloader.cancel();
+	}
+
+	@Test
+	public void testSmallFileInMemory() throws IOException {
+		S3FileHandle handle = createHandle("1", 10L);
+		when(mockFileHandleSupport.downloadToMemory(handle)).thenReturn(contents);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 10L);
+		// call under test
+		DownloadedFile downloaded = downloader.take(handle);
+		assertArrayEquals(contents, downloaded.getBytes());
+		assertNull(downloaded.getFile());
+		downloaded.addToZip(mockFileHandleSupport, mockZipOut, "entry");
+		verify(mockFileHandleSupport).addBytesToZip(mockZipOut, contents, "entry");
+		verify(mockFileHandleSupport, never()).downloadToTempFile(any(S3FileHandle.class));
+		downloader.cancel();
+	}
+
+	@Test
+	public void testLargeFileToTempFile() throws IOException {
+		S3FileHandle handle = createHandle("1", 11L);
+		when(mockFileHandleSupport.downloadToTempFile(handle)).thenReturn(mockFile);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 10L);
+		// call under test
+		DownloadedFile downloaded = downloader.take(handle);
+		assertSame(mockFile, downloaded.getFile());
+		downloaded.addToZip(mockFileHandleSupport, mockZipOut, "entry");
+		verify(mockFileHandleSupport).addFileToZip(mockZipOut, mockFile, "entry");
+		verify(mockFileHandleSupport, never()).downloadToMemory(any(S3FileHandle.class));
+		// a taken file belongs to the caller.
+		downloader.cancel();
+		verify(mockFile, never()).delete();
+		downloaded.delete();
+		verify(mockFile).delete();
+	}
+
+	@Test
+	public void testNullSizeToTempFile() throws IOException {
+		S3FileHandle handle = createHandle("1", null);
+		when(mockFileHandleSupport.downloadToTempFile(handle)).thenReturn(mockFile);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 10L);
+		// call under test
+		DownloadedFile downloaded = downloader.take(handle);
+		assertSame(mockFile, downloaded.getFile());
+		downloader.cancel();
+	}
+
+	@Test
+	public void testCancelDeletesUntakenFiles() throws IOException {
+		S3FileHandle handle = createHandle("1", 100L);
+		when(mockFileHandleSupport.downloadToTempFile(handle)).thenReturn(mockFile);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 10L);
+		// call under test
+		downloader.cancel();
+		verify(mockFile).delete();
+		assertEquals(0, downloader.getStartedCount());
+		assertThrows(IllegalStateException.class, () -> {
+			downloader.take(handle);
+		});
+	}
+
+	@Test
+	public void testCancelStopsDownloads() {
+		setupManualExecutor();
+		List<S3FileHandle> handles = Arrays.asList(createHandle("1", 10L), createHandle("2", 10L));
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, mockExecutor,
+				handles, 10, 1000L, 100L);
+		// call under test
+		downloader.cancel();
+		for (FutureTask<?> task : submitted) {
+			assertEquals(true, task.isCancelled());
+		}
+	}
+
+	@Test
+	public void testTakeNotInList() throws IOException {
+		S3FileHandle handle = createHandle("1", 10L);
+		when(mockFileHandleSupport.downloadToMemory(handle)).thenReturn(contents);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.emptyList(), 10, 1000L, 100L);
+		// call under test
+		DownloadedFile downloaded = downloader.take(handle);
+		assertArrayEquals(contents, downloaded.getBytes());
+		downloader.cancel();
+	}
+
+	@Test
+	public void testTakeTwice() throws IOException {
+		S3FileHandle handle = createHandle("1", 10L);
+		when(mockFileHandleSupport.downloadToMemory(handle)).thenReturn(contents);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 100L);
+		downloader.take(handle);
+		// call under test
+		downloader.take(handle);
+		// the second take downloads the file again.
+		verify(mockFileHandleSupport, times(2)).downloadToMemory(handle);
+		downloader.cancel();
+	}
+
+	@Test
+	public void testDuplicateDownloadedOnce() throws IOException {
+		S3FileHandle handle = createHandle("1", 10L);
+		when(mockFileHandleSupport.downloadToMemory(handle)).thenReturn(contents);
+		// call under test
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Arrays.asList(handle, handle), 10, 1000L, 100L);
+		assertEquals(1, downloader.getStartedCount());
+		verify(mockFileHandleSupport, times(1)).downloadToMemory(handle);
+		downloader.cancel();
+	}
+
+	@Test
+	public void testDownloadFailure() throws IOException {
+		S3FileHandle handle = createHandle("1", 10L);
+		IOException exception = new IOException("failed");
+		when(mockFileHandleSupport.downloadToMemory(handle)).thenThrow(exception);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 100L);
+		IOException thrown = assertThrows(IOException.class, () -> {
+			// call under test
+			downloader.take(handle);
+		});
+		assertSame(exception, thrown);
+		downloader.cancel();
+	}
+
+	@Test
+	public void testDownloadRuntimeFailure() throws IOException {
+		S3FileHandle handle = createHandle("1", 10L);
+		IllegalStateException exception = new IllegalStateException("failed");
+		when(mockFileHandleSupport.downloadToMemory(handle)).thenThrow(exception);
+		PrefetchingFileDownloader downloader = new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor,
+				Collections.singletonList(handle), 10, 1000L, 100L);
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> {
+			// call under test
+			downloader.take(handle);
+		});
+		assertSame(exception, thrown);
+		downloader.cancel();
+	}
+
+	@Test
+	public void testZeroFilesInFlight() {
+		assertThrows(IllegalArgumentException.class, () -> {
+			new PrefetchingFileDownloader(mockFileHandleSupport, directExecutor, Collections.emptyList(), 0, 1000L,
+					100L);
+		});
+	}
+}
@@ -1,6 +1,7 @@
 package org.sagebionetworks.schema.worker;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -68,13 +69,21 @@ public class SchemaValidationWorkerTest {
 
 		// call under test
 		worker.run(mockProgressCallback, messages);
-		verify(mockEntitySchemaManager).validateObject(entityIdOne);
-		verify(mockEntitySchemaManager, never()).validateObject(nonEntityId);
-		verify(mockEntitySchemaManager).validateObject(entityIdTwo);
+		verify(mockEntitySchemaManager).validateObjects(Lists.newArrayList(entityIdOne, entityIdTwo));
+		verify(mockEntitySchemaManager, never()).validateObject(any());
 		verifyZeroInteractions(mockWorkerLogger);
 
 	}
 
+	@Test
+	public void testRunWithNoEntities() throws RecoverableMessageException, Exception {
+		messages = Lists.newArrayList(messages.get(1));
+		// call under test
+		worker.run(mockProgressCallback, messages);
+		verifyZeroInteractions(mockEntitySchemaManager);
+		verifyZeroInteractions(mockWorkerLogger);
+	}
+
 	@Test
 	public void testRunWithNullChanges() throws RecoverableMessageException, Exception {
 		messages = null;
@@ -87,6 +96,7 @@ public class SchemaValidationWorkerTest {
 	@Test
 	public void testRunWithFailures() throws RecoverableMessageException, Exception {
 		IllegalStateException someException = new IllegalStateException("something went wrong");
+		doThrow(someException).when(mockEntitySchemaManager).validateObjects(any());
 		doThrow(someException).when(mockEntitySchemaManager).validateObject(entityIdOne);
 		// call under test
 		worker.run(mockProgressCallback, messages);
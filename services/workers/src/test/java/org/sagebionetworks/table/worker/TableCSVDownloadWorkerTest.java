@@ -2,11 +2,15 @@ package org.sagebionetworks.table.worker;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,11 +29,13 @@ import org.sagebionetworks.repo.manager.UserManager;
 import org.sagebionetworks.repo.manager.asynch.AsynchJobStatusManager;
 import org.sagebionetworks.repo.manager.file.FileHandleManager;
 import org.sagebionetworks.repo.manager.file.LocalFileUploadRequest;
+import org.sagebionetworks.repo.manager.file.StreamingFileUpload;
 import org.sagebionetworks.repo.manager.table.TableQueryManager;
 import org.sagebionetworks.repo.model.UserInfo;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.dbo.dao.table.TableExceptionTranslator;
 import org.sagebionetworks.repo.model.file.S3FileHandle;
+import org.sagebionetworks.repo.model.table.CsvTableDescriptor;
 import org.sagebionetworks.repo.model.table.DownloadFromTableRequest;
 import org.sagebionetworks.repo.model.table.DownloadFromTableResult;
 import org.sagebionetworks.repo.model.table.Query;
@@ -60,6 +66,8 @@ public class TableCSVDownloadWorkerTest {
 	private Clock mockClock;
 	@Mock
 	private TableExceptionTranslator mockTableExceptionTranslator;
+	@Mock
+	private StreamingFileUpload mockUpload;
 
 	@Mock
 	ProgressCallback mockProgressCallback;
@@ -78,6 +86,8 @@ public class TableCSVDownloadWorkerTest {
 	Message message;
 
 	DownloadFromTableResult results;
+	QueryResultBundle countResults;
+	S3FileHandle fileHandle;
 
 	RuntimeException translatedException;
 
@@ -106,7 +116,7 @@ public class TableCSVDownloadWorkerTest {
 		when(mockTableQueryManager.runQueryDownloadAsStream(any(ProgressCallback.class), any(UserInfo.class),
 				any(DownloadFromTableRequest.class), any(CSVWriterStream.class))).thenReturn(results);
 		
-		QueryResultBundle countResults = new QueryResultBundle();
+		countResults = new QueryResultBundle();
 		countResults.setQueryCount(100L);
 		when(mockTableQueryManager.querySinglePage(any(ProgressCallback.class),
 				any(UserInfo.class), any(Query.class), any(QueryOptions.class))).thenReturn(countResults);
@@ -121,23 +131,91 @@ public class TableCSVDownloadWorkerTest {
 			}
 		}).when(mockTableExceptionTranslator).translateException(any(Throwable.class));
 		
-		S3FileHandle fileHandle = new S3FileHandle();
+		fileHandle = new S3FileHandle();
 		fileHandle.setId("8888");
-		when(mockFileHandleManager.uploadLocalFile(any(LocalFileUploadRequest.class))).thenReturn(fileHandle);
+		when(mockFileHandleManager.startStreamingUpload(any(LocalFileUploadRequest.class))).thenReturn(mockUpload);
 
 	}
 
 	@Test
 	public void testBasicQuery() throws Exception {
+		when(mockUpload.complete()).thenReturn(fileHandle);
 		// call under test
 		worker.run(mockProgressCallback, message);
 		verify(mockAsynchJobStatusManager).setComplete(jobId, results);
-		verify(mockFileHandleManager).uploadLocalFile(fileUploadCaptor.capture());
+		assertEquals(fileHandle.getId(), results.getResultsFileHandleId());
+		verify(mockFileHandleManager).startStreamingUpload(fileUploadCaptor.capture());
 		LocalFileUploadRequest request = fileUploadCaptor.getValue();
 		assertNotNull(request);
 		assertEquals(userInfo.getId().toString(), request.getUserId());
 		assertEquals("text/csv", request.getContentType());
-		assertEquals(null, request.getFileName());
+		assertEquals("Job-1.csv", request.getFileName());
+		assertEquals(null, request.getFileToUpload());
+		verify(mockUpload).complete();
+		verify(mockUpload).abort();
+	}
+
+	/**
+	 * The count is left out of the results when it does not complete in time,
+	 * which must not fail the download.
+	 */
+	@Test
+	public void testQueryWithoutCount() throws Exception {
+		countResults.setQueryCount(null);
+		when(mockUpload.complete()).thenReturn(fileHandle);
+		// call under test
+		worker.run(mockProgressCallback, message);
+		verify(mockAsynchJobStatusManager).setComplete(jobId, results);
+		assertEquals(fileHandle.getId(), results.getResultsFileHandleId());
+	}
+
+	@Test
+	public void testCompressResults() throws Exception {
+		request.setCompressResults(true);
+		when(mockUpload.complete()).thenReturn(fileHandle);
+		// call under test
+		worker.run(mockProgressCallback, message);
+		verify(mockAsynchJobStatusManager).setComplete(jobId, results);
+		verify(mockFileHandleManager).startStreamingUpload(fileUploadCaptor.capture());
+		LocalFileUploadRequest request = fileUploadCaptor.getValue();
+		assertEquals(TableCSVDownloadWorker.APPLICATION_GZIP, request.getContentType());
+		assertEquals("Job-1.csv.gz", request.getFileName());
+		// the gzip header and trailer are written to the upload.
+		verify(mockUpload, atLeastOnce()).write(any(byte[].class), anyInt(), anyInt());
+		verify(mockUpload).complete();
+	}
+
+	@Test
+	public void testTabSeparated() throws Exception {
+		CsvTableDescriptor descriptor = new CsvTableDescriptor();
+		descriptor.setSeparator("\t");
+		request.setCsvTableDescriptor(descriptor);
+		when(mockUpload.complete()).thenReturn(fileHandle);
+		// call under test
+		worker.run(mockProgressCallback, message);
+		verify(mockFileHandleManager).startStreamingUpload(fileUploadCaptor.capture());
+		LocalFileUploadRequest request = fileUploadCaptor.getValue();
+		assertEquals("text/tsv", request.getContentType());
+		assertEquals("Job-1.tsv", request.getFileName());
+	}
+
+	@Test
+	public void testProgressMessageIncludesBytesUploaded() throws Exception {
+		when(mockUpload.complete()).thenReturn(fileHandle);
+		when(mockUpload.getBytesWritten()).thenReturn(1024L);
+		when(mockClock.currentTimeMillis()).thenReturn(0L, ProgressingCSVWriterStream.UPDATE_FEQUENCY_MS + 1);
+		doAnswer(invocation -> {
+			CSVWriterStream stream = (CSVWriterStream) invocation.getArguments()[3];
+			stream.writeNext(new String[] { "one" });
+			return results;
+		}).when(mockTableQueryManager).runQueryDownloadAsStream(any(ProgressCallback.class), any(UserInfo.class),
+				any(DownloadFromTableRequest.class), any(CSVWriterStream.class));
+		// call under test
+		worker.run(mockProgressCallback, message);
+		ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+		// progress is measured in rows since there is one upload for all rows.
+		verify(mockAsynchJobStatusManager).updateJobProgress(eq(jobId), eq(0L), eq(100L), messageCaptor.capture());
+		assertTrue(messageCaptor.getValue().contains("1024 bytes written"));
 	}
 
 	@Test
@@ -181,6 +259,9 @@ public class TableCSVDownloadWorkerTest {
 		// call under test
 		worker.run(mockProgressCallback, message);
 		verify(mockAsynchJobStatusManager).setJobFailed(jobId, exception);
+		// the upload must be discarded
+		verify(mockUpload).abort();
+		verify(mockUpload, never()).complete();
 	}
 
 	@Test